@@ -32,7 +32,9 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.sonar.api.server.ServerSide;
 import org.sonar.ce.task.CeTask;
 import org.sonar.core.util.UuidFactory;
@@ -59,11 +61,20 @@ public class CeQueueImpl implements CeQueue {
   private final DbClient dbClient;
   private final UuidFactory uuidFactory;
   private final DefaultOrganizationProvider defaultOrganizationProvider;
+  @CheckForNull
+  private final CeQueueNotifier notifier;
 
   public CeQueueImpl(DbClient dbClient, UuidFactory uuidFactory, DefaultOrganizationProvider defaultOrganizationProvider) {
+    this(dbClient, uuidFactory, defaultOrganizationProvider, null);
+  }
+
+  // this constructor is used by picocontainer when a CeQueueNotifier is available
+  public CeQueueImpl(DbClient dbClient, UuidFactory uuidFactory, DefaultOrganizationProvider defaultOrganizationProvider,
+    @Nullable CeQueueNotifier notifier) {
     this.dbClient = dbClient;
     this.uuidFactory = uuidFactory;
     this.defaultOrganizationProvider = defaultOrganizationProvider;
+    this.notifier = notifier;
   }
 
   @Override
@@ -91,6 +102,7 @@ public class CeQueueImpl implements CeQueue {
       CeQueueDto dto = addToQueueInDb(dbSession, submission);
       CeTask task = loadTask(dbSession, dto);
       dbSession.commit();
+      notifyTasksSubmitted();
       return java.util.Optional.of(task);
     }
   }
@@ -108,10 +120,19 @@ public class CeQueueImpl implements CeQueue {
         .collect(Collectors.toList());
       List<CeTask> tasks = loadTasks(dbSession, ceQueueDtos);
       dbSession.commit();
+      if (!tasks.isEmpty()) {
+        notifyTasksSubmitted();
+      }
       return tasks;
     }
   }
 
+  private void notifyTasksSubmitted() {
+    if (notifier != null) {
+      notifier.notifyTasksSubmitted();
+    }
+  }
+
   private Predicate<CeTaskSubmit> filterBySubmitOptions(SubmitOption[] options, Collection<CeTaskSubmit> submissions, DbSession dbSession) {
     EnumSet<SubmitOption> submitOptions = toSet(options);
 
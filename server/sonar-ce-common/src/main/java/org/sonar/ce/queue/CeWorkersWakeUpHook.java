@@ -0,0 +1,53 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Entry point for Hazelcast's distributed calls, in cluster mode, which wake up the idle workers of the Compute Engine
+ * running on the cluster node.
+ */
+public final class CeWorkersWakeUpHook {
+
+  @CheckForNull
+  private static volatile Runnable wakeUp;
+
+  private CeWorkersWakeUpHook() {
+    // prevents instantiation
+  }
+
+  public static void register(@Nullable Runnable wakeUpIdleWorkers) {
+    wakeUp = wakeUpIdleWorkers;
+  }
+
+  /**
+   * @return {@code false} if no Compute Engine workers are registered in this JVM
+   */
+  public static boolean wakeUpFromHazelcastDistributedCall() {
+    Runnable runnable = wakeUp;
+    if (runnable == null) {
+      return false;
+    }
+    runnable.run();
+    return true;
+  }
+}
@@ -49,6 +49,10 @@ import static java.util.Arrays.asList;
 import static org.apache.commons.lang.RandomStringUtils.randomAlphabetic;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.sonar.ce.queue.CeQueue.SubmitOption.UNIQUE_QUEUE_PER_COMPONENT;
 
 public class CeQueueImplTest {
@@ -79,6 +83,42 @@ public class CeQueueImplTest {
     verifyCeQueueDtoForTaskSubmit(taskSubmit);
   }
 
+  @Test
+  public void submit_notifies_CeQueueNotifier_once_task_is_persisted() {
+    CeQueueNotifier notifier = mock(CeQueueNotifier.class);
+    doAnswer(invocation -> {
+      assertThat(db.countRowsOfTable("ce_queue")).isEqualTo(1);
+      return null;
+    }).when(notifier).notifyTasksSubmitted();
+    CeQueue underTest = new CeQueueImpl(db.getDbClient(), uuidFactory, defaultOrganizationProvider, notifier);
+
+    underTest.submit(createTaskSubmit(CeTaskTypes.REPORT, "PROJECT_1", null));
+
+    verify(notifier).notifyTasksSubmitted();
+  }
+
+  @Test
+  public void submit_with_UNIQUE_QUEUE_PER_COMPONENT_does_not_notify_CeQueueNotifier_when_no_task_is_created() {
+    CeQueueNotifier notifier = mock(CeQueueNotifier.class);
+    CeQueue underTest = new CeQueueImpl(db.getDbClient(), uuidFactory, defaultOrganizationProvider, notifier);
+    String componentUuid = randomAlphabetic(5);
+    insertPendingInQueue(componentUuid);
+
+    underTest.submit(createTaskSubmit("with_component", componentUuid, null), UNIQUE_QUEUE_PER_COMPONENT);
+
+    verifyZeroInteractions(notifier);
+  }
+
+  @Test
+  public void massSubmit_notifies_CeQueueNotifier_once_for_all_tasks() {
+    CeQueueNotifier notifier = mock(CeQueueNotifier.class);
+    CeQueue underTest = new CeQueueImpl(db.getDbClient(), uuidFactory, defaultOrganizationProvider, notifier);
+
+    underTest.massSubmit(asList(createTaskSubmit("type1"), createTaskSubmit("type2")));
+
+    verify(notifier).notifyTasksSubmitted();
+  }
+
   @Test
   public void submit_populates_component_name_and_key_of_CeTask_if_component_exists() {
     ComponentDto componentDto = insertComponent(ComponentTesting.newPrivateProjectDto(db.organizations().insert(), "PROJECT_1"));
@@ -0,0 +1,58 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.task.projectanalysis.component;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.sonar.core.util.Uuids;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.component.KeyWithUuidDto;
+
+/**
+ * Same as {@link ComponentUuidFactory} but the UUIDs of the components existing in database are scrolled into a
+ * {@link SortedKeyUuidIndex}, which is stored off-heap, instead of being loaded in a {@link HashMap}.
+ * Only the UUIDs generated for new components are kept on heap.
+ */
+public class CompactComponentUuidFactory {
+
+  private final SortedKeyUuidIndex existingUuidsByKey;
+  private final Map<String, String> createdUuidsByKey = new HashMap<>();
+
+  public CompactComponentUuidFactory(DbClient dbClient, DbSession dbSession, String rootKey) {
+    SortedKeyUuidIndex.Builder builder = SortedKeyUuidIndex.builder();
+    dbClient.componentDao().scrollUuidsByKeyFromProjectKey(dbSession, rootKey, context -> {
+      KeyWithUuidDto dto = context.getResultObject();
+      builder.add(dto.key(), dto.uuid());
+    });
+    this.existingUuidsByKey = builder.build();
+  }
+
+  /**
+   * Get UUID from database if it exists, otherwise generate a new one.
+   */
+  public String getOrCreateForKey(String key) {
+    String uuid = existingUuidsByKey.get(key);
+    if (uuid != null) {
+      return uuid;
+    }
+    return createdUuidsByKey.computeIfAbsent(key, k -> Uuids.create());
+  }
+}
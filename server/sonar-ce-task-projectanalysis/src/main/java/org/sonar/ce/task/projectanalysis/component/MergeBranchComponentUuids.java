@@ -47,22 +47,23 @@ public class MergeBranchComponentUuids {
     this.dbClient = dbClient;
   }
 
-  private void lazyInit() {
+  private synchronized void lazyInit() {
     if (uuidsByKey == null) {
       String mergeBranchUuid = analysisMetadataHolder.getBranch().getMergeBranchUuid().get();
 
-      uuidsByKey = new HashMap<>();
+      Map<String, String> loadedUuidsByKey = new HashMap<>();
       try (DbSession dbSession = dbClient.openSession(false)) {
 
         List<ComponentDto> components = dbClient.componentDao().selectByProjectUuid(mergeBranchUuid, dbSession);
         for (ComponentDto dto : components) {
-          uuidsByKey.put(dto.getKey(), dto.uuid());
+          loadedUuidsByKey.put(dto.getKey(), dto.uuid());
         }
 
         Optional<BranchDto> opt = dbClient.branchDao().selectByUuid(dbSession, mergeBranchUuid);
         checkState(opt.isPresent(), "Merge branch '%s' does not exist", mergeBranchUuid);
         mergeBranchName = opt.get().getKey();
       }
+      uuidsByKey = loadedUuidsByKey;
     }
   }
 
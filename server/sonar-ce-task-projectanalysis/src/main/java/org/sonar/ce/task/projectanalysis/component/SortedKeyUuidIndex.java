@@ -0,0 +1,192 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.task.projectanalysis.component;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import javax.annotation.CheckForNull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Immutable key to UUID index stored off-heap.
+ * <p>
+ * Entries are serialized in a direct {@link ByteBuffer}. Each entry is the length of the UTF-8 key on two bytes,
+ * the key, the length of the UTF-8 UUID on one byte and the UUID. Offsets of entries, sorted by the
+ * unsigned lexicographical order of the keys, are stored in a second direct buffer and lookups are binary searches.
+ * This costs around the size of the keys and UUIDs, when a {@code HashMap<String, String>} costs more than
+ * 200 bytes per entry on top of it.
+ * </p>
+ * Instances are safe for concurrent reads.
+ */
+final class SortedKeyUuidIndex {
+
+  private static final int MAX_KEY_LENGTH = 0xFFFF;
+  private static final int MAX_UUID_LENGTH = 0xFF;
+
+  private final ByteBuffer entries;
+  private final IntBuffer offsets;
+  private final int size;
+
+  private SortedKeyUuidIndex(ByteBuffer entries, IntBuffer offsets, int size) {
+    this.entries = entries;
+    this.offsets = offsets;
+    this.size = size;
+  }
+
+  static Builder builder() {
+    return new Builder();
+  }
+
+  int size() {
+    return size;
+  }
+
+  @CheckForNull
+  String get(String key) {
+    byte[] keyBytes = key.getBytes(UTF_8);
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int offset = offsets.get(mid);
+      int cmp = compareKey(offset, keyBytes);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return readUuid(offset);
+      }
+    }
+    return null;
+  }
+
+  private int compareKey(int offset, byte[] key) {
+    int length = Short.toUnsignedInt(entries.getShort(offset));
+    int start = offset + 2;
+    int commonLength = Math.min(length, key.length);
+    for (int i = 0; i < commonLength; i++) {
+      int cmp = Integer.compare(Byte.toUnsignedInt(entries.get(start + i)), Byte.toUnsignedInt(key[i]));
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return Integer.compare(length, key.length);
+  }
+
+  private String readUuid(int offset) {
+    int uuidOffset = offset + 2 + Short.toUnsignedInt(entries.getShort(offset));
+    int length = Byte.toUnsignedInt(entries.get(uuidOffset));
+    byte[] uuid = new byte[length];
+    for (int i = 0; i < length; i++) {
+      uuid[i] = entries.get(uuidOffset + 1 + i);
+    }
+    return new String(uuid, UTF_8);
+  }
+
+  /**
+   * Accumulates entries in a compact on-heap buffer, which is sorted and copied off-heap by {@link #build()}.
+   * Sorting is skipped when entries are added in order, which is the case when they are read from an ordered query
+   * on a database which collation compares bytes.
+   */
+  static final class Builder {
+    private byte[] entries = new byte[4096];
+    private int entriesLength = 0;
+    private int[] offsets = new int[256];
+    private int size = 0;
+    private boolean sorted = true;
+
+    private Builder() {
+      // use SortedKeyUuidIndex#builder()
+    }
+
+    Builder add(String key, String uuid) {
+      byte[] keyBytes = key.getBytes(UTF_8);
+      byte[] uuidBytes = uuid.getBytes(UTF_8);
+      checkArgument(keyBytes.length <= MAX_KEY_LENGTH, "Key is too long: %s", key);
+      checkArgument(uuidBytes.length <= MAX_UUID_LENGTH, "UUID is too long: %s", uuid);
+
+      ensureCapacity(2 + keyBytes.length + 1 + uuidBytes.length);
+      int offset = entriesLength;
+      entries[entriesLength++] = (byte) (keyBytes.length >>> 8);
+      entries[entriesLength++] = (byte) keyBytes.length;
+      System.arraycopy(keyBytes, 0, entries, entriesLength, keyBytes.length);
+      entriesLength += keyBytes.length;
+      entries[entriesLength++] = (byte) uuidBytes.length;
+      System.arraycopy(uuidBytes, 0, entries, entriesLength, uuidBytes.length);
+      entriesLength += uuidBytes.length;
+
+      if (size == offsets.length) {
+        offsets = Arrays.copyOf(offsets, offsets.length * 2);
+      }
+      if (sorted && size > 0 && compareKeys(offsets[size - 1], offset) > 0) {
+        sorted = false;
+      }
+      offsets[size++] = offset;
+      return this;
+    }
+
+    private void ensureCapacity(int additionalLength) {
+      int required = entriesLength + additionalLength;
+      if (required > entries.length) {
+        entries = Arrays.copyOf(entries, Math.max(required, entries.length * 2));
+      }
+    }
+
+    private int compareKeys(int offset1, int offset2) {
+      int length1 = keyLength(offset1);
+      int length2 = keyLength(offset2);
+      int commonLength = Math.min(length1, length2);
+      for (int i = 0; i < commonLength; i++) {
+        int cmp = Integer.compare(Byte.toUnsignedInt(entries[offset1 + 2 + i]), Byte.toUnsignedInt(entries[offset2 + 2 + i]));
+        if (cmp != 0) {
+          return cmp;
+        }
+      }
+      return Integer.compare(length1, length2);
+    }
+
+    private int keyLength(int offset) {
+      return ((entries[offset] & 0xFF) << 8) | (entries[offset + 1] & 0xFF);
+    }
+
+    SortedKeyUuidIndex build() {
+      int[] sortedOffsets = Arrays.copyOf(offsets, size);
+      if (!sorted) {
+        Comparator<Integer> comparator = this::compareKeys;
+        Integer[] boxed = Arrays.stream(sortedOffsets).boxed().toArray(Integer[]::new);
+        Arrays.sort(boxed, comparator);
+        for (int i = 0; i < boxed.length; i++) {
+          sortedOffsets[i] = boxed[i];
+        }
+      }
+
+      ByteBuffer entriesBuffer = ByteBuffer.allocateDirect(Math.max(1, entriesLength));
+      entriesBuffer.put(entries, 0, entriesLength);
+      IntBuffer offsetsBuffer = ByteBuffer.allocateDirect(Math.max(1, size) * Integer.BYTES).asIntBuffer();
+      offsetsBuffer.put(sortedOffsets);
+      return new SortedKeyUuidIndex(entriesBuffer, offsetsBuffer, size);
+    }
+  }
+}
@@ -67,6 +67,11 @@ public class FileMoveDetectionStep implements ComputationStep {
   private static final Comparator<ScoreMatrix.ScoreFile> SCORE_FILE_COMPARATOR = (o1, o2) -> -1 * Integer.compare(o1.getLineCount(), o2.getLineCount());
   private static final double LOWER_BOUND_RATIO = 0.84;
   private static final double UPPER_BOUND_RATIO = 1.18;
+  /**
+   * Minimum number of pairs of removed and new files from which only the pairs selected by {@link MinHashCandidates}
+   * are scored. Below this threshold, all the pairs of files with compatible line counts are scored.
+   */
+  static final long MIN_PAIRS_FOR_CANDIDATE_SELECTION = 10_000L;
 
   private final AnalysisMetadataHolder analysisMetadataHolder;
   private final TreeRootHolder rootHolder;
@@ -214,7 +219,6 @@ public class FileMoveDetectionStep implements ComputationStep {
     // sort by highest line count first
     Arrays.sort(newFiles, SCORE_FILE_COMPARATOR);
     Arrays.sort(removedFiles, SCORE_FILE_COMPARATOR);
-    int[][] scoreMatrix = new int[removedFiles.length][newFiles.length];
     int lastNewFileIndex = newFiles.length - 1;
 
     Map<String, Integer> removedFilesIndexes = new HashMap<>(removedFileKeys.size());
@@ -229,13 +233,18 @@ public class FileMoveDetectionStep implements ComputationStep {
       removedFilesIndexes.put(removedFile.getFileKey(), removeFileIndex);
     }
 
+    MinHashCandidates candidates = null;
+    if ((long) removedFilesIndexes.size() * newFiles.length >= MIN_PAIRS_FOR_CANDIDATE_SELECTION) {
+      candidates = MinHashCandidates.index(newFiles.length, i -> newFileSourcesByKey.get(newFiles[i].getFileKey()).getLineHashes());
+    }
+
     LineHashesWithKeyDtoResultHandler rowHandler = new LineHashesWithKeyDtoResultHandler(removedFilesIndexes, removedFiles,
-      newFiles, newFileSourcesByKey, scoreMatrix);
+      newFiles, newFileSourcesByKey, candidates);
     try (DbSession dbSession = dbClient.openSession(false)) {
       dbClient.fileSourceDao().scrollLineHashes(dbSession, removedFilesIndexes.keySet(), rowHandler);
     }
 
-    return new ScoreMatrix(removedFiles, newFiles, scoreMatrix, rowHandler.getMaxScore());
+    return rowHandler.toScoreMatrix();
   }
 
   private final class LineHashesWithKeyDtoResultHandler implements ResultHandler<LineHashesWithKeyDto> {
@@ -243,17 +252,28 @@ public class FileMoveDetectionStep implements ComputationStep {
     private final ScoreMatrix.ScoreFile[] removedFiles;
     private final ScoreMatrix.ScoreFile[] newFiles;
     private final Map<String, File> newFileSourcesByKey;
+    @Nullable
+    private final MinHashCandidates candidates;
     private final int[][] scoreMatrix;
+    // indexes of the new files which have been scored, when only candidates are scored
+    @Nullable
+    private final int[][] scoredNewFileIndexes;
     private int maxScore;
 
     private LineHashesWithKeyDtoResultHandler(Map<String, Integer> removedFilesIndexes, ScoreMatrix.ScoreFile[] removedFiles,
-      ScoreMatrix.ScoreFile[] newFiles, Map<String, File> newFileSourcesByKey,
-      int[][] scoreMatrix) {
+      ScoreMatrix.ScoreFile[] newFiles, Map<String, File> newFileSourcesByKey, @Nullable MinHashCandidates candidates) {
       this.removedFilesIndexes = removedFilesIndexes;
       this.removedFiles = removedFiles;
       this.newFiles = newFiles;
       this.newFileSourcesByKey = newFileSourcesByKey;
-      this.scoreMatrix = scoreMatrix;
+      this.candidates = candidates;
+      if (candidates == null) {
+        this.scoreMatrix = new int[removedFiles.length][newFiles.length];
+        this.scoredNewFileIndexes = null;
+      } else {
+        this.scoreMatrix = new int[removedFiles.length][];
+        this.scoredNewFileIndexes = new int[removedFiles.length][];
+      }
     }
 
     @Override
@@ -263,6 +283,15 @@ public class FileMoveDetectionStep implements ComputationStep {
         return;
       }
       int removeFileIndex = removedFilesIndexes.get(lineHashesDto.getKey());
+      File fileInDb = new FileImpl(lineHashesDto.getPath(), lineHashesDto.getLineHashes());
+      if (candidates == null) {
+        scoreAll(removeFileIndex, fileInDb);
+      } else {
+        scoreCandidates(removeFileIndex, fileInDb, candidates.candidatesOf(fileInDb.getLineHashes()));
+      }
+    }
+
+    private void scoreAll(int removeFileIndex, File fileInDb) {
       ScoreMatrix.ScoreFile removedFile = removedFiles[removeFileIndex];
       int lowerBound = (int) Math.floor(removedFile.getLineCount() * LOWER_BOUND_RATIO);
       int upperBound = (int) Math.ceil(removedFile.getLineCount() * UPPER_BOUND_RATIO);
@@ -275,19 +304,45 @@ public class FileMoveDetectionStep implements ComputationStep {
         if (newFile.getLineCount() <= lowerBound) {
           break;
         }
+        scoreMatrix[removeFileIndex][newFileIndex] = score(fileInDb, newFile);
+      }
+    }
+
+    private void scoreCandidates(int removeFileIndex, File fileInDb, int[] candidateIndexes) {
+      ScoreMatrix.ScoreFile removedFile = removedFiles[removeFileIndex];
+      int lowerBound = (int) Math.floor(removedFile.getLineCount() * LOWER_BOUND_RATIO);
+      int upperBound = (int) Math.ceil(removedFile.getLineCount() * UPPER_BOUND_RATIO);
 
-        File fileInDb = new FileImpl(lineHashesDto.getPath(), lineHashesDto.getLineHashes());
-        File unmatchedFile = newFileSourcesByKey.get(newFile.getFileKey());
-        int score = fileSimilarity.score(fileInDb, unmatchedFile);
-        scoreMatrix[removeFileIndex][newFileIndex] = score;
-        if (score > maxScore) {
-          maxScore = score;
+      int[] indexes = new int[candidateIndexes.length];
+      int[] scores = new int[candidateIndexes.length];
+      int count = 0;
+      for (int newFileIndex : candidateIndexes) {
+        ScoreMatrix.ScoreFile newFile = newFiles[newFileIndex];
+        if (newFile.getLineCount() >= upperBound || newFile.getLineCount() <= lowerBound) {
+          continue;
         }
+        indexes[count] = newFileIndex;
+        scores[count] = score(fileInDb, newFile);
+        count++;
       }
+      scoredNewFileIndexes[removeFileIndex] = Arrays.copyOf(indexes, count);
+      scoreMatrix[removeFileIndex] = Arrays.copyOf(scores, count);
     }
 
-    int getMaxScore() {
-      return maxScore;
+    private int score(File fileInDb, ScoreMatrix.ScoreFile newFile) {
+      File unmatchedFile = newFileSourcesByKey.get(newFile.getFileKey());
+      int score = fileSimilarity.score(fileInDb, unmatchedFile);
+      if (score > maxScore) {
+        maxScore = score;
+      }
+      return score;
+    }
+
+    ScoreMatrix toScoreMatrix() {
+      if (scoredNewFileIndexes == null) {
+        return new ScoreMatrix(removedFiles, newFiles, scoreMatrix, maxScore);
+      }
+      return ScoreMatrix.sparse(removedFiles, newFiles, scoredNewFileIndexes, scoreMatrix, maxScore);
     }
   }
 
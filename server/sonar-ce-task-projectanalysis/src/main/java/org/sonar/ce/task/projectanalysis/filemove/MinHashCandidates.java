@@ -0,0 +1,141 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.task.projectanalysis.filemove;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * Selects the new files which are likely to be similar to a removed file, so that {@link FileSimilarity} does not
+ * have to score every pair of removed and new files.
+ * <p>
+ * The set of distinct line hashes of each file is summarized by a MinHash signature, the probability that two
+ * signatures have the same value at a given position being the Jaccard similarity of the two sets. Signatures
+ * are split into {@link #BANDS} bands of {@link #ROWS} values and files sharing at least one band are candidates
+ * (locality-sensitive hashing). With 20 bands of 4 rows, a pair of files sharing 75% of their lines is selected
+ * with a probability higher than 99.9%, while a pair sharing 20% of their lines is selected with a probability of 3%.
+ * </p>
+ */
+final class MinHashCandidates {
+  static final int BANDS = 20;
+  static final int ROWS = 4;
+  private static final int SIGNATURE_SIZE = BANDS * ROWS;
+  private static final long[] SEEDS = new Random(0xC0FFEEL).longs(SIGNATURE_SIZE).toArray();
+
+  private final int newFileCount;
+  private final Map<Long, int[]>[] buckets;
+
+  private MinHashCandidates(int newFileCount, Map<Long, int[]>[] buckets) {
+    this.newFileCount = newFileCount;
+    this.buckets = buckets;
+  }
+
+  /**
+   * @param lineHashesOfNewFile line hashes of the new file, by index of file
+   */
+  static MinHashCandidates index(int newFileCount, IntFunction<List<String>> lineHashesOfNewFile) {
+    Map<Long, List<Integer>>[] filesByBandKey = newBandMaps();
+    for (int fileIndex = 0; fileIndex < newFileCount; fileIndex++) {
+      int[] signature = signature(lineHashesOfNewFile.apply(fileIndex));
+      for (int band = 0; band < BANDS; band++) {
+        filesByBandKey[band].computeIfAbsent(bandKey(signature, band), k -> new ArrayList<>(1)).add(fileIndex);
+      }
+    }
+
+    Map<Long, int[]>[] buckets = newBandMaps();
+    for (int band = 0; band < BANDS; band++) {
+      Map<Long, int[]> bandBuckets = buckets[band];
+      filesByBandKey[band].forEach((key, files) -> bandBuckets.put(key, files.stream().mapToInt(Integer::intValue).toArray()));
+    }
+    return new MinHashCandidates(newFileCount, buckets);
+  }
+
+  /**
+   * Indexes of the new files which share at least one band of their signature with the specified file, sorted in
+   * ascending order.
+   */
+  int[] candidatesOf(List<String> lineHashes) {
+    int[] signature = signature(lineHashes);
+    BitSet candidates = new BitSet(newFileCount);
+    for (int band = 0; band < BANDS; band++) {
+      int[] files = buckets[band].get(bandKey(signature, band));
+      if (files != null) {
+        for (int file : files) {
+          candidates.set(file);
+        }
+      }
+    }
+    return candidates.stream().toArray();
+  }
+
+  static int[] signature(List<String> lineHashes) {
+    int[] signature = new int[SIGNATURE_SIZE];
+    Arrays.fill(signature, Integer.MAX_VALUE);
+    Set<String> distinctHashes = new HashSet<>(lineHashes);
+    for (String lineHash : distinctHashes) {
+      long hash = lineHash.hashCode();
+      for (int i = 0; i < SIGNATURE_SIZE; i++) {
+        int value = (int) (mix(hash ^ SEEDS[i]) >>> 33);
+        if (value < signature[i]) {
+          signature[i] = value;
+        }
+      }
+    }
+    return signature;
+  }
+
+  private static long bandKey(int[] signature, int band) {
+    long key = band;
+    for (int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+      key = key * 31 + signature[row];
+    }
+    return mix(key);
+  }
+
+  /**
+   * Finalizer of MurmurHash3, spreads the bits of {@code value} over the whole long.
+   */
+  private static long mix(long value) {
+    long h = value;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> Map<Long, T>[] newBandMaps() {
+    Map<Long, T>[] maps = new Map[BANDS];
+    for (int band = 0; band < BANDS; band++) {
+      maps[band] = new HashMap<>();
+    }
+    return maps;
+  }
+}
@@ -20,29 +20,89 @@
 package org.sonar.ce.task.projectanalysis.filemove;
 
 import java.util.Arrays;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 
 final class ScoreMatrix {
+  private static final int[] NO_INDEX = new int[0];
+
   private final ScoreFile[] removedFiles;
   private final ScoreFile[] newFiles;
   private final int[][] scores;
+  /**
+   * When not {@code null}, the matrix is sparse: {@code scores[i][j]} is the score of the removed file {@code i}
+   * and of the new file {@code newFileIndexes[i][j]}. Indexes of a row are sorted. Other scores are zero.
+   */
+  @Nullable
+  private final int[][] newFileIndexes;
   private final int maxScore;
 
   public ScoreMatrix(ScoreFile[] removedFiles, ScoreFile[] newFiles, int[][] scores, int maxScore) {
+    this(removedFiles, newFiles, scores, null, maxScore);
+  }
+
+  private ScoreMatrix(ScoreFile[] removedFiles, ScoreFile[] newFiles, int[][] scores, @Nullable int[][] newFileIndexes, int maxScore) {
     this.removedFiles = removedFiles;
     this.newFiles = newFiles;
     this.scores = scores;
+    this.newFileIndexes = newFileIndexes;
     this.maxScore = maxScore;
   }
 
+  /**
+   * Matrix in which only some pairs of files have been scored, see {@link #newFileIndexes}. Rows of removed
+   * files which have not been scored can be {@code null}.
+   */
+  static ScoreMatrix sparse(ScoreFile[] removedFiles, ScoreFile[] newFiles, int[][] newFileIndexes, int[][] scores, int maxScore) {
+    return new ScoreMatrix(removedFiles, newFiles, scores, newFileIndexes, maxScore);
+  }
+
+  /**
+   * Visits all the pairs of files, including those which have not been scored.
+   */
   public void accept(ScoreMatrixVisitor visitor) {
     for (int removedFileIndex = 0; removedFileIndex < removedFiles.length; removedFileIndex++) {
+      int[] indexes = rowIndexes(removedFileIndex);
+      int j = 0;
       for (int newFileIndex = 0; newFileIndex < newFiles.length; newFileIndex++) {
-        int score = scores[removedFileIndex][newFileIndex];
+        int score = 0;
+        if (indexes == null) {
+          score = scores[removedFileIndex][newFileIndex];
+        } else if (j < indexes.length && indexes[j] == newFileIndex) {
+          score = scores[removedFileIndex][j];
+          j++;
+        }
         visitor.visit(removedFiles[removedFileIndex], newFiles[newFileIndex], score);
       }
     }
   }
 
+  /**
+   * Same as {@link #accept(ScoreMatrixVisitor)} but, for a sparse matrix, only the pairs of files which have
+   * been scored are visited. Order of visit is the same.
+   */
+  public void acceptScored(ScoreMatrixVisitor visitor) {
+    if (newFileIndexes == null) {
+      accept(visitor);
+      return;
+    }
+    for (int removedFileIndex = 0; removedFileIndex < removedFiles.length; removedFileIndex++) {
+      int[] indexes = rowIndexes(removedFileIndex);
+      for (int j = 0; j < indexes.length; j++) {
+        visitor.visit(removedFiles[removedFileIndex], newFiles[indexes[j]], scores[removedFileIndex][j]);
+      }
+    }
+  }
+
+  @CheckForNull
+  private int[] rowIndexes(int removedFileIndex) {
+    if (newFileIndexes == null) {
+      return null;
+    }
+    int[] indexes = newFileIndexes[removedFileIndex];
+    return indexes == null ? NO_INDEX : indexes;
+  }
+
   public String toCsv(char separator) {
     StringBuilder res = new StringBuilder();
     // first row: empty column, then one column for each report file (its key)
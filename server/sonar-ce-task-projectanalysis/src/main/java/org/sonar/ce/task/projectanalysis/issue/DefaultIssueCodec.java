@@ -0,0 +1,358 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.task.projectanalysis.issue;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.apache.commons.lang.SerializationUtils;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.Duration;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.DefaultIssueComment;
+import org.sonar.core.issue.FieldDiffs;
+import org.sonar.db.protobuf.DbIssues;
+import org.sonar.server.util.cache.DiskCacheCodec;
+
+/**
+ * Binary encoding of {@link DefaultIssue} used by {@link IssueCache}.
+ * <p>
+ * Every field of {@link DefaultIssue} is encoded, including comments and changes. The current change is encoded once,
+ * even if it is referenced many times by the list of changes, and is restored as the same instance. Values of
+ * {@link FieldDiffs} and locations of an unexpected type fall back to Java serialization.
+ */
+public class DefaultIssueCodec implements DiskCacheCodec<DefaultIssue> {
+  private static final int NULL_VALUE = 0;
+  private static final int STRING_VALUE = 1;
+  private static final int LONG_VALUE = 2;
+  private static final int INTEGER_VALUE = 3;
+  private static final int DOUBLE_VALUE = 4;
+  private static final int BOOLEAN_VALUE = 5;
+  private static final int DATE_VALUE = 6;
+  private static final int LOCATIONS_VALUE = 7;
+  private static final int SERIALIZED_VALUE = 8;
+
+  private static final int CHANGE = 0;
+  private static final int CURRENT_CHANGE = 1;
+
+  @Override
+  public void encode(DefaultIssue issue, CodedOutputStream output) throws IOException {
+    writeNullableString(output, issue.key());
+    RuleType type = issue.type();
+    output.writeInt32NoTag(type == null ? -1 : type.getDbConstant());
+    writeNullableString(output, issue.componentUuid());
+    writeNullableString(output, issue.componentKey());
+    writeNullableString(output, issue.moduleUuid());
+    writeNullableString(output, issue.moduleUuidPath());
+    writeNullableString(output, issue.projectUuid());
+    writeNullableString(output, issue.projectKey());
+    RuleKey ruleKey = issue.ruleKey();
+    output.writeBoolNoTag(ruleKey != null);
+    if (ruleKey != null) {
+      output.writeStringNoTag(ruleKey.repository());
+      output.writeStringNoTag(ruleKey.rule());
+    }
+    writeNullableString(output, issue.language());
+    writeNullableString(output, issue.severity());
+    output.writeBoolNoTag(issue.manualSeverity());
+    writeNullableString(output, issue.message());
+    writeValue(output, issue.line());
+    writeValue(output, issue.gap());
+    writeValue(output, issue.effortInMinutes());
+    writeNullableString(output, issue.status());
+    writeNullableString(output, issue.resolution());
+    writeNullableString(output, issue.assignee());
+    writeNullableString(output, issue.checksum());
+    writeStringMap(output, issue.attributes());
+    writeNullableString(output, issue.authorLogin());
+    writeComments(output, issue.defaultIssueComments());
+    writeTags(output, issue.tags());
+    writeValue(output, issue.getLocations());
+    output.writeBoolNoTag(issue.isFromExternalRuleEngine());
+    writeValue(output, issue.creationDate());
+    writeValue(output, issue.updateDate());
+    writeValue(output, issue.closeDate());
+    writeChanges(output, issue.currentChange(), issue.changes());
+    output.writeBoolNoTag(issue.isNew());
+    output.writeBoolNoTag(issue.isCopied());
+    output.writeBoolNoTag(issue.isBeingClosed());
+    output.writeBoolNoTag(issue.isOnDisabledRule());
+    output.writeBoolNoTag(issue.isChanged());
+    output.writeBoolNoTag(issue.mustSendNotifications());
+    writeValue(output, issue.selectedAt());
+  }
+
+  @Override
+  public DefaultIssue decode(CodedInputStream input) throws IOException {
+    DefaultIssue issue = new DefaultIssue();
+    issue.setKey(readNullableString(input));
+    int type = input.readInt32();
+    if (type >= 0) {
+      issue.setType(RuleType.valueOf(type));
+    }
+    issue.setComponentUuid(readNullableString(input));
+    issue.setComponentKey(readNullableString(input));
+    issue.setModuleUuid(readNullableString(input));
+    issue.setModuleUuidPath(readNullableString(input));
+    issue.setProjectUuid(readNullableString(input));
+    issue.setProjectKey(readNullableString(input));
+    if (input.readBool()) {
+      issue.setRuleKey(RuleKey.of(input.readString(), input.readString()));
+    }
+    issue.setLanguage(readNullableString(input));
+    issue.setSeverity(readNullableString(input));
+    issue.setManualSeverity(input.readBool());
+    issue.setMessage(readNullableString(input));
+    issue.setLine((Integer) readValue(input));
+    issue.setGap((Double) readValue(input));
+    Long effort = (Long) readValue(input);
+    issue.setEffort(effort == null ? null : Duration.create(effort));
+    String status = readNullableString(input);
+    if (status != null) {
+      issue.setStatus(status);
+    }
+    issue.setResolution(readNullableString(input));
+    issue.setAssigneeUuid(readNullableString(input));
+    issue.setChecksum(readNullableString(input));
+    Map<String, String> attributes = readStringMap(input);
+    if (!attributes.isEmpty()) {
+      issue.setAttributes(attributes);
+    }
+    issue.setAuthorLogin(readNullableString(input));
+    readComments(input, issue);
+    Set<String> tags = readTags(input);
+    if (!tags.isEmpty()) {
+      issue.setTags(tags);
+    }
+    issue.setLocations(readValue(input));
+    issue.setIsFromExternalRuleEngine(input.readBool());
+    issue.setCreationDate((Date) readValue(input));
+    issue.setUpdateDate((Date) readValue(input));
+    issue.setCloseDate((Date) readValue(input));
+    readChanges(input, issue);
+    issue.setNew(input.readBool());
+    issue.setCopied(input.readBool());
+    issue.setBeingClosed(input.readBool());
+    issue.setOnDisabledRule(input.readBool());
+    issue.setChanged(input.readBool());
+    issue.setSendNotifications(input.readBool());
+    issue.setSelectedAt((Long) readValue(input));
+    return issue;
+  }
+
+  private static void writeComments(CodedOutputStream output, List<DefaultIssueComment> comments) throws IOException {
+    output.writeUInt32NoTag(comments.size());
+    for (DefaultIssueComment comment : comments) {
+      writeNullableString(output, comment.issueKey());
+      writeNullableString(output, comment.userUuid());
+      writeValue(output, comment.createdAt());
+      writeValue(output, comment.updatedAt());
+      writeNullableString(output, comment.key());
+      writeNullableString(output, comment.markdownText());
+      output.writeBoolNoTag(comment.isNew());
+    }
+  }
+
+  private static void readComments(CodedInputStream input, DefaultIssue issue) throws IOException {
+    int count = input.readUInt32();
+    for (int i = 0; i < count; i++) {
+      issue.addComment(new DefaultIssueComment()
+        .setIssueKey(readNullableString(input))
+        .setUserUuid(readNullableString(input))
+        .setCreatedAt((Date) readValue(input))
+        .setUpdatedAt((Date) readValue(input))
+        .setKey(readNullableString(input))
+        .setMarkdownText(readNullableString(input))
+        .setNew(input.readBool()));
+    }
+  }
+
+  private static void writeChanges(CodedOutputStream output, @Nullable FieldDiffs currentChange, List<FieldDiffs> changes) throws IOException {
+    output.writeBoolNoTag(currentChange != null);
+    if (currentChange != null) {
+      writeFieldDiffs(output, currentChange);
+    }
+    output.writeUInt32NoTag(changes.size());
+    for (FieldDiffs change : changes) {
+      if (change == currentChange) {
+        output.writeUInt32NoTag(CURRENT_CHANGE);
+      } else {
+        output.writeUInt32NoTag(CHANGE);
+        writeFieldDiffs(output, change);
+      }
+    }
+  }
+
+  private static void readChanges(CodedInputStream input, DefaultIssue issue) throws IOException {
+    FieldDiffs currentChange = input.readBool() ? readFieldDiffs(input) : null;
+    int count = input.readUInt32();
+    List<FieldDiffs> changes = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      changes.add(input.readUInt32() == CURRENT_CHANGE ? currentChange : readFieldDiffs(input));
+    }
+    if (currentChange != null) {
+      // also adds the current change to the list of changes, which is replaced just after
+      issue.setCurrentChange(currentChange);
+    }
+    if (currentChange != null || !changes.isEmpty()) {
+      issue.setChanges(changes);
+    }
+  }
+
+  private static void writeFieldDiffs(CodedOutputStream output, FieldDiffs fieldDiffs) throws IOException {
+    writeNullableString(output, fieldDiffs.issueKey());
+    writeNullableString(output, fieldDiffs.userUuid());
+    writeValue(output, fieldDiffs.creationDate());
+    Map<String, FieldDiffs.Diff> diffs = fieldDiffs.diffs();
+    output.writeUInt32NoTag(diffs.size());
+    for (Map.Entry<String, FieldDiffs.Diff> entry : diffs.entrySet()) {
+      output.writeStringNoTag(entry.getKey());
+      writeValue(output, entry.getValue().oldValue());
+      writeValue(output, entry.getValue().newValue());
+    }
+  }
+
+  private static FieldDiffs readFieldDiffs(CodedInputStream input) throws IOException {
+    FieldDiffs fieldDiffs = new FieldDiffs()
+      .setIssueKey(readNullableString(input))
+      .setUserUuid(readNullableString(input))
+      .setCreationDate((Date) readValue(input));
+    int count = input.readUInt32();
+    for (int i = 0; i < count; i++) {
+      fieldDiffs.setDiff(input.readString(), (Serializable) readValue(input), (Serializable) readValue(input));
+    }
+    return fieldDiffs;
+  }
+
+  private static void writeStringMap(CodedOutputStream output, Map<String, String> map) throws IOException {
+    output.writeUInt32NoTag(map.size());
+    for (Map.Entry<String, String> entry : map.entrySet()) {
+      output.writeStringNoTag(entry.getKey());
+      output.writeStringNoTag(entry.getValue());
+    }
+  }
+
+  private static Map<String, String> readStringMap(CodedInputStream input) throws IOException {
+    int count = input.readUInt32();
+    Map<String, String> map = new HashMap<>(count);
+    for (int i = 0; i < count; i++) {
+      map.put(input.readString(), input.readString());
+    }
+    return map;
+  }
+
+  private static void writeTags(CodedOutputStream output, Set<String> tags) throws IOException {
+    output.writeUInt32NoTag(tags.size());
+    for (String tag : tags) {
+      output.writeStringNoTag(tag);
+    }
+  }
+
+  private static Set<String> readTags(CodedInputStream input) throws IOException {
+    int count = input.readUInt32();
+    Set<String> tags = new LinkedHashSet<>(count);
+    for (int i = 0; i < count; i++) {
+      tags.add(input.readString());
+    }
+    return tags;
+  }
+
+  private static void writeNullableString(CodedOutputStream output, @Nullable String s) throws IOException {
+    output.writeBoolNoTag(s != null);
+    if (s != null) {
+      output.writeStringNoTag(s);
+    }
+  }
+
+  @CheckForNull
+  private static String readNullableString(CodedInputStream input) throws IOException {
+    return input.readBool() ? input.readString() : null;
+  }
+
+  private static void writeValue(CodedOutputStream output, @Nullable Object value) throws IOException {
+    if (value == null) {
+      output.writeUInt32NoTag(NULL_VALUE);
+    } else if (value instanceof String) {
+      output.writeUInt32NoTag(STRING_VALUE);
+      output.writeStringNoTag((String) value);
+    } else if (value instanceof Long) {
+      output.writeUInt32NoTag(LONG_VALUE);
+      output.writeInt64NoTag((Long) value);
+    } else if (value instanceof Integer) {
+      output.writeUInt32NoTag(INTEGER_VALUE);
+      output.writeInt32NoTag((Integer) value);
+    } else if (value instanceof Double) {
+      output.writeUInt32NoTag(DOUBLE_VALUE);
+      output.writeDoubleNoTag((Double) value);
+    } else if (value instanceof Boolean) {
+      output.writeUInt32NoTag(BOOLEAN_VALUE);
+      output.writeBoolNoTag((Boolean) value);
+    } else if (value.getClass() == Date.class) {
+      output.writeUInt32NoTag(DATE_VALUE);
+      output.writeInt64NoTag(((Date) value).getTime());
+    } else if (value instanceof DbIssues.Locations) {
+      output.writeUInt32NoTag(LOCATIONS_VALUE);
+      output.writeByteArrayNoTag(((DbIssues.Locations) value).toByteArray());
+    } else if (value instanceof Serializable) {
+      output.writeUInt32NoTag(SERIALIZED_VALUE);
+      output.writeByteArrayNoTag(SerializationUtils.serialize((Serializable) value));
+    } else {
+      throw new IllegalArgumentException("Unsupported value of type " + value.getClass().getName());
+    }
+  }
+
+  @CheckForNull
+  private static Object readValue(CodedInputStream input) throws IOException {
+    int valueType = input.readUInt32();
+    switch (valueType) {
+      case NULL_VALUE:
+        return null;
+      case STRING_VALUE:
+        return input.readString();
+      case LONG_VALUE:
+        return input.readInt64();
+      case INTEGER_VALUE:
+        return input.readInt32();
+      case DOUBLE_VALUE:
+        return input.readDouble();
+      case BOOLEAN_VALUE:
+        return input.readBool();
+      case DATE_VALUE:
+        return new Date(input.readInt64());
+      case LOCATIONS_VALUE:
+        return DbIssues.Locations.parseFrom(input.readByteArray());
+      case SERIALIZED_VALUE:
+        return SerializationUtils.deserialize(input.readByteArray());
+      default:
+        throw new IllegalStateException("Unsupported value type " + valueType);
+    }
+  }
+}
@@ -22,10 +22,14 @@ package org.sonar.ce.task.projectanalysis.issue;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.config.Configuration;
 import org.sonar.ce.task.projectanalysis.analysis.AnalysisMetadataHolder;
 import org.sonar.ce.task.projectanalysis.component.Component;
 import org.sonar.ce.task.projectanalysis.component.CrawlerDepthLimit;
 import org.sonar.ce.task.projectanalysis.component.MergeBranchComponentUuids;
+import org.sonar.ce.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.ce.task.projectanalysis.component.TypeAwareVisitorAdapter;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.server.util.cache.DiskCache;
@@ -33,6 +37,12 @@ import org.sonar.server.util.cache.DiskCache;
 import static org.sonar.ce.task.projectanalysis.component.ComponentVisitor.Order.POST_ORDER;
 
 public class IntegrateIssuesVisitor extends TypeAwareVisitorAdapter {
+  /**
+   * Number of threads tracking the issues of components. Default is 1, tracking is executed by the thread
+   * visiting the components.
+   */
+  public static final String PROPERTY_TRACKING_THREADS = "sonar.ce.issueTracking.threads";
+  private static final int DEFAULT_TRACKING_THREADS = 1;
 
   private final IssueCache issueCache;
   private final IssueLifecycle issueLifecycle;
@@ -41,10 +51,23 @@ public class IntegrateIssuesVisitor extends TypeAwareVisitorAdapter {
   private final ShortBranchIssueMerger issueStatusCopier;
   private final AnalysisMetadataHolder analysisMetadataHolder;
   private final MergeBranchComponentUuids mergeBranchComponentUuids;
+  @Nullable
+  private final TreeRootHolder treeRootHolder;
+  private final int trackingThreads;
+  @CheckForNull
+  private ParallelIssueTracking parallelTracking;
 
   public IntegrateIssuesVisitor(IssueCache issueCache, IssueLifecycle issueLifecycle, IssueVisitors issueVisitors,
     AnalysisMetadataHolder analysisMetadataHolder, IssueTrackingDelegator issueTracking, ShortBranchIssueMerger issueStatusCopier,
     MergeBranchComponentUuids mergeBranchComponentUuids) {
+    this(issueCache, issueLifecycle, issueVisitors, analysisMetadataHolder, issueTracking, issueStatusCopier, mergeBranchComponentUuids,
+      null, null);
+  }
+
+  // this constructor is used by picocontainer
+  public IntegrateIssuesVisitor(IssueCache issueCache, IssueLifecycle issueLifecycle, IssueVisitors issueVisitors,
+    AnalysisMetadataHolder analysisMetadataHolder, IssueTrackingDelegator issueTracking, ShortBranchIssueMerger issueStatusCopier,
+    MergeBranchComponentUuids mergeBranchComponentUuids, @Nullable TreeRootHolder treeRootHolder, @Nullable Configuration configuration) {
     super(CrawlerDepthLimit.FILE, POST_ORDER);
     this.issueCache = issueCache;
     this.issueLifecycle = issueLifecycle;
@@ -53,6 +76,10 @@ public class IntegrateIssuesVisitor extends TypeAwareVisitorAdapter {
     this.issueTracking = issueTracking;
     this.issueStatusCopier = issueStatusCopier;
     this.mergeBranchComponentUuids = mergeBranchComponentUuids;
+    this.treeRootHolder = treeRootHolder;
+    this.trackingThreads = treeRootHolder == null || configuration == null
+      ? DEFAULT_TRACKING_THREADS
+      : Math.max(DEFAULT_TRACKING_THREADS, configuration.getInt(PROPERTY_TRACKING_THREADS).orElse(DEFAULT_TRACKING_THREADS));
   }
 
   @Override
@@ -60,15 +87,37 @@ public class IntegrateIssuesVisitor extends TypeAwareVisitorAdapter {
     try (DiskCache<DefaultIssue>.DiskAppender cacheAppender = issueCache.newAppender()) {
       issueVisitors.beforeComponent(component);
 
-      TrackingResult tracking = issueTracking.track(component);
+      TrackingResult tracking = track(component);
       fillNewOpenIssues(component, tracking.newIssues(), cacheAppender);
       fillExistingOpenIssues(component, tracking.issuesToMerge(), cacheAppender);
       closeIssues(component, tracking.issuesToClose(), cacheAppender);
       copyIssues(component, tracking.issuesToCopy(), cacheAppender);
       issueVisitors.afterComponent(component);
     } catch (Exception e) {
+      closeParallelTracking();
       throw new IllegalStateException(String.format("Fail to process issues of component '%s'", component.getKey()), e);
     }
+    if (parallelTracking != null && component.equals(treeRootHolder.getRoot())) {
+      // root of the tree is the last visited component
+      closeParallelTracking();
+    }
+  }
+
+  private TrackingResult track(Component component) {
+    if (trackingThreads == DEFAULT_TRACKING_THREADS) {
+      return issueTracking.track(component);
+    }
+    if (parallelTracking == null) {
+      parallelTracking = new ParallelIssueTracking(issueTracking, treeRootHolder.getRoot(), trackingThreads);
+    }
+    return parallelTracking.track(component);
+  }
+
+  private void closeParallelTracking() {
+    if (parallelTracking != null) {
+      parallelTracking.close();
+      parallelTracking = null;
+    }
   }
 
   private void fillNewOpenIssues(Component component, Iterable<DefaultIssue> newIssues, DiskCache<DefaultIssue>.DiskAppender cacheAppender) {
@@ -20,6 +20,7 @@
 package org.sonar.ce.task.projectanalysis.issue;
 
 import java.io.File;
+import org.sonar.api.config.Configuration;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.TempFolder;
 import org.sonar.core.issue.DefaultIssue;
@@ -28,15 +29,19 @@ import org.sonar.server.util.cache.DiskCache;
 /**
  * Cache of all the issues involved in the analysis. Their state is as it will be
  * persisted in database (after issue tracking, auto-assignment, ...)
+ * <p>
+ * Issues are stored with {@link DefaultIssueCodec}. Blocks of issues are compressed with LZ4 unless property
+ * {@link #PROPERTY_COMPRESSION} is {@code false}.
  */
 public class IssueCache extends DiskCache<DefaultIssue> {
+  public static final String PROPERTY_COMPRESSION = "sonar.ce.issueCache.compression";
 
   // this constructor is used by picocontainer
-  public IssueCache(TempFolder tempFolder, System2 system2) {
-    super(tempFolder.newFile("issues", ".dat"), system2);
+  public IssueCache(TempFolder tempFolder, System2 system2, Configuration configuration) {
+    super(tempFolder.newFile("issues", ".dat"), system2, new DefaultIssueCodec(), configuration.getBoolean(PROPERTY_COMPRESSION).orElse(true));
   }
 
   public IssueCache(File file, System2 system2) {
-    super(file, system2);
+    super(file, system2, new DefaultIssueCodec(), false);
   }
 }
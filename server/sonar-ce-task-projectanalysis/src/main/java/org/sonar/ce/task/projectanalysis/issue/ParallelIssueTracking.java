@@ -0,0 +1,138 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.task.projectanalysis.issue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
+import org.slf4j.MDC;
+import org.sonar.ce.task.projectanalysis.component.Component;
+import org.sonar.ce.task.projectanalysis.component.CrawlerDepthLimit;
+import org.sonar.ce.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
+import org.sonar.ce.task.projectanalysis.component.TypeAwareVisitorAdapter;
+
+import static org.sonar.ce.task.projectanalysis.component.ComponentVisitor.Order.POST_ORDER;
+
+/**
+ * Tracks the issues of the components of the tree ahead of {@link IntegrateIssuesVisitor}, in a bounded
+ * {@link ForkJoinPool}. Components are submitted in the order they are visited and at most {@link #window}
+ * components are tracked ahead of the visitor, so that memory is bounded whatever the size of the project.
+ * <p>
+ * Only the tracking is concurrent. Results are consumed one component after the other by the visitor, so that
+ * issues are added to {@link IssueCache} and {@link IssueVisitors} are called in the same order as when tracking
+ * is sequential.
+ * </p>
+ */
+class ParallelIssueTracking implements AutoCloseable {
+
+  private final IssueTrackingDelegator issueTracking;
+  private final List<Component> components;
+  private final int window;
+  private final ForkJoinPool pool;
+  private final Map<Component, Future<TrackingResult>> pendingByComponent = new HashMap<>();
+  @Nullable
+  private final Map<String, String> loggingContext;
+  private int nextToSubmit = 0;
+
+  ParallelIssueTracking(IssueTrackingDelegator issueTracking, Component root, int threads) {
+    this.issueTracking = issueTracking;
+    this.components = listInVisitOrder(root);
+    this.window = threads * 4;
+    this.loggingContext = MDC.getCopyOfContextMap();
+    this.pool = new ForkJoinPool(threads, ParallelIssueTracking::newWorkerThread, null, false);
+  }
+
+  private static List<Component> listInVisitOrder(Component root) {
+    List<Component> res = new ArrayList<>();
+    new DepthTraversalTypeAwareCrawler(
+      new TypeAwareVisitorAdapter(CrawlerDepthLimit.FILE, POST_ORDER) {
+        @Override
+        public void visitAny(Component component) {
+          res.add(component);
+        }
+      }).visit(root);
+    return res;
+  }
+
+  private static ForkJoinWorkerThread newWorkerThread(ForkJoinPool pool) {
+    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+    thread.setName("CE_IssueTracking_" + thread.getPoolIndex());
+    return thread;
+  }
+
+  /**
+   * Result of the tracking of the specified component. Components which have not been submitted, for example
+   * because they are visited in an unexpected order, are tracked synchronously.
+   */
+  TrackingResult track(Component component) {
+    submitAhead();
+    Future<TrackingResult> future = pendingByComponent.remove(component);
+    if (future == null) {
+      return issueTracking.track(component);
+    }
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while tracking issues of component " + component.getKey(), e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  private void submitAhead() {
+    while (pendingByComponent.size() < window && nextToSubmit < components.size()) {
+      Component component = components.get(nextToSubmit);
+      nextToSubmit++;
+      pendingByComponent.put(component, pool.submit(() -> trackWithLoggingContext(component)));
+    }
+  }
+
+  private TrackingResult trackWithLoggingContext(Component component) {
+    if (loggingContext != null) {
+      MDC.setContextMap(loggingContext);
+    }
+    try {
+      return issueTracking.track(component);
+    } finally {
+      MDC.clear();
+    }
+  }
+
+  @Override
+  public void close() {
+    pendingByComponent.values().forEach(f -> f.cancel(true));
+    pendingByComponent.clear();
+    pool.shutdownNow();
+  }
+}
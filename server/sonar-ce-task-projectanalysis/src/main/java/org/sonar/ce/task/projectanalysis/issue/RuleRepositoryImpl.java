@@ -21,10 +21,10 @@ package org.sonar.ce.task.projectanalysis.issue;
 
 import com.google.common.collect.Multimap;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 import javax.annotation.CheckForNull;
 import org.sonar.api.rule.RuleKey;
@@ -123,7 +123,10 @@ public class RuleRepositoryImpl implements RuleRepository {
     requireNonNull(key, "RuleKey can not be null");
   }
 
-  private void ensureInitialized() {
+  /**
+   * Synchronized as issues of components can be tracked concurrently, see {@link IntegrateIssuesVisitor#PROPERTY_TRACKING_THREADS}.
+   */
+  private synchronized void ensureInitialized() {
     if (rulesByKey == null) {
       try (DbSession dbSession = dbClient.openSession(false)) {
         loadRulesFromDb(dbSession);
@@ -132,17 +135,19 @@ public class RuleRepositoryImpl implements RuleRepository {
   }
 
   private void loadRulesFromDb(DbSession dbSession) {
-    this.rulesByKey = new HashMap<>();
-    this.rulesById = new HashMap<>();
+    Map<RuleKey, Rule> loadedRulesByKey = new ConcurrentHashMap<>();
+    Map<Integer, Rule> loadedRulesById = new ConcurrentHashMap<>();
     String organizationUuid = analysisMetadataHolder.getOrganization().getUuid();
     Multimap<Integer, DeprecatedRuleKeyDto> deprecatedRuleKeysByRuleId = dbClient.ruleDao().selectAllDeprecatedRuleKeys(dbSession).stream()
       .collect(MoreCollectors.index(DeprecatedRuleKeyDto::getRuleId));
     for (RuleDto ruleDto : dbClient.ruleDao().selectAll(dbSession, organizationUuid)) {
       Rule rule = new RuleImpl(ruleDto);
-      rulesByKey.put(ruleDto.getKey(), rule);
-      rulesById.put(ruleDto.getId(), rule);
-      deprecatedRuleKeysByRuleId.get(ruleDto.getId()).forEach(t -> rulesByKey.put(RuleKey.of(t.getOldRepositoryKey(), t.getOldRuleKey()), rule));
+      loadedRulesByKey.put(ruleDto.getKey(), rule);
+      loadedRulesById.put(ruleDto.getId(), rule);
+      deprecatedRuleKeysByRuleId.get(ruleDto.getId()).forEach(t -> loadedRulesByKey.put(RuleKey.of(t.getOldRepositoryKey(), t.getOldRuleKey()), rule));
     }
+    this.rulesByKey = loadedRulesByKey;
+    this.rulesById = loadedRulesById;
   }
 
   private static class ExternalRuleWrapper implements Rule {
@@ -0,0 +1,301 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.task.projectanalysis.measure;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.ce.task.projectanalysis.component.Component;
+import org.sonar.ce.task.projectanalysis.component.Developer;
+import org.sonar.ce.task.projectanalysis.measure.MapBasedRawMeasureRepository.OverridePolicy;
+import org.sonar.ce.task.projectanalysis.metric.Metric;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Implementation of MeasureRepository which supports only raw measures and which stores them by column: one column
+ * per metric, indexed by the position of components.
+ * <p>
+ * Measures of numeric metrics which have neither data, nor QualityGate status, nor developer, are stored in a
+ * primitive {@code double[]}, with a {@link BitSet} for presence and another column for variations. All the numeric
+ * values of {@link Measure} are doubles, whatever the type of the metric, so a {@code double} column is lossless.
+ * Other measures (string, level, data, ...) are kept as objects.
+ * </p>
+ * <p>
+ * Positions of components are expected to be dense, such as the references of components in the analysis report which
+ * are assigned sequentially by the scanner: the size of columns is the greatest position.
+ * </p>
+ *
+ * Intended to be used as a delegate of other MeasureRepository implementations (hence the final keyword).
+ */
+public final class ColumnarRawMeasureRepository implements MeasureRepository {
+  private static final Set<Measure.ValueType> NUMERIC_VALUE_TYPES = EnumSet.of(
+    Measure.ValueType.BOOLEAN, Measure.ValueType.INT, Measure.ValueType.LONG, Measure.ValueType.DOUBLE);
+
+  private final ToIntFunction<Component> componentToPosition;
+  private final Map<String, Column> columnsByMetricKey = new HashMap<>();
+
+  public ColumnarRawMeasureRepository(ToIntFunction<Component> componentToPosition) {
+    this.componentToPosition = requireNonNull(componentToPosition);
+  }
+
+  /**
+   * @throws UnsupportedOperationException all the time, not supported
+   */
+  @Override
+  public Optional<Measure> getBaseMeasure(Component component, Metric metric) {
+    throw new UnsupportedOperationException("This implementation of MeasureRepository supports only raw measures");
+  }
+
+  @Override
+  public Optional<Measure> getRawMeasure(Component component, Metric metric) {
+    // fail fast
+    requireNonNull(component);
+    requireNonNull(metric);
+
+    return Optional.fromNullable(find(component, metric, null));
+  }
+
+  @Override
+  public void add(Component component, Metric metric, Measure measure) {
+    requireNonNull(component);
+    checkValueTypeConsistency(metric, measure);
+
+    if (find(component, metric, measure.getDeveloper()) != null) {
+      throw new UnsupportedOperationException(
+        format(
+          "a measure can be set only once for a specific Component (key=%s), Metric (key=%s). Use update method",
+          component.getKey(),
+          metric.getKey()));
+    }
+    add(component, metric, measure, OverridePolicy.OVERRIDE);
+  }
+
+  @Override
+  public void update(Component component, Metric metric, Measure measure) {
+    requireNonNull(component);
+    checkValueTypeConsistency(metric, measure);
+
+    if (find(component, metric, measure.getDeveloper()) == null) {
+      throw new UnsupportedOperationException(
+        format(
+          "a measure can be updated only if one already exists for a specific Component (key=%s), Metric (key=%s). Use add method",
+          component.getKey(),
+          metric.getKey()));
+    }
+    add(component, metric, measure, OverridePolicy.OVERRIDE);
+  }
+
+  private static void checkValueTypeConsistency(Metric metric, Measure measure) {
+    checkArgument(
+      measure.getValueType() == Measure.ValueType.NO_VALUE || measure.getValueType() == metric.getType().getValueType(),
+      "Measure's ValueType (%s) is not consistent with the Metric's ValueType (%s)",
+      measure.getValueType(), metric.getType().getValueType());
+  }
+
+  @Override
+  public Set<Measure> getRawMeasures(Component component, Metric metric) {
+    requireNonNull(metric);
+    requireNonNull(component);
+    Column column = columnsByMetricKey.get(metric.getKey());
+    if (column == null) {
+      return Collections.emptySet();
+    }
+    ImmutableSet.Builder<Measure> builder = ImmutableSet.builder();
+    column.collect(positionOf(component), builder::add);
+    return builder.build();
+  }
+
+  @Override
+  public SetMultimap<String, Measure> getRawMeasures(Component component) {
+    int position = positionOf(component);
+    ImmutableSetMultimap.Builder<String, Measure> builder = ImmutableSetMultimap.builder();
+    for (Map.Entry<String, Column> entry : columnsByMetricKey.entrySet()) {
+      entry.getValue().collect(position, measure -> builder.put(entry.getKey(), measure));
+    }
+    return builder.build();
+  }
+
+  public void add(Component component, Metric metric, Measure measure, OverridePolicy overridePolicy) {
+    requireNonNull(component);
+    requireNonNull(measure);
+    requireNonNull(overridePolicy);
+
+    int position = positionOf(component);
+    Column column = columnsByMetricKey.computeIfAbsent(metric.getKey(), k -> new Column(metric.getType().getValueType()));
+    if (overridePolicy == OverridePolicy.OVERRIDE || column.get(position, measure.getDeveloper()) == null) {
+      column.set(position, measure);
+    }
+  }
+
+  @CheckForNull
+  private Measure find(Component component, Metric metric, @Nullable Developer developer) {
+    Column column = columnsByMetricKey.get(metric.getKey());
+    if (column == null) {
+      return null;
+    }
+    return column.get(positionOf(component), developer);
+  }
+
+  private int positionOf(Component component) {
+    int position = componentToPosition.applyAsInt(component);
+    checkArgument(position >= 0, "Position of component %s can not be negative", component.getKey());
+    return position;
+  }
+
+  private static final class Column {
+    private static final double[] EMPTY = new double[0];
+    private static final int MIN_CAPACITY = 16;
+
+    private final Measure.ValueType valueType;
+    private final boolean numeric;
+    private final BitSet primitives = new BitSet();
+    private final BitSet variationFlags = new BitSet();
+    // NaN when the measure has no value, as NaN is not an allowed value of Measure
+    private double[] values = EMPTY;
+    private double[] variations = EMPTY;
+    private final Map<Integer, Measure> objects = new HashMap<>();
+    private final Map<Integer, List<Measure>> developerMeasures = new HashMap<>();
+
+    private Column(Measure.ValueType valueType) {
+      this.valueType = valueType;
+      this.numeric = NUMERIC_VALUE_TYPES.contains(valueType);
+    }
+
+    @CheckForNull
+    Measure get(int position, @Nullable Developer developer) {
+      if (developer != null) {
+        return findDeveloperMeasure(position, developer);
+      }
+      if (primitives.get(position)) {
+        return toMeasure(position);
+      }
+      return objects.get(position);
+    }
+
+    void collect(int position, Consumer<Measure> consumer) {
+      Measure measure = get(position, null);
+      if (measure != null) {
+        consumer.accept(measure);
+      }
+      List<Measure> measures = developerMeasures.get(position);
+      if (measures != null) {
+        measures.forEach(consumer);
+      }
+    }
+
+    void set(int position, Measure measure) {
+      Developer developer = measure.getDeveloper();
+      if (developer != null) {
+        List<Measure> measures = developerMeasures.computeIfAbsent(position, p -> new ArrayList<>(1));
+        measures.removeIf(m -> m.getDeveloper() == developer);
+        measures.add(measure);
+      } else if (isPrimitive(measure)) {
+        objects.remove(position);
+        setPrimitive(position, measure);
+      } else {
+        primitives.clear(position);
+        objects.put(position, measure);
+      }
+    }
+
+    @CheckForNull
+    private Measure findDeveloperMeasure(int position, Developer developer) {
+      List<Measure> measures = developerMeasures.get(position);
+      if (measures != null) {
+        for (Measure measure : measures) {
+          if (measure.getDeveloper() == developer) {
+            return measure;
+          }
+        }
+      }
+      return null;
+    }
+
+    private boolean isPrimitive(Measure measure) {
+      return numeric
+        && (measure.getValueType() == valueType || measure.getValueType() == Measure.ValueType.NO_VALUE)
+        && measure.getData() == null
+        && !measure.hasQualityGateStatus();
+    }
+
+    private void setPrimitive(int position, Measure measure) {
+      values = ensureCapacity(values, position);
+      values[position] = valueOf(measure);
+      primitives.set(position);
+      if (measure.hasVariation()) {
+        variations = ensureCapacity(variations, position);
+        variations[position] = measure.getVariation();
+        variationFlags.set(position);
+      } else {
+        variationFlags.clear(position);
+      }
+    }
+
+    private Measure toMeasure(int position) {
+      double value = values[position];
+      boolean noValue = Double.isNaN(value);
+      return Measure.createNumeric(
+        noValue ? Measure.ValueType.NO_VALUE : valueType,
+        noValue ? null : value,
+        variationFlags.get(position) ? variations[position] : null);
+    }
+
+    private static double valueOf(Measure measure) {
+      switch (measure.getValueType()) {
+        case BOOLEAN:
+          return measure.getBooleanValue() ? 1.0d : 0.0d;
+        case INT:
+          return measure.getIntValue();
+        case LONG:
+          return measure.getLongValue();
+        case DOUBLE:
+          return measure.getDoubleValue();
+        case NO_VALUE:
+          return Double.NaN;
+        default:
+          throw new IllegalArgumentException("Unsupported value type of numeric measure: " + measure.getValueType());
+      }
+    }
+
+    private static double[] ensureCapacity(double[] array, int position) {
+      if (position < array.length) {
+        return array;
+      }
+      return Arrays.copyOf(array, Math.max(position + 1, Math.max(MIN_CAPACITY, array.length * 2)));
+    }
+  }
+}
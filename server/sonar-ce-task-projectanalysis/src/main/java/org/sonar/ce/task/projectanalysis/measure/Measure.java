@@ -101,6 +101,14 @@ public final class Measure {
     return new UpdateMeasureBuilder(measure);
   }
 
+  /**
+   * Creates a numeric measure, or a measure without value, from a value which has already been scaled. Used to
+   * restore the measures stored by {@link ColumnarRawMeasureRepository}.
+   */
+  static Measure createNumeric(ValueType valueType, @Nullable Double value, @Nullable Double variation) {
+    return new Measure(valueType, null, value, null, null, null, variation);
+  }
+
   public static final class NewMeasureBuilder {
     private Developer developer;
     private QualityGateStatus qualityGateStatus;
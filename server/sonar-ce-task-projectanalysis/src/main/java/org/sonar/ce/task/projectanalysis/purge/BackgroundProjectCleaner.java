@@ -0,0 +1,184 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.task.dbcleaner;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.TimeUtils;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.purge.IdUuidPair;
+import org.sonar.db.purge.PurgeBudget;
+import org.sonar.db.purge.PurgeConfiguration;
+import org.sonar.db.purge.PurgeListener;
+import org.sonar.db.purge.PurgeProfiler;
+import org.sonar.db.purge.period.DefaultPeriodCleaner;
+
+import static java.util.Collections.emptyList;
+import static org.sonar.db.purge.PurgeConfiguration.newDefaultPurgeConfiguration;
+
+/**
+ * Purges the historical data of the projects scheduled by {@link ProjectCleaner}, outside of their analysis.
+ * <p>
+ * Pending purges are kept in memory, in the order they were scheduled: a purge lost by a restart of the Compute Engine
+ * is scheduled again by the next analysis of the project.
+ * </p>
+ */
+@ComputeEngineSide
+public class BackgroundProjectCleaner {
+  private static final Logger LOG = Loggers.get(BackgroundProjectCleaner.class);
+
+  private final DbClient dbClient;
+  private final DefaultPeriodCleaner periodCleaner;
+  private final PurgeListener purgeListener;
+  private final System2 system2;
+  private final Map<String, PendingPurge> pendingPurgesByRootUuid = new LinkedHashMap<>();
+
+  public BackgroundProjectCleaner(DbClient dbClient, DefaultPeriodCleaner periodCleaner, PurgeListener purgeListener, System2 system2) {
+    this.dbClient = dbClient;
+    this.periodCleaner = periodCleaner;
+    this.purgeListener = purgeListener;
+    this.system2 = system2;
+  }
+
+  /**
+   * Schedules the purge of the specified project, or updates its configuration if it's already pending.
+   */
+  public void schedule(IdUuidPair rootId, Configuration projectConfig) {
+    synchronized (pendingPurgesByRootUuid) {
+      PendingPurge pendingPurge = pendingPurgesByRootUuid.get(rootId.getUuid());
+      if (pendingPurge == null) {
+        pendingPurgesByRootUuid.put(rootId.getUuid(), new PendingPurge(rootId, projectConfig, system2.now()));
+      } else {
+        pendingPurge.reschedule(projectConfig);
+      }
+    }
+  }
+
+  public List<String> getPendingRootUuids() {
+    synchronized (pendingPurgesByRootUuid) {
+      return new ArrayList<>(pendingPurgesByRootUuid.keySet());
+    }
+  }
+
+  /**
+   * Purges the pending projects, one after the other, until the budget is exhausted. A project which could not be fully
+   * purged is resumed by the next call.
+   */
+  public void purge(PurgeBudget budget) {
+    for (PendingPurge pendingPurge : pendingPurges()) {
+      if (budget.isExhausted() || !purge(pendingPurge, budget)) {
+        return;
+      }
+    }
+  }
+
+  private List<PendingPurge> pendingPurges() {
+    synchronized (pendingPurgesByRootUuid) {
+      return new ArrayList<>(pendingPurgesByRootUuid.values());
+    }
+  }
+
+  /**
+   * @return {@code false} if the budget has been exhausted before the project was fully purged
+   */
+  private boolean purge(PendingPurge pendingPurge, PurgeBudget budget) {
+    String rootUuid = pendingPurge.rootId.getUuid();
+    Configuration projectConfig;
+    synchronized (pendingPurgesByRootUuid) {
+      pendingPurge.rescheduled = false;
+      projectConfig = pendingPurge.projectConfig;
+    }
+    long start = system2.now();
+    boolean done;
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      PurgeConfiguration configuration = newDefaultPurgeConfiguration(projectConfig, pendingPurge.rootId, emptyList());
+      List<IdUuidPair> analysesToDelete = periodCleaner.selectAnalysesToDelete(dbSession, rootUuid, projectConfig);
+      done = dbClient.purgeDao().purgeInChunks(dbSession, configuration, analysesToDelete, purgeListener, pendingPurge.profiler, budget);
+    } catch (Exception e) {
+      LOG.warn("Background purge of project {} failed", rootUuid, e);
+      remove(pendingPurge);
+      return true;
+    } finally {
+      pendingPurge.runs++;
+      pendingPurge.duration += system2.now() - start;
+    }
+
+    if (done && remove(pendingPurge)) {
+      logCompletion(pendingPurge, projectConfig);
+    }
+    return done;
+  }
+
+  /**
+   * @return {@code false} if the purge is kept pending because the project has been rescheduled in the meantime
+   */
+  private boolean remove(PendingPurge pendingPurge) {
+    synchronized (pendingPurgesByRootUuid) {
+      if (pendingPurge.rescheduled) {
+        return false;
+      }
+      pendingPurgesByRootUuid.remove(pendingPurge.rootId.getUuid());
+      return true;
+    }
+  }
+
+  private void logCompletion(PendingPurge pendingPurge, Configuration projectConfig) {
+    LOG.debug("Background purge of project {} completed in {} run(s) and {}, {} after it was scheduled", pendingPurge.rootId.getUuid(),
+      pendingPurge.runs, TimeUtils.formatDuration(pendingPurge.duration), TimeUtils.formatDuration(system2.now() - pendingPurge.scheduledAt));
+    if (projectConfig.getBoolean(CoreProperties.PROFILING_LOG_PROPERTY).orElse(false)) {
+      LOG.info("\n -------- Profiling for background purge: " + TimeUtils.formatDuration(pendingPurge.duration) + " --------\n");
+      pendingPurge.profiler.dump(pendingPurge.duration, LOG);
+      LOG.info("\n -------- End of profiling for background purge --------\n");
+    }
+  }
+
+  private static class PendingPurge {
+    private final IdUuidPair rootId;
+    private final long scheduledAt;
+    // counters are not shared with the analyses, hence a PurgeProfiler of its own
+    private final PurgeProfiler profiler = new PurgeProfiler();
+    // guarded by pendingPurgesByRootUuid
+    private Configuration projectConfig;
+    // guarded by pendingPurgesByRootUuid
+    private boolean rescheduled = false;
+    private int runs = 0;
+    private long duration = 0;
+
+    private PendingPurge(IdUuidPair rootId, Configuration projectConfig, long scheduledAt) {
+      this.rootId = rootId;
+      this.projectConfig = projectConfig;
+      this.scheduledAt = scheduledAt;
+    }
+
+    private void reschedule(Configuration projectConfig) {
+      this.projectConfig = projectConfig;
+      this.rescheduled = true;
+    }
+  }
+}
@@ -20,6 +20,8 @@
 package org.sonar.ce.task.dbcleaner;
 
 import java.util.Collection;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.config.Configuration;
@@ -27,6 +29,7 @@ import org.sonar.api.server.ServerSide;
 import org.sonar.api.utils.TimeUtils;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.config.PurgeConstants;
 import org.sonar.db.DbSession;
 import org.sonar.db.purge.IdUuidPair;
 import org.sonar.db.purge.PurgeConfiguration;
@@ -46,12 +49,21 @@ public class ProjectCleaner {
   private final PurgeListener purgeListener;
   private final PurgeDao purgeDao;
   private final DefaultPeriodCleaner periodCleaner;
+  @CheckForNull
+  private final BackgroundProjectCleaner backgroundProjectCleaner;
 
   public ProjectCleaner(PurgeDao purgeDao, DefaultPeriodCleaner periodCleaner, PurgeProfiler profiler, PurgeListener purgeListener) {
+    this(purgeDao, periodCleaner, profiler, purgeListener, null);
+  }
+
+  // this constructor is used by picocontainer
+  public ProjectCleaner(PurgeDao purgeDao, DefaultPeriodCleaner periodCleaner, PurgeProfiler profiler, PurgeListener purgeListener,
+    @Nullable BackgroundProjectCleaner backgroundProjectCleaner) {
     this.purgeDao = purgeDao;
     this.periodCleaner = periodCleaner;
     this.profiler = profiler;
     this.purgeListener = purgeListener;
+    this.backgroundProjectCleaner = backgroundProjectCleaner;
   }
 
   public ProjectCleaner purge(DbSession session, IdUuidPair rootId, Configuration projectConfig, Collection<String> disabledComponentUuids) {
@@ -60,8 +72,14 @@ public class ProjectCleaner {
 
     PurgeConfiguration configuration = newDefaultPurgeConfiguration(projectConfig, rootId, disabledComponentUuids);
 
-    periodCleaner.clean(session, configuration.rootProjectIdUuid().getUuid(), projectConfig);
-    purgeDao.purge(session, configuration, purgeListener, profiler);
+    if (backgroundProjectCleaner != null && projectConfig.getBoolean(PurgeConstants.BACKGROUND_PURGE).orElse(false)) {
+      // historical data is purged by backgroundProjectCleaner, in short transactions which don't slow down the analysis
+      purgeDao.purgeAnalysisBoundData(session, configuration, purgeListener, profiler);
+      backgroundProjectCleaner.schedule(rootId, projectConfig);
+    } else {
+      periodCleaner.clean(session, configuration.rootProjectIdUuid().getUuid(), projectConfig);
+      purgeDao.purge(session, configuration, purgeListener, profiler);
+    }
 
     session.commit();
     logProfiling(start, projectConfig);
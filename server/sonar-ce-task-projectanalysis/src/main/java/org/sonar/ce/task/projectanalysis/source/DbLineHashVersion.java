@@ -19,8 +19,8 @@
  */
 package org.sonar.ce.task.projectanalysis.source;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.sonar.ce.task.projectanalysis.component.Component;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -28,7 +28,7 @@ import org.sonar.db.source.LineHashVersion;
 import org.sonar.ce.task.projectanalysis.component.Component;
 
 public class DbLineHashVersion {
-  private final Map<Component, LineHashVersion> lineHashVersionPerComponent = new HashMap<>();
+  private final Map<Component, LineHashVersion> lineHashVersionPerComponent = new ConcurrentHashMap<>();
   private final DbClient dbClient;
 
   public DbLineHashVersion(DbClient dbClient) {
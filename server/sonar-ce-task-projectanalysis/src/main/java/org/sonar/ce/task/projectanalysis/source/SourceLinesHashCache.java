@@ -24,9 +24,9 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import org.sonar.api.utils.TempFolder;
 import org.sonar.ce.task.projectanalysis.component.Component;
@@ -36,7 +36,7 @@ public class SourceLinesHashCache {
   private static final String FILE_NAME_PREFIX = "hashes-";
 
   private final Path cacheDirectoryPath;
-  private final Set<Integer> cacheFileIds = new HashSet<>();
+  private final Set<Integer> cacheFileIds = ConcurrentHashMap.newKeySet();
 
   public SourceLinesHashCache(TempFolder tempFolder) {
     this.cacheDirectoryPath = tempFolder.newDir().toPath();
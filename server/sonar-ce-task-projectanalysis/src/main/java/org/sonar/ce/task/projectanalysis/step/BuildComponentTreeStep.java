@@ -19,12 +19,15 @@
  */
 package org.sonar.ce.task.projectanalysis.step;
 
+import java.util.function.Function;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import org.sonar.api.config.Configuration;
 import org.sonar.ce.task.projectanalysis.analysis.Analysis;
 import org.sonar.ce.task.projectanalysis.analysis.Branch;
 import org.sonar.ce.task.projectanalysis.analysis.MutableAnalysisMetadataHolder;
 import org.sonar.ce.task.projectanalysis.batch.BatchReportReader;
+import org.sonar.ce.task.projectanalysis.component.CompactComponentUuidFactory;
 import org.sonar.ce.task.projectanalysis.component.Component;
 import org.sonar.ce.task.projectanalysis.component.ComponentKeyGenerator;
 import org.sonar.ce.task.projectanalysis.component.ComponentTreeBuilder;
@@ -43,17 +46,31 @@ import org.sonar.scanner.protocol.output.ScannerReport;
  */
 public class BuildComponentTreeStep implements ComputationStep {
 
+  /**
+   * When enabled, the UUIDs of the existing components are scrolled from database into a compact off-heap index
+   * (see {@link CompactComponentUuidFactory}) rather than loaded into a map.
+   */
+  public static final String PROPERTY_STREAMING = "sonar.ce.componentTree.streaming";
+
   private final DbClient dbClient;
   private final BatchReportReader reportReader;
   private final MutableTreeRootHolder treeRootHolder;
   private final MutableAnalysisMetadataHolder analysisMetadataHolder;
+  private final boolean streaming;
 
   public BuildComponentTreeStep(DbClient dbClient, BatchReportReader reportReader,
     MutableTreeRootHolder treeRootHolder, MutableAnalysisMetadataHolder analysisMetadataHolder) {
+    this(dbClient, reportReader, treeRootHolder, analysisMetadataHolder, null);
+  }
+
+  // this constructor is used by picocontainer
+  public BuildComponentTreeStep(DbClient dbClient, BatchReportReader reportReader,
+    MutableTreeRootHolder treeRootHolder, MutableAnalysisMetadataHolder analysisMetadataHolder, @Nullable Configuration configuration) {
     this.dbClient = dbClient;
     this.reportReader = reportReader;
     this.treeRootHolder = treeRootHolder;
     this.analysisMetadataHolder = analysisMetadataHolder;
+    this.streaming = configuration != null && configuration.getBoolean(PROPERTY_STREAMING).orElse(false);
   }
 
   @Override
@@ -72,13 +89,13 @@ public class BuildComponentTreeStep implements ComputationStep {
       String rootKey = keyGenerator.generateKey(reportProject, null);
 
       // loads the UUIDs from database. If they don't exist, then generate new ones
-      ComponentUuidFactory componentUuidFactory = new ComponentUuidFactory(dbClient, dbSession, rootKey);
+      Function<String, String> uuidSupplier = loadUuidSupplier(dbSession, rootKey);
 
-      String rootUuid = componentUuidFactory.getOrCreateForKey(rootKey);
+      String rootUuid = uuidSupplier.apply(rootKey);
       SnapshotDto baseAnalysis = loadBaseAnalysis(dbSession, rootUuid);
 
       ComponentTreeBuilder builder = new ComponentTreeBuilder(keyGenerator, publicKeyGenerator,
-        componentUuidFactory::getOrCreateForKey,
+        uuidSupplier,
         reportReader::readComponent,
         analysisMetadataHolder.getProject(),
         analysisMetadataHolder.getBranch(),
@@ -91,6 +108,13 @@ public class BuildComponentTreeStep implements ComputationStep {
     }
   }
 
+  private Function<String, String> loadUuidSupplier(DbSession dbSession, String rootKey) {
+    if (streaming) {
+      return new CompactComponentUuidFactory(dbClient, dbSession, rootKey)::getOrCreateForKey;
+    }
+    return new ComponentUuidFactory(dbClient, dbSession, rootKey)::getOrCreateForKey;
+  }
+
   private ComponentKeyGenerator loadKeyGenerator() {
     return analysisMetadataHolder.getBranch();
   }
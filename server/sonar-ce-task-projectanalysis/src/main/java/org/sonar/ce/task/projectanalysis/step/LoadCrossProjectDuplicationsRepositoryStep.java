@@ -21,8 +21,16 @@ package org.sonar.ce.task.projectanalysis.step;
 
 import com.google.common.base.Function;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.ce.task.projectanalysis.analysis.Analysis;
@@ -57,6 +65,7 @@ import static com.google.common.collect.Lists.newArrayList;
 public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationStep {
 
   private static final Logger LOGGER = Loggers.get(LoadCrossProjectDuplicationsRepositoryStep.class);
+  static final int MAX_HASHES_PER_BATCH = 5_000;
 
   private final TreeRootHolder treeRootHolder;
   private final BatchReportReader reportReader;
@@ -79,7 +88,9 @@ public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationSt
   @Override
   public void execute() {
     if (crossProjectDuplicationStatusHolder.isEnabled()) {
-      new DepthTraversalTypeAwareCrawler(new CrossProjectDuplicationVisitor()).visit(treeRootHolder.getRoot());
+      CrossProjectDuplicationVisitor visitor = new CrossProjectDuplicationVisitor();
+      new DepthTraversalTypeAwareCrawler(visitor).visit(treeRootHolder.getRoot());
+      visitor.loadRemainingBatches();
     }
   }
 
@@ -88,7 +99,12 @@ public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationSt
     return "Compute cross project duplications";
   }
 
+  /**
+   * Files are grouped by language in batches of at most {@link #MAX_HASHES_PER_BATCH} distinct hashes, and
+   * the candidate duplications of all the files of a batch are loaded at once, instead of one query per file.
+   */
   private class CrossProjectDuplicationVisitor extends TypeAwareVisitorAdapter {
+    private final Map<String, FileBatch> batchesByLanguage = new HashMap<>();
 
     private CrossProjectDuplicationVisitor() {
       super(CrawlerDepthLimit.FILE, Order.PRE_ORDER);
@@ -105,8 +121,37 @@ public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationSt
         }
       }
 
-      Collection<String> hashes = from(cpdTextBlocks).transform(CpdTextBlockToHash.INSTANCE).toList();
-      List<DuplicationUnitDto> dtos = selectDuplicates(file, hashes);
+      String language = file.getFileAttributes().getLanguageKey();
+      FileBatch batch = batchesByLanguage.computeIfAbsent(language, FileBatch::new);
+      batch.add(file, cpdTextBlocks);
+      if (batch.hashes.size() >= MAX_HASHES_PER_BATCH) {
+        batchesByLanguage.remove(language);
+        loadDuplications(batch);
+      }
+    }
+
+    private void loadRemainingBatches() {
+      batchesByLanguage.values().forEach(this::loadDuplications);
+      batchesByLanguage.clear();
+    }
+
+    private void loadDuplications(FileBatch batch) {
+      List<DuplicationUnitDto> dtos = selectDuplicates(batch.language, batch.hashes);
+      if (dtos.isEmpty()) {
+        return;
+      }
+      Map<String, List<DuplicationUnitDto>> dtosByHash = dtos.stream().collect(Collectors.groupingBy(DuplicationUnitDto::getHash));
+      for (Map.Entry<Component, List<CpdTextBlock>> entry : batch.cpdTextBlocksByFile.entrySet()) {
+        computeCpd(entry.getKey(), entry.getValue(), dtosByHash);
+      }
+    }
+
+    private void computeCpd(Component file, List<CpdTextBlock> cpdTextBlocks, Map<String, List<DuplicationUnitDto>> dtosByHash) {
+      List<DuplicationUnitDto> dtos = cpdTextBlocks.stream()
+        .map(CpdTextBlock::getHash)
+        .distinct()
+        .flatMap(hash -> dtosByHash.getOrDefault(hash, Collections.emptyList()).stream())
+        .collect(Collectors.toList());
       if (dtos.isEmpty()) {
         return;
       }
@@ -118,15 +163,31 @@ public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationSt
       integrateCrossProjectDuplications.computeCpd(file, originBlocks, duplicatedBlocks);
     }
 
-    private List<DuplicationUnitDto> selectDuplicates(Component file, Collection<String> hashes) {
+    private List<DuplicationUnitDto> selectDuplicates(@Nullable String language, Collection<String> hashes) {
       try (DbSession dbSession = dbClient.openSession(false)) {
         Analysis projectAnalysis = analysisMetadataHolder.getBaseAnalysis();
         String analysisUuid = projectAnalysis == null ? null : projectAnalysis.getUuid();
-        return dbClient.duplicationDao().selectCandidates(dbSession, analysisUuid, file.getFileAttributes().getLanguageKey(), hashes);
+        return dbClient.duplicationDao().selectCandidates(dbSession, analysisUuid, language, hashes);
       }
     }
   }
 
+  private static class FileBatch {
+    @Nullable
+    private final String language;
+    private final Map<Component, List<CpdTextBlock>> cpdTextBlocksByFile = new LinkedHashMap<>();
+    private final Set<String> hashes = new HashSet<>();
+
+    private FileBatch(@Nullable String language) {
+      this.language = language;
+    }
+
+    private void add(Component file, List<CpdTextBlock> cpdTextBlocks) {
+      cpdTextBlocksByFile.put(file, cpdTextBlocks);
+      from(cpdTextBlocks).transform(CpdTextBlockToHash.INSTANCE).copyInto(hashes);
+    }
+  }
+
   private enum CpdTextBlockToHash implements Function<CpdTextBlock, String> {
     INSTANCE;
 
@@ -19,6 +19,8 @@
  */
 package org.sonar.ce.task.projectanalysis.step;
 
+import com.google.common.collect.ImmutableSet;
+import java.util.Set;
 import org.sonar.ce.task.projectanalysis.analysis.AnalysisMetadataHolder;
 import org.sonar.ce.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.ce.task.projectanalysis.component.Component;
@@ -27,7 +29,7 @@ import org.sonar.ce.task.projectanalysis.component.DepthTraversalTypeAwareCrawle
 import org.sonar.ce.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.ce.task.projectanalysis.component.TypeAwareVisitorAdapter;
 import org.sonar.ce.task.projectanalysis.duplication.CrossProjectDuplicationStatusHolder;
-import org.sonar.ce.task.step.ComputationStep;
+import org.sonar.ce.task.step.ConcurrentComputationStep;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -35,11 +37,16 @@ import org.sonar.db.duplication.DuplicationUnitDto;
 import org.sonar.scanner.protocol.output.ScannerReport;
 
 import static org.sonar.ce.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
+import static org.sonar.ce.task.projectanalysis.step.StepResources.ANALYSIS_METADATA_HOLDER;
+import static org.sonar.ce.task.projectanalysis.step.StepResources.CROSS_PROJECT_DUPLICATION_STATUS_HOLDER;
+import static org.sonar.ce.task.projectanalysis.step.StepResources.REPORT_READER;
+import static org.sonar.ce.task.projectanalysis.step.StepResources.TABLE_DUPLICATIONS_INDEX;
+import static org.sonar.ce.task.projectanalysis.step.StepResources.TREE_ROOT_HOLDER;
 
 /**
  * Persist cross project duplications text blocks into DUPLICATIONS_INDEX table
  */
-public class PersistCrossProjectDuplicationIndexStep implements ComputationStep {
+public class PersistCrossProjectDuplicationIndexStep implements ConcurrentComputationStep {
 
   private final DbClient dbClient;
   private final TreeRootHolder treeRootHolder;
@@ -111,6 +118,16 @@ public class PersistCrossProjectDuplicationIndexStep implements ComputationStep
 
   }
 
+  @Override
+  public Set<String> reads() {
+    return ImmutableSet.of(CROSS_PROJECT_DUPLICATION_STATUS_HOLDER, TREE_ROOT_HOLDER, ANALYSIS_METADATA_HOLDER, REPORT_READER);
+  }
+
+  @Override
+  public Set<String> writes() {
+    return ImmutableSet.of(TABLE_DUPLICATIONS_INDEX);
+  }
+
   @Override
   public String getDescription() {
     return "Persist cross project duplications index";
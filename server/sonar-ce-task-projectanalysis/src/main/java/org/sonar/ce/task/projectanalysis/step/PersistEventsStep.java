@@ -19,7 +19,9 @@
  */
 package org.sonar.ce.task.projectanalysis.step;
 
+import com.google.common.collect.ImmutableSet;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -32,13 +34,18 @@ import org.sonar.ce.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.ce.task.projectanalysis.component.TypeAwareVisitorAdapter;
 import org.sonar.ce.task.projectanalysis.event.Event;
 import org.sonar.ce.task.projectanalysis.event.EventRepository;
-import org.sonar.ce.task.step.ComputationStep;
+import org.sonar.ce.task.step.ConcurrentComputationStep;
 import org.sonar.core.util.UuidFactory;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.event.EventDto;
 
-public class PersistEventsStep implements ComputationStep {
+import static org.sonar.ce.task.projectanalysis.step.StepResources.ANALYSIS_METADATA_HOLDER;
+import static org.sonar.ce.task.projectanalysis.step.StepResources.EVENT_REPOSITORY;
+import static org.sonar.ce.task.projectanalysis.step.StepResources.TABLE_EVENTS;
+import static org.sonar.ce.task.projectanalysis.step.StepResources.TREE_ROOT_HOLDER;
+
+public class PersistEventsStep implements ConcurrentComputationStep {
 
   private final DbClient dbClient;
   private final System2 system2;
@@ -67,6 +74,16 @@ public class PersistEventsStep implements ComputationStep {
     }
   }
 
+  @Override
+  public Set<String> reads() {
+    return ImmutableSet.of(ANALYSIS_METADATA_HOLDER, TREE_ROOT_HOLDER, EVENT_REPOSITORY);
+  }
+
+  @Override
+  public Set<String> writes() {
+    return ImmutableSet.of(TABLE_EVENTS);
+  }
+
   @Override
   public String getDescription() {
     return "Persist events";
@@ -20,15 +20,18 @@
 package org.sonar.ce.task.projectanalysis.step;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang.ObjectUtils;
+import org.sonar.api.config.Configuration;
 import org.sonar.api.utils.System2;
 import org.sonar.ce.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.ce.task.projectanalysis.component.Component;
@@ -51,18 +54,32 @@ import org.sonar.ce.task.projectanalysis.source.linereader.LineReader;
 import org.sonar.ce.task.projectanalysis.source.linereader.RangeOffsetConverter;
 import org.sonar.ce.task.projectanalysis.source.linereader.ScmLineReader;
 import org.sonar.ce.task.projectanalysis.source.linereader.SymbolsLineReader;
-import org.sonar.ce.task.step.ComputationStep;
+import org.sonar.ce.task.step.ConcurrentComputationStep;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.protobuf.DbFileSources;
 import org.sonar.db.source.FileSourceDto;
+import org.sonar.db.source.FileSourceDto.Segment;
 import org.sonar.db.source.FileSourceDto.Type;
 import org.sonar.scanner.protocol.output.ScannerReport;
 
 import static org.sonar.ce.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
+import static org.sonar.ce.task.projectanalysis.step.StepResources.DUPLICATION_REPOSITORY;
+import static org.sonar.ce.task.projectanalysis.step.StepResources.REPORT_READER;
+import static org.sonar.ce.task.projectanalysis.step.StepResources.SCM_INFO_REPOSITORY;
+import static org.sonar.ce.task.projectanalysis.step.StepResources.SOURCE_LINES_HASH_REPOSITORY;
+import static org.sonar.ce.task.projectanalysis.step.StepResources.SOURCE_LINES_REPOSITORY;
+import static org.sonar.ce.task.projectanalysis.step.StepResources.TABLE_FILE_SOURCES_SOURCE;
+import static org.sonar.ce.task.projectanalysis.step.StepResources.TREE_ROOT_HOLDER;
 
-public class PersistFileSourcesStep implements ComputationStep {
+public class PersistFileSourcesStep implements ConcurrentComputationStep {
+
+  /**
+   * When enabled, line text, highlighting and symbols, coverage and SCM are persisted as separately hashed segments
+   * and only the segments which changed since the previous analysis are written.
+   */
+  public static final String PROPERTY_SEGMENTED_STORAGE = "sonar.ce.fileSources.segmented";
 
   private final DbClient dbClient;
   private final System2 system2;
@@ -72,9 +89,17 @@ public class PersistFileSourcesStep implements ComputationStep {
   private final ScmInfoRepository scmInfoRepository;
   private final DuplicationRepository duplicationRepository;
   private final SourceLinesHashRepository sourceLinesHash;
+  private final boolean segmented;
 
   public PersistFileSourcesStep(DbClient dbClient, System2 system2, TreeRootHolder treeRootHolder, BatchReportReader reportReader, SourceLinesRepository sourceLinesRepository,
     ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository, SourceLinesHashRepository sourceLinesHash) {
+    this(dbClient, system2, treeRootHolder, reportReader, sourceLinesRepository, scmInfoRepository, duplicationRepository, sourceLinesHash, null);
+  }
+
+  // this constructor is used by picocontainer
+  public PersistFileSourcesStep(DbClient dbClient, System2 system2, TreeRootHolder treeRootHolder, BatchReportReader reportReader, SourceLinesRepository sourceLinesRepository,
+    ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository, SourceLinesHashRepository sourceLinesHash,
+    @Nullable Configuration configuration) {
     this.dbClient = dbClient;
     this.system2 = system2;
     this.treeRootHolder = treeRootHolder;
@@ -83,6 +108,7 @@ public class PersistFileSourcesStep implements ComputationStep {
     this.scmInfoRepository = scmInfoRepository;
     this.duplicationRepository = duplicationRepository;
     this.sourceLinesHash = sourceLinesHash;
+    this.segmented = configuration != null && configuration.getBoolean(PROPERTY_SEGMENTED_STORAGE).orElse(false);
   }
 
   @Override
@@ -130,6 +156,10 @@ public class PersistFileSourcesStep implements ComputationStep {
     }
 
     private void persistSource(ComputeFileSourceData.Data fileSourceData, Component file, @Nullable Changeset latestChangeWithRevision) {
+      if (segmented) {
+        persistSegmentedSource(fileSourceData, file, latestChangeWithRevision);
+        return;
+      }
       DbFileSources.Data fileData = fileSourceData.getFileSourceData();
 
       byte[] data = FileSourceDto.encodeSourceData(fileData);
@@ -162,7 +192,12 @@ public class PersistFileSourcesStep implements ComputationStep {
         boolean revisionUpdated = !ObjectUtils.equals(revision, previousDto.getRevision());
         boolean lineHashesVersionUpdated = previousDto.getLineHashesVersion() != lineHashesVersion;
         if (binaryDataUpdated || srcHashUpdated || revisionUpdated || lineHashesVersionUpdated) {
+          // source may have been stored as segments by a previous analysis: segment columns are reset
           previousDto
+            .setSegmentHashes(null)
+            .setSegmentData(Segment.HIGHLIGHTING, null)
+            .setSegmentData(Segment.COVERAGE, null)
+            .setSegmentData(Segment.SCM, null)
             .setBinaryData(data)
             .setDataHash(dataHash)
             .setSrcHash(srcHash)
@@ -176,6 +211,41 @@ public class PersistFileSourcesStep implements ComputationStep {
       }
     }
 
+    private void persistSegmentedSource(ComputeFileSourceData.Data fileSourceData, Component file, @Nullable Changeset latestChangeWithRevision) {
+      FileSourceDto dto = new FileSourceDto()
+        .setProjectUuid(projectUuid)
+        .setFileUuid(file.getUuid())
+        .setSegmentedSourceData(fileSourceData.getFileSourceData())
+        .setSrcHash(fileSourceData.getSrcHash())
+        .setLineHashes(fileSourceData.getLineHashes())
+        .setLineHashesVersion(sourceLinesHash.getLineHashesVersion(file))
+        .setRevision(computeRevision(latestChangeWithRevision))
+        .setUpdatedAt(system2.now());
+      FileSourceDto previousDto = previousFileSourcesByUuid.get(file.getUuid());
+
+      if (previousDto == null) {
+        dbClient.fileSourceDao().insert(session, dto.setCreatedAt(system2.now()));
+        session.commit();
+        return;
+      }
+
+      boolean srcHashUpdated = !dto.getSrcHash().equals(previousDto.getSrcHash());
+      boolean lineHashesVersionUpdated = !dto.getLineHashesVersion().equals(previousDto.getLineHashesVersion());
+      boolean revisionUpdated = !ObjectUtils.equals(dto.getRevision(), previousDto.getRevision());
+      boolean dataUpdated = !dto.getDataHash().equals(previousDto.getDataHash());
+      if (srcHashUpdated || lineHashesVersionUpdated || revisionUpdated || dataUpdated) {
+        // segments which did not change are not written
+        for (Segment segment : Segment.values()) {
+          if (ObjectUtils.equals(dto.getSegmentHash(segment), previousDto.getSegmentHash(segment))) {
+            dto.setSegmentData(segment, null);
+          }
+        }
+        dto.setId(previousDto.getId());
+        dbClient.fileSourceDao().updateSegments(session, dto, srcHashUpdated || lineHashesVersionUpdated);
+        session.commit();
+      }
+    }
+
     @CheckForNull
     private String computeRevision(@Nullable Changeset latestChangeWithRevision) {
       if (latestChangeWithRevision == null) {
@@ -233,6 +303,17 @@ public class PersistFileSourcesStep implements ComputationStep {
     }
   }
 
+  @Override
+  public Set<String> reads() {
+    return ImmutableSet.of(TREE_ROOT_HOLDER, REPORT_READER, SOURCE_LINES_REPOSITORY, DUPLICATION_REPOSITORY);
+  }
+
+  @Override
+  public Set<String> writes() {
+    // repositories which lazily load and cache their content are written
+    return ImmutableSet.of(TABLE_FILE_SOURCES_SOURCE, SCM_INFO_REPOSITORY, SOURCE_LINES_HASH_REPOSITORY);
+  }
+
   @Override
   public String getDescription() {
     return "Persist sources";
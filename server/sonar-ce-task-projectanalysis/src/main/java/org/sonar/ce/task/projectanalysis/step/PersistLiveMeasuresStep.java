@@ -20,13 +20,17 @@
 package org.sonar.ce.task.projectanalysis.step;
 
 import com.google.common.collect.Multimap;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.sonar.api.config.Configuration;
 import org.sonar.ce.task.projectanalysis.component.Component;
 import org.sonar.ce.task.projectanalysis.component.CrawlerDepthLimit;
 import org.sonar.ce.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
@@ -45,6 +49,8 @@ import org.sonar.db.DbSession;
 import org.sonar.db.measure.LiveMeasureDao;
 import org.sonar.db.measure.LiveMeasureDto;
 
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.util.Arrays.asList;
 import static java.util.Collections.unmodifiableSet;
 import static org.sonar.api.measures.CoreMetrics.CLASS_COMPLEXITY_DISTRIBUTION_KEY;
@@ -53,6 +59,16 @@ import static org.sonar.api.measures.CoreMetrics.FUNCTION_COMPLEXITY_DISTRIBUTIO
 import static org.sonar.ce.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
 
 public class PersistLiveMeasuresStep implements ComputationStep {
+  /**
+   * Number of rows inserted by each SQL statement, when persisting live and historical measures. It is capped by
+   * the maximum supported by {@link LiveMeasureDao} and {@link org.sonar.db.measure.MeasureDao}.
+   */
+  public static final String PROPERTY_INSERT_CHUNK_SIZE = "sonar.ce.measures.insertChunkSize";
+  static final int DEFAULT_INSERT_CHUNK_SIZE = 100;
+  /**
+   * Number of measures compared to the database and persisted at once, within a transaction.
+   */
+  private static final int FLUSH_SIZE = 1_000;
 
   /**
    * List of metrics that should not be persisted on file measure.
@@ -67,14 +83,28 @@ public class PersistLiveMeasuresStep implements ComputationStep {
   private final MeasureToMeasureDto measureToMeasureDto;
   private final TreeRootHolder treeRootHolder;
   private final MeasureRepository measureRepository;
+  private final int insertChunkSize;
 
   public PersistLiveMeasuresStep(DbClient dbClient, MetricRepository metricRepository, MeasureToMeasureDto measureToMeasureDto,
     TreeRootHolder treeRootHolder, MeasureRepository measureRepository) {
+    this(dbClient, metricRepository, measureToMeasureDto, treeRootHolder, measureRepository, null);
+  }
+
+  // this constructor is used by picocontainer
+  public PersistLiveMeasuresStep(DbClient dbClient, MetricRepository metricRepository, MeasureToMeasureDto measureToMeasureDto,
+    TreeRootHolder treeRootHolder, MeasureRepository measureRepository, @Nullable Configuration configuration) {
     this.dbClient = dbClient;
     this.metricRepository = metricRepository;
     this.measureToMeasureDto = measureToMeasureDto;
     this.treeRootHolder = treeRootHolder;
     this.measureRepository = measureRepository;
+    this.insertChunkSize = insertChunkSize(configuration, LiveMeasureDao.MAX_ROWS_PER_INSERT);
+  }
+
+  static int insertChunkSize(@Nullable Configuration configuration, int maxRowsPerInsert) {
+    int chunkSize = configuration == null ? DEFAULT_INSERT_CHUNK_SIZE
+      : configuration.getInt(PROPERTY_INSERT_CHUNK_SIZE).orElse(DEFAULT_INSERT_CHUNK_SIZE);
+    return max(1, min(chunkSize, maxRowsPerInsert));
   }
 
   @Override
@@ -84,10 +114,12 @@ public class PersistLiveMeasuresStep implements ComputationStep {
 
   @Override
   public void execute() {
-    try (DbSession dbSession = dbClient.openSession(false)) {
+    try (DbSession dbSession = dbClient.openSession(true)) {
       String marker = Uuids.create();
       Component root = treeRootHolder.getRoot();
-      new DepthTraversalTypeAwareCrawler(new MeasureVisitor(dbSession, marker)).visit(root);
+      MeasureVisitor visitor = new MeasureVisitor(dbSession, marker);
+      new DepthTraversalTypeAwareCrawler(visitor).visit(root);
+      visitor.flush();
       dbClient.liveMeasureDao().deleteByProjectUuidExcludingMarker(dbSession, root.getUuid(), marker);
       dbSession.commit();
     }
@@ -96,6 +128,7 @@ public class PersistLiveMeasuresStep implements ComputationStep {
   private class MeasureVisitor extends TypeAwareVisitorAdapter {
     private final DbSession dbSession;
     private final String marker;
+    private final List<LiveMeasureDto> buffer = new ArrayList<>();
 
     private MeasureVisitor(DbSession dbSession, String marker) {
       super(CrawlerDepthLimit.LEAVES, PRE_ORDER);
@@ -105,8 +138,6 @@ public class PersistLiveMeasuresStep implements ComputationStep {
 
     @Override
     public void visitAny(Component component) {
-      int count = 0;
-      LiveMeasureDao dao = dbClient.liveMeasureDao();
       Multimap<String, Measure> measures = measureRepository.getRawMeasures(component);
       for (Map.Entry<String, Collection<Measure>> measuresByMetricKey : measures.asMap().entrySet()) {
         String metricKey = measuresByMetricKey.getKey();
@@ -121,16 +152,21 @@ public class PersistLiveMeasuresStep implements ComputationStep {
           .map(measure -> measureToMeasureDto.toLiveMeasureDto(measure, metric, component))
           .iterator();
         while (liveMeasures.hasNext()) {
-          dao.insertOrUpdate(dbSession, liveMeasures.next(), marker);
-          count++;
-          if (count % 100 == 0) {
-            // use short transactions to avoid potential deadlocks on MySQL
-            // https://jira.sonarsource.com/browse/SONAR-10117?focusedCommentId=153555&page=com.atlassian.jira.plugin.system.issuetabpanels:comment-tabpanel#comment-153555
-            dbSession.commit();
+          buffer.add(liveMeasures.next());
+          if (buffer.size() >= FLUSH_SIZE) {
+            flush();
           }
         }
       }
     }
+
+    private void flush() {
+      dbClient.liveMeasureDao().upsert(dbSession, buffer, marker, insertChunkSize);
+      // use short transactions to avoid potential deadlocks on MySQL
+      // https://jira.sonarsource.com/browse/SONAR-10117?focusedCommentId=153555&page=com.atlassian.jira.plugin.system.issuetabpanels:comment-tabpanel#comment-153555
+      dbSession.commit();
+      buffer.clear();
+    }
   }
 
   private enum NonEmptyMeasure implements Predicate<Measure> {
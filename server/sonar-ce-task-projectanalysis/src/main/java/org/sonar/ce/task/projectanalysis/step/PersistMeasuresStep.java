@@ -21,10 +21,14 @@ package org.sonar.ce.task.projectanalysis.step;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Multimap;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Predicate;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.sonar.api.config.Configuration;
 import org.sonar.ce.task.projectanalysis.component.Component;
 import org.sonar.ce.task.projectanalysis.component.ConfigurationRepository;
 import org.sonar.ce.task.projectanalysis.component.CrawlerDepthLimit;
@@ -46,6 +50,10 @@ import org.sonar.db.measure.MeasureDto;
 import static org.sonar.ce.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
 
 public class PersistMeasuresStep implements ComputationStep {
+  /**
+   * Number of measures buffered before being inserted
+   */
+  private static final int FLUSH_SIZE = 1_000;
 
   private final DbClient dbClient;
   private final MetricRepository metricRepository;
@@ -53,22 +61,37 @@ public class PersistMeasuresStep implements ComputationStep {
   private final TreeRootHolder treeRootHolder;
   private final MeasureRepository measureRepository;
   private final boolean persistDirectories;
+  private final int insertChunkSize;
 
   public PersistMeasuresStep(DbClient dbClient, MetricRepository metricRepository, MeasureToMeasureDto measureToMeasureDto,
     TreeRootHolder treeRootHolder, MeasureRepository measureRepository, ConfigurationRepository settings) {
+    this(dbClient, metricRepository, measureToMeasureDto, treeRootHolder, measureRepository, settings, null);
+  }
+
+  // this constructor is used by picocontainer
+  public PersistMeasuresStep(DbClient dbClient, MetricRepository metricRepository, MeasureToMeasureDto measureToMeasureDto,
+    TreeRootHolder treeRootHolder, MeasureRepository measureRepository, ConfigurationRepository settings, @Nullable Configuration configuration) {
     this(dbClient, metricRepository, measureToMeasureDto, treeRootHolder, measureRepository,
-      !settings.getConfiguration().getBoolean(PurgeConstants.PROPERTY_CLEAN_DIRECTORY).orElseThrow(() -> new IllegalStateException("Missing default value")));
+      !settings.getConfiguration().getBoolean(PurgeConstants.PROPERTY_CLEAN_DIRECTORY).orElseThrow(() -> new IllegalStateException("Missing default value")),
+      PersistLiveMeasuresStep.insertChunkSize(configuration, MeasureDao.MAX_ROWS_PER_INSERT));
   }
 
   @VisibleForTesting
   PersistMeasuresStep(DbClient dbClient, MetricRepository metricRepository, MeasureToMeasureDto measureToMeasureDto, TreeRootHolder treeRootHolder,
     MeasureRepository measureRepository, boolean persistDirectories) {
+    this(dbClient, metricRepository, measureToMeasureDto, treeRootHolder, measureRepository, persistDirectories,
+      PersistLiveMeasuresStep.DEFAULT_INSERT_CHUNK_SIZE);
+  }
+
+  private PersistMeasuresStep(DbClient dbClient, MetricRepository metricRepository, MeasureToMeasureDto measureToMeasureDto, TreeRootHolder treeRootHolder,
+    MeasureRepository measureRepository, boolean persistDirectories, int insertChunkSize) {
     this.dbClient = dbClient;
     this.metricRepository = metricRepository;
     this.measureToMeasureDto = measureToMeasureDto;
     this.treeRootHolder = treeRootHolder;
     this.measureRepository = measureRepository;
     this.persistDirectories = persistDirectories;
+    this.insertChunkSize = insertChunkSize;
   }
 
   @Override
@@ -79,13 +102,16 @@ public class PersistMeasuresStep implements ComputationStep {
   @Override
   public void execute() {
     try (DbSession dbSession = dbClient.openSession(true)) {
-      new DepthTraversalTypeAwareCrawler(new MeasureVisitor(dbSession)).visit(treeRootHolder.getRoot());
+      MeasureVisitor visitor = new MeasureVisitor(dbSession);
+      new DepthTraversalTypeAwareCrawler(visitor).visit(treeRootHolder.getRoot());
+      visitor.flush();
       dbSession.commit();
     }
   }
 
   private class MeasureVisitor extends TypeAwareVisitorAdapter {
     private final DbSession session;
+    private final List<MeasureDto> buffer = new ArrayList<>();
 
     private MeasureVisitor(DbSession session) {
       super(CrawlerDepthLimit.LEAVES, PRE_ORDER);
@@ -129,14 +155,20 @@ public class PersistMeasuresStep implements ComputationStep {
       for (Map.Entry<String, Collection<Measure>> measuresByMetricKey : measures.asMap().entrySet()) {
         String metricKey = measuresByMetricKey.getKey();
         Metric metric = metricRepository.getByKey(metricKey);
-        MeasureDao measureDao = dbClient.measureDao();
         measuresByMetricKey.getValue().stream().filter(NonEmptyMeasure.INSTANCE).forEach(measure -> {
-          MeasureDto measureDto = measureToMeasureDto.toMeasureDto(measure, metric, component);
-          measureDao.insert(session, measureDto);
+          buffer.add(measureToMeasureDto.toMeasureDto(measure, metric, component));
+          if (buffer.size() >= FLUSH_SIZE) {
+            flush();
+          }
         });
       }
     }
 
+    private void flush() {
+      dbClient.measureDao().insert(session, buffer, insertChunkSize);
+      buffer.clear();
+    }
+
   }
 
   private enum NonEmptyMeasure implements Predicate<Measure> {
@@ -20,6 +20,7 @@
 package org.sonar.ce.task.projectanalysis.step;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -29,7 +30,7 @@ import org.sonar.ce.task.projectanalysis.analysis.AnalysisMetadataHolder;
 import org.sonar.ce.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.ce.task.projectanalysis.component.Component;
 import org.sonar.ce.task.projectanalysis.component.TreeRootHolder;
-import org.sonar.ce.task.step.ComputationStep;
+import org.sonar.ce.task.step.ConcurrentComputationStep;
 import org.sonar.core.util.UuidFactory;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -38,8 +39,12 @@ import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.scanner.protocol.output.ScannerReport.ComponentLink.ComponentLinkType;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static org.sonar.ce.task.projectanalysis.step.StepResources.ANALYSIS_METADATA_HOLDER;
+import static org.sonar.ce.task.projectanalysis.step.StepResources.REPORT_READER;
+import static org.sonar.ce.task.projectanalysis.step.StepResources.TABLE_PROJECT_LINKS;
+import static org.sonar.ce.task.projectanalysis.step.StepResources.TREE_ROOT_HOLDER;
 
-public class PersistProjectLinksStep implements ComputationStep {
+public class PersistProjectLinksStep implements ConcurrentComputationStep {
 
   private final AnalysisMetadataHolder analysisMetadataHolder;
   private final DbClient dbClient;
@@ -113,6 +118,16 @@ public class PersistProjectLinksStep implements ComputationStep {
     return type;
   }
 
+  @Override
+  public Set<String> reads() {
+    return ImmutableSet.of(ANALYSIS_METADATA_HOLDER, TREE_ROOT_HOLDER, REPORT_READER);
+  }
+
+  @Override
+  public Set<String> writes() {
+    return ImmutableSet.of(TABLE_PROJECT_LINKS);
+  }
+
   @Override
   public String getDescription() {
     return "Persist project links";
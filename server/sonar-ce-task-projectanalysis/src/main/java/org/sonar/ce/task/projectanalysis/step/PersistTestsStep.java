@@ -23,6 +23,7 @@ import com.google.common.base.Joiner;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Table;
 import java.util.ArrayList;
@@ -42,7 +43,7 @@ import org.sonar.ce.task.projectanalysis.component.CrawlerDepthLimit;
 import org.sonar.ce.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
 import org.sonar.ce.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.ce.task.projectanalysis.component.TypeAwareVisitorAdapter;
-import org.sonar.ce.task.step.ComputationStep;
+import org.sonar.ce.task.step.ConcurrentComputationStep;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.core.util.Uuids;
 import org.sonar.db.DbClient;
@@ -53,7 +54,11 @@ import org.sonar.db.source.FileSourceDto.Type;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.scanner.protocol.output.ScannerReport.Test.TestStatus;
 
-public class PersistTestsStep implements ComputationStep {
+import static org.sonar.ce.task.projectanalysis.step.StepResources.REPORT_READER;
+import static org.sonar.ce.task.projectanalysis.step.StepResources.TABLE_FILE_SOURCES_TEST;
+import static org.sonar.ce.task.projectanalysis.step.StepResources.TREE_ROOT_HOLDER;
+
+public class PersistTestsStep implements ConcurrentComputationStep {
 
   private static final Logger LOG = Loggers.get(PersistTestsStep.class);
 
@@ -81,6 +86,16 @@ public class PersistTestsStep implements ComputationStep {
     }
   }
 
+  @Override
+  public Set<String> reads() {
+    return ImmutableSet.of(TREE_ROOT_HOLDER, REPORT_READER);
+  }
+
+  @Override
+  public Set<String> writes() {
+    return ImmutableSet.of(TABLE_FILE_SOURCES_TEST);
+  }
+
   @Override
   public String getDescription() {
     return "Persist tests";
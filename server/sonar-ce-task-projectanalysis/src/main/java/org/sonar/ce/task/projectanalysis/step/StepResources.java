@@ -0,0 +1,53 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.task.projectanalysis.step;
+
+import org.sonar.ce.task.step.ConcurrentComputationStep;
+
+/**
+ * Names of the resources read and written by the {@link ConcurrentComputationStep}s of the project analysis.
+ */
+public final class StepResources {
+  public static final String ANALYSIS_METADATA_HOLDER = "AnalysisMetadataHolder";
+  public static final String CROSS_PROJECT_DUPLICATION_STATUS_HOLDER = "CrossProjectDuplicationStatusHolder";
+  public static final String DUPLICATION_REPOSITORY = "DuplicationRepository";
+  public static final String EVENT_REPOSITORY = "EventRepository";
+  public static final String REPORT_READER = "BatchReportReader";
+  public static final String SCM_INFO_REPOSITORY = "ScmInfoRepository";
+  public static final String SOURCE_LINES_HASH_REPOSITORY = "SourceLinesHashRepository";
+  public static final String SOURCE_LINES_REPOSITORY = "SourceLinesRepository";
+  public static final String TREE_ROOT_HOLDER = "TreeRootHolder";
+
+  public static final String TABLE_DUPLICATIONS_INDEX = "table:duplications_index";
+  public static final String TABLE_EVENTS = "table:events";
+  /**
+   * Rows of table file_sources with data_type SOURCE
+   */
+  public static final String TABLE_FILE_SOURCES_SOURCE = "table:file_sources#SOURCE";
+  /**
+   * Rows of table file_sources with data_type TEST
+   */
+  public static final String TABLE_FILE_SOURCES_TEST = "table:file_sources#TEST";
+  public static final String TABLE_PROJECT_LINKS = "table:project_links";
+
+  private StepResources() {
+    // prevents instantiation
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.task.projectanalysis.component;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.apache.commons.lang.StringUtils.repeat;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SortedKeyUuidIndexTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void get_returns_null_when_empty() {
+    SortedKeyUuidIndex underTest = SortedKeyUuidIndex.builder().build();
+
+    assertThat(underTest.size()).isZero();
+    assertThat(underTest.get("foo")).isNull();
+  }
+
+  @Test
+  public void get_uuids_of_keys_added_in_order() {
+    SortedKeyUuidIndex underTest = SortedKeyUuidIndex.builder()
+      .add("a", "uuid_a")
+      .add("a:b", "uuid_ab")
+      .add("b", "uuid_b")
+      .build();
+
+    assertThat(underTest.size()).isEqualTo(3);
+    assertThat(underTest.get("a")).isEqualTo("uuid_a");
+    assertThat(underTest.get("a:b")).isEqualTo("uuid_ab");
+    assertThat(underTest.get("b")).isEqualTo("uuid_b");
+    assertThat(underTest.get("a:")).isNull();
+    assertThat(underTest.get("c")).isNull();
+    assertThat(underTest.get("")).isNull();
+  }
+
+  @Test
+  public void get_uuids_of_keys_added_in_any_order() {
+    SortedKeyUuidIndex.Builder builder = SortedKeyUuidIndex.builder();
+    int[] shuffled = new Random().ints(0, 5_000).distinct().limit(2_000).toArray();
+    for (int i : shuffled) {
+      builder.add("project:src/File" + i + ".java", "uuid" + i);
+    }
+
+    SortedKeyUuidIndex underTest = builder.build();
+
+    assertThat(underTest.size()).isEqualTo(shuffled.length);
+    IntStream.of(shuffled).forEach(i -> assertThat(underTest.get("project:src/File" + i + ".java")).isEqualTo("uuid" + i));
+    assertThat(underTest.get("project:src/File5000.java")).isNull();
+  }
+
+  @Test
+  public void compare_non_ascii_keys_as_unsigned_bytes() {
+    SortedKeyUuidIndex underTest = SortedKeyUuidIndex.builder()
+      .add("project:é.java", "uuid1")
+      .add("project:a.java", "uuid2")
+      .add("project:中.java", "uuid3")
+      .build();
+
+    assertThat(underTest.get("project:é.java")).isEqualTo("uuid1");
+    assertThat(underTest.get("project:a.java")).isEqualTo("uuid2");
+    assertThat(underTest.get("project:中.java")).isEqualTo("uuid3");
+  }
+
+  @Test
+  public void fail_if_uuid_is_too_long() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("UUID is too long");
+
+    SortedKeyUuidIndex.builder().add("foo", repeat("u", 256));
+  }
+}
@@ -73,6 +73,34 @@ public class MatchesByScoreTest {
     ));
   }
 
+  @Test
+  public void creates_from_sparse_matrix_ignores_pairs_which_have_not_been_scored() {
+    int maxScore = 92;
+    int[][] newFileIndexes = {
+      {1},
+      null,
+      {0, 1},
+    };
+    int[][] scores = {
+      {maxScore},
+      null,
+      {85, 40},
+    };
+    MatchesByScore matchesByScore = MatchesByScore.create(ScoreMatrix.sparse(of("A", "B", "C"), of("1", "2"), newFileIndexes, scores, maxScore));
+
+    assertThat(matchesByScore.getSize()).isEqualTo(2);
+    assertThat(Lists.newArrayList(matchesByScore)).isEqualTo(Arrays.asList(
+      ImmutableList.of(new Match("A", "2")), // 92
+      NO_MATCH,
+      NO_MATCH,
+      NO_MATCH,
+      NO_MATCH,
+      NO_MATCH,
+      NO_MATCH,
+      ImmutableList.of(new Match("C", "1")) // 85
+    ));
+  }
+
   private ScoreFile[] of(String... fileKeys) {
     return Arrays.stream(fileKeys)
       .map(key -> new ScoreFile(key, new Random().nextInt(40)))
@@ -0,0 +1,122 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.task.projectanalysis.filemove;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MinHashCandidatesTest {
+
+  @Test
+  public void identical_files_are_candidates() {
+    List<String> lines = asList("a", "b", "c", "d");
+    MinHashCandidates underTest = MinHashCandidates.index(2, i -> i == 0 ? asList("x", "y", "z") : lines);
+
+    assertThat(underTest.candidatesOf(lines)).containsExactly(1);
+  }
+
+  @Test
+  public void signature_does_not_depend_on_order_nor_duplication_of_lines() {
+    assertThat(MinHashCandidates.signature(asList("a", "b", "c")))
+      .isEqualTo(MinHashCandidates.signature(asList("c", "a", "b", "a")));
+  }
+
+  @Test
+  public void empty_files_are_supported() {
+    MinHashCandidates underTest = MinHashCandidates.index(2, i -> i == 0 ? emptyList() : asList("a", "b"));
+
+    assertThat(underTest.candidatesOf(emptyList())).containsExactly(0);
+  }
+
+  @Test
+  public void candidates_are_sorted() {
+    List<String> lines = asList("a", "b", "c", "d");
+    MinHashCandidates underTest = MinHashCandidates.index(5, i -> lines);
+
+    assertThat(underTest.candidatesOf(lines)).containsExactly(0, 1, 2, 3, 4);
+  }
+
+  /**
+   * Synthetic rename of 10k files, each renamed file having 10% of its lines modified. Each renamed file must
+   * be selected as candidate of its original file, while the number of pairs to score must be far lower
+   * than the 100 million pairs of the full score matrix.
+   */
+  @Test
+  public void select_few_candidates_among_10k_renamed_files() {
+    int fileCount = 10_000;
+    Random random = new Random(42);
+    List<List<String>> removedFiles = new ArrayList<>(fileCount);
+    List<List<String>> newFiles = new ArrayList<>(fileCount);
+    for (int i = 0; i < fileCount; i++) {
+      List<String> lines = randomLines(random, 20 + random.nextInt(80));
+      removedFiles.add(lines);
+      newFiles.add(modify(random, lines, 0.1));
+    }
+    // shuffle new files to not rely on indexes
+    List<Integer> newFileIndexes = new ArrayList<>();
+    IntStream.range(0, fileCount).forEach(newFileIndexes::add);
+    Collections.shuffle(newFileIndexes, random);
+    int[] renamedFileIndexes = new int[fileCount];
+    for (int i = 0; i < fileCount; i++) {
+      renamedFileIndexes[newFileIndexes.get(i)] = i;
+    }
+
+    MinHashCandidates underTest = MinHashCandidates.index(fileCount, i -> newFiles.get(newFileIndexes.get(i)));
+
+    long pairs = 0;
+    int found = 0;
+    for (int i = 0; i < fileCount; i++) {
+      int[] candidates = underTest.candidatesOf(removedFiles.get(i));
+      pairs += candidates.length;
+      int expected = renamedFileIndexes[i];
+      if (IntStream.of(candidates).anyMatch(c -> c == expected)) {
+        found++;
+      }
+    }
+    assertThat(found).isGreaterThanOrEqualTo((int) (fileCount * 0.99));
+    assertThat(pairs).isLessThan(2L * fileCount);
+  }
+
+  private static List<String> randomLines(Random random, int count) {
+    List<String> lines = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      lines.add(Long.toHexString(random.nextLong()));
+    }
+    return lines;
+  }
+
+  private static List<String> modify(Random random, List<String> lines, double ratio) {
+    List<String> res = new ArrayList<>(lines);
+    for (int i = 0; i < res.size(); i++) {
+      if (random.nextDouble() < ratio) {
+        res.set(i, Long.toHexString(random.nextLong()));
+      }
+    }
+    return res;
+  }
+}
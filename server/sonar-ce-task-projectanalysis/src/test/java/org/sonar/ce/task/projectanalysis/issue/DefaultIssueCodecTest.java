@@ -0,0 +1,206 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.task.projectanalysis.issue;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Date;
+import org.junit.Test;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.Duration;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.DefaultIssueComment;
+import org.sonar.core.issue.FieldDiffs;
+import org.sonar.core.issue.IssueChangeContext;
+import org.sonar.db.protobuf.DbCommons;
+import org.sonar.db.protobuf.DbIssues;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class DefaultIssueCodecTest {
+
+  private DefaultIssueCodec underTest = new DefaultIssueCodec();
+
+  @Test
+  public void encode_and_decode_issue_with_all_fields() throws Exception {
+    Date date = new Date(1_500_000_000_000L);
+    DbIssues.Locations locations = DbIssues.Locations.newBuilder()
+      .setTextRange(DbCommons.TextRange.newBuilder().setStartLine(10).setEndLine(12).build())
+      .build();
+    DefaultIssue issue = new DefaultIssue()
+      .setKey("ISSUE_KEY")
+      .setType(RuleType.BUG)
+      .setComponentUuid("COMPONENT_UUID")
+      .setComponentKey("COMPONENT_KEY")
+      .setModuleUuid("MODULE_UUID")
+      .setModuleUuidPath(".MODULE_UUID.")
+      .setProjectUuid("PROJECT_UUID")
+      .setProjectKey("PROJECT_KEY")
+      .setRuleKey(RuleKey.of("xoo", "S001"))
+      .setLanguage("xoo")
+      .setSeverity(Severity.BLOCKER)
+      .setManualSeverity(true)
+      .setMessage("message")
+      .setLine(42)
+      .setGap(3.5)
+      .setEffort(Duration.create(10L))
+      .setStatus("OPEN")
+      .setResolution("FIXED")
+      .setAssigneeUuid("ASSIGNEE_UUID")
+      .setChecksum("CHECKSUM")
+      .setAttributes(ImmutableMap.of("jira", "SONAR-1"))
+      .setAuthorLogin("author")
+      .setTags(Arrays.asList("tag1", "tag2"))
+      .setLocations(locations)
+      .setIsFromExternalRuleEngine(true)
+      .setCreationDate(date)
+      .setUpdateDate(date)
+      .setCloseDate(date)
+      .setNew(false)
+      .setCopied(true)
+      .setBeingClosed(true)
+      .setOnDisabledRule(true)
+      .setChanged(true)
+      .setSendNotifications(true)
+      .setSelectedAt(1_000L);
+    issue.addComment(new DefaultIssueComment().setIssueKey("ISSUE_KEY").setKey("COMMENT_KEY").setMarkdownText("comment")
+      .setCreatedAt(date).setUpdatedAt(date).setNew(true));
+    issue.addChange(new FieldDiffs().setUserUuid("USER_UUID").setCreationDate(date).setDiff("severity", "MAJOR", "BLOCKER"));
+    IssueChangeContext context = IssueChangeContext.createUser(date, "USER_UUID");
+    issue.setFieldChange(context, "effort", 5L, 10L);
+    issue.setFieldChange(context, "line", 12, 42);
+
+    DefaultIssue decoded = encodeAndDecode(issue);
+
+    assertThat(decoded.key()).isEqualTo("ISSUE_KEY");
+    assertThat(decoded.type()).isEqualTo(RuleType.BUG);
+    assertThat(decoded.componentUuid()).isEqualTo("COMPONENT_UUID");
+    assertThat(decoded.componentKey()).isEqualTo("COMPONENT_KEY");
+    assertThat(decoded.moduleUuid()).isEqualTo("MODULE_UUID");
+    assertThat(decoded.moduleUuidPath()).isEqualTo(".MODULE_UUID.");
+    assertThat(decoded.projectUuid()).isEqualTo("PROJECT_UUID");
+    assertThat(decoded.projectKey()).isEqualTo("PROJECT_KEY");
+    assertThat(decoded.ruleKey()).isEqualTo(RuleKey.of("xoo", "S001"));
+    assertThat(decoded.language()).isEqualTo("xoo");
+    assertThat(decoded.severity()).isEqualTo(Severity.BLOCKER);
+    assertThat(decoded.manualSeverity()).isTrue();
+    assertThat(decoded.message()).isEqualTo("message");
+    assertThat(decoded.line()).isEqualTo(42);
+    assertThat(decoded.gap()).isEqualTo(3.5);
+    assertThat(decoded.effort()).isEqualTo(Duration.create(10L));
+    assertThat(decoded.status()).isEqualTo("OPEN");
+    assertThat(decoded.resolution()).isEqualTo("FIXED");
+    assertThat(decoded.assignee()).isEqualTo("ASSIGNEE_UUID");
+    assertThat(decoded.checksum()).isEqualTo("CHECKSUM");
+    assertThat(decoded.attributes()).containsOnly(entry("jira", "SONAR-1"));
+    assertThat(decoded.authorLogin()).isEqualTo("author");
+    assertThat(decoded.tags()).containsExactly("tag1", "tag2");
+    assertThat((DbIssues.Locations) decoded.getLocations()).isEqualTo(locations);
+    assertThat(decoded.isFromExternalRuleEngine()).isTrue();
+    assertThat(decoded.creationDate()).isEqualTo(date);
+    assertThat(decoded.updateDate()).isEqualTo(date);
+    assertThat(decoded.closeDate()).isEqualTo(date);
+    assertThat(decoded.isNew()).isFalse();
+    assertThat(decoded.isCopied()).isTrue();
+    assertThat(decoded.isBeingClosed()).isTrue();
+    assertThat(decoded.isOnDisabledRule()).isTrue();
+    assertThat(decoded.isChanged()).isTrue();
+    assertThat(decoded.mustSendNotifications()).isTrue();
+    assertThat(decoded.selectedAt()).isEqualTo(1_000L);
+
+    assertThat(decoded.defaultIssueComments()).hasSize(1);
+    DefaultIssueComment comment = decoded.defaultIssueComments().get(0);
+    assertThat(comment.issueKey()).isEqualTo("ISSUE_KEY");
+    assertThat(comment.key()).isEqualTo("COMMENT_KEY");
+    assertThat(comment.userUuid()).isNull();
+    assertThat(comment.markdownText()).isEqualTo("comment");
+    assertThat(comment.createdAt()).isEqualTo(date);
+    assertThat(comment.updatedAt()).isEqualTo(date);
+    assertThat(comment.isNew()).isTrue();
+
+    // current change is referenced twice in the list of changes
+    assertThat(decoded.changes()).hasSize(3);
+    assertThat(decoded.changes().get(0).toString()).isEqualTo("severity=MAJOR|BLOCKER");
+    FieldDiffs currentChange = decoded.currentChange();
+    assertThat(currentChange.userUuid()).isEqualTo("USER_UUID");
+    assertThat(currentChange.creationDate()).isEqualTo(date);
+    assertThat(currentChange.get("effort").oldValue()).isEqualTo(5L);
+    assertThat(currentChange.get("effort").newValue()).isEqualTo(10L);
+    assertThat(currentChange.get("line").oldValue()).isEqualTo(12);
+    assertThat(currentChange.get("line").newValue()).isEqualTo(42);
+    assertThat(decoded.changes().get(1)).isSameAs(currentChange);
+    assertThat(decoded.changes().get(2)).isSameAs(currentChange);
+  }
+
+  @Test
+  public void encode_and_decode_issue_without_optional_fields() throws Exception {
+    DefaultIssue issue = new DefaultIssue()
+      .setKey("ISSUE_KEY")
+      .setRuleKey(RuleKey.of("xoo", "S001"))
+      .setStatus("OPEN");
+
+    DefaultIssue decoded = encodeAndDecode(issue);
+
+    assertThat(decoded.key()).isEqualTo("ISSUE_KEY");
+    assertThat(decoded.type()).isNull();
+    assertThat(decoded.componentUuid()).isNull();
+    assertThat(decoded.line()).isNull();
+    assertThat(decoded.gap()).isNull();
+    assertThat(decoded.effort()).isNull();
+    assertThat(decoded.resolution()).isNull();
+    assertThat(decoded.attributes()).isEmpty();
+    assertThat(decoded.tags()).isEmpty();
+    assertThat((Object) decoded.getLocations()).isNull();
+    assertThat(decoded.creationDate()).isNull();
+    assertThat(decoded.isNew()).isTrue();
+    assertThat(decoded.selectedAt()).isNull();
+    assertThat(decoded.defaultIssueComments()).isEmpty();
+    assertThat(decoded.currentChange()).isNull();
+    assertThat(decoded.changes()).isEmpty();
+  }
+
+  @Test
+  public void decode_multiple_issues_from_same_stream() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+    underTest.encode(new DefaultIssue().setKey("A").setStatus("OPEN"), output);
+    underTest.encode(new DefaultIssue().setKey("B").setStatus("CLOSED"), output);
+    output.flush();
+
+    CodedInputStream input = CodedInputStream.newInstance(bytes.toByteArray());
+    assertThat(underTest.decode(input).key()).isEqualTo("A");
+    assertThat(underTest.decode(input).status()).isEqualTo("CLOSED");
+    assertThat(input.isAtEnd()).isTrue();
+  }
+
+  private DefaultIssue encodeAndDecode(DefaultIssue issue) throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+    underTest.encode(issue, output);
+    output.flush();
+    return underTest.decode(CodedInputStream.newInstance(bytes.toByteArray()));
+  }
+}
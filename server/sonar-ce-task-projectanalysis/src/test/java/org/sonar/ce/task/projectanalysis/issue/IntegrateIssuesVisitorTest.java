@@ -27,6 +27,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
+import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.Severity;
@@ -177,6 +178,33 @@ public class IntegrateIssuesVisitorTest {
     assertThat(newArrayList(issueCache.traverse())).hasSize(1);
   }
 
+  @Test
+  public void process_new_issue_when_tracking_issues_in_parallel() {
+    when(analysisMetadataHolder.isLongLivingBranch()).thenReturn(true);
+    ScannerReport.Issue reportIssue = ScannerReport.Issue.newBuilder()
+      .setMsg("the message")
+      .setRuleRepository("xoo")
+      .setRuleKey("S001")
+      .setSeverity(Constants.Severity.BLOCKER)
+      .build();
+    reportReader.putIssues(FILE_REF, asList(reportIssue));
+    fileSourceRepository.addLine(FILE_REF, "line1");
+    MapSettings settings = new MapSettings().setProperty(IntegrateIssuesVisitor.PROPERTY_TRACKING_THREADS, 2);
+    underTest = new IntegrateIssuesVisitor(issueCache, issueLifecycle, new IssueVisitors(new IssueVisitor[] {issueVisitor}), analysisMetadataHolder,
+      trackingDelegator, issueStatusCopier, mergeBranchComponentUuids, treeRootHolder, settings.asConfig());
+
+    underTest.visitAny(FILE);
+    underTest.visitAny(PROJECT);
+
+    verify(issueLifecycle).initNewOpenIssue(defaultIssueCaptor.capture());
+    DefaultIssue capturedIssue = defaultIssueCaptor.getValue();
+    assertThat(capturedIssue.ruleKey().rule()).isEqualTo("S001");
+    verify(issueVisitor).beforeComponent(FILE);
+    verify(issueVisitor).afterComponent(PROJECT);
+    List<DefaultIssue> issues = newArrayList(issueCache.traverse());
+    assertThat(issues).extracting(DefaultIssue::ruleKey).containsExactly(RuleKey.of("xoo", "S001"));
+  }
+
   @Test
   public void process_existing_issue() {
 
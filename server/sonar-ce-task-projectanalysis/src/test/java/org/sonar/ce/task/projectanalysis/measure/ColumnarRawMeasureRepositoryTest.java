@@ -0,0 +1,200 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.task.projectanalysis.measure;
+
+import com.google.common.collect.SetMultimap;
+import java.util.Set;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.ce.task.projectanalysis.component.Component;
+import org.sonar.ce.task.projectanalysis.component.Developer;
+import org.sonar.ce.task.projectanalysis.component.DumbDeveloper;
+import org.sonar.ce.task.projectanalysis.component.ReportComponent;
+import org.sonar.ce.task.projectanalysis.measure.MapBasedRawMeasureRepository.OverridePolicy;
+import org.sonar.ce.task.projectanalysis.metric.Metric;
+import org.sonar.ce.task.projectanalysis.metric.MetricImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.guava.api.Assertions.assertThat;
+
+public class ColumnarRawMeasureRepositoryTest {
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private static final ReportComponent FILE_COMPONENT = ReportComponent.builder(Component.Type.FILE, 1).setKey("file cpt key").build();
+  private static final ReportComponent OTHER_COMPONENT = ReportComponent.builder(Component.Type.FILE, 2).setKey("some other key").build();
+  private static final ReportComponent FAR_COMPONENT = ReportComponent.builder(Component.Type.FILE, 1_000).setKey("far key").build();
+
+  private static final Metric INT_METRIC = new MetricImpl(1, "int", "int", Metric.MetricType.INT);
+  private static final Metric LONG_METRIC = new MetricImpl(2, "long", "long", Metric.MetricType.WORK_DUR);
+  private static final Metric DOUBLE_METRIC = new MetricImpl(3, "double", "double", Metric.MetricType.FLOAT);
+  private static final Metric BOOLEAN_METRIC = new MetricImpl(4, "boolean", "boolean", Metric.MetricType.BOOL);
+  private static final Metric STRING_METRIC = new MetricImpl(5, "string", "string", Metric.MetricType.STRING);
+  private static final Developer SOME_DEVELOPER = new DumbDeveloper("DEV1");
+
+  private ColumnarRawMeasureRepository underTest = new ColumnarRawMeasureRepository(component -> component.getReportAttributes().getRef());
+
+  @Test
+  public void getBaseMeasure_is_not_supported() {
+    expectedException.expect(UnsupportedOperationException.class);
+
+    underTest.getBaseMeasure(FILE_COMPONENT, INT_METRIC);
+  }
+
+  @Test
+  public void numeric_values_are_restored() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, Measure.newMeasureBuilder().create(12));
+    underTest.add(FILE_COMPONENT, LONG_METRIC, Measure.newMeasureBuilder().create(Long.MAX_VALUE / 1024));
+    underTest.add(FILE_COMPONENT, DOUBLE_METRIC, Measure.newMeasureBuilder().create(0.123456789d, 7));
+    underTest.add(FILE_COMPONENT, BOOLEAN_METRIC, Measure.newMeasureBuilder().create(true));
+    underTest.add(OTHER_COMPONENT, BOOLEAN_METRIC, Measure.newMeasureBuilder().create(false));
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get().getIntValue()).isEqualTo(12);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, LONG_METRIC).get().getLongValue()).isEqualTo(Long.MAX_VALUE / 1024);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, DOUBLE_METRIC).get().getDoubleValue()).isEqualTo(0.1234568d);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, BOOLEAN_METRIC).get().getBooleanValue()).isTrue();
+    assertThat(underTest.getRawMeasure(OTHER_COMPONENT, BOOLEAN_METRIC).get().getBooleanValue()).isFalse();
+    assertThat(underTest.getRawMeasure(OTHER_COMPONENT, INT_METRIC)).isAbsent();
+  }
+
+  @Test
+  public void variations_and_measures_without_value_are_restored() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, Measure.newMeasureBuilder().setVariation(3d).create(12));
+    underTest.add(OTHER_COMPONENT, INT_METRIC, Measure.newMeasureBuilder().setVariation(-1.5d).createNoValue());
+    underTest.add(FAR_COMPONENT, INT_METRIC, Measure.newMeasureBuilder().createNoValue());
+
+    Measure measure = underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get();
+    assertThat(measure.getIntValue()).isEqualTo(12);
+    assertThat(measure.getVariation()).isEqualTo(3d);
+    measure = underTest.getRawMeasure(OTHER_COMPONENT, INT_METRIC).get();
+    assertThat(measure.getValueType()).isEqualTo(Measure.ValueType.NO_VALUE);
+    assertThat(measure.getVariation()).isEqualTo(-1.5d);
+    measure = underTest.getRawMeasure(FAR_COMPONENT, INT_METRIC).get();
+    assertThat(measure.getValueType()).isEqualTo(Measure.ValueType.NO_VALUE);
+    assertThat(measure.hasVariation()).isFalse();
+  }
+
+  @Test
+  public void update_replaces_value_and_variation() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, Measure.newMeasureBuilder().setVariation(3d).create(12));
+
+    underTest.update(FILE_COMPONENT, INT_METRIC, Measure.newMeasureBuilder().create(13));
+
+    Measure measure = underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get();
+    assertThat(measure.getIntValue()).isEqualTo(13);
+    assertThat(measure.hasVariation()).isFalse();
+  }
+
+  @Test
+  public void measures_with_data_or_quality_gate_status_are_stored_as_objects() {
+    Measure withData = Measure.newMeasureBuilder().create(12, "data");
+    Measure withStatus = Measure.newMeasureBuilder().setQualityGateStatus(new QualityGateStatus(Measure.Level.OK)).create(1);
+    Measure string = Measure.newMeasureBuilder().create("some value");
+    underTest.add(FILE_COMPONENT, INT_METRIC, withData);
+    underTest.add(OTHER_COMPONENT, INT_METRIC, withStatus);
+    underTest.add(FILE_COMPONENT, STRING_METRIC, string);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get()).isSameAs(withData);
+    assertThat(underTest.getRawMeasure(OTHER_COMPONENT, INT_METRIC).get()).isSameAs(withStatus);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, STRING_METRIC).get()).isSameAs(string);
+  }
+
+  @Test
+  public void update_switches_between_primitive_and_object_storage() {
+    Measure withData = Measure.newMeasureBuilder().create(12, "data");
+    underTest.add(FILE_COMPONENT, INT_METRIC, Measure.newMeasureBuilder().create(12));
+
+    underTest.update(FILE_COMPONENT, INT_METRIC, withData);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get()).isSameAs(withData);
+
+    underTest.update(FILE_COMPONENT, INT_METRIC, Measure.newMeasureBuilder().create(14));
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get().getIntValue()).isEqualTo(14);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get().getData()).isNull();
+  }
+
+  @Test
+  public void add_throws_UOE_if_measure_already_exists() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, Measure.newMeasureBuilder().create(12));
+
+    expectedException.expect(UnsupportedOperationException.class);
+    expectedException.expectMessage("a measure can be set only once for a specific Component (key=file cpt key), Metric (key=int). Use update method");
+
+    underTest.add(FILE_COMPONENT, INT_METRIC, Measure.newMeasureBuilder().create(12));
+  }
+
+  @Test
+  public void update_throws_UOE_if_measure_does_not_exist() {
+    expectedException.expect(UnsupportedOperationException.class);
+
+    underTest.update(FILE_COMPONENT, INT_METRIC, Measure.newMeasureBuilder().create(12));
+  }
+
+  @Test
+  public void add_throws_IAE_if_valueType_of_Measure_is_not_the_same_as_the_Metric_valueType() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Measure's ValueType (STRING) is not consistent with the Metric's ValueType (INT)");
+
+    underTest.add(FILE_COMPONENT, INT_METRIC, Measure.newMeasureBuilder().create("12"));
+  }
+
+  @Test
+  public void add_with_DO_NOT_OVERRIDE_policy_keeps_existing_measure() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, Measure.newMeasureBuilder().create(12));
+
+    underTest.add(FILE_COMPONENT, INT_METRIC, Measure.newMeasureBuilder().create(13), OverridePolicy.DO_NOT_OVERRIDE);
+    underTest.add(OTHER_COMPONENT, INT_METRIC, Measure.newMeasureBuilder().create(13), OverridePolicy.DO_NOT_OVERRIDE);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get().getIntValue()).isEqualTo(12);
+    assertThat(underTest.getRawMeasure(OTHER_COMPONENT, INT_METRIC).get().getIntValue()).isEqualTo(13);
+  }
+
+  @Test
+  public void developer_measures_are_stored_beside_measure_of_component() {
+    Measure devMeasure = Measure.newMeasureBuilder().forDeveloper(SOME_DEVELOPER).create(3);
+    underTest.add(FILE_COMPONENT, INT_METRIC, Measure.newMeasureBuilder().create(12));
+    underTest.add(FILE_COMPONENT, INT_METRIC, devMeasure);
+
+    Set<Measure> measures = underTest.getRawMeasures(FILE_COMPONENT, INT_METRIC);
+
+    assertThat(measures).hasSize(2);
+    assertThat(measures).contains(devMeasure);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get().getIntValue()).isEqualTo(12);
+  }
+
+  @Test
+  public void getRawMeasures_returns_measures_of_all_metrics_of_component() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, Measure.newMeasureBuilder().create(12));
+    underTest.add(FILE_COMPONENT, STRING_METRIC, Measure.newMeasureBuilder().create("some value"));
+    underTest.add(OTHER_COMPONENT, DOUBLE_METRIC, Measure.newMeasureBuilder().create(1d, 1));
+
+    SetMultimap<String, Measure> measures = underTest.getRawMeasures(FILE_COMPONENT);
+
+    assertThat(measures.keySet()).containsOnly(INT_METRIC.getKey(), STRING_METRIC.getKey());
+    assertThat(measures.get(INT_METRIC.getKey()).iterator().next().getIntValue()).isEqualTo(12);
+    assertThat(measures.get(STRING_METRIC.getKey()).iterator().next().getStringValue()).isEqualTo("some value");
+  }
+
+  @Test
+  public void getRawMeasures_for_metric_returns_empty_if_repository_is_empty() {
+    assertThat(underTest.getRawMeasures(FILE_COMPONENT, INT_METRIC)).isEmpty();
+    assertThat(underTest.getRawMeasures(FILE_COMPONENT).isEmpty()).isTrue();
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.task.dbcleaner;
+
+import java.util.List;
+import org.junit.Test;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.config.PropertyDefinitions;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.utils.System2;
+import org.sonar.core.config.PurgeProperties;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.purge.IdUuidPair;
+import org.sonar.db.purge.PurgeBudget;
+import org.sonar.db.purge.PurgeConfiguration;
+import org.sonar.db.purge.PurgeDao;
+import org.sonar.db.purge.PurgeListener;
+import org.sonar.db.purge.period.DefaultPeriodCleaner;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BackgroundProjectCleanerTest {
+
+  private static final IdUuidPair PROJECT_1 = new IdUuidPair(1L, "P1");
+  private static final IdUuidPair PROJECT_2 = new IdUuidPair(2L, "P2");
+
+  private DbClient dbClient = mock(DbClient.class);
+  private PurgeDao purgeDao = mock(PurgeDao.class);
+  private DefaultPeriodCleaner periodCleaner = mock(DefaultPeriodCleaner.class);
+  private PurgeListener purgeListener = mock(PurgeListener.class);
+  private PurgeBudget budget = mock(PurgeBudget.class);
+  private Configuration config = new MapSettings(new PropertyDefinitions(PurgeProperties.all())).asConfig();
+  private BackgroundProjectCleaner underTest = new BackgroundProjectCleaner(dbClient, periodCleaner, purgeListener, System2.INSTANCE);
+
+  public BackgroundProjectCleanerTest() {
+    when(dbClient.openSession(false)).thenReturn(mock(DbSession.class));
+    when(dbClient.purgeDao()).thenReturn(purgeDao);
+  }
+
+  @Test
+  public void purge_deletes_analyses_selected_by_period_cleaner_and_removes_purged_project() {
+    List<IdUuidPair> analyses = singletonList(new IdUuidPair(10L, "A1"));
+    when(periodCleaner.selectAnalysesToDelete(any(), eq(PROJECT_1.getUuid()), eq(config))).thenReturn(analyses);
+    when(purgeDao.purgeInChunks(any(), any(), any(), any(), any(), any())).thenReturn(true);
+    underTest.schedule(PROJECT_1, config);
+
+    underTest.purge(budget);
+
+    verify(purgeDao).purgeInChunks(any(), argThat(conf -> conf.rootProjectIdUuid().equals(PROJECT_1)), eq(analyses), eq(purgeListener), any(), eq(budget));
+    assertThat(underTest.getPendingRootUuids()).isEmpty();
+  }
+
+  @Test
+  public void purge_is_resumed_by_next_call_when_budget_is_exhausted() {
+    when(purgeDao.purgeInChunks(any(), any(), any(), any(), any(), any())).thenReturn(false, true, true);
+    underTest.schedule(PROJECT_1, config);
+    underTest.schedule(PROJECT_2, config);
+
+    underTest.purge(budget);
+
+    verify(purgeDao).purgeInChunks(any(), any(PurgeConfiguration.class), anyList(), any(), any(), any());
+    assertThat(underTest.getPendingRootUuids()).containsExactly(PROJECT_1.getUuid(), PROJECT_2.getUuid());
+
+    underTest.purge(budget);
+
+    verify(purgeDao, times(3)).purgeInChunks(any(), any(PurgeConfiguration.class), anyList(), any(), any(), any());
+    assertThat(underTest.getPendingRootUuids()).isEmpty();
+  }
+
+  @Test
+  public void purge_does_nothing_when_budget_is_already_exhausted() {
+    when(budget.isExhausted()).thenReturn(true);
+    underTest.schedule(PROJECT_1, config);
+
+    underTest.purge(budget);
+
+    verify(purgeDao, never()).purgeInChunks(any(), any(), any(), any(), any(), any());
+    assertThat(underTest.getPendingRootUuids()).containsExactly(PROJECT_1.getUuid());
+  }
+
+  @Test
+  public void scheduling_a_pending_project_again_uses_its_latest_configuration() {
+    Configuration newConfig = new MapSettings(new PropertyDefinitions(PurgeProperties.all())).asConfig();
+    when(purgeDao.purgeInChunks(any(), any(), any(), any(), any(), any())).thenReturn(true);
+    underTest.schedule(PROJECT_1, config);
+    underTest.schedule(PROJECT_1, newConfig);
+
+    assertThat(underTest.getPendingRootUuids()).containsExactly(PROJECT_1.getUuid());
+
+    underTest.purge(budget);
+
+    verify(periodCleaner).selectAnalysesToDelete(any(), eq(PROJECT_1.getUuid()), eq(newConfig));
+    assertThat(underTest.getPendingRootUuids()).isEmpty();
+  }
+
+  @Test
+  public void failure_of_a_purge_does_not_prevent_purge_of_other_projects() {
+    when(purgeDao.purgeInChunks(any(), argThat(conf -> conf != null && conf.rootProjectIdUuid().equals(PROJECT_1)), any(), any(), any(), any()))
+      .thenThrow(new IllegalStateException("faking a failure of the purge"));
+    when(purgeDao.purgeInChunks(any(), argThat(conf -> conf != null && conf.rootProjectIdUuid().equals(PROJECT_2)), any(), any(), any(), any()))
+      .thenReturn(true);
+    underTest.schedule(PROJECT_1, config);
+    underTest.schedule(PROJECT_2, config);
+
+    underTest.purge(budget);
+
+    verify(purgeDao, times(2)).purgeInChunks(any(), any(PurgeConfiguration.class), anyList(), any(), any(), any());
+    assertThat(underTest.getPendingRootUuids()).isEmpty();
+  }
+}
@@ -22,6 +22,7 @@ package org.sonar.ce.task.dbcleaner;
 import org.junit.Before;
 import org.junit.Test;
 import org.sonar.api.CoreProperties;
+import org.sonar.api.config.Configuration;
 import org.sonar.api.config.PropertyDefinitions;
 import org.sonar.api.config.internal.MapSettings;
 import org.sonar.core.config.PurgeConstants;
@@ -39,6 +40,7 @@ import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
 public class ProjectCleanerTest {
 
@@ -81,4 +83,32 @@ public class ProjectCleanerTest {
     verify(periodCleaner).clean(any(), any(), any());
     verify(dao).purge(any(), any(), any(), any());
   }
+
+  @Test
+  public void schedule_purge_of_historical_data_when_background_purge_is_enabled() {
+    BackgroundProjectCleaner backgroundProjectCleaner = mock(BackgroundProjectCleaner.class);
+    underTest = new ProjectCleaner(dao, periodCleaner, profiler, purgeListener, backgroundProjectCleaner);
+    settings.setProperty(PurgeConstants.BACKGROUND_PURGE, true);
+    IdUuidPair rootId = new IdUuidPair(1L, "ROOT");
+    Configuration config = settings.asConfig();
+
+    underTest.purge(mock(DbSession.class), rootId, config, emptyList());
+
+    verify(dao).purgeAnalysisBoundData(any(), any(), any(), any());
+    verify(backgroundProjectCleaner).schedule(rootId, config);
+    verify(dao, never()).purge(any(), any(), any(), any());
+    verifyZeroInteractions(periodCleaner);
+  }
+
+  @Test
+  public void purge_historical_data_when_background_purge_is_disabled() {
+    BackgroundProjectCleaner backgroundProjectCleaner = mock(BackgroundProjectCleaner.class);
+    underTest = new ProjectCleaner(dao, periodCleaner, profiler, purgeListener, backgroundProjectCleaner);
+
+    underTest.purge(mock(DbSession.class), mock(IdUuidPair.class), settings.asConfig(), emptyList());
+
+    verify(periodCleaner).clean(any(), any(), any());
+    verify(dao).purge(any(), any(), any(), any());
+    verifyZeroInteractions(backgroundProjectCleaner);
+  }
 }
@@ -27,6 +27,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.mockito.Mockito;
+import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.utils.System2;
 import org.sonar.ce.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.ce.task.projectanalysis.component.Component;
@@ -48,6 +49,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.protobuf.DbFileSources;
 import org.sonar.db.source.FileSourceDto;
+import org.sonar.db.source.FileSourceDto.Segment;
 import org.sonar.db.source.FileSourceDto.Type;
 import org.sonar.db.source.LineHashVersion;
 import org.sonar.scanner.protocol.output.ScannerReport;
@@ -505,6 +507,146 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     assertThat(fileSourceDto.getRevision()).isNull();
   }
 
+  @Test
+  public void persist_segmented_sources() {
+    PersistFileSourcesStep segmentedStep = newSegmentedStep();
+    initBasicReport(1);
+    reportReader.putCoverage(FILE1_REF, newArrayList(ScannerReport.LineCoverage.newBuilder()
+      .setLine(1)
+      .setConditions(10)
+      .setHits(true)
+      .setCoveredConditions(2)
+      .build()));
+    scmInfoRepository.setScmInfo(FILE1_REF, Changeset.newChangesetBuilder()
+      .setAuthor("john")
+      .setDate(123456789L)
+      .setRevision("rev-1")
+      .build());
+
+    segmentedStep.execute();
+
+    assertThat(dbTester.countRowsOfTable("file_sources")).isEqualTo(1);
+    FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE1_UUID);
+    assertThat(fileSourceDto.getSegmentHashes()).isNotNull();
+    assertThat(fileSourceDto.getCreatedAt()).isEqualTo(NOW);
+    assertThat(fileSourceDto.getRevision()).isEqualTo("rev-1");
+    DbFileSources.Line line = fileSourceDto.getSourceData().getLines(0);
+    assertThat(line.getLine()).isEqualTo(1);
+    assertThat(line.getSource()).isEqualTo("line1");
+    assertThat(line.getLineHits()).isEqualTo(1);
+    assertThat(line.getConditions()).isEqualTo(10);
+    assertThat(line.getCoveredConditions()).isEqualTo(2);
+    assertThat(line.getScmAuthor()).isEqualTo("john");
+    assertThat(line.getScmRevision()).isEqualTo("rev-1");
+  }
+
+  @Test
+  public void update_only_coverage_segment_when_only_coverage_changed() {
+    initBasicReport(1);
+    reportReader.putCoverage(FILE1_REF, newArrayList(ScannerReport.LineCoverage.newBuilder()
+      .setLine(1)
+      .setHits(false)
+      .build()));
+    newSegmentedStep().execute();
+    FileSourceDto previousDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE1_UUID);
+
+    long later = NOW + 1_000L;
+    when(system2.now()).thenReturn(later);
+    reportReader.putCoverage(FILE1_REF, newArrayList(ScannerReport.LineCoverage.newBuilder()
+      .setLine(1)
+      .setHits(true)
+      .build()));
+    newSegmentedStep().execute();
+
+    FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE1_UUID);
+    assertThat(fileSourceDto.getUpdatedAt()).isEqualTo(later);
+    assertThat(fileSourceDto.getCreatedAt()).isEqualTo(NOW);
+    assertThat(fileSourceDto.getSegmentHash(Segment.COVERAGE)).isNotEqualTo(previousDto.getSegmentHash(Segment.COVERAGE));
+    assertThat(fileSourceDto.getSegmentHash(Segment.LINES)).isEqualTo(previousDto.getSegmentHash(Segment.LINES));
+    assertThat(fileSourceDto.getSegmentHash(Segment.HIGHLIGHTING)).isEqualTo(previousDto.getSegmentHash(Segment.HIGHLIGHTING));
+    assertThat(fileSourceDto.getSegmentHash(Segment.SCM)).isEqualTo(previousDto.getSegmentHash(Segment.SCM));
+    assertThat(fileSourceDto.getSourceData().getLines(0).getSource()).isEqualTo("line1");
+    assertThat(fileSourceDto.getSourceData().getLines(0).getLineHits()).isEqualTo(1);
+  }
+
+  @Test
+  public void not_update_segmented_sources_when_nothing_has_changed() {
+    initBasicReport(1);
+    newSegmentedStep().execute();
+
+    when(system2.now()).thenReturn(NOW + 1_000L);
+    newSegmentedStep().execute();
+
+    FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE1_UUID);
+    assertThat(fileSourceDto.getUpdatedAt()).isEqualTo(NOW);
+  }
+
+  @Test
+  public void rewrite_segmented_sources_as_single_blob_when_segmented_storage_is_disabled() {
+    initBasicReport(1);
+    newSegmentedStep().execute();
+
+    underTest.execute();
+
+    FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE1_UUID);
+    assertThat(fileSourceDto.getSegmentHashes()).isNull();
+    assertThat(fileSourceDto.getCoverageData()).isNull();
+    assertThat(fileSourceDto.getSourceData().getLines(0).getSource()).isEqualTo("line1");
+  }
+
+  @Test
+  public void keep_coverage_highlighting_and_scm_when_segmented_storage_is_disabled_then_enabled_again() {
+    initBasicReport(1);
+    reportReader.putCoverage(FILE1_REF, newArrayList(ScannerReport.LineCoverage.newBuilder()
+      .setLine(1)
+      .setHits(true)
+      .build()));
+    reportReader.putSyntaxHighlighting(FILE1_REF, newArrayList(ScannerReport.SyntaxHighlightingRule.newBuilder()
+      .setRange(ScannerReport.TextRange.newBuilder()
+        .setStartLine(1).setEndLine(1)
+        .setStartOffset(2).setEndOffset(4)
+        .build())
+      .setType(HighlightingType.ANNOTATION)
+      .build()));
+    scmInfoRepository.setScmInfo(FILE1_REF, Changeset.newChangesetBuilder()
+      .setAuthor("john")
+      .setDate(123456789L)
+      .setRevision("rev-1")
+      .build());
+    newSegmentedStep().execute();
+
+    when(system2.now()).thenReturn(NOW + 1_000L);
+    underTest.execute();
+    FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE1_UUID);
+    assertThat(fileSourceDto.getSegmentHashes()).isNull();
+    assertThat(fileSourceDto.getHighlightingData()).isNull();
+    assertThat(fileSourceDto.getScmData()).isNull();
+    assertLineIsComplete(fileSourceDto.getSourceData().getLines(0));
+
+    when(system2.now()).thenReturn(NOW + 2_000L);
+    newSegmentedStep().execute();
+    fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE1_UUID);
+    assertThat(fileSourceDto.getUpdatedAt()).isEqualTo(NOW + 2_000L);
+    assertThat(fileSourceDto.getSegmentHashes()).isNotNull();
+    assertThat(fileSourceDto.getCoverageData()).isNotNull();
+    assertThat(fileSourceDto.getHighlightingData()).isNotNull();
+    assertThat(fileSourceDto.getScmData()).isNotNull();
+    assertLineIsComplete(fileSourceDto.getSourceData().getLines(0));
+  }
+
+  private static void assertLineIsComplete(DbFileSources.Line line) {
+    assertThat(line.getSource()).isEqualTo("line1");
+    assertThat(line.getLineHits()).isEqualTo(1);
+    assertThat(line.getHighlighting()).isEqualTo("2,4,a");
+    assertThat(line.getScmAuthor()).isEqualTo("john");
+    assertThat(line.getScmRevision()).isEqualTo("rev-1");
+  }
+
+  private PersistFileSourcesStep newSegmentedStep() {
+    return new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository,
+      duplicationRepository, sourceLinesHashRepository, new MapSettings().setProperty(PersistFileSourcesStep.PROPERTY_SEGMENTED_STORAGE, true).asConfig());
+  }
+
   private void initBasicReport(int numberOfLines) {
     treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).addChildren(
       ReportComponent.builder(Component.Type.MODULE, 2).setUuid("MODULE").setKey("MODULE_KEY").addChildren(
@@ -19,18 +19,36 @@
  */
 package org.sonar.ce.task.step;
 
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import org.slf4j.MDC;
+import org.sonar.api.config.Configuration;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.util.logs.Profiler;
 
 public final class ComputationStepExecutor {
   private static final Logger LOGGER = Loggers.get(ComputationStepExecutor.class);
+  /**
+   * Maximum number of {@link ConcurrentComputationStep}s executed at the same time. Steps are executed sequentially,
+   * in the order of {@link ComputationSteps#instances()}, when this property is 1 (the default).
+   */
+  public static final String PROPERTY_STEPS_CONCURRENCY = "sonar.ce.stepsConcurrency";
+  private static final int DEFAULT_STEPS_CONCURRENCY = 1;
 
   private final ComputationSteps steps;
   @CheckForNull
   private final Listener listener;
+  private final int concurrency;
 
   /**
    * Used when no {@link ComputationStepExecutor.Listener} is available in pico
@@ -41,15 +59,25 @@ public final class ComputationStepExecutor {
   }
 
   public ComputationStepExecutor(ComputationSteps steps, @Nullable Listener listener) {
+    this(steps, listener, null);
+  }
+
+  public ComputationStepExecutor(ComputationSteps steps, @Nullable Listener listener, @Nullable Configuration configuration) {
     this.steps = steps;
     this.listener = listener;
+    this.concurrency = configuration == null ? DEFAULT_STEPS_CONCURRENCY
+      : Math.max(DEFAULT_STEPS_CONCURRENCY, configuration.getInt(PROPERTY_STEPS_CONCURRENCY).orElse(DEFAULT_STEPS_CONCURRENCY));
   }
 
   public void execute() {
     Profiler stepProfiler = Profiler.create(LOGGER);
     boolean allStepsExecuted = false;
     try {
-      executeSteps(stepProfiler);
+      if (concurrency > 1) {
+        executeStepsConcurrently(new ComputationStepGraph(steps.instances()));
+      } else {
+        executeSteps(stepProfiler);
+      }
       allStepsExecuted = true;
     } finally {
       if (listener != null) {
@@ -66,6 +94,91 @@ public final class ComputationStepExecutor {
     }
   }
 
+  /**
+   * Executes each step as soon as all the steps it depends on are executed, with at most {@link #concurrency} steps
+   * running at the same time. No step is started anymore once a step failed, and the first failure is propagated
+   * once running steps are over.
+   */
+  private void executeStepsConcurrently(ComputationStepGraph graph) {
+    ExecutorService executorService = Executors.newFixedThreadPool(concurrency, new StepThreadFactory());
+    try {
+      CompletionService<Integer> completionService = new ExecutorCompletionService<>(executorService);
+      Map<String, String> loggingContext = MDC.getCopyOfContextMap();
+      boolean[] submitted = new boolean[graph.size()];
+      boolean[] executed = new boolean[graph.size()];
+      int running = 0;
+      Throwable failure = null;
+      while (true) {
+        if (failure == null) {
+          running += submitExecutableSteps(graph, completionService, loggingContext, submitted, executed);
+        }
+        if (running == 0) {
+          break;
+        }
+        Future<Integer> future = completionService.take();
+        running--;
+        try {
+          executed[future.get()] = true;
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = e.getCause();
+          }
+        }
+      }
+      propagate(failure);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while executing computation steps", e);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private static int submitExecutableSteps(ComputationStepGraph graph, CompletionService<Integer> completionService,
+    @Nullable Map<String, String> loggingContext, boolean[] submitted, boolean[] executed) {
+    int count = 0;
+    for (int i = 0; i < graph.size(); i++) {
+      if (!submitted[i] && graph.isExecutable(i, executed)) {
+        submitted[i] = true;
+        int index = i;
+        ComputationStep step = graph.get(i);
+        completionService.submit(() -> {
+          executeStep(step, loggingContext);
+          return index;
+        });
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static void executeStep(ComputationStep step, @Nullable Map<String, String> loggingContext) {
+    if (loggingContext != null) {
+      MDC.setContextMap(loggingContext);
+    }
+    try {
+      // Profiler is not thread safe, hence one instance per step
+      Profiler stepProfiler = Profiler.create(LOGGER).start();
+      step.execute();
+      stepProfiler.stopDebug(step.getDescription());
+    } finally {
+      MDC.clear();
+    }
+  }
+
+  private static void propagate(@Nullable Throwable failure) {
+    if (failure == null) {
+      return;
+    }
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    throw new IllegalStateException(failure);
+  }
+
   private void executeListener(boolean allStepsExecuted) {
     try {
       listener.finished(allStepsExecuted);
@@ -76,6 +189,17 @@ public final class ComputationStepExecutor {
     }
   }
 
+  private static final class StepThreadFactory implements ThreadFactory {
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread thread = new Thread(r, "CE_Step_" + counter.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
   @FunctionalInterface
   public interface Listener {
     void finished(boolean allStepsExecuted);
@@ -0,0 +1,86 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.task.step;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Dependencies between {@link ComputationStep}s, computed from their order and from the resources declared by
+ * {@link ConcurrentComputationStep}s.
+ * <p>
+ * A step depends on every step which precedes it and with which it conflicts. Two steps conflict when one of them does
+ * not declare its resources or when one of them writes a resource the other one reads or writes.
+ */
+final class ComputationStepGraph {
+  private final List<ComputationStep> steps = new ArrayList<>();
+  private final List<Set<Integer>> dependencies = new ArrayList<>();
+
+  ComputationStepGraph(Iterable<ComputationStep> orderedSteps) {
+    orderedSteps.forEach(steps::add);
+    for (int i = 0; i < steps.size(); i++) {
+      Set<Integer> stepDependencies = new HashSet<>();
+      for (int j = 0; j < i; j++) {
+        if (conflict(steps.get(j), steps.get(i))) {
+          stepDependencies.add(j);
+        }
+      }
+      dependencies.add(stepDependencies);
+    }
+  }
+
+  int size() {
+    return steps.size();
+  }
+
+  ComputationStep get(int index) {
+    return steps.get(index);
+  }
+
+  Set<Integer> dependenciesOf(int index) {
+    return Collections.unmodifiableSet(dependencies.get(index));
+  }
+
+  /**
+   * Whether all the steps the specified step depends on are flagged as executed in {@code executed}.
+   */
+  boolean isExecutable(int index, boolean[] executed) {
+    for (Integer dependency : dependencies.get(index)) {
+      if (!executed[dependency]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean conflict(ComputationStep a, ComputationStep b) {
+    if (!(a instanceof ConcurrentComputationStep) || !(b instanceof ConcurrentComputationStep)) {
+      return true;
+    }
+    ConcurrentComputationStep first = (ConcurrentComputationStep) a;
+    ConcurrentComputationStep second = (ConcurrentComputationStep) b;
+    return !Collections.disjoint(first.writes(), second.writes())
+      || !Collections.disjoint(first.writes(), second.reads())
+      || !Collections.disjoint(first.reads(), second.writes());
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.task.step;
+
+import java.util.Set;
+
+/**
+ * A {@link ComputationStep} which declares the resources (holders, repositories, tables, ...) it reads and writes.
+ * <p>
+ * When steps are executed concurrently by {@link ComputationStepExecutor}, such a step may run at the same time as
+ * any other {@link ConcurrentComputationStep} with which it does not conflict, ie. neither of them writes a resource
+ * the other one reads or writes.
+ * <p>
+ * Steps which do not implement this interface are considered to read and write every resource: they are always
+ * executed alone, after all the steps which precede them in {@link ComputationSteps#instances()}.
+ */
+public interface ConcurrentComputationStep extends ComputationStep {
+
+  /**
+   * Names of the resources this step only reads.
+   */
+  Set<String> reads();
+
+  /**
+   * Names of the resources this step writes. A resource which is both read and written only has to be listed here.
+   */
+  Set<String> writes();
+}
@@ -19,12 +19,17 @@
  */
 package org.sonar.ce.task.step;
 
+import com.google.common.collect.ImmutableSet;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.mockito.InOrder;
+import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.ce.task.ChangeLogLevel;
@@ -32,9 +37,11 @@ import org.sonar.ce.task.ChangeLogLevel;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -152,6 +159,86 @@ public class ComputationStepExecutorTest {
     new ComputationStepExecutor(mockComputationSteps(computationStep1), listener).execute();
   }
 
+  @Test
+  public void execute_runs_steps_without_conflicting_resources_concurrently() throws InterruptedException {
+    CountDownLatch bothStarted = new CountDownLatch(2);
+    ConcurrentComputationStep step1 = mockConcurrentComputationStep("step1", ImmutableSet.of("a"), ImmutableSet.of("x"));
+    ConcurrentComputationStep step2 = mockConcurrentComputationStep("step2", ImmutableSet.of("a"), ImmutableSet.of("y"));
+    doAnswer(invocation -> {
+      bothStarted.countDown();
+      // fails if steps are executed one after the other
+      assertThat(bothStarted.await(10, TimeUnit.SECONDS)).isTrue();
+      return null;
+    }).when(step1).execute();
+    doAnswer(invocation -> {
+      bothStarted.countDown();
+      assertThat(bothStarted.await(10, TimeUnit.SECONDS)).isTrue();
+      return null;
+    }).when(step2).execute();
+
+    newConcurrentExecutor(2, step1, step2).execute();
+
+    verify(listener).finished(true);
+  }
+
+  @Test
+  public void execute_runs_conflicting_steps_in_order_when_concurrency_is_enabled() {
+    ConcurrentComputationStep step1 = mockConcurrentComputationStep("step1", ImmutableSet.of(), ImmutableSet.of("a"));
+    ConcurrentComputationStep step2 = mockConcurrentComputationStep("step2", ImmutableSet.of("a"), ImmutableSet.of());
+
+    newConcurrentExecutor(4, step1, computationStep1, step2).execute();
+
+    InOrder inOrder = inOrder(step1, computationStep1, step2);
+    inOrder.verify(step1).execute();
+    inOrder.verify(computationStep1).execute();
+    inOrder.verify(step2).execute();
+    verify(listener).finished(true);
+  }
+
+  @Test
+  public void execute_does_not_start_new_steps_and_rethrows_exception_when_a_step_fails_concurrently() {
+    RuntimeException toBeThrown = new RuntimeException("simulating failing execute Step method");
+    doThrow(toBeThrown)
+      .when(computationStep1)
+      .execute();
+
+    try {
+      newConcurrentExecutor(2, computationStep1, computationStep2).execute();
+      fail("exception toBeThrown should have been raised");
+    } catch (RuntimeException e) {
+      assertThat(e).isSameAs(toBeThrown);
+      verify(computationStep2, never()).execute();
+      verify(listener).finished(false);
+    }
+  }
+
+  @Test
+  public void execute_logs_end_timing_for_each_ComputationStep_executed_concurrently_when_level_is_DEBUG() {
+    ConcurrentComputationStep step1 = mockConcurrentComputationStep("step1", ImmutableSet.of(), ImmutableSet.of("a"));
+    ConcurrentComputationStep step2 = mockConcurrentComputationStep("step2", ImmutableSet.of(), ImmutableSet.of("b"));
+
+    try (ChangeLogLevel executor = new ChangeLogLevel(ComputationStepExecutor.class, LoggerLevel.DEBUG)) {
+      newConcurrentExecutor(2, step1, step2).execute();
+    }
+
+    List<String> debugLogs = logTester.logs(LoggerLevel.DEBUG);
+    assertThat(debugLogs).hasSize(2);
+    assertThat(String.join("\n", debugLogs)).contains("step1 | time=", "step2 | time=");
+  }
+
+  private ComputationStepExecutor newConcurrentExecutor(int concurrency, ComputationStep... computationSteps) {
+    MapSettings settings = new MapSettings().setProperty(ComputationStepExecutor.PROPERTY_STEPS_CONCURRENCY, concurrency);
+    return new ComputationStepExecutor(mockComputationSteps(computationSteps), listener, settings.asConfig());
+  }
+
+  private static ConcurrentComputationStep mockConcurrentComputationStep(String desc, Set<String> reads, Set<String> writes) {
+    ConcurrentComputationStep mock = mock(ConcurrentComputationStep.class);
+    when(mock.getDescription()).thenReturn(desc);
+    when(mock.reads()).thenReturn(reads);
+    when(mock.writes()).thenReturn(writes);
+    return mock;
+  }
+
   private static ComputationSteps mockComputationSteps(ComputationStep... computationSteps) {
     ComputationSteps steps = mock(ComputationSteps.class);
     when(steps.instances()).thenReturn(Arrays.asList(computationSteps));
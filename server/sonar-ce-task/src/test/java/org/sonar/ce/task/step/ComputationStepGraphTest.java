@@ -0,0 +1,84 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.task.step;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.Arrays;
+import java.util.Set;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ComputationStepGraphTest {
+
+  @Test
+  public void steps_which_do_not_declare_resources_depend_on_all_previous_steps() {
+    ComputationStep step1 = mock(ComputationStep.class);
+    ComputationStep step2 = concurrentStep(ImmutableSet.of("a"), ImmutableSet.of("b"));
+    ComputationStep step3 = mock(ComputationStep.class);
+
+    ComputationStepGraph underTest = new ComputationStepGraph(Arrays.asList(step1, step2, step3));
+
+    assertThat(underTest.size()).isEqualTo(3);
+    assertThat(underTest.dependenciesOf(0)).isEmpty();
+    assertThat(underTest.dependenciesOf(1)).containsOnly(0);
+    assertThat(underTest.dependenciesOf(2)).containsOnly(0, 1);
+  }
+
+  @Test
+  public void steps_depend_on_previous_steps_they_conflict_with() {
+    ComputationStep readsA = concurrentStep(ImmutableSet.of("a"), ImmutableSet.of("x"));
+    ComputationStep alsoReadsA = concurrentStep(ImmutableSet.of("a"), ImmutableSet.of("y"));
+    ComputationStep writesA = concurrentStep(ImmutableSet.of(), ImmutableSet.of("a"));
+    ComputationStep writesY = concurrentStep(ImmutableSet.of(), ImmutableSet.of("y"));
+    ComputationStep readsX = concurrentStep(ImmutableSet.of("x"), ImmutableSet.of());
+
+    ComputationStepGraph underTest = new ComputationStepGraph(Arrays.asList(readsA, alsoReadsA, writesA, writesY, readsX));
+
+    assertThat(underTest.dependenciesOf(0)).isEmpty();
+    assertThat(underTest.dependenciesOf(1)).isEmpty();
+    assertThat(underTest.dependenciesOf(2)).containsOnly(0, 1);
+    assertThat(underTest.dependenciesOf(3)).containsOnly(1);
+    assertThat(underTest.dependenciesOf(4)).containsOnly(0);
+  }
+
+  @Test
+  public void isExecutable_returns_true_when_all_dependencies_are_executed() {
+    ComputationStep step1 = concurrentStep(ImmutableSet.of(), ImmutableSet.of("a"));
+    ComputationStep step2 = concurrentStep(ImmutableSet.of(), ImmutableSet.of("b"));
+    ComputationStep step3 = concurrentStep(ImmutableSet.of("a", "b"), ImmutableSet.of());
+
+    ComputationStepGraph underTest = new ComputationStepGraph(Arrays.asList(step1, step2, step3));
+
+    assertThat(underTest.isExecutable(0, new boolean[] {false, false, false})).isTrue();
+    assertThat(underTest.isExecutable(1, new boolean[] {false, false, false})).isTrue();
+    assertThat(underTest.isExecutable(2, new boolean[] {true, false, false})).isFalse();
+    assertThat(underTest.isExecutable(2, new boolean[] {true, true, false})).isTrue();
+  }
+
+  private static ConcurrentComputationStep concurrentStep(Set<String> reads, Set<String> writes) {
+    ConcurrentComputationStep step = mock(ConcurrentComputationStep.class);
+    when(step.reads()).thenReturn(reads);
+    when(step.writes()).thenReturn(writes);
+    return step;
+  }
+}
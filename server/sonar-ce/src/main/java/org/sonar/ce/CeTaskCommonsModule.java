@@ -19,6 +19,7 @@
  */
 package org.sonar.ce;
 
+import org.sonar.ce.task.dbcleaner.BackgroundProjectCleaner;
 import org.sonar.ce.task.dbcleaner.IndexPurgeListener;
 import org.sonar.ce.task.dbcleaner.ProjectCleaner;
 import org.sonar.core.platform.Module;
@@ -33,6 +34,7 @@ public class CeTaskCommonsModule extends Module {
     add(
       DefaultPeriodCleaner.class,
       ProjectCleaner.class,
+      BackgroundProjectCleaner.class,
       IndexPurgeListener.class);
   }
 }
@@ -0,0 +1,95 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.cleaning;
+
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.MessageException;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.task.dbcleaner.BackgroundProjectCleaner;
+import org.sonar.db.purge.PurgeBudget;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.sonar.core.config.PurgeConstants.BACKGROUND_PURGE_CHUNK_SIZE;
+import static org.sonar.core.config.PurgeConstants.BACKGROUND_PURGE_DB_LOAD_PERCENT;
+import static org.sonar.core.config.PurgeConstants.BACKGROUND_PURGE_DELAY_IN_MS;
+import static org.sonar.core.config.PurgeConstants.BACKGROUND_PURGE_MAX_DURATION_IN_MS;
+import static org.sonar.db.DatabaseUtils.PARTITION_SIZE_FOR_ORACLE;
+
+/**
+ * Periodically runs {@link BackgroundProjectCleaner} with a time-boxed {@link PurgeBudget}.
+ */
+public class BackgroundPurgeSchedulerImpl implements BackgroundPurgeScheduler {
+  private static final Logger LOG = Loggers.get(BackgroundPurgeSchedulerImpl.class);
+  private static final long DEFAULT_DELAY_IN_MS = 60_000L;
+  private static final long DEFAULT_MAX_DURATION_IN_MS = 30_000L;
+  private static final int DEFAULT_CHUNK_SIZE = 100;
+  private static final int DEFAULT_DB_LOAD_PERCENT = 25;
+
+  private final BackgroundPurgeExecutorService executorService;
+  private final BackgroundProjectCleaner backgroundProjectCleaner;
+  private final System2 system2;
+  private final long delayInMs;
+  private final long maxDurationInMs;
+  private final int chunkSize;
+  private final int dbLoadPercent;
+
+  public BackgroundPurgeSchedulerImpl(BackgroundPurgeExecutorService executorService, BackgroundProjectCleaner backgroundProjectCleaner,
+    Configuration configuration, System2 system2) {
+    this.executorService = executorService;
+    this.backgroundProjectCleaner = backgroundProjectCleaner;
+    this.system2 = system2;
+    this.delayInMs = configuration.getLong(BACKGROUND_PURGE_DELAY_IN_MS).orElse(DEFAULT_DELAY_IN_MS);
+    this.maxDurationInMs = configuration.getLong(BACKGROUND_PURGE_MAX_DURATION_IN_MS).orElse(DEFAULT_MAX_DURATION_IN_MS);
+    this.chunkSize = configuration.getInt(BACKGROUND_PURGE_CHUNK_SIZE).orElse(DEFAULT_CHUNK_SIZE);
+    this.dbLoadPercent = configuration.getInt(BACKGROUND_PURGE_DB_LOAD_PERCENT).orElse(DEFAULT_DB_LOAD_PERCENT);
+    checkPositive(BACKGROUND_PURGE_DELAY_IN_MS, delayInMs);
+    checkPositive(BACKGROUND_PURGE_MAX_DURATION_IN_MS, maxDurationInMs);
+    checkRange(BACKGROUND_PURGE_CHUNK_SIZE, chunkSize, PARTITION_SIZE_FOR_ORACLE);
+    checkRange(BACKGROUND_PURGE_DB_LOAD_PERCENT, dbLoadPercent, 100);
+  }
+
+  private static void checkPositive(String property, long value) {
+    if (value <= 0) {
+      throw MessageException.of(format("value of property %s must be strictly positive (got %s)", property, value));
+    }
+  }
+
+  private static void checkRange(String property, int value, int max) {
+    if (value <= 0 || value > max) {
+      throw MessageException.of(format("value of property %s must be between 1 and %s (got %s)", property, max, value));
+    }
+  }
+
+  @Override
+  public void startScheduling() {
+    executorService.scheduleWithFixedDelay(this::purge, delayInMs, delayInMs, MILLISECONDS);
+  }
+
+  private void purge() {
+    try {
+      backgroundProjectCleaner.purge(new PurgeBudget(system2, maxDurationInMs, chunkSize, dbLoadPercent));
+    } catch (Exception e) {
+      LOG.warn("Background purge failed", e);
+    }
+  }
+}
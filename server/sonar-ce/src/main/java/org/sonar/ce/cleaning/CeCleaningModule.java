@@ -26,6 +26,8 @@ public class CeCleaningModule extends Module {
   protected void configureModule() {
     add(
       CeCleaningExecutorServiceImpl.class,
-      CeCleaningSchedulerImpl.class);
+      CeCleaningSchedulerImpl.class,
+      BackgroundPurgeExecutorServiceImpl.class,
+      BackgroundPurgeSchedulerImpl.class);
   }
 }
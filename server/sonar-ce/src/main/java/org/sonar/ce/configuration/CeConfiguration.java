@@ -57,4 +57,21 @@ public interface CeConfiguration {
    */
   int getGracefulStopTimeoutInMs();
 
+  /**
+   * Policy used to choose which of the pending tasks a worker processes next.
+   */
+  CeSchedulingPolicy getSchedulingPolicy();
+
+  /**
+   * Time in milliseconds after which a pending task is processed before any other more recent task, whichever
+   * {@link #getSchedulingPolicy() the scheduling policy}.
+   */
+  long getSchedulingMaxWaitingTimeInMs();
+
+  /**
+   * The number of workers which never process tasks of main branches, so that analyses of branches and pull requests
+   * are not delayed by long analyses of main branches. Ignored when greater or equal to {@link #getWorkerCount()}.
+   */
+  int getWorkersReservedToBranches();
+
 }
@@ -19,6 +19,8 @@
  */
 package org.sonar.ce.configuration;
 
+import java.util.Arrays;
+import java.util.Locale;
 import javax.annotation.CheckForNull;
 import org.picocontainer.Startable;
 import org.sonar.api.config.Configuration;
@@ -29,8 +31,8 @@ import static java.lang.String.format;
 /**
  * Immutable implementation of {@link CeConfiguration} which takes value returned by an implementation of
  * {@link WorkerCountProvider}, if any is available, or use the {@link #DEFAULT_WORKER_COUNT default worker count}.
- * In addition, it always returns {@link #DEFAULT_QUEUE_POLLING_DELAY} when
- * {@link CeConfiguration#getQueuePollingDelay()} is called.
+ * In addition, {@link CeConfiguration#getQueuePollingDelay()} returns the value of property
+ * {@link #SONAR_CE_QUEUE_POLLING_DELAY_IN_MS}, if any, or {@link #DEFAULT_QUEUE_POLLING_DELAY}.
  */
 public class CeConfigurationImpl implements CeConfiguration, Startable {
   private static final int DEFAULT_WORKER_THREAD_COUNT = 1;
@@ -45,11 +47,25 @@ public class CeConfigurationImpl implements CeConfiguration, Startable {
   // 40 seconds
   private static final int GRACEFUL_STOP_TIMEOUT = 40;
   public static final String SONAR_CE_GRACEFUL_STOP_TIME_OUT_IN_MS = "sonar.ce.gracefulStopTimeOutInMs";
+  /**
+   * Workers are woken up as soon as tasks are submitted, polling the queue is only a safety net for missed
+   * notifications, hence this delay can safely be increased to reduce the load on the database.
+   */
+  public static final String SONAR_CE_QUEUE_POLLING_DELAY_IN_MS = "sonar.ce.queuePollingDelayInMs";
+  public static final String SONAR_CE_SCHEDULING_POLICY = "sonar.ce.scheduling.policy";
+  public static final String SONAR_CE_SCHEDULING_MAX_WAITING_TIME_IN_MS = "sonar.ce.scheduling.maxWaitingTimeInMs";
+  public static final String SONAR_CE_SCHEDULING_WORKERS_RESERVED_TO_BRANCHES = "sonar.ce.scheduling.workersReservedToBranches";
+  // 30 minutes
+  private static final long DEFAULT_SCHEDULING_MAX_WAITING_TIME = 30 * 60 * 1000L;
 
   @CheckForNull
   private final WorkerCountProvider workerCountProvider;
   private final int workerThreadCount;
   private final int gracefultStopTimeoutInMs;
+  private final long queuePollingDelay;
+  private final CeSchedulingPolicy schedulingPolicy;
+  private final long schedulingMaxWaitingTimeInMs;
+  private final int workersReservedToBranches;
   private int workerCount;
 
   public CeConfigurationImpl(Configuration configuration) {
@@ -57,6 +73,10 @@ public class CeConfigurationImpl implements CeConfiguration, Startable {
     this.workerThreadCount = DEFAULT_WORKER_THREAD_COUNT;
     this.workerCount = DEFAULT_WORKER_COUNT;
     this.gracefultStopTimeoutInMs = configuration.getInt(SONAR_CE_GRACEFUL_STOP_TIME_OUT_IN_MS).orElse(GRACEFUL_STOP_TIMEOUT);
+    this.queuePollingDelay = readQueuePollingDelay(configuration);
+    this.schedulingPolicy = readSchedulingPolicy(configuration);
+    this.schedulingMaxWaitingTimeInMs = configuration.getLong(SONAR_CE_SCHEDULING_MAX_WAITING_TIME_IN_MS).orElse(DEFAULT_SCHEDULING_MAX_WAITING_TIME);
+    this.workersReservedToBranches = Math.max(0, configuration.getInt(SONAR_CE_SCHEDULING_WORKERS_RESERVED_TO_BRANCHES).orElse(0));
   }
 
   public CeConfigurationImpl(Configuration configuration, WorkerCountProvider workerCountProvider) {
@@ -64,6 +84,27 @@ public class CeConfigurationImpl implements CeConfiguration, Startable {
     this.workerThreadCount = MAX_WORKER_THREAD_COUNT;
     this.workerCount = readWorkerCount(workerCountProvider);
     this.gracefultStopTimeoutInMs = configuration.getInt(SONAR_CE_GRACEFUL_STOP_TIME_OUT_IN_MS).orElse(GRACEFUL_STOP_TIMEOUT);
+    this.queuePollingDelay = readQueuePollingDelay(configuration);
+    this.schedulingPolicy = readSchedulingPolicy(configuration);
+    this.schedulingMaxWaitingTimeInMs = configuration.getLong(SONAR_CE_SCHEDULING_MAX_WAITING_TIME_IN_MS).orElse(DEFAULT_SCHEDULING_MAX_WAITING_TIME);
+    this.workersReservedToBranches = Math.max(0, configuration.getInt(SONAR_CE_SCHEDULING_WORKERS_RESERVED_TO_BRANCHES).orElse(0));
+  }
+
+  private static long readQueuePollingDelay(Configuration configuration) {
+    long value = configuration.getLong(SONAR_CE_QUEUE_POLLING_DELAY_IN_MS).orElse(DEFAULT_QUEUE_POLLING_DELAY);
+    if (value <= 0) {
+      throw MessageException.of(format("Queue polling delay '%s' is invalid. It must be a strictly positive number of milliseconds", value));
+    }
+    return value;
+  }
+
+  private static CeSchedulingPolicy readSchedulingPolicy(Configuration configuration) {
+    String value = configuration.get(SONAR_CE_SCHEDULING_POLICY).orElse(CeSchedulingPolicy.FIFO.name());
+    try {
+      return CeSchedulingPolicy.valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+    } catch (IllegalArgumentException e) {
+      throw MessageException.of(format("Scheduling policy '%s' is invalid. Possible values are: %s", value, Arrays.toString(CeSchedulingPolicy.values())));
+    }
   }
 
   private static int readWorkerCount(WorkerCountProvider workerCountProvider) {
@@ -109,7 +150,7 @@ public class CeConfigurationImpl implements CeConfiguration, Startable {
 
   @Override
   public long getQueuePollingDelay() {
-    return DEFAULT_QUEUE_POLLING_DELAY;
+    return queuePollingDelay;
   }
 
   @Override
@@ -127,4 +168,19 @@ public class CeConfigurationImpl implements CeConfiguration, Startable {
     return gracefultStopTimeoutInMs;
   }
 
+  @Override
+  public CeSchedulingPolicy getSchedulingPolicy() {
+    return schedulingPolicy;
+  }
+
+  @Override
+  public long getSchedulingMaxWaitingTimeInMs() {
+    return schedulingMaxWaitingTimeInMs;
+  }
+
+  @Override
+  public int getWorkersReservedToBranches() {
+    return workersReservedToBranches;
+  }
+
 }
@@ -0,0 +1,37 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.configuration;
+
+/**
+ * Policy used by workers to choose which of the pending tasks they process next.
+ */
+public enum CeSchedulingPolicy {
+  /**
+   * Oldest task first.
+   */
+  FIFO,
+
+  /**
+   * Task with the shortest expected execution time first, based on past execution times of the same kind of tasks on
+   * the same component. Expected execution time of a task decreases as it waits in the queue, so that long tasks are
+   * never delayed forever.
+   */
+  SHORTEST_EXPECTED_JOB_FIRST
+}
@@ -57,4 +57,14 @@ public interface CeTasksMBean {
    * Configured number of Workers.
    */
   int getWorkerCount();
+
+  /**
+   * Configured policy used to choose which of the pending tasks a worker processes next.
+   */
+  String getSchedulingPolicy();
+
+  /**
+   * Configured number of Workers which never process tasks of main branches.
+   */
+  int getWorkersReservedToBranches();
 }
@@ -82,6 +82,16 @@ public class CeTasksMBeanImpl implements CeTasksMBean, Startable, SystemInfoSect
     return ceConfiguration.getWorkerCount();
   }
 
+  @Override
+  public String getSchedulingPolicy() {
+    return ceConfiguration.getSchedulingPolicy().name();
+  }
+
+  @Override
+  public int getWorkersReservedToBranches() {
+    return ceConfiguration.getWorkersReservedToBranches();
+  }
+
   @Override
   public ProtobufSystemInfo.Section toProtobuf() {
     ProtobufSystemInfo.Section.Builder builder = ProtobufSystemInfo.Section.newBuilder();
@@ -93,6 +103,8 @@ public class CeTasksMBeanImpl implements CeTasksMBean, Startable, SystemInfoSect
     builder.addAttributesBuilder().setKey("Processing Time (ms)").setLongValue(getProcessingTime()).build();
     builder.addAttributesBuilder().setKey("Worker Count").setLongValue(getWorkerCount()).build();
     builder.addAttributesBuilder().setKey("Max Worker Count").setLongValue(getWorkerMaxCount()).build();
+    builder.addAttributesBuilder().setKey("Scheduling Policy").setStringValue(getSchedulingPolicy()).build();
+    builder.addAttributesBuilder().setKey("Workers Reserved To Branches").setLongValue(getWorkersReservedToBranches()).build();
     builder.addAttributesBuilder().setKey("Workers Paused").setBooleanValue(queueStatus.areWorkersPaused()).build();
     return builder.build();
   }
@@ -0,0 +1,53 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+import java.util.List;
+import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeQueueDto;
+
+/**
+ * Scheduling policy of {@link InternalCeQueue}: chooses which of the pending tasks a worker processes next.
+ */
+public interface CeTaskPrioritizer {
+
+  /**
+   * When {@code false}, {@link InternalCeQueue#peek(String)} peeks the oldest eligible task without calling
+   * {@link #prioritize(DbSession, String, List)}.
+   */
+  boolean isEnabled();
+
+  /**
+   * @param workerUuid uuid of the worker which is about to peek a task
+   * @param eligibleTasks tasks which can be peeked, from the oldest to the newest
+   * @return the tasks which the worker is allowed to peek, most prioritary first
+   */
+  List<CeQueueDto> prioritize(DbSession dbSession, String workerUuid, List<CeQueueDto> eligibleTasks);
+
+  /**
+   * Called once the specified task, returned by {@link #prioritize(DbSession, String, List)}, has been peeked.
+   */
+  void onPeeked(DbSession dbSession, CeQueueDto task);
+
+  /**
+   * Called once the specified task is removed from the queue.
+   */
+  void onRemoved(String taskUuid);
+}
@@ -0,0 +1,166 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.utils.System2;
+import org.sonar.ce.configuration.CeConfiguration;
+import org.sonar.ce.configuration.CeSchedulingPolicy;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.ce.AverageExecutionTime;
+import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.component.ComponentDto;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singletonList;
+import static org.sonar.core.util.stream.MoreCollectors.toList;
+import static org.sonar.core.util.stream.MoreCollectors.toSet;
+
+/**
+ * Implements the scheduling policies configured in {@link CeConfiguration}:
+ * <ul>
+ *   <li>{@link CeSchedulingPolicy#SHORTEST_EXPECTED_JOB_FIRST}: expected execution time of a task is the average
+ *   execution time of the past successful tasks of the same type on the same component, minus the time the task has
+ *   been waiting in the queue. Tasks waiting for more than {@link CeConfiguration#getSchedulingMaxWaitingTimeInMs()}
+ *   come first, oldest first</li>
+ *   <li>{@link CeConfiguration#getWorkersReservedToBranches() workers reserved to branches}: tasks of main branches are
+ *   not prioritized anymore when as many tasks of main branches are in progress on this Compute Engine as there are
+ *   workers not reserved to branches</li>
+ * </ul>
+ */
+@ComputeEngineSide
+public class CeTaskPrioritizerImpl implements CeTaskPrioritizer {
+  private final DbClient dbClient;
+  private final System2 system2;
+  private final CeConfiguration ceConfiguration;
+  // uuid of the task of a main branch in progress, by uuid of the worker processing it
+  private final Map<String, String> mainBranchTaskUuidsByWorkerUuid = new ConcurrentHashMap<>();
+
+  public CeTaskPrioritizerImpl(DbClient dbClient, System2 system2, CeConfiguration ceConfiguration) {
+    this.dbClient = dbClient;
+    this.system2 = system2;
+    this.ceConfiguration = ceConfiguration;
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return ceConfiguration.getSchedulingPolicy() != CeSchedulingPolicy.FIFO || isBranchLaneEnabled();
+  }
+
+  private boolean isBranchLaneEnabled() {
+    int reservedWorkers = ceConfiguration.getWorkersReservedToBranches();
+    return reservedWorkers > 0 && reservedWorkers < ceConfiguration.getWorkerCount();
+  }
+
+  @Override
+  public List<CeQueueDto> prioritize(DbSession dbSession, String workerUuid, List<CeQueueDto> eligibleTasks) {
+    // a worker peeking a task is not processing any
+    mainBranchTaskUuidsByWorkerUuid.remove(workerUuid);
+
+    List<CeQueueDto> tasks = eligibleTasks;
+    if (isBranchLaneEnabled() && mainBranchTaskUuidsByWorkerUuid.size() >= ceConfiguration.getWorkerCount() - ceConfiguration.getWorkersReservedToBranches()) {
+      Set<String> branchUuids = selectBranchUuids(dbSession, tasks);
+      tasks = tasks.stream()
+        .filter(task -> branchUuids.contains(task.getComponentUuid()))
+        .collect(toList());
+    }
+    if (ceConfiguration.getSchedulingPolicy() == CeSchedulingPolicy.SHORTEST_EXPECTED_JOB_FIRST) {
+      return sortByShortestExpectedJob(dbSession, tasks);
+    }
+    return tasks;
+  }
+
+  @Override
+  public void onPeeked(DbSession dbSession, CeQueueDto task) {
+    if (isBranchLaneEnabled() && !selectBranchUuids(dbSession, singletonList(task)).contains(task.getComponentUuid())) {
+      mainBranchTaskUuidsByWorkerUuid.put(task.getWorkerUuid(), task.getUuid());
+    }
+  }
+
+  @Override
+  public void onRemoved(String taskUuid) {
+    mainBranchTaskUuidsByWorkerUuid.values().remove(taskUuid);
+  }
+
+  /**
+   * Uuids of the components of the specified tasks which are branches or pull requests, ie. not main branches.
+   */
+  private Set<String> selectBranchUuids(DbSession dbSession, Collection<CeQueueDto> tasks) {
+    Set<String> componentUuids = tasks.stream()
+      .map(CeQueueDto::getComponentUuid)
+      .filter(Objects::nonNull)
+      .collect(toSet());
+    if (componentUuids.isEmpty()) {
+      return emptySet();
+    }
+    return dbClient.componentDao().selectByUuids(dbSession, componentUuids).stream()
+      .filter(component -> component.getMainBranchProjectUuid() != null)
+      .map(ComponentDto::uuid)
+      .collect(toSet());
+  }
+
+  private List<CeQueueDto> sortByShortestExpectedJob(DbSession dbSession, List<CeQueueDto> tasks) {
+    if (tasks.size() < 2) {
+      return tasks;
+    }
+    Map<String, Long> averageExecutionTimes = selectAverageExecutionTimes(dbSession, tasks);
+    long defaultExecutionTime = (long) averageExecutionTimes.values().stream().mapToLong(Long::longValue).average().orElse(0D);
+    long now = system2.now();
+    long maxWaitingTime = ceConfiguration.getSchedulingMaxWaitingTimeInMs();
+
+    Map<String, Long> scoresByTaskUuid = new HashMap<>();
+    for (CeQueueDto task : tasks) {
+      long waitingTime = now - task.getCreatedAt();
+      long score = waitingTime >= maxWaitingTime ? Long.MIN_VALUE
+        : (averageExecutionTimes.getOrDefault(executionTimeKey(task.getComponentUuid(), task.getTaskType()), defaultExecutionTime) - waitingTime);
+      scoresByTaskUuid.put(task.getUuid(), score);
+    }
+    // sort is stable: tasks with the same score, including starving tasks, remain ordered from oldest to newest
+    List<CeQueueDto> res = new ArrayList<>(tasks);
+    res.sort(Comparator.comparingLong(task -> scoresByTaskUuid.get(task.getUuid())));
+    return res;
+  }
+
+  private Map<String, Long> selectAverageExecutionTimes(DbSession dbSession, List<CeQueueDto> tasks) {
+    Set<String> componentUuids = tasks.stream()
+      .map(CeQueueDto::getComponentUuid)
+      .filter(Objects::nonNull)
+      .collect(toSet());
+    Map<String, Long> res = new HashMap<>();
+    for (AverageExecutionTime averageExecutionTime : dbClient.ceActivityDao().selectAverageExecutionTimes(dbSession, componentUuids)) {
+      res.put(executionTimeKey(averageExecutionTime.getComponentUuid(), averageExecutionTime.getTaskType()), averageExecutionTime.getAverageExecutionTimeMs());
+    }
+    return res;
+  }
+
+  private static String executionTimeKey(String componentUuid, String taskType) {
+    return componentUuid + ':' + taskType;
+  }
+}
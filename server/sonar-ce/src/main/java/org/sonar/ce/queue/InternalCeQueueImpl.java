@@ -23,6 +23,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import javax.annotation.CheckForNull;
@@ -52,19 +54,33 @@ import static java.util.Objects.requireNonNull;
 @ComputeEngineSide
 public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue {
   private static final Logger LOG = Loggers.get(InternalCeQueueImpl.class);
+  /**
+   * Maximum number of the oldest eligible tasks among which the next task is chosen when a {@link CeTaskPrioritizer}
+   * is enabled.
+   */
+  private static final int MAX_PRIORITIZED_TASKS = 50;
 
   private final System2 system2;
   private final DbClient dbClient;
   private final CEQueueStatus queueStatus;
   private final ComputeEngineStatus computeEngineStatus;
+  @CheckForNull
+  private final CeTaskPrioritizer prioritizer;
 
   public InternalCeQueueImpl(System2 system2, DbClient dbClient, UuidFactory uuidFactory, CEQueueStatus queueStatus,
     DefaultOrganizationProvider defaultOrganizationProvider, ComputeEngineStatus computeEngineStatus) {
+    this(system2, dbClient, uuidFactory, queueStatus, defaultOrganizationProvider, computeEngineStatus, null);
+  }
+
+  // this constructor is used by picocontainer
+  public InternalCeQueueImpl(System2 system2, DbClient dbClient, UuidFactory uuidFactory, CEQueueStatus queueStatus,
+    DefaultOrganizationProvider defaultOrganizationProvider, ComputeEngineStatus computeEngineStatus, @Nullable CeTaskPrioritizer prioritizer) {
     super(dbClient, uuidFactory, defaultOrganizationProvider);
     this.system2 = system2;
     this.dbClient = dbClient;
     this.queueStatus = queueStatus;
     this.computeEngineStatus = computeEngineStatus;
+    this.prioritizer = prioritizer;
   }
 
   @Override
@@ -80,7 +96,7 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
       if (i > 0) {
         LOG.debug("{} in progress tasks reset for worker uuid {}", i, workerUuid);
       }
-      Optional<CeQueueDto> dto = ceQueueDao.peek(dbSession, workerUuid);
+      Optional<CeQueueDto> dto = peek(dbSession, workerUuid);
       CeTask task = null;
       if (dto.isPresent()) {
         task = loadTask(dbSession, dto.get());
@@ -90,6 +106,31 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
     }
   }
 
+  private Optional<CeQueueDto> peek(DbSession dbSession, String workerUuid) {
+    CeQueueDao ceQueueDao = dbClient.ceQueueDao();
+    if (prioritizer == null || !prioritizer.isEnabled()) {
+      return ceQueueDao.peek(dbSession, workerUuid);
+    }
+    List<CeQueueDto> eligibleTasks = ceQueueDao.selectEligibleForPeek(dbSession, MAX_PRIORITIZED_TASKS);
+    List<CeQueueDto> prioritizedTasks = prioritizer.prioritize(dbSession, workerUuid, eligibleTasks);
+    // components of the tasks peeked by other workers in the meantime, which other tasks are not eligible anymore
+    Set<String> busyComponentUuids = new HashSet<>();
+    for (CeQueueDto candidate : prioritizedTasks) {
+      if (busyComponentUuids.contains(candidate.getComponentUuid())) {
+        continue;
+      }
+      Optional<CeQueueDto> dto = ceQueueDao.peek(dbSession, workerUuid, candidate.getUuid());
+      if (dto.isPresent()) {
+        prioritizer.onPeeked(dbSession, dto.get());
+        return dto;
+      }
+      if (candidate.getComponentUuid() != null) {
+        busyComponentUuids.add(candidate.getComponentUuid());
+      }
+    }
+    return Optional.empty();
+  }
+
   @Override
   public int clear() {
     return cancelAll(true);
@@ -98,6 +139,9 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
   @Override
   public void remove(CeTask task, CeActivityDto.Status status, @Nullable CeTaskResult taskResult, @Nullable Throwable error) {
     checkArgument(error == null || status == CeActivityDto.Status.FAILED, "Error can be provided only when status is FAILED");
+    if (prioritizer != null) {
+      prioritizer.onRemoved(task.getUuid());
+    }
     try (DbSession dbSession = dbClient.openSession(false)) {
       CeQueueDto queueDto = dbClient.ceQueueDao().selectByUuid(dbSession, task.getUuid())
         .orElseThrow(() -> new IllegalStateException("Task does not exist anymore: " + task));
@@ -24,4 +24,10 @@ public interface CeProcessingScheduler {
   void startScheduling();
 
   void stopScheduling();
+
+  /**
+   * Makes the workers which are waiting for their next poll of the queue poll it right away. Workers which are
+   * processing a task or which are disabled are not affected.
+   */
+  void wakeUpIdleWorkers();
 }
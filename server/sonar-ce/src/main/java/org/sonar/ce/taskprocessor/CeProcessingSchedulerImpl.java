@@ -22,15 +22,17 @@ package org.sonar.ce.taskprocessor;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.ListenableScheduledFuture;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.ce.configuration.CeConfiguration;
+import org.sonar.ce.queue.CeWorkersWakeUpHook;
 
-import static com.google.common.util.concurrent.Futures.addCallback;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 public class CeProcessingSchedulerImpl implements CeProcessingScheduler {
@@ -65,8 +67,15 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler {
   @Override
   public void startScheduling() {
     for (ChainingCallback chainingCallback : chainingCallbacks) {
-      ListenableScheduledFuture<CeWorker.Result> future = executorService.schedule(chainingCallback.worker, delayBetweenEnabledTasks, timeUnit);
-      addCallback(future, chainingCallback);
+      chainingCallback.chainWithEnabledTaskDelay();
+    }
+    CeWorkersWakeUpHook.register(this::wakeUpIdleWorkers);
+  }
+
+  @Override
+  public void wakeUpIdleWorkers() {
+    for (ChainingCallback chainingCallback : chainingCallbacks) {
+      chainingCallback.wakeUp();
     }
   }
 
@@ -76,6 +85,7 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler {
   @Override
   public void stopScheduling() {
     LOG.debug("Stopping compute engine");
+    CeWorkersWakeUpHook.register(null);
     // Requesting all workers to stop
     for (ChainingCallback chainingCallback : chainingCallbacks) {
       chainingCallback.stop(false);
@@ -110,6 +120,8 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler {
 
     @CheckForNull
     private ListenableFuture<CeWorker.Result> workerFuture;
+    @CheckForNull
+    private DelayedPoll delayedPoll;
 
     public ChainingCallback(CeWorker worker) {
       this.worker = worker;
@@ -145,21 +157,35 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler {
       }
     }
 
-    private void chainWithoutDelay() {
+    private synchronized void chainWithoutDelay() {
+      delayedPoll = null;
       workerFuture = executorService.submit(worker);
       addCallback();
     }
 
-    private void chainWithEnabledTaskDelay() {
-      workerFuture = executorService.schedule(worker, delayBetweenEnabledTasks, timeUnit);
+    private synchronized void chainWithEnabledTaskDelay() {
+      delayedPoll = new DelayedPoll(worker);
+      workerFuture = executorService.schedule(delayedPoll, delayBetweenEnabledTasks, timeUnit);
       addCallback();
     }
 
-    private void chainWithDisabledTaskDelay() {
+    private synchronized void chainWithDisabledTaskDelay() {
+      delayedPoll = null;
       workerFuture = executorService.schedule(worker, DELAY_BETWEEN_DISABLED_TASKS, timeUnit);
       addCallback();
     }
 
+    /**
+     * Cancels the pending delayed poll, if any and if it did not start yet. The cancellation is reported to
+     * {@link #onFailure(Throwable)} which chains a poll without delay.
+     */
+    private synchronized void wakeUp() {
+      ListenableFuture<CeWorker.Result> future = workerFuture;
+      if (keepRunning && delayedPoll != null && future != null && delayedPoll.claim()) {
+        future.cancel(false);
+      }
+    }
+
     private void addCallback() {
       if (workerFuture != null) {
         Futures.addCallback(workerFuture, this);
@@ -173,4 +199,33 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler {
       }
     }
   }
+
+  /**
+   * Delayed poll of the queue by a {@link CeWorker} which can be claimed either by the executor, when the delay is
+   * elapsed, or by {@link ChainingCallback#wakeUp()}, so that the worker never runs twice concurrently.
+   */
+  static final class DelayedPoll implements Callable<CeWorker.Result> {
+    private final CeWorker worker;
+    private final AtomicBoolean claimed = new AtomicBoolean(false);
+
+    DelayedPoll(CeWorker worker) {
+      this.worker = worker;
+    }
+
+    CeWorker getWorker() {
+      return worker;
+    }
+
+    private boolean claim() {
+      return claimed.compareAndSet(false, true);
+    }
+
+    @Override
+    public CeWorker.Result call() throws Exception {
+      if (!claim()) {
+        throw new CancellationException("Poll of the queue has been woken up");
+      }
+      return worker.call();
+    }
+  }
 }
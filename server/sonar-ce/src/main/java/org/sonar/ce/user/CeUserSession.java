@@ -136,6 +136,11 @@ public class CeUserSession implements UserSession {
     throw notImplemented();
   }
 
+  @Override
+  public UserSession preloadComponentPermissions(Collection<ComponentDto> components) {
+    throw notImplemented();
+  }
+
   private static RuntimeException notImplemented() {
     throw new UnsupportedOperationException(UOE_MESSAGE);
   }
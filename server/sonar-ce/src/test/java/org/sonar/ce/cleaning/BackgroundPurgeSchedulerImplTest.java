@@ -0,0 +1,110 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.cleaning;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.utils.MessageException;
+import org.sonar.api.utils.System2;
+import org.sonar.ce.task.dbcleaner.BackgroundProjectCleaner;
+import org.sonar.db.purge.PurgeBudget;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.sonar.core.config.PurgeConstants.BACKGROUND_PURGE_CHUNK_SIZE;
+import static org.sonar.core.config.PurgeConstants.BACKGROUND_PURGE_DB_LOAD_PERCENT;
+import static org.sonar.core.config.PurgeConstants.BACKGROUND_PURGE_DELAY_IN_MS;
+
+public class BackgroundPurgeSchedulerImplTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private BackgroundPurgeExecutorService executorService = mock(BackgroundPurgeExecutorService.class);
+  private BackgroundProjectCleaner backgroundProjectCleaner = mock(BackgroundProjectCleaner.class);
+  private MapSettings settings = new MapSettings();
+
+  @Test
+  public void startScheduling_schedules_purge_with_default_delay() {
+    newScheduler().startScheduling();
+
+    verify(executorService).scheduleWithFixedDelay(any(Runnable.class), eq(60_000L), eq(60_000L), eq(MILLISECONDS));
+  }
+
+  @Test
+  public void scheduled_purge_runs_background_project_cleaner_with_configured_budget() {
+    settings.setProperty(BACKGROUND_PURGE_DELAY_IN_MS, "1000");
+    settings.setProperty(BACKGROUND_PURGE_CHUNK_SIZE, "20");
+    settings.setProperty(BACKGROUND_PURGE_DB_LOAD_PERCENT, "10");
+
+    newScheduler().startScheduling();
+
+    ArgumentCaptor<Runnable> purge = ArgumentCaptor.forClass(Runnable.class);
+    verify(executorService).scheduleWithFixedDelay(purge.capture(), eq(1_000L), eq(1_000L), eq(MILLISECONDS));
+    purge.getValue().run();
+    ArgumentCaptor<PurgeBudget> budget = ArgumentCaptor.forClass(PurgeBudget.class);
+    verify(backgroundProjectCleaner).purge(budget.capture());
+    assertThat(budget.getValue().getChunkSize()).isEqualTo(20);
+    assertThat(budget.getValue().getDbLoadPercent()).isEqualTo(10);
+  }
+
+  @Test
+  public void scheduled_purge_does_not_fail_when_background_project_cleaner_fails() {
+    doThrow(new IllegalStateException("faking a failure of the purge")).when(backgroundProjectCleaner).purge(any());
+
+    newScheduler().startScheduling();
+
+    ArgumentCaptor<Runnable> purge = ArgumentCaptor.forClass(Runnable.class);
+    verify(executorService).scheduleWithFixedDelay(purge.capture(), any(Long.class), any(Long.class), any());
+    purge.getValue().run();
+  }
+
+  @Test
+  public void fail_if_db_load_percent_is_greater_than_100() {
+    settings.setProperty(BACKGROUND_PURGE_DB_LOAD_PERCENT, "101");
+
+    expectedException.expect(MessageException.class);
+    expectedException.expectMessage("value of property sonar.dbcleaner.backgroundPurge.dbLoadPercent must be between 1 and 100 (got 101)");
+
+    newScheduler();
+  }
+
+  @Test
+  public void fail_if_delay_is_not_positive() {
+    settings.setProperty(BACKGROUND_PURGE_DELAY_IN_MS, "0");
+
+    expectedException.expect(MessageException.class);
+    expectedException.expectMessage("value of property sonar.dbcleaner.backgroundPurge.delayInMs must be strictly positive (got 0)");
+
+    newScheduler();
+  }
+
+  private BackgroundPurgeSchedulerImpl newScheduler() {
+    return new BackgroundPurgeSchedulerImpl(executorService, backgroundProjectCleaner, settings.asConfig(), System2.INSTANCE);
+  }
+}
@@ -117,6 +117,63 @@ public class CeConfigurationImplTest {
       .isEqualTo(10L);
   }
 
+  @Test
+  public void getQueuePollingDelay_returns_2000_by_default() {
+    assertThat(new CeConfigurationImpl(EMPTY_CONFIGURATION).getQueuePollingDelay()).isEqualTo(2_000L);
+  }
+
+  @Test
+  public void getQueuePollingDelay_returns_value_of_property() {
+    MapSettings settings = new MapSettings().setProperty(CeConfigurationImpl.SONAR_CE_QUEUE_POLLING_DELAY_IN_MS, "30000");
+    workerCountProvider.set(1);
+
+    assertThat(new CeConfigurationImpl(new ConfigurationBridge(settings)).getQueuePollingDelay()).isEqualTo(30_000L);
+    assertThat(new CeConfigurationImpl(new ConfigurationBridge(settings), workerCountProvider).getQueuePollingDelay()).isEqualTo(30_000L);
+  }
+
+  @Test
+  public void constructor_throws_MessageException_when_queue_polling_delay_is_not_strictly_positive() {
+    MapSettings settings = new MapSettings().setProperty(CeConfigurationImpl.SONAR_CE_QUEUE_POLLING_DELAY_IN_MS, "0");
+
+    expectedException.expect(MessageException.class);
+    expectedException.expectMessage("Queue polling delay '0' is invalid. It must be a strictly positive number of milliseconds");
+
+    new CeConfigurationImpl(new ConfigurationBridge(settings));
+  }
+
+  @Test
+  public void scheduling_settings_have_default_values() {
+    CeConfigurationImpl underTest = new CeConfigurationImpl(EMPTY_CONFIGURATION);
+
+    assertThat(underTest.getSchedulingPolicy()).isEqualTo(CeSchedulingPolicy.FIFO);
+    assertThat(underTest.getSchedulingMaxWaitingTimeInMs()).isEqualTo(30 * 60 * 1_000L);
+    assertThat(underTest.getWorkersReservedToBranches()).isZero();
+  }
+
+  @Test
+  public void scheduling_settings_are_read_from_properties() {
+    MapSettings settings = new MapSettings()
+      .setProperty(CeConfigurationImpl.SONAR_CE_SCHEDULING_POLICY, "shortest_expected_job_first")
+      .setProperty(CeConfigurationImpl.SONAR_CE_SCHEDULING_MAX_WAITING_TIME_IN_MS, "60000")
+      .setProperty(CeConfigurationImpl.SONAR_CE_SCHEDULING_WORKERS_RESERVED_TO_BRANCHES, "2");
+
+    CeConfigurationImpl underTest = new CeConfigurationImpl(new ConfigurationBridge(settings));
+
+    assertThat(underTest.getSchedulingPolicy()).isEqualTo(CeSchedulingPolicy.SHORTEST_EXPECTED_JOB_FIRST);
+    assertThat(underTest.getSchedulingMaxWaitingTimeInMs()).isEqualTo(60_000L);
+    assertThat(underTest.getWorkersReservedToBranches()).isEqualTo(2);
+  }
+
+  @Test
+  public void constructor_throws_MessageException_when_scheduling_policy_is_unknown() {
+    MapSettings settings = new MapSettings().setProperty(CeConfigurationImpl.SONAR_CE_SCHEDULING_POLICY, "LIFO");
+
+    expectedException.expect(MessageException.class);
+    expectedException.expectMessage("Scheduling policy 'LIFO' is invalid. Possible values are: [FIFO, SHORTEST_EXPECTED_JOB_FIRST]");
+
+    new CeConfigurationImpl(new ConfigurationBridge(settings));
+  }
+
   @Test
   public void refresh_does_not_change_any_value_when_there_is_no_WorkerCountProvider() {
     CeConfigurationImpl underTest = new CeConfigurationImpl(EMPTY_CONFIGURATION);
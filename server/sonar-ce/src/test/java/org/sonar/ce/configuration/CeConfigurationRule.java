@@ -33,6 +33,9 @@ public class CeConfigurationRule extends ExternalResource implements CeConfigura
   private long queuePollingDelay = 2 * 1000L;
   private long cancelWornOutsInitialDelay = 1L;
   private long cancelWornOutsDelay = 10L;
+  private CeSchedulingPolicy schedulingPolicy = CeSchedulingPolicy.FIFO;
+  private long schedulingMaxWaitingTimeInMs = 30 * 60 * 1000L;
+  private int workersReservedToBranches = 0;
   private Consumer<CeConfigurationRule> refreshCallHook;
 
   @Override
@@ -101,4 +104,35 @@ public class CeConfigurationRule extends ExternalResource implements CeConfigura
     checkArgument(cancelWornOutsDelay > 0, "cancel worn-outs polling delay must be >= 1");
     this.cancelWornOutsDelay = cancelWornOutsDelay;
   }
+
+  @Override
+  public CeSchedulingPolicy getSchedulingPolicy() {
+    return schedulingPolicy;
+  }
+
+  public CeConfigurationRule setSchedulingPolicy(CeSchedulingPolicy schedulingPolicy) {
+    this.schedulingPolicy = schedulingPolicy;
+    return this;
+  }
+
+  @Override
+  public long getSchedulingMaxWaitingTimeInMs() {
+    return schedulingMaxWaitingTimeInMs;
+  }
+
+  public CeConfigurationRule setSchedulingMaxWaitingTimeInMs(long schedulingMaxWaitingTimeInMs) {
+    this.schedulingMaxWaitingTimeInMs = schedulingMaxWaitingTimeInMs;
+    return this;
+  }
+
+  @Override
+  public int getWorkersReservedToBranches() {
+    return workersReservedToBranches;
+  }
+
+  public CeConfigurationRule setWorkersReservedToBranches(int workersReservedToBranches) {
+    checkArgument(workersReservedToBranches >= 0, "workers reserved to branches must be >= 0");
+    this.workersReservedToBranches = workersReservedToBranches;
+    return this;
+  }
 }
@@ -97,13 +97,13 @@ public class ComputeEngineContainerImplTest {
             + 82 // level 4
             + 21 // content of QualityGateModule
             + 6 // content of CeConfigurationModule
-            + 4 // content of CeQueueModule
-            + 4 // content of CeHttpModule
-            + 3 // content of CeTaskCommonsModule
+            + 5 // content of CeQueueModule
+            + 5 // content of CeHttpModule
+            + 4 // content of CeTaskCommonsModule
             + 4 // content of ProjectAnalysisTaskModule
             + 7 // content of CeTaskProcessorModule
             + 4 // content of ReportAnalysisFailureNotificationModule
-            + 3 // CeCleaningModule + its content
+            + 5 // CeCleaningModule + its content
             + 4 // WebhookModule
             + 1 // CeDistributedInformation
       );
@@ -120,7 +120,7 @@ public class ComputeEngineContainerImplTest {
         COMPONENTS_IN_LEVEL_1_AT_CONSTRUCTION
           + 30 // level 1
           + 55 // content of DaoModule
-          + 3 // content of EsModule
+          + 5 // content of EsModule
           + 58 // content of CorePropertyDefinitions
           + 1 // StopFlagContainer
       );
@@ -26,6 +26,7 @@ import javax.management.ObjectInstance;
 import javax.management.ObjectName;
 import org.junit.Test;
 import org.sonar.ce.configuration.CeConfiguration;
+import org.sonar.ce.configuration.CeSchedulingPolicy;
 import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -38,6 +39,7 @@ public class CeTasksMBeanImplTest {
   private static final long PROCESSING_TIME = 987;
   private static final int WORKER_MAX_COUNT = 666;
   private static final int WORKER_COUNT = 56;
+  private static final int WORKERS_RESERVED_TO_BRANCHES = 12;
 
   private CeTasksMBeanImpl underTest = new CeTasksMBeanImpl(new DumbCEQueueStatus(), new DumbCeConfiguration());
 
@@ -84,11 +86,17 @@ public class CeTasksMBeanImplTest {
     assertThat(underTest.getWorkerMaxCount()).isEqualTo(WORKER_MAX_COUNT);
   }
 
+  @Test
+  public void scheduling_settings_delegate_to_the_CEConfiguration_instance() {
+    assertThat(underTest.getSchedulingPolicy()).isEqualTo("SHORTEST_EXPECTED_JOB_FIRST");
+    assertThat(underTest.getWorkersReservedToBranches()).isEqualTo(WORKERS_RESERVED_TO_BRANCHES);
+  }
+
   @Test
   public void export_system_info() {
     ProtobufSystemInfo.Section section = underTest.toProtobuf();
     assertThat(section.getName()).isEqualTo("Compute Engine Tasks");
-    assertThat(section.getAttributesCount()).isEqualTo(8);
+    assertThat(section.getAttributesCount()).isEqualTo(10);
   }
   private static class DumbCEQueueStatus implements CEQueueStatus {
 
@@ -179,5 +187,20 @@ public class CeTasksMBeanImplTest {
       return 40_000;
     }
 
+    @Override
+    public CeSchedulingPolicy getSchedulingPolicy() {
+      return CeSchedulingPolicy.SHORTEST_EXPECTED_JOB_FIRST;
+    }
+
+    @Override
+    public long getSchedulingMaxWaitingTimeInMs() {
+      throw new UnsupportedOperationException("getSchedulingMaxWaitingTimeInMs is not implemented");
+    }
+
+    @Override
+    public int getWorkersReservedToBranches() {
+      return WORKERS_RESERVED_TO_BRANCHES;
+    }
+
   }
 }
@@ -0,0 +1,183 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.ce.configuration.CeConfigurationRule;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.ce.CeActivityDto;
+import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.db.component.ComponentDto;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.ce.configuration.CeSchedulingPolicy.SHORTEST_EXPECTED_JOB_FIRST;
+
+public class CeTaskPrioritizerImplTest {
+  private static final long NOW = 1_500_000_000_000L;
+  private static final String WORKER_UUID_1 = "worker uuid 1";
+  private static final String WORKER_UUID_2 = "worker uuid 2";
+
+  private TestSystem2 system2 = new TestSystem2().setNow(NOW);
+
+  @Rule
+  public DbTester db = DbTester.create(system2);
+  @Rule
+  public CeConfigurationRule ceConfiguration = new CeConfigurationRule();
+
+  private DbSession dbSession = db.getSession();
+  private CeTaskPrioritizerImpl underTest = new CeTaskPrioritizerImpl(db.getDbClient(), system2, ceConfiguration);
+
+  @Test
+  public void is_disabled_by_default() {
+    assertThat(underTest.isEnabled()).isFalse();
+  }
+
+  @Test
+  public void is_enabled_when_policy_is_shortest_expected_job_first() {
+    ceConfiguration.setSchedulingPolicy(SHORTEST_EXPECTED_JOB_FIRST);
+
+    assertThat(underTest.isEnabled()).isTrue();
+  }
+
+  @Test
+  public void is_enabled_when_some_workers_are_reserved_to_branches() {
+    ceConfiguration.setWorkerCount(3).setWorkersReservedToBranches(1);
+
+    assertThat(underTest.isEnabled()).isTrue();
+  }
+
+  @Test
+  public void is_disabled_when_all_workers_are_reserved_to_branches() {
+    ceConfiguration.setWorkerCount(2).setWorkersReservedToBranches(2);
+
+    assertThat(underTest.isEnabled()).isFalse();
+  }
+
+  @Test
+  public void FIFO_policy_keeps_tasks_ordered_from_oldest_to_newest() {
+    CeQueueDto task1 = newTask("TASK_1", "PROJECT_1", NOW - 1_000L);
+    CeQueueDto task2 = newTask("TASK_2", "PROJECT_2", NOW);
+    insertActivity("PROJECT_1", 60_000L);
+    insertActivity("PROJECT_2", 1_000L);
+
+    assertThat(underTest.prioritize(dbSession, WORKER_UUID_1, asList(task1, task2))).containsExactly(task1, task2);
+  }
+
+  @Test
+  public void shortest_expected_job_first_policy_sorts_tasks_by_average_execution_time() {
+    ceConfiguration.setSchedulingPolicy(SHORTEST_EXPECTED_JOB_FIRST);
+    CeQueueDto longTask = newTask("TASK_1", "PROJECT_1", NOW);
+    CeQueueDto unknownTask = newTask("TASK_2", "PROJECT_2", NOW);
+    CeQueueDto shortTask = newTask("TASK_3", "PROJECT_3", NOW);
+    insertActivity("PROJECT_1", 600_000L);
+    insertActivity("PROJECT_1", 400_000L);
+    insertActivity("PROJECT_3", 1_000L);
+
+    List<CeQueueDto> prioritized = underTest.prioritize(dbSession, WORKER_UUID_1, asList(longTask, unknownTask, shortTask));
+
+    // expected execution time of task without history is the average of the other tasks
+    assertThat(prioritized).containsExactly(shortTask, unknownTask, longTask);
+  }
+
+  @Test
+  public void shortest_expected_job_first_policy_takes_waiting_time_into_account() {
+    ceConfiguration.setSchedulingPolicy(SHORTEST_EXPECTED_JOB_FIRST);
+    CeQueueDto oldLongTask = newTask("TASK_1", "PROJECT_1", NOW - 9_500L);
+    CeQueueDto shortTask = newTask("TASK_2", "PROJECT_2", NOW);
+    insertActivity("PROJECT_1", 10_000L);
+    insertActivity("PROJECT_2", 1_000L);
+
+    assertThat(underTest.prioritize(dbSession, WORKER_UUID_1, asList(oldLongTask, shortTask))).containsExactly(oldLongTask, shortTask);
+  }
+
+  @Test
+  public void shortest_expected_job_first_policy_processes_tasks_waiting_for_more_than_max_waiting_time_first() {
+    ceConfiguration.setSchedulingPolicy(SHORTEST_EXPECTED_JOB_FIRST).setSchedulingMaxWaitingTimeInMs(60_000L);
+    CeQueueDto starvingTask1 = newTask("TASK_1", "PROJECT_1", NOW - 70_000L);
+    CeQueueDto starvingTask2 = newTask("TASK_2", "PROJECT_2", NOW - 60_000L);
+    CeQueueDto shortTask = newTask("TASK_3", "PROJECT_3", NOW);
+    insertActivity("PROJECT_1", 10_000_000L);
+    insertActivity("PROJECT_2", 1_000L);
+    insertActivity("PROJECT_3", 1L);
+
+    assertThat(underTest.prioritize(dbSession, WORKER_UUID_1, asList(starvingTask1, starvingTask2, shortTask)))
+      .containsExactly(starvingTask1, starvingTask2, shortTask);
+  }
+
+  @Test
+  public void tasks_of_main_branches_are_not_prioritized_when_only_workers_reserved_to_branches_are_available() {
+    ceConfiguration.setWorkerCount(2).setWorkersReservedToBranches(1);
+    ComponentDto project = db.components().insertPrivateProject();
+    ComponentDto otherProject = db.components().insertPrivateProject();
+    ComponentDto branch = db.components().insertProjectBranch(otherProject);
+    CeQueueDto mainBranchTask = newTask("TASK_1", project.uuid(), NOW - 1_000L);
+    CeQueueDto branchTask = newTask("TASK_2", branch.uuid(), NOW);
+    CeQueueDto otherMainBranchTask = newTask("TASK_3", otherProject.uuid(), NOW);
+
+    assertThat(underTest.prioritize(dbSession, WORKER_UUID_1, asList(mainBranchTask, branchTask, otherMainBranchTask)))
+      .containsExactly(mainBranchTask, branchTask, otherMainBranchTask);
+    underTest.onPeeked(dbSession, mainBranchTask.setWorkerUuid(WORKER_UUID_1));
+
+    // only one worker is not reserved to branches and it is busy
+    assertThat(underTest.prioritize(dbSession, WORKER_UUID_2, asList(branchTask, otherMainBranchTask)))
+      .containsExactly(branchTask);
+
+    underTest.onRemoved(mainBranchTask.getUuid());
+    assertThat(underTest.prioritize(dbSession, WORKER_UUID_2, asList(branchTask, otherMainBranchTask)))
+      .containsExactly(branchTask, otherMainBranchTask);
+  }
+
+  @Test
+  public void worker_peeking_a_task_does_not_process_a_task_of_main_branch_anymore() {
+    ceConfiguration.setWorkerCount(2).setWorkersReservedToBranches(1);
+    ComponentDto project = db.components().insertPrivateProject();
+    ComponentDto otherProject = db.components().insertPrivateProject();
+    CeQueueDto mainBranchTask = newTask("TASK_1", project.uuid(), NOW);
+    CeQueueDto otherMainBranchTask = newTask("TASK_2", otherProject.uuid(), NOW);
+    underTest.onPeeked(dbSession, mainBranchTask.setWorkerUuid(WORKER_UUID_1));
+
+    assertThat(underTest.prioritize(dbSession, WORKER_UUID_1, asList(otherMainBranchTask))).containsExactly(otherMainBranchTask);
+  }
+
+  private static CeQueueDto newTask(String uuid, String componentUuid, long createdAt) {
+    return new CeQueueDto()
+      .setUuid(uuid)
+      .setTaskType(CeTaskTypes.REPORT)
+      .setComponentUuid(componentUuid)
+      .setStatus(CeQueueDto.Status.PENDING)
+      .setCreatedAt(createdAt)
+      .setUpdatedAt(createdAt);
+  }
+
+  private void insertActivity(String componentUuid, long executionTimeMs) {
+    CeQueueDto queueDto = newTask(componentUuid + "_" + executionTimeMs, componentUuid, NOW - 1_000_000L);
+    CeActivityDto dto = new CeActivityDto(queueDto);
+    dto.setStatus(CeActivityDto.Status.SUCCESS);
+    dto.setExecutionTimeMs(executionTimeMs);
+    db.getDbClient().ceActivityDao().insert(dbSession, dto);
+    dbSession.commit();
+  }
+}
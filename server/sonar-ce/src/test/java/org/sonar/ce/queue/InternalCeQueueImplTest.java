@@ -51,8 +51,16 @@ import org.sonar.server.organization.DefaultOrganization;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sonar.ce.container.ComputeEngineStatus.Status.STARTED;
 import static org.sonar.ce.container.ComputeEngineStatus.Status.STOPPING;
@@ -330,6 +338,73 @@ public class InternalCeQueueImplTest {
     assertThat(ceQueueDto.getWorkerUuid()).isEqualTo(WORKER_UUID_1);
   }
 
+  @Test
+  public void peek_first_task_prioritized_by_CeTaskPrioritizer_when_enabled() {
+    CeTaskPrioritizer prioritizer = mock(CeTaskPrioritizer.class);
+    when(prioritizer.isEnabled()).thenReturn(true);
+    when(prioritizer.prioritize(any(DbSession.class), eq(WORKER_UUID_1), anyList()))
+      .thenAnswer(invocation -> {
+        List<CeQueueDto> eligibleTasks = invocation.getArgument(2);
+        return asList(eligibleTasks.get(1), eligibleTasks.get(0));
+      });
+    InternalCeQueue underTest = new InternalCeQueueImpl(system2, db.getDbClient(), uuidFactory, queueStatus, defaultOrganizationProvider, computeEngineStatus, prioritizer);
+    submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task2 = submit(CeTaskTypes.REPORT, "PROJECT_2");
+
+    Optional<CeTask> peek = underTest.peek(WORKER_UUID_1);
+
+    assertThat(peek.get().getUuid()).isEqualTo(task2.getUuid());
+    verify(prioritizer).onPeeked(any(DbSession.class), argThat(dto -> dto.getUuid().equals(task2.getUuid()) && WORKER_UUID_1.equals(dto.getWorkerUuid())));
+
+    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, null, null);
+    verify(prioritizer).onRemoved(task2.getUuid());
+  }
+
+  @Test
+  public void peek_next_task_prioritized_by_CeTaskPrioritizer_when_first_one_is_peeked_by_another_worker() {
+    CeTaskPrioritizer prioritizer = mock(CeTaskPrioritizer.class);
+    when(prioritizer.isEnabled()).thenReturn(true);
+    when(prioritizer.prioritize(any(DbSession.class), eq(WORKER_UUID_1), anyList()))
+      .thenAnswer(invocation -> {
+        List<CeQueueDto> eligibleTasks = invocation.getArgument(2);
+        // another worker peeks the first task in the meantime
+        db.getDbClient().ceQueueDao().peek(session, WORKER_UUID_2, eligibleTasks.get(0).getUuid());
+        return eligibleTasks;
+      });
+    InternalCeQueue underTest = new InternalCeQueueImpl(system2, db.getDbClient(), uuidFactory, queueStatus, defaultOrganizationProvider, computeEngineStatus, prioritizer);
+    submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task2 = submit(CeTaskTypes.REPORT, "PROJECT_2");
+
+    Optional<CeTask> peek = underTest.peek(WORKER_UUID_1);
+
+    assertThat(peek.get().getUuid()).isEqualTo(task2.getUuid());
+    verify(prioritizer).onPeeked(any(DbSession.class), argThat(dto -> dto.getUuid().equals(task2.getUuid()) && WORKER_UUID_1.equals(dto.getWorkerUuid())));
+  }
+
+  @Test
+  public void peek_nothing_if_CeTaskPrioritizer_returns_no_task() {
+    CeTaskPrioritizer prioritizer = mock(CeTaskPrioritizer.class);
+    when(prioritizer.isEnabled()).thenReturn(true);
+    when(prioritizer.prioritize(any(DbSession.class), eq(WORKER_UUID_1), anyList())).thenReturn(emptyList());
+    InternalCeQueue underTest = new InternalCeQueueImpl(system2, db.getDbClient(), uuidFactory, queueStatus, defaultOrganizationProvider, computeEngineStatus, prioritizer);
+    submit(CeTaskTypes.REPORT, "PROJECT_1");
+
+    assertThat(underTest.peek(WORKER_UUID_1)).isEmpty();
+    verify(prioritizer, never()).onPeeked(any(DbSession.class), any(CeQueueDto.class));
+  }
+
+  @Test
+  public void peek_oldest_task_if_CeTaskPrioritizer_is_disabled() {
+    CeTaskPrioritizer prioritizer = mock(CeTaskPrioritizer.class);
+    when(prioritizer.isEnabled()).thenReturn(false);
+    InternalCeQueue underTest = new InternalCeQueueImpl(system2, db.getDbClient(), uuidFactory, queueStatus, defaultOrganizationProvider, computeEngineStatus, prioritizer);
+    CeTask task1 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    submit(CeTaskTypes.REPORT, "PROJECT_2");
+
+    assertThat(underTest.peek(WORKER_UUID_1).get().getUuid()).isEqualTo(task1.getUuid());
+    verify(prioritizer, never()).prioritize(any(DbSession.class), anyString(), anyList());
+  }
+
   @Test
   public void peek_nothing_if_application_status_stopping() {
     submit(CeTaskTypes.REPORT, "PROJECT_1");
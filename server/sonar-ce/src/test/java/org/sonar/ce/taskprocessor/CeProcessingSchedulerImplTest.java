@@ -48,12 +48,14 @@ import org.junit.rules.DisableOnDebug;
 import org.junit.rules.TestRule;
 import org.junit.rules.Timeout;
 import org.sonar.ce.configuration.CeConfigurationRule;
+import org.sonar.ce.queue.CeWorkersWakeUpHook;
 
 import static com.google.common.collect.ImmutableList.copyOf;
 import static java.util.Collections.emptySet;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -216,7 +218,7 @@ public class CeProcessingSchedulerImplTest {
 
     ListenableScheduledFuture listenableScheduledFuture = mock(ListenableScheduledFuture.class);
     CeProcessingSchedulerExecutorService processingExecutorService = mock(CeProcessingSchedulerExecutorService.class);
-    when(processingExecutorService.schedule(any(CeWorker.class), any(Long.class), any(TimeUnit.class))).thenReturn(listenableScheduledFuture);
+    when(processingExecutorService.schedule(any(Callable.class), any(Long.class), any(TimeUnit.class))).thenReturn(listenableScheduledFuture);
 
     CeWorkerFactory ceWorkerFactory = spy(new TestCeWorkerFactory(workers));
     CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerFactory, ceWorkerController);
@@ -228,7 +230,7 @@ public class CeProcessingSchedulerImplTest {
 
     // Verify that schedule has been called on all workers
     for (int i = 0; i < workerCount; i++) {
-      verify(processingExecutorService).schedule(workers[i], ceConfiguration.getQueuePollingDelay(), MILLISECONDS);
+      verify(processingExecutorService).schedule(delayedPollOf(workers[i]), eq(ceConfiguration.getQueuePollingDelay()), eq(MILLISECONDS));
     }
     verify(listenableScheduledFuture, times(workerCount)).addListener(any(Runnable.class), eq(MoreExecutors.directExecutor()));
     for (int i = 0; i < workerCount; i++) {
@@ -236,6 +238,64 @@ public class CeProcessingSchedulerImplTest {
     }
   }
 
+  @Test
+  public void wakeUpIdleWorkers_polls_without_delay_instead_of_waiting_for_regular_delay() throws Exception {
+    when(ceWorker.call())
+      .thenReturn(NO_TASK)
+      .thenThrow(ERROR_TO_INTERRUPT_CHAINING);
+
+    underTest.startScheduling();
+    underTest.wakeUpIdleWorkers();
+    processingExecutorService.runFutures();
+
+    assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
+      regularDelayedPoll,
+      notDelayedPoll,
+      regularDelayedPoll);
+    verify(ceWorker, times(2)).call();
+  }
+
+  @Test
+  public void wakeUpIdleWorkers_has_no_effect_on_disabled_workers() throws Exception {
+    when(ceWorker.call())
+      .thenReturn(DISABLED)
+      .thenThrow(ERROR_TO_INTERRUPT_CHAINING);
+
+    underTest.startScheduling();
+    // run first delayed polling, which chains a polling with extended delay
+    processingExecutorService.futures.poll().get();
+    underTest.wakeUpIdleWorkers();
+    processingExecutorService.runFutures();
+
+    assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
+      regularDelayedPoll,
+      extendedDelayedPoll);
+  }
+
+  @Test
+  public void wakeUpIdleWorkers_from_Hazelcast_distributed_call_once_scheduling_is_started() throws Exception {
+    when(ceWorker.call())
+      .thenReturn(NO_TASK)
+      .thenThrow(ERROR_TO_INTERRUPT_CHAINING);
+
+    underTest.startScheduling();
+    assertThat(CeWorkersWakeUpHook.wakeUpFromHazelcastDistributedCall()).isTrue();
+    processingExecutorService.runFutures();
+
+    assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
+      regularDelayedPoll,
+      notDelayedPoll,
+      regularDelayedPoll);
+
+    underTest.stopScheduling();
+    assertThat(CeWorkersWakeUpHook.wakeUpFromHazelcastDistributedCall()).isFalse();
+  }
+
+  private static Callable<CeWorker.Result> delayedPollOf(CeWorker worker) {
+    return argThat(callable -> callable instanceof CeProcessingSchedulerImpl.DelayedPoll
+      && ((CeProcessingSchedulerImpl.DelayedPoll) callable).getWorker() == worker);
+  }
+
   private void startSchedulingAndRun() throws ExecutionException, InterruptedException {
     underTest.startScheduling();
 
@@ -557,17 +617,24 @@ public class CeProcessingSchedulerImplTest {
     private final TimeUnit unit;
 
     private SchedulerCall(Callable<?> callable, long delay, TimeUnit unit) {
-      this.callable = callable;
+      this.callable = unwrap(callable);
       this.delay = delay;
       this.unit = unit;
     }
 
     private SchedulerCall(Callable<?> callable) {
-      this.callable = callable;
+      this.callable = unwrap(callable);
       this.delay = -63366;
       this.unit = TimeUnit.NANOSECONDS;
     }
 
+    private static Callable<?> unwrap(Callable<?> callable) {
+      if (callable instanceof CeProcessingSchedulerImpl.DelayedPoll) {
+        return ((CeProcessingSchedulerImpl.DelayedPoll) callable).getWorker();
+      }
+      return callable;
+    }
+
     @Override
     public boolean equals(@Nullable Object o) {
       if (this == o) {
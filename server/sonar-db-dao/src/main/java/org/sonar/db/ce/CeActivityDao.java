@@ -19,6 +19,7 @@
  */
 package org.sonar.db.ce;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -29,6 +30,7 @@ import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
 import org.sonar.db.Pagination;
 
+import static org.sonar.db.DatabaseUtils.executeLargeInputs;
 import static org.sonar.db.DatabaseUtils.executeLargeUpdates;
 
 public class CeActivityDao implements Dao {
@@ -78,6 +80,13 @@ public class CeActivityDao implements Dao {
     return mapper(dbSession).countLastByStatusAndComponentUuid(status, componentUuid);
   }
 
+  /**
+   * Average execution time of successful tasks, by task type, for each of the specified components which has any.
+   */
+  public List<AverageExecutionTime> selectAverageExecutionTimes(DbSession dbSession, Collection<String> componentUuids) {
+    return executeLargeInputs(componentUuids, mapper(dbSession)::selectAverageExecutionTimes);
+  }
+
   private static CeActivityMapper mapper(DbSession dbSession) {
     return dbSession.getMapper(CeActivityMapper.class);
   }
@@ -36,6 +36,8 @@ public interface CeActivityMapper {
 
   List<CeActivityDto> selectOlderThan(@Param("beforeDate") long beforeDate);
 
+  List<AverageExecutionTime> selectAverageExecutionTimes(@Param("componentUuids") List<String> componentUuids);
+
   int countLastByStatusAndComponentUuid(@Param("status") CeActivityDto.Status status, @Nullable @Param("componentUuid") String componentUuid);
 
   void insert(CeActivityDto dto);
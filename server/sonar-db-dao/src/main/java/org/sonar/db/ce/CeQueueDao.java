@@ -161,6 +161,22 @@ public class CeQueueDao implements Dao {
     return tryToPeek(session, eligible, workerUuid);
   }
 
+  /**
+   * Pending tasks which can be peeked, ie. which component has no task in progress, ordered from oldest to newest and
+   * limited to {@code maxCount} tasks.
+   */
+  public List<CeQueueDto> selectEligibleForPeek(DbSession session, int maxCount) {
+    return mapper(session).selectEligibleTasksForPeek(new RowBounds(0, maxCount));
+  }
+
+  /**
+   * Peeks the specified task, which must have been returned by {@link #selectEligibleForPeek(DbSession, int)}. Nothing
+   * is returned if the task has been peeked by another worker in the meantime.
+   */
+  public Optional<CeQueueDto> peek(DbSession session, String workerUuid, String eligibleTaskUuid) {
+    return tryToPeek(session, eligibleTaskUuid, workerUuid);
+  }
+
   private Optional<CeQueueDto> tryToPeek(DbSession session, String eligibleTaskUuid, String workerUuid) {
     long now = system2.now();
     int touchedRows = mapper(session).updateIf(eligibleTaskUuid,
@@ -39,6 +39,8 @@ public interface CeQueueMapper {
 
   List<String> selectEligibleForPeek(@Param("pagination") Pagination pagination);
 
+  List<CeQueueDto> selectEligibleTasksForPeek(RowBounds rowBounds);
+
   @CheckForNull
   CeQueueDto selectByUuid(@Param("uuid") String uuid);
 
@@ -187,6 +187,14 @@ public class ComponentDao implements Dao {
     return mapper(session).selectUuidsByKeyFromProjectKey(projectKey);
   }
 
+  /**
+   * Same as {@link #selectUuidsByKeyFromProjectKey(DbSession, String)} but rows are scrolled, ordered by key, instead
+   * of being loaded in memory all at once.
+   */
+  public void scrollUuidsByKeyFromProjectKey(DbSession session, String projectKey, ResultHandler<KeyWithUuidDto> handler) {
+    mapper(session).scrollUuidsByKeyFromProjectKey(projectKey, handler);
+  }
+
   public List<ComponentDto> selectEnabledModulesFromProjectKey(DbSession session, String projectKey) {
     return mapper(session).selectComponentsFromProjectKeyAndScope(projectKey, Scopes.PROJECT, true);
   }
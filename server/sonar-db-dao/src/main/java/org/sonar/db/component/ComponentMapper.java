@@ -126,6 +126,8 @@ public interface ComponentMapper {
    */
   List<KeyWithUuidDto> selectUuidsByKeyFromProjectKey(@Param("projectKey") String projectKey);
 
+  void scrollUuidsByKeyFromProjectKey(@Param("projectKey") String projectKey, ResultHandler<KeyWithUuidDto> handler);
+
   Set<String> selectViewKeysWithEnabledCopyOfProject(@Param("projectUuids") Collection<String> projectUuids);
 
   /**
@@ -21,6 +21,7 @@ package org.sonar.db.duplication;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
@@ -30,11 +31,15 @@ import static org.sonar.db.DatabaseUtils.executeLargeInputs;
 public class DuplicationDao implements Dao {
 
   /**
+   * Hashes are deduplicated and sorted before being split into partitions, so that each query reads a single
+   * range of the index on hashes.
+   *
    * @param analysisUuid snapshot id of the project from the previous analysis (islast=true)
    */
   public List<DuplicationUnitDto> selectCandidates(DbSession session, @Nullable String analysisUuid, String language, Collection<String> hashes) {
+    List<String> sortedHashes = hashes.stream().distinct().sorted().collect(Collectors.toList());
     return executeLargeInputs(
-      hashes,
+      sortedHashes,
       partition -> session.getMapper(DuplicationMapper.class).selectCandidates(analysisUuid, language, partition));
   }
 
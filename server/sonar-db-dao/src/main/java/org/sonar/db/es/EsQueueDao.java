@@ -73,6 +73,10 @@ public class EsQueueDao implements Dao {
     return mapper(dbSession).selectForRecovery(beforeDate, limit);
   }
 
+  public long countAll(DbSession dbSession) {
+    return mapper(dbSession).countAll();
+  }
+
   private static EsQueueMapper mapper(DbSession dbSession) {
     return dbSession.getMapper(EsQueueMapper.class);
   }
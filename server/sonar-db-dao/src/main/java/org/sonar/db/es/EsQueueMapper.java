@@ -30,4 +30,6 @@ public interface EsQueueMapper {
   void delete(@Param("uuids") List<String> uuids);
 
   Collection<EsQueueDto> selectForRecovery(@Param("beforeDate") long beforeDate, @Param("limit") long limit);
+
+  long countAll();
 }
@@ -23,6 +23,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import javax.annotation.Nullable;
 
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
@@ -61,6 +62,14 @@ public class IssueDao implements Dao {
     return mapper(session).selectComponentUuidsOfOpenIssuesForProjectUuid(projectUuid);
   }
 
+  /**
+   * Uuids of the projects which have issues, sorted by the database. When {@code afterProjectUuid} is set,
+   * only the uuids sorted after it are returned, so that the projects can be walked through in consecutive ranges.
+   */
+  public List<String> selectProjectUuids(DbSession dbSession, @Nullable String afterProjectUuid) {
+    return mapper(dbSession).selectProjectUuids(afterProjectUuid);
+  }
+
   public List<IssueDto> selectNonClosedByComponentUuidExcludingExternals(DbSession dbSession, String componentUuid) {
     return mapper(dbSession).selectNonClosedByComponentUuidExcludingExternals(componentUuid);
   }
@@ -78,6 +87,15 @@ public class IssueDao implements Dao {
     return mapper(dbSession).selectIssueGroupsByBaseComponent(baseComponent, leakPeriodBeginningDate);
   }
 
+  /**
+   * Groups of the non-closed issues of the specified components, one set of groups per component having issues.
+   * Unlike {@link #selectIssueGroupsByBaseComponent(DbSession, ComponentDto, long)}, issues of descendants are not
+   * included.
+   */
+  public List<ComponentIssueGroupDto> selectIssueGroupsByComponentUuids(DbSession dbSession, Collection<String> componentUuids, long leakPeriodBeginningDate) {
+    return executeLargeInputs(componentUuids, uuids -> mapper(dbSession).selectIssueGroupsByComponentUuids(uuids, leakPeriodBeginningDate));
+  }
+
   public void insert(DbSession session, IssueDto dto) {
     mapper(session).insert(dto);
   }
@@ -22,6 +22,7 @@ package org.sonar.db.issue;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.session.ResultHandler;
 import org.sonar.db.component.ComponentDto;
@@ -32,6 +33,8 @@ public interface IssueMapper {
 
   Set<String> selectComponentUuidsOfOpenIssuesForProjectUuid(String projectUuid);
 
+  List<String> selectProjectUuids(@Nullable @Param("afterProjectUuid") String afterProjectUuid);
+
   List<IssueDto> selectByKeys(List<String> keys);
 
   List<ShortBranchIssueDto> selectOpenByComponentUuids(List<String> componentUuids);
@@ -51,4 +54,7 @@ public interface IssueMapper {
   Collection<IssueGroupDto> selectIssueGroupsByBaseComponent(
     @Param("baseComponent") ComponentDto baseComponent,
     @Param("leakPeriodBeginningDate") long leakPeriodBeginningDate);
+
+  List<ComponentIssueGroupDto> selectIssueGroupsByComponentUuids(@Param("componentUuids") List<String> componentUuids,
+    @Param("leakPeriodBeginningDate") long leakPeriodBeginningDate);
 }
@@ -19,10 +19,19 @@
  */
 package org.sonar.db.measure;
 
+import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import javax.annotation.Nullable;
 import org.apache.ibatis.session.ResultHandler;
 import org.sonar.api.utils.System2;
@@ -33,11 +42,21 @@ import org.sonar.db.component.BranchType;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.KeyType;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toSet;
 import static org.sonar.api.measures.CoreMetrics.NCLOC_KEY;
 import static org.sonar.db.DatabaseUtils.executeLargeInputs;
+import static org.sonar.db.DatabaseUtils.executeLargeInputsWithoutOutput;
+import static org.sonar.db.DatabaseUtils.executeLargeUpdates;
 
 public class LiveMeasureDao implements Dao {
+  /**
+   * Maximum number of rows inserted by a single statement, as SQL Server supports at most 2100 parameters
+   * per statement.
+   */
+  public static final int MAX_ROWS_PER_INSERT = 150;
 
   private final System2 system2;
 
@@ -108,6 +127,90 @@ public class LiveMeasureDao implements Dao {
     }
   }
 
+  /**
+   * Inserts or updates the specified measures, by keeping the specified marker on all of them. New measures are inserted
+   * with statements of at most {@code chunkSize} rows. The values of the measures already stored are loaded and
+   * compared by hash: only the changed ones are updated, the marker of the unchanged ones is updated in bulk.
+   * The update date of the unchanged ones is set too, as it tells when the measure was computed for the last time,
+   * like for measures updated by {@link #insertOrUpdate(DbSession, LiveMeasureDto, String)}.
+   *
+   * @throws IllegalArgumentException if {@code chunkSize} is not between 1 and {@link #MAX_ROWS_PER_INSERT}
+   */
+  public void upsert(DbSession dbSession, Collection<LiveMeasureDto> dtos, String marker, int chunkSize) {
+    checkArgument(chunkSize > 0 && chunkSize <= MAX_ROWS_PER_INSERT, "Chunk size must be between 1 and %s: %s", MAX_ROWS_PER_INSERT, chunkSize);
+    if (dtos.isEmpty()) {
+      return;
+    }
+    LiveMeasureMapper mapper = mapper(dbSession);
+    Map<String, LiveMeasureDto> dtosByKey = new LinkedHashMap<>();
+    dtos.forEach(dto -> dtosByKey.put(keyOf(dto), dto));
+    Map<String, StoredHash> storedByKey = new HashMap<>();
+    Set<String> componentUuids = dtos.stream().map(LiveMeasureDto::getComponentUuid).collect(toSet());
+    executeLargeInputsWithoutOutput(componentUuids, uuids -> mapper.scrollStoredByComponentUuids(uuids, context -> {
+      StoredLiveMeasureDto stored = context.getResultObject();
+      storedByKey.put(keyOf(stored), new StoredHash(stored.getUuid(), hashOf(stored)));
+    }));
+
+    long now = system2.now();
+    List<LiveMeasureDto> toInsert = new ArrayList<>();
+    List<String> unchangedUuids = new ArrayList<>();
+    for (Map.Entry<String, LiveMeasureDto> entry : dtosByKey.entrySet()) {
+      LiveMeasureDto dto = entry.getValue();
+      StoredHash stored = storedByKey.get(entry.getKey());
+      if (stored == null) {
+        toInsert.add(dto);
+      } else if (stored.hash.equals(hashOf(dto))) {
+        unchangedUuids.add(stored.uuid);
+      } else {
+        mapper.update(dto, marker, now);
+      }
+    }
+    for (List<LiveMeasureDto> chunk : Lists.partition(toInsert, chunkSize)) {
+      List<String> uuids = new ArrayList<>(chunk.size());
+      chunk.forEach(dto -> uuids.add(Uuids.create()));
+      mapper.insertMultiple(chunk, uuids, marker, now);
+    }
+    executeLargeUpdates(unchangedUuids, uuids -> mapper.updateMarker(uuids, marker, now));
+  }
+
+  private static String keyOf(LiveMeasureDto dto) {
+    return dto.getComponentUuid() + '|' + dto.getMetricId();
+  }
+
+  private static HashCode hashOf(LiveMeasureDto dto) {
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    putNullable(hasher, dto.getValue());
+    putNullable(hasher, dto.getVariation());
+    String textValue = dto.getTextValue();
+    hasher.putBoolean(textValue != null);
+    if (textValue != null) {
+      hasher.putInt(textValue.length()).putString(textValue, UTF_8);
+    }
+    byte[] data = dto.getData();
+    hasher.putBoolean(data != null);
+    if (data != null) {
+      hasher.putInt(data.length).putBytes(data);
+    }
+    return hasher.hash();
+  }
+
+  private static void putNullable(Hasher hasher, @Nullable Double value) {
+    hasher.putBoolean(value != null);
+    if (value != null) {
+      hasher.putDouble(value);
+    }
+  }
+
+  private static final class StoredHash {
+    private final String uuid;
+    private final HashCode hash;
+
+    private StoredHash(String uuid, HashCode hash) {
+      this.uuid = uuid;
+      this.hash = hash;
+    }
+  }
+
   /**
    * Delete the rows that do NOT have the specified marker
    */
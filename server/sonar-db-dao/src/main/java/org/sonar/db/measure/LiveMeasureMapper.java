@@ -60,6 +60,21 @@ public interface LiveMeasureMapper {
     @Nullable @Param("marker") String marker,
     @Param("now") long now);
 
+  void scrollStoredByComponentUuids(
+    @Param("componentUuids") List<String> componentUuids,
+    ResultHandler<StoredLiveMeasureDto> resultHandler);
+
+  void insertMultiple(
+    @Param("dtos") List<LiveMeasureDto> dtos,
+    @Param("uuids") List<String> uuids,
+    @Param("marker") String marker,
+    @Param("now") long now);
+
+  int updateMarker(
+    @Param("uuids") List<String> uuids,
+    @Param("marker") String marker,
+    @Param("now") long now);
+
   void deleteByProjectUuidExcludingMarker(
     @Param("projectUuid") String projectUuid,
     @Param("marker") String marker);
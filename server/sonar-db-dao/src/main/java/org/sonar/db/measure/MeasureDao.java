@@ -26,10 +26,16 @@ import java.util.Optional;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Collections.emptyList;
 import static org.sonar.db.DatabaseUtils.executeLargeInputs;
 
 public class MeasureDao implements Dao {
+  /**
+   * Maximum number of rows inserted by a single statement, as SQL Server supports at most 2100 parameters
+   * per statement.
+   */
+  public static final int MAX_ROWS_PER_INSERT = 200;
 
   public Optional<MeasureDto> selectLastMeasure(DbSession dbSession, String componentUuid, String metricKey) {
     return Optional.ofNullable(mapper(dbSession).selectLastMeasure(componentUuid, metricKey));
@@ -106,6 +112,17 @@ public class MeasureDao implements Dao {
     }
   }
 
+  /**
+   * Inserts the measures with statements of at most {@code chunkSize} rows.
+   *
+   * @throws IllegalArgumentException if {@code chunkSize} is not between 1 and {@link #MAX_ROWS_PER_INSERT}
+   */
+  public void insert(DbSession session, List<MeasureDto> items, int chunkSize) {
+    checkArgument(chunkSize > 0 && chunkSize <= MAX_ROWS_PER_INSERT, "Chunk size must be between 1 and %s: %s", MAX_ROWS_PER_INSERT, chunkSize);
+    MeasureMapper mapper = mapper(session);
+    Lists.partition(items, chunkSize).forEach(mapper::insertMultiple);
+  }
+
   public void insert(DbSession session, MeasureDto item, MeasureDto... others) {
     insert(session, Lists.asList(item, others));
   }
@@ -76,6 +76,20 @@ public class AuthorizationDao implements Dao {
     return mapper(dbSession).selectProjectPermissionsOfAnonymous(projectUuid);
   }
 
+  /**
+   * Loads in a single query, per batch of projects, the permissions granted to logged-in user (or to anonymous
+   * if {@code userId} is {@code null}) on the specified projects <strong>stored in *_ROLES tables</strong>.
+   * Projects on which user has no permissions are missing from the result.
+   *
+   * <strong>This method does not support public components</strong>
+   */
+  public List<ProjectUuidPermission> selectProjectPermissions(DbSession dbSession, Collection<String> projectUuids, @Nullable Integer userId) {
+    return executeLargeInputs(
+      projectUuids,
+      partition -> mapper(dbSession).selectProjectPermissionsByProjectUuids(partition, userId),
+      partitionSize -> partitionSize / 3);
+  }
+
   /**
    * The number of users who will still have the permission if the group {@code excludedGroupId}
    * is deleted. The anyone virtual group is not taken into account.
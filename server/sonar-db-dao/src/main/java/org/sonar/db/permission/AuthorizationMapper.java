@@ -22,6 +22,7 @@ package org.sonar.db.permission;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.apache.ibatis.annotations.Param;
 
 /**
@@ -61,6 +62,8 @@ public interface AuthorizationMapper {
 
   Set<String> selectProjectPermissionsOfAnonymous(@Param("projectUuid") String projectUuid);
 
+  List<ProjectUuidPermission> selectProjectPermissionsByProjectUuids(@Param("projectUuids") Collection<String> projectUuids, @Nullable @Param("userId") Integer userId);
+
   List<String> selectQualityProfileAdministratorLogins(@Param("permission") String permission);
 
   Set<String> keepAuthorizedLoginsOnProject(@Param("logins") List<String> logins, @Param("projectKey") String projectKey, @Param("permission") String permission);
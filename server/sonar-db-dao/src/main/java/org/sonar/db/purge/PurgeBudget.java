@@ -0,0 +1,87 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.purge;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.sonar.api.utils.System2;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.sonar.db.DatabaseUtils.PARTITION_SIZE_FOR_ORACLE;
+
+/**
+ * Bounds the work done by {@link PurgeDao#purgeInChunks}:
+ * <ul>
+ *   <li>data is deleted in chunks of at most {@link #getChunkSize()} items, each in its own transaction</li>
+ *   <li>no chunk is started once the time box is over</li>
+ *   <li>the purge pauses after each chunk, so that it keeps the database busy at most {@code dbLoadPercent}% of the time</li>
+ * </ul>
+ */
+public class PurgeBudget {
+
+  private final System2 system2;
+  private final long deadline;
+  private final int chunkSize;
+  private final int dbLoadPercent;
+
+  public PurgeBudget(System2 system2, long maxDurationInMs, int chunkSize, int dbLoadPercent) {
+    checkArgument(maxDurationInMs > 0, "Max duration must be > 0 (got %s)", maxDurationInMs);
+    checkArgument(chunkSize > 0 && chunkSize <= PARTITION_SIZE_FOR_ORACLE, "Chunk size must be between 1 and %s (got %s)", PARTITION_SIZE_FOR_ORACLE, chunkSize);
+    checkArgument(dbLoadPercent > 0 && dbLoadPercent <= 100, "DB load percent must be between 1 and 100 (got %s)", dbLoadPercent);
+    this.system2 = system2;
+    this.deadline = system2.now() + maxDurationInMs;
+    this.chunkSize = chunkSize;
+    this.dbLoadPercent = dbLoadPercent;
+  }
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  public int getDbLoadPercent() {
+    return dbLoadPercent;
+  }
+
+  /**
+   * The budget is exhausted once the time box is over or when the current thread has been interrupted.
+   */
+  public boolean isExhausted() {
+    return Thread.currentThread().isInterrupted() || system2.now() >= deadline;
+  }
+
+  /**
+   * Pauses long enough for a chunk deleted in {@code chunkDurationInMs} to fit in the DB load budget, without going past
+   * the time box.
+   */
+  void pauseAfterChunk(long chunkDurationInMs) {
+    long pause = Math.min(chunkDurationInMs * (100 - dbLoadPercent) / dbLoadPercent, deadline - system2.now());
+    if (pause > 0) {
+      sleep(pause);
+    }
+  }
+
+  @VisibleForTesting
+  void sleep(long durationInMs) {
+    try {
+      Thread.sleep(durationInMs);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
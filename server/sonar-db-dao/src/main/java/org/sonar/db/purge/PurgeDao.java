@@ -27,6 +27,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -46,6 +47,11 @@ import static org.sonar.db.DatabaseUtils.executeLargeInputs;
 public class PurgeDao implements Dao {
   private static final Logger LOG = Loggers.get(PurgeDao.class);
   private static final String[] UNPROCESSED_STATUS = new String[] {"U"};
+  private static final String[] PROCESSED_STATUS = new String[] {"P"};
+  public static final String STEP_DELETE_ANALYSES = "deleted analyses";
+  public static final String STEP_DELETE_COMPONENT_MEASURES = "analyses cleaned of component measures";
+  public static final String STEP_PURGE_ANALYSES = "purged analyses";
+  public static final String STEP_DELETE_CLOSED_ISSUES = "deleted closed issues";
   private static final ImmutableSet<String> QUALIFIERS_PROJECT_VIEW = ImmutableSet.of("TRK", "VW");
   private static final ImmutableSet<String> QUALIFIERS_MODULE_SUBVIEW = ImmutableSet.of("BRC", "SVW");
   private static final String SCOPE_PROJECT = "PRJ";
@@ -70,6 +76,61 @@ public class PurgeDao implements Dao {
     purgeStaleBranches(commands, conf, mapper, rootUuid);
   }
 
+  /**
+   * Purges the data which can't wait for {@link #purgeInChunks(DbSession, PurgeConfiguration, List, PurgeListener, PurgeProfiler, PurgeBudget)}:
+   * aborted analyses, data of the disabled components and stale branches. Must be called by the analysis of the project.
+   */
+  public void purgeAnalysisBoundData(DbSession session, PurgeConfiguration conf, PurgeListener listener, PurgeProfiler profiler) {
+    PurgeMapper mapper = session.getMapper(PurgeMapper.class);
+    PurgeCommands commands = new PurgeCommands(session, mapper, profiler);
+    String rootUuid = conf.rootProjectIdUuid().getUuid();
+    deleteAbortedAnalyses(rootUuid, commands);
+    purgeDisabledComponents(session, conf, listener);
+    purgeStaleBranches(commands, conf, mapper, rootUuid);
+  }
+
+  /**
+   * Purges the historical data of the project, that {@link #purgeAnalysisBoundData(DbSession, PurgeConfiguration, PurgeListener, PurgeProfiler)}
+   * does not, in short transactions: the specified analyses, then the measures of the analyses and finally the old closed issues
+   * are deleted by chunks of at most {@link PurgeBudget#getChunkSize()} items, until the budget is exhausted.
+   * <p>
+   * Only processed analyses are purged, so that this method can run concurrently to an analysis of the same project. What
+   * remains to be purged when the budget is exhausted is selected again by the next call, which resumes the purge.
+   * </p>
+   *
+   * @return {@code true} if the project has been fully purged, {@code false} if the budget was exhausted before
+   */
+  public boolean purgeInChunks(DbSession session, PurgeConfiguration conf, List<IdUuidPair> analysesToDelete, PurgeListener listener,
+    PurgeProfiler profiler, PurgeBudget budget) {
+    PurgeMapper mapper = session.getMapper(PurgeMapper.class);
+    PurgeCommands commands = new PurgeCommands(session, mapper, profiler);
+    String rootUuid = conf.rootProjectIdUuid().getUuid();
+    ChunkedPurge chunkedPurge = new ChunkedPurge(profiler, budget);
+    if (!chunkedPurge.run(STEP_DELETE_ANALYSES, analysesToDelete, commands::deleteAnalyses)) {
+      return false;
+    }
+
+    List<IdUuidPair> analyses = commands.selectSnapshotIdUuids(
+      new PurgeSnapshotQuery()
+        .setComponentUuid(rootUuid)
+        .setIslast(false)
+        .setNotPurged(true)
+        .setStatus(PROCESSED_STATUS));
+    List<String> componentWithoutHistoricalDataUuids = selectComponentUuidsWithoutHistoricalData(session, rootUuid, conf.getScopesWithoutHistoricalData());
+    if (!componentWithoutHistoricalDataUuids.isEmpty() && !chunkedPurge.run(STEP_DELETE_COMPONENT_MEASURES, analyses,
+      chunk -> commands.deleteComponentMeasures(IdUuidPairs.uuids(chunk), componentWithoutHistoricalDataUuids))) {
+      return false;
+    }
+
+    return chunkedPurge.run(STEP_PURGE_ANALYSES, analyses, commands::purgeAnalyses)
+      && chunkedPurge.run(STEP_DELETE_CLOSED_ISSUES, mapper.selectOldClosedIssueKeys(rootUuid, dateToLong(conf.maxLiveDateOfClosedIssues())), issueKeys -> {
+        mapper.deleteIssueChangesFromIssueKeys(issueKeys);
+        mapper.deleteIssuesFromKeys(issueKeys);
+        session.commit();
+        listener.onIssuesRemoval(rootUuid, issueKeys);
+      });
+  }
+
   private static void purgeStaleBranches(PurgeCommands commands, PurgeConfiguration conf, PurgeMapper mapper, String rootUuid) {
     Optional<Date> maxDate = conf.maxLiveDateOfInactiveShortLivingBranches();
     if (!maxDate.isPresent()) {
@@ -128,7 +189,16 @@ public class PurgeDao implements Dao {
         .setComponentUuid(rootUuid)
         .setIslast(false)
         .setNotPurged(true));
-    List<String> componentWithoutHistoricalDataUuids = componentDao
+    List<String> componentWithoutHistoricalDataUuids = selectComponentUuidsWithoutHistoricalData(dbSession, rootUuid, scopesWithoutHistoricalData);
+
+    purgeCommands.deleteComponentMeasures(analysisUuids, componentWithoutHistoricalDataUuids);
+  }
+
+  private List<String> selectComponentUuidsWithoutHistoricalData(DbSession dbSession, String rootUuid, Collection<String> scopesWithoutHistoricalData) {
+    if (scopesWithoutHistoricalData.isEmpty()) {
+      return emptyList();
+    }
+    return componentDao
       .selectDescendants(
         dbSession,
         ComponentTreeQuery.builder()
@@ -138,8 +208,6 @@ public class PurgeDao implements Dao {
           .build())
       .stream().map(ComponentDto::uuid)
       .collect(MoreCollectors.toList());
-
-    purgeCommands.deleteComponentMeasures(analysisUuids, componentWithoutHistoricalDataUuids);
   }
 
   private void purgeDisabledComponents(DbSession session, PurgeConfiguration conf, PurgeListener listener) {
@@ -255,4 +323,29 @@ public class PurgeDao implements Dao {
   private static PurgeMapper mapper(DbSession session) {
     return session.getMapper(PurgeMapper.class);
   }
+
+  private static class ChunkedPurge {
+    private final PurgeProfiler profiler;
+    private final PurgeBudget budget;
+
+    private ChunkedPurge(PurgeProfiler profiler, PurgeBudget budget) {
+      this.profiler = profiler;
+      this.budget = budget;
+    }
+
+    /**
+     * @return {@code false} if the budget got exhausted before all the items could be purged
+     */
+    private <T> boolean run(String step, List<T> items, Consumer<List<T>> purger) {
+      for (List<T> chunk : Lists.partition(items, budget.getChunkSize())) {
+        if (budget.isExhausted()) {
+          return false;
+        }
+        profiler.startChunk();
+        purger.accept(chunk);
+        budget.pauseAfterChunk(profiler.stopChunk(step, chunk.size()));
+      }
+      return true;
+    }
+  }
 }
@@ -26,13 +26,17 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.TreeMap;
 import org.sonar.api.utils.TimeUtils;
 import org.sonar.api.utils.log.Logger;
 
 public class PurgeProfiler {
 
   private Map<String, Long> durations = new HashMap<>();
+  private Map<String, Long> purgedCounts = new TreeMap<>();
+  private Map<String, Long> purgeDurations = new HashMap<>();
   private long startTime;
+  private long chunkStartTime;
   private String currentTable;
   private final Clock clock;
 
@@ -47,6 +51,8 @@ public class PurgeProfiler {
 
   public void reset() {
     durations.clear();
+    purgedCounts.clear();
+    purgeDurations.clear();
   }
 
   void start(String table) {
@@ -64,6 +70,26 @@ public class PurgeProfiler {
     durations.put(currentTable, cumulatedDuration + (clock.now() - startTime));
   }
 
+  void startChunk() {
+    this.chunkStartTime = clock.now();
+  }
+
+  /**
+   * Records the number of items (analyses, issues...) purged by the chunk started with {@link #startChunk()}.
+   *
+   * @return the duration of the chunk
+   */
+  long stopChunk(String step, int purgedCount) {
+    long duration = clock.now() - chunkStartTime;
+    purgedCounts.merge(step, (long) purgedCount, Long::sum);
+    purgeDurations.merge(step, duration, Long::sum);
+    return duration;
+  }
+
+  public long getPurgedCount(String step) {
+    return purgedCounts.getOrDefault(step, 0L);
+  }
+
   public void dump(long totalTime, Logger logger) {
     List<Entry<String, Long>> data = new ArrayList<>(durations.entrySet());
     Collections.sort(data, (o1, o2) -> o2.getValue().compareTo(o1.getValue()));
@@ -74,6 +100,11 @@ public class PurgeProfiler {
         .append(" (").append((int) (entry.getValue() / percent)).append("%)");
       logger.info(sb.toString());
     }
+    for (Entry<String, Long> entry : purgedCounts.entrySet()) {
+      long duration = purgeDurations.get(entry.getKey());
+      logger.info("   o " + entry.getKey() + ": " + entry.getValue() + " in " + TimeUtils.formatDuration(duration)
+        + " (" + (entry.getValue() * 1000 / Math.max(1, duration)) + "/s)");
+    }
   }
 
   private static List<Entry<String, Long>> truncateList(List<Entry<String, Long>> sortedFullList) {
@@ -23,6 +23,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import org.sonar.api.config.Configuration;
 import org.sonar.api.utils.DateUtils;
 import org.sonar.api.utils.log.Logger;
@@ -49,16 +50,40 @@ public class DefaultPeriodCleaner {
     doClean(rootUuid, new Filters(config).all(), session);
   }
 
+  /**
+   * Selects the analyses which {@link #clean(DbSession, String, Configuration)} would delete, without deleting them.
+   */
+  public List<IdUuidPair> selectAnalysesToDelete(DbSession session, String rootUuid, Configuration config) {
+    return selectAnalysesToDelete(rootUuid, new Filters(config).all(), session);
+  }
+
+  @VisibleForTesting
+  List<IdUuidPair> selectAnalysesToDelete(String rootUuid, List<Filter> filters, DbSession session) {
+    List<IdUuidPair> analysesToDelete = new ArrayList<>();
+    filterAnalyses(rootUuid, filters, session, snapshots -> snapshots.forEach(snapshot -> analysesToDelete.add(toIdUuidPair(snapshot))));
+    return analysesToDelete;
+  }
+
   @VisibleForTesting
   void doClean(String rootUuid, List<Filter> filters, DbSession session) {
+    filterAnalyses(rootUuid, filters, session, snapshots -> delete(rootUuid, snapshots, session));
+  }
+
+  /**
+   * Applies the filters one after the other on the analyses of the component. The analyses selected by each filter
+   * are given to {@code consumer}, and are not considered anymore by the next filters.
+   */
+  private void filterAnalyses(String rootUuid, List<Filter> filters, DbSession session, Consumer<List<PurgeableAnalysisDto>> consumer) {
     List<PurgeableAnalysisDto> history = new ArrayList<>(selectAnalysesOfComponent(rootUuid, session));
     for (Filter filter : filters) {
       filter.log();
-      history.removeAll(delete(rootUuid, filter.filter(history), session));
+      List<PurgeableAnalysisDto> filtered = filter.filter(history);
+      consumer.accept(filtered);
+      history.removeAll(filtered);
     }
   }
 
-  private List<PurgeableAnalysisDto> delete(String rootUuid, List<PurgeableAnalysisDto> snapshots, DbSession session) {
+  private void delete(String rootUuid, List<PurgeableAnalysisDto> snapshots, DbSession session) {
     if (LOG.isDebugEnabled()) {
       LOG.debug("<- Delete analyses of component {}: {}",
         rootUuid,
@@ -70,7 +95,6 @@ public class DefaultPeriodCleaner {
     purgeDao.deleteAnalyses(
       session, profiler,
       snapshots.stream().map(DefaultPeriodCleaner::toIdUuidPair).collect(MoreCollectors.toList(snapshots.size())));
-    return snapshots;
   }
 
   private static IdUuidPair toIdUuidPair(PurgeableAnalysisDto snapshot) {
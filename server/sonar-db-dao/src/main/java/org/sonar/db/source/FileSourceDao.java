@@ -126,6 +126,15 @@ public class FileSourceDao implements Dao {
     mapper(session).update(dto);
   }
 
+  /**
+   * Updates a source stored with {@link FileSourceDto#setSegmentedSourceData(org.sonar.db.protobuf.DbFileSources.Data)}.
+   * Only the segments which data is not {@code null} in {@code dto} are written, the other ones are left unchanged.
+   * Line hashes, their version and the line count are written only if {@code updateLineHashes} is {@code true}.
+   */
+  public void updateSegments(DbSession session, FileSourceDto dto, boolean updateLineHashes) {
+    mapper(session).updateSegments(dto, updateLineHashes);
+  }
+
   private static FileSourceMapper mapper(DbSession session) {
     return session.getMapper(FileSourceMapper.class);
   }
@@ -29,11 +29,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import net.jpountz.lz4.LZ4BlockInputStream;
 import net.jpountz.lz4.LZ4BlockOutputStream;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
 import org.sonar.db.protobuf.DbFileSources;
 
@@ -45,6 +48,8 @@ public class FileSourceDto {
   private static final String SIZE_LIMIT_EXCEEDED_EXCEPTION_MESSAGE = "Protocol message was too large.  May be malicious.  " +
     "Use CodedInputStream.setSizeLimit() to increase the size limit.";
   private static final Joiner LINE_RETURN_JOINER = Joiner.on('\n');
+  private static final Joiner SEGMENT_HASHES_JOINER = Joiner.on(',');
+  private static final Splitter SEGMENT_HASHES_SPLITTER = on(',');
   public static final Splitter LINES_HASHES_SPLITTER = on('\n');
   public static final int LINE_COUNT_NOT_POPULATED = -1;
 
@@ -68,6 +73,10 @@ public class FileSourceDto {
   private int lineCount = LINE_COUNT_NOT_POPULATED;
   private String srcHash;
   private byte[] binaryData = new byte[0];
+  private byte[] highlightingData;
+  private byte[] coverageData;
+  private byte[] scmData;
+  private String segmentHashes;
   private String dataType;
   private String dataHash;
   private String revision;
@@ -238,12 +247,131 @@ public class FileSourceDto {
    * Decompressed value of serialized protobuf message {@link org.sonar.db.protobuf.DbFileSources.Data}
    */
   public DbFileSources.Data getSourceData() {
-    return decodeSourceData(binaryData);
+    if (segmentHashes == null) {
+      return decodeSourceData(binaryData);
+    }
+    Map<Segment, DbFileSources.Data> segments = new EnumMap<>(Segment.class);
+    for (Segment segment : Segment.values()) {
+      byte[] segmentData = getSegmentData(segment);
+      if (segmentData != null) {
+        segments.put(segment, decodeSourceData(segmentData));
+      }
+    }
+    return FileSourceSegments.merge(segments);
   }
 
+  /**
+   * Stores {@code data} as a single compressed protobuf message in column BINARY_DATA. Segment columns are reset.
+   */
   public FileSourceDto setSourceData(DbFileSources.Data data) {
     this.dataType = Type.SOURCE;
     this.binaryData = encodeSourceData(data);
+    this.highlightingData = null;
+    this.coverageData = null;
+    this.scmData = null;
+    this.segmentHashes = null;
+    return this;
+  }
+
+  /**
+   * Stores {@code data} split into {@link Segment segments}, each one being compressed and hashed separately, so that
+   * only the segments which hash changed have to be written when the source is updated.
+   * <p>
+   * {@link #getDataHash() Data hash} is set to the MD5 of the segment hashes.
+   */
+  public FileSourceDto setSegmentedSourceData(DbFileSources.Data data) {
+    this.dataType = Type.SOURCE;
+    List<String> hashes = new ArrayList<>(Segment.values().length);
+    for (Map.Entry<Segment, DbFileSources.Data> entry : FileSourceSegments.split(data).entrySet()) {
+      byte[] segmentData = encodeSourceData(entry.getValue());
+      setSegmentData(entry.getKey(), segmentData);
+      hashes.add(DigestUtils.md5Hex(segmentData));
+    }
+    this.segmentHashes = SEGMENT_HASHES_JOINER.join(hashes);
+    this.dataHash = DigestUtils.md5Hex(segmentHashes);
+    return this;
+  }
+
+  /**
+   * Compressed value of the specified segment, or {@code null} if source is not segmented or if segment has not been
+   * loaded.
+   */
+  @CheckForNull
+  public byte[] getSegmentData(Segment segment) {
+    switch (segment) {
+      case LINES:
+        return binaryData;
+      case HIGHLIGHTING:
+        return highlightingData;
+      case COVERAGE:
+        return coverageData;
+      case SCM:
+        return scmData;
+      default:
+        throw new IllegalArgumentException("Unsupported segment " + segment);
+    }
+  }
+
+  public FileSourceDto setSegmentData(Segment segment, @Nullable byte[] data) {
+    switch (segment) {
+      case LINES:
+        this.binaryData = data;
+        break;
+      case HIGHLIGHTING:
+        this.highlightingData = data;
+        break;
+      case COVERAGE:
+        this.coverageData = data;
+        break;
+      case SCM:
+        this.scmData = data;
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported segment " + segment);
+    }
+    return this;
+  }
+
+  /**
+   * MD5 of the specified segment, or {@code null} if source is not segmented.
+   */
+  @CheckForNull
+  public String getSegmentHash(Segment segment) {
+    if (segmentHashes == null) {
+      return null;
+    }
+    List<String> hashes = SEGMENT_HASHES_SPLITTER.splitToList(segmentHashes);
+    return segment.ordinal() < hashes.size() ? hashes.get(segment.ordinal()) : null;
+  }
+
+  /** Used by MyBatis */
+  @CheckForNull
+  public byte[] getHighlightingData() {
+    return highlightingData;
+  }
+
+  /** Used by MyBatis */
+  @CheckForNull
+  public byte[] getCoverageData() {
+    return coverageData;
+  }
+
+  /** Used by MyBatis */
+  @CheckForNull
+  public byte[] getScmData() {
+    return scmData;
+  }
+
+  /**
+   * Comma-separated MD5 of segments, in the order of {@link Segment}. {@code null} when source is not segmented.
+   */
+  @CheckForNull
+  public String getSegmentHashes() {
+    return segmentHashes;
+  }
+
+  public FileSourceDto setSegmentHashes(@Nullable String segmentHashes) {
+    this.segmentHashes = segmentHashes;
     return this;
   }
 
@@ -349,6 +477,29 @@ public class FileSourceDto {
     return this;
   }
 
+  /**
+   * Parts of {@link DbFileSources.Data} which are stored separately when source is segmented. Order of constants
+   * must not be changed as it is the order of hashes in column SEGMENT_HASHES.
+   */
+  public enum Segment {
+    /**
+     * Line numbers, source code and duplications, stored in column BINARY_DATA
+     */
+    LINES,
+    /**
+     * Syntax highlighting and symbols, stored in column HIGHLIGHTING_DATA
+     */
+    HIGHLIGHTING,
+    /**
+     * Coverage, stored in column COVERAGE_DATA
+     */
+    COVERAGE,
+    /**
+     * SCM revision, author and date, stored in column SCM_DATA
+     */
+    SCM
+  }
+
   public static class Type {
     public static final String SOURCE = "SOURCE";
     public static final String TEST = "TEST";
@@ -40,4 +40,6 @@ public interface FileSourceMapper {
   void insert(FileSourceDto dto);
 
   void update(FileSourceDto dto);
+
+  void updateSegments(@Param("dto") FileSourceDto dto, @Param("updateLineHashes") boolean updateLineHashes);
 }
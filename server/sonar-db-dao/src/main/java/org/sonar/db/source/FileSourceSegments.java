@@ -0,0 +1,157 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.source;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.db.source.FileSourceDto.Segment;
+
+/**
+ * Splits {@link DbFileSources.Data} into the {@link Segment segments} persisted in separate columns of table
+ * FILE_SOURCES, and merges them back. The n-th line of each segment holds the fields of the n-th line of the file
+ * which belong to the segment, which is why segments always have the same number of lines.
+ */
+final class FileSourceSegments {
+
+  private FileSourceSegments() {
+    // only static stuff
+  }
+
+  static Map<Segment, DbFileSources.Data> split(DbFileSources.Data data) {
+    DbFileSources.Data.Builder lines = DbFileSources.Data.newBuilder();
+    DbFileSources.Data.Builder highlighting = DbFileSources.Data.newBuilder();
+    DbFileSources.Data.Builder coverage = DbFileSources.Data.newBuilder();
+    DbFileSources.Data.Builder scm = DbFileSources.Data.newBuilder();
+    for (DbFileSources.Line line : data.getLinesList()) {
+      lines.addLines(toLinesSegment(line));
+      highlighting.addLines(toHighlightingSegment(line));
+      coverage.addLines(toCoverageSegment(line));
+      scm.addLines(toScmSegment(line));
+    }
+
+    Map<Segment, DbFileSources.Data> res = new EnumMap<>(Segment.class);
+    res.put(Segment.LINES, lines.build());
+    res.put(Segment.HIGHLIGHTING, highlighting.build());
+    res.put(Segment.COVERAGE, coverage.build());
+    res.put(Segment.SCM, scm.build());
+    return res;
+  }
+
+  /**
+   * Merges segments back into a single {@link DbFileSources.Data}. Segments missing from {@code segments} are ignored.
+   */
+  static DbFileSources.Data merge(Map<Segment, DbFileSources.Data> segments) {
+    DbFileSources.Data linesSegment = segments.get(Segment.LINES);
+    if (linesSegment == null) {
+      return DbFileSources.Data.getDefaultInstance();
+    }
+    DbFileSources.Data.Builder res = linesSegment.toBuilder();
+    for (Map.Entry<Segment, DbFileSources.Data> entry : segments.entrySet()) {
+      if (entry.getKey() == Segment.LINES) {
+        continue;
+      }
+      List<DbFileSources.Line> segmentLines = entry.getValue().getLinesList();
+      int lineCount = Math.min(res.getLinesCount(), segmentLines.size());
+      for (int i = 0; i < lineCount; i++) {
+        res.getLinesBuilder(i).mergeFrom(segmentLines.get(i));
+      }
+    }
+    return res.build();
+  }
+
+  private static DbFileSources.Line toLinesSegment(DbFileSources.Line line) {
+    DbFileSources.Line.Builder builder = DbFileSources.Line.newBuilder();
+    if (line.hasLine()) {
+      builder.setLine(line.getLine());
+    }
+    if (line.hasSource()) {
+      builder.setSource(line.getSource());
+    }
+    return builder.addAllDuplication(line.getDuplicationList()).build();
+  }
+
+  private static DbFileSources.Line toHighlightingSegment(DbFileSources.Line line) {
+    DbFileSources.Line.Builder builder = DbFileSources.Line.newBuilder();
+    if (line.hasHighlighting()) {
+      builder.setHighlighting(line.getHighlighting());
+    }
+    if (line.hasSymbols()) {
+      builder.setSymbols(line.getSymbols());
+    }
+    return builder.build();
+  }
+
+  private static DbFileSources.Line toCoverageSegment(DbFileSources.Line line) {
+    DbFileSources.Line.Builder builder = DbFileSources.Line.newBuilder();
+    if (line.hasLineHits()) {
+      builder.setLineHits(line.getLineHits());
+    }
+    if (line.hasConditions()) {
+      builder.setConditions(line.getConditions());
+    }
+    if (line.hasCoveredConditions()) {
+      builder.setCoveredConditions(line.getCoveredConditions());
+    }
+    if (line.hasDeprecatedUtLineHits()) {
+      builder.setDeprecatedUtLineHits(line.getDeprecatedUtLineHits());
+    }
+    if (line.hasDeprecatedUtConditions()) {
+      builder.setDeprecatedUtConditions(line.getDeprecatedUtConditions());
+    }
+    if (line.hasDeprecatedUtCoveredConditions()) {
+      builder.setDeprecatedUtCoveredConditions(line.getDeprecatedUtCoveredConditions());
+    }
+    if (line.hasDeprecatedItLineHits()) {
+      builder.setDeprecatedItLineHits(line.getDeprecatedItLineHits());
+    }
+    if (line.hasDeprecatedItConditions()) {
+      builder.setDeprecatedItConditions(line.getDeprecatedItConditions());
+    }
+    if (line.hasDeprecatedItCoveredConditions()) {
+      builder.setDeprecatedItCoveredConditions(line.getDeprecatedItCoveredConditions());
+    }
+    if (line.hasDeprecatedOverallLineHits()) {
+      builder.setDeprecatedOverallLineHits(line.getDeprecatedOverallLineHits());
+    }
+    if (line.hasDeprecatedOverallConditions()) {
+      builder.setDeprecatedOverallConditions(line.getDeprecatedOverallConditions());
+    }
+    if (line.hasDeprecatedOverallCoveredConditions()) {
+      builder.setDeprecatedOverallCoveredConditions(line.getDeprecatedOverallCoveredConditions());
+    }
+    return builder.build();
+  }
+
+  private static DbFileSources.Line toScmSegment(DbFileSources.Line line) {
+    DbFileSources.Line.Builder builder = DbFileSources.Line.newBuilder();
+    if (line.hasScmRevision()) {
+      builder.setScmRevision(line.getScmRevision());
+    }
+    if (line.hasScmAuthor()) {
+      builder.setScmAuthor(line.getScmAuthor());
+    }
+    if (line.hasScmDate()) {
+      builder.setScmDate(line.getScmDate());
+    }
+    return builder.build();
+  }
+}
@@ -35,9 +35,12 @@ import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.Pagination;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singleton;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
 import static org.sonar.db.Pagination.forPage;
 import static org.sonar.db.ce.CeActivityDto.Status.FAILED;
 import static org.sonar.db.ce.CeActivityDto.Status.SUCCESS;
@@ -337,6 +340,31 @@ public class CeActivityDaoTest {
     assertThat(underTest.countLastByStatusAndComponentUuid(dbSession, SUCCESS, null)).isEqualTo(2);
   }
 
+  @Test
+  public void selectAverageExecutionTimes_of_successful_tasks_by_component_and_type() {
+    insertWithExecutionTime("TASK_1", REPORT, "COMPONENT1", SUCCESS, 1_000L);
+    insertWithExecutionTime("TASK_2", REPORT, "COMPONENT1", SUCCESS, 3_000L);
+    insertWithExecutionTime("TASK_3", REPORT, "COMPONENT1", FAILED, 100_000L);
+    insertWithExecutionTime("TASK_4", "OTHER", "COMPONENT1", SUCCESS, 10L);
+    insertWithExecutionTime("TASK_5", REPORT, "COMPONENT2", SUCCESS, 500L);
+    insertWithExecutionTime("TASK_6", REPORT, "COMPONENT3", SUCCESS, 700L);
+    db.commit();
+
+    assertThat(underTest.selectAverageExecutionTimes(dbSession, asList("COMPONENT1", "COMPONENT2", "UNKNOWN")))
+      .extracting(AverageExecutionTime::getComponentUuid, AverageExecutionTime::getTaskType, AverageExecutionTime::getAverageExecutionTimeMs)
+      .containsOnly(
+        tuple("COMPONENT1", REPORT, 2_000L),
+        tuple("COMPONENT1", "OTHER", 10L),
+        tuple("COMPONENT2", REPORT, 500L));
+    assertThat(underTest.selectAverageExecutionTimes(dbSession, emptyList())).isEmpty();
+  }
+
+  private void insertWithExecutionTime(String uuid, String type, String componentUuid, CeActivityDto.Status status, long executionTimeMs) {
+    CeActivityDto dto = createActivityDto(uuid, type, componentUuid, status);
+    dto.setExecutionTimeMs(executionTimeMs);
+    underTest.insert(db.getSession(), dto);
+  }
+
   private CeActivityDto insert(String uuid, String type, String componentUuid, CeActivityDto.Status status) {
     CeActivityDto dto = createActivityDto(uuid, type, componentUuid, status);
     underTest.insert(db.getSession(), dto);
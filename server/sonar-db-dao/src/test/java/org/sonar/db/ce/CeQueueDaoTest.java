@@ -41,6 +41,7 @@ import static com.google.common.collect.FluentIterable.from;
 import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
 import static org.assertj.core.api.Assertions.entry;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -340,6 +341,41 @@ public class CeQueueDaoTest {
     assertThat(peek.get().getWorkerUuid()).isEqualTo(WORKER_UUID_2);
   }
 
+  @Test
+  public void selectEligibleForPeek_returns_oldest_pending_tasks_of_components_without_task_in_progress() {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, IN_PROGRESS);
+    system2.setNow(INIT_TIME + 1_000);
+    insert(TASK_UUID_2, COMPONENT_UUID_1, PENDING);
+    system2.setNow(INIT_TIME + 2_000);
+    insert(TASK_UUID_3, COMPONENT_UUID_2, PENDING);
+    system2.setNow(INIT_TIME + 3_000);
+    insert("TASK_4", COMPONENT_UUID_2, PENDING);
+
+    assertThat(underTest.selectEligibleForPeek(db.getSession(), 10))
+      .extracting(CeQueueDto::getUuid, CeQueueDto::getComponentUuid)
+      .containsExactly(tuple(TASK_UUID_3, COMPONENT_UUID_2), tuple("TASK_4", COMPONENT_UUID_2));
+    assertThat(underTest.selectEligibleForPeek(db.getSession(), 1))
+      .extracting(CeQueueDto::getUuid)
+      .containsExactly(TASK_UUID_3);
+  }
+
+  @Test
+  public void peek_specified_eligible_task() {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
+    system2.setNow(INIT_TIME + 3_000_000);
+    insert(TASK_UUID_2, COMPONENT_UUID_2, PENDING);
+
+    Optional<CeQueueDto> peek = underTest.peek(db.getSession(), WORKER_UUID_1, TASK_UUID_2);
+    assertThat(peek).isPresent();
+    assertThat(peek.get().getUuid()).isEqualTo(TASK_UUID_2);
+    assertThat(peek.get().getStatus()).isEqualTo(IN_PROGRESS);
+    assertThat(peek.get().getWorkerUuid()).isEqualTo(WORKER_UUID_1);
+    verifyCeQueueStatuses(TASK_UUID_1, PENDING, TASK_UUID_2, IN_PROGRESS);
+
+    // already peeked
+    assertThat(underTest.peek(db.getSession(), WORKER_UUID_2, TASK_UUID_2)).isEmpty();
+  }
+
   @Test
   public void select_by_query() {
     // task status not in query
@@ -27,6 +27,7 @@ import com.tngtech.java.junit.dataprovider.UseDataProvider;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -645,6 +646,26 @@ public class ComponentDaoTest {
       entry(removedFile.getDbKey(), removedFile.uuid()));
   }
 
+  @Test
+  public void scroll_uuids_by_key_from_project() {
+    ComponentDto project = db.components().insertPrivateProject();
+    ComponentDto otherProject = db.components().insertPrivateProject();
+    ComponentDto module = db.components().insertComponent(newModuleDto(project));
+    ComponentDto removedModule = db.components().insertComponent(newModuleDto(project).setEnabled(false));
+    ComponentDto file = db.components().insertComponent(newFileDto(module));
+    db.components().insertComponent(newFileDto(otherProject));
+
+    Map<String, String> uuidsByKey = new HashMap<>();
+    underTest.scrollUuidsByKeyFromProjectKey(dbSession, project.getDbKey(),
+      context -> uuidsByKey.put(context.getResultObject().key(), context.getResultObject().uuid()));
+
+    assertThat(uuidsByKey).containsOnly(
+      entry(project.getDbKey(), project.uuid()),
+      entry(module.getDbKey(), module.uuid()),
+      entry(removedModule.getDbKey(), removedModule.uuid()),
+      entry(file.getDbKey(), file.uuid()));
+  }
+
   @Test
   public void select_enabled_modules_from_project() {
     ComponentDto project = db.components().insertPrivateProject();
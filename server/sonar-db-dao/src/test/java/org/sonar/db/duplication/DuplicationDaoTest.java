@@ -26,6 +26,7 @@ import org.sonar.api.utils.System2;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -59,6 +60,16 @@ public class DuplicationDaoTest {
     assertThat(blocks).hasSize(2);
   }
 
+  @Test
+  public void select_candidates_of_duplicated_hashes_once() {
+    db.prepareDbUnit(getClass(), "select_candidates.xml");
+    dbSession.commit();
+
+    List<DuplicationUnitDto> blocks = dao.selectCandidates(dbSession, "u7", "java", asList("aa", "aa", "unknown"));
+
+    assertThat(blocks).extracting(DuplicationUnitDto::getComponentKey).containsExactly("bar-last");
+  }
+
   @Test
   public void select_component() {
     db.prepareDbUnit(getClass(), "select_component.xml");
@@ -84,6 +84,16 @@ public class EsQueueDaoTest {
     assertThat(dbTester.countSql(dbSession, "select count(*) from es_queue")).isEqualTo(0);
   }
 
+  @Test
+  public void countAll() {
+    assertThat(underTest.countAll(dbSession)).isEqualTo(0L);
+
+    underTest.insert(dbSession, EsQueueDto.create("foo", UuidFactoryFast.getInstance().create()));
+    underTest.insert(dbSession, EsQueueDto.create("bar", UuidFactoryFast.getInstance().create()));
+
+    assertThat(underTest.countAll(dbSession)).isEqualTo(2L);
+  }
+
   @Test
   public void selectForRecovery_must_return_limit_when_there_are_more_rows()  {
     system2.setNow(1_000L);
@@ -175,6 +175,23 @@ public class IssueDaoTest {
     assertThat(underTest.selectNonClosedByModuleOrProjectExcludingExternals(db.getSession(), notPersisted)).isEmpty();
   }
 
+  @Test
+  public void selectProjectUuids() {
+    RuleDefinitionDto rule = db.rules().insert();
+    ComponentDto project1 = db.components().insertPrivateProject(db.getDefaultOrganization(), "P1");
+    ComponentDto project2 = db.components().insertPrivateProject(db.getDefaultOrganization(), "P2");
+    ComponentDto project3 = db.components().insertPrivateProject(db.getDefaultOrganization(), "P3");
+    db.components().insertPrivateProject(db.getDefaultOrganization(), "P4");
+    db.issues().insert(rule, project3, project3);
+    db.issues().insert(rule, project1, project1);
+    db.issues().insert(rule, project1, project1);
+    db.issues().insert(rule, project2, project2);
+
+    assertThat(underTest.selectProjectUuids(db.getSession(), null)).containsExactly("P1", "P2", "P3");
+    assertThat(underTest.selectProjectUuids(db.getSession(), "P1")).containsExactly("P2", "P3");
+    assertThat(underTest.selectProjectUuids(db.getSession(), "P3")).isEmpty();
+  }
+
   @Test
   public void selectOpenByComponentUuid() {
     RuleDefinitionDto rule = db.rules().insert();
@@ -279,6 +296,44 @@ public class IssueDaoTest {
     assertThat(result.stream().filter(g -> !g.isInLeak()).mapToLong(IssueGroupDto::getCount).sum()).isEqualTo(3);
   }
 
+  @Test
+  public void selectIssueGroupsByComponentUuids_returns_groups_of_each_component() {
+    ComponentDto project = db.components().insertPublicProject();
+    ComponentDto dir = db.components().insertComponent(ComponentTesting.newDirectory(project, "src"));
+    ComponentDto file1 = db.components().insertComponent(ComponentTesting.newFileDto(project, dir));
+    ComponentDto file2 = db.components().insertComponent(ComponentTesting.newFileDto(project, dir));
+    ComponentDto otherProject = db.components().insertPublicProject();
+    ComponentDto otherFile = db.components().insertComponent(ComponentTesting.newFileDto(otherProject));
+    RuleDefinitionDto rule = db.rules().insert();
+    db.issues().insert(rule, project, file1,
+      i -> i.setStatus("OPEN").setResolution(null).setSeverity("CRITICAL").setType(RuleType.BUG).setIssueCreationTime(1_500L));
+    db.issues().insert(rule, project, file1,
+      i -> i.setStatus("OPEN").setResolution(null).setSeverity("CRITICAL").setType(RuleType.BUG).setIssueCreationTime(1_600L));
+    db.issues().insert(rule, project, file2,
+      i -> i.setStatus("OPEN").setResolution(null).setSeverity("MAJOR").setType(RuleType.CODE_SMELL).setIssueCreationTime(500L));
+    // closed issues are ignored
+    db.issues().insert(rule, project, file2,
+      i -> i.setStatus("CLOSED").setResolution("REMOVED").setSeverity("CRITICAL").setType(RuleType.BUG).setIssueCreationTime(1_700L));
+    // issues of other components, including descendants, are ignored
+    db.issues().insert(rule, project, dir,
+      i -> i.setStatus("OPEN").setResolution(null).setSeverity("CRITICAL").setType(RuleType.BUG).setIssueCreationTime(1_700L));
+    db.issues().insert(rule, otherProject, otherFile,
+      i -> i.setStatus("OPEN").setResolution(null).setSeverity("CRITICAL").setType(RuleType.BUG).setIssueCreationTime(1_700L));
+
+    List<ComponentIssueGroupDto> result = underTest.selectIssueGroupsByComponentUuids(db.getSession(), asList(file1.uuid(), file2.uuid(), project.uuid()), 1_000L);
+
+    assertThat(result).extracting(ComponentIssueGroupDto::getComponentUuid).containsOnly(file1.uuid(), file2.uuid());
+    assertThat(result.stream().mapToLong(IssueGroupDto::getCount).sum()).isEqualTo(3);
+    ComponentIssueGroupDto file1Group = result.stream().filter(g -> g.getComponentUuid().equals(file1.uuid())).findFirst().get();
+    assertThat(file1Group.getCount()).isEqualTo(2);
+    assertThat(file1Group.getSeverity()).isEqualTo("CRITICAL");
+    assertThat(file1Group.isInLeak()).isTrue();
+    ComponentIssueGroupDto file2Group = result.stream().filter(g -> g.getComponentUuid().equals(file2.uuid())).findFirst().get();
+    assertThat(file2Group.getCount()).isEqualTo(1);
+    assertThat(file2Group.getRuleType()).isEqualTo(RuleType.CODE_SMELL.getDbConstant());
+    assertThat(file2Group.isInLeak()).isFalse();
+  }
+
   private static IssueDto newIssueDto(String key) {
     IssueDto dto = new IssueDto();
     dto.setComponent(new ComponentDto().setDbKey("struts:Action").setId(123L).setUuid("component-uuid"));
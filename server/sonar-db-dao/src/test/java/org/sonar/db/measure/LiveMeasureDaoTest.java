@@ -22,9 +22,11 @@ package org.sonar.db.measure;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbTester;
 import org.sonar.db.component.BranchType;
@@ -38,6 +40,8 @@ import static java.util.Collections.singleton;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.groups.Tuple.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static org.sonar.api.measures.Metric.ValueType.INT;
 import static org.sonar.db.component.ComponentTesting.newFileDto;
 import static org.sonar.db.component.ComponentTesting.newPrivateProjectDto;
@@ -47,6 +51,8 @@ public class LiveMeasureDaoTest {
 
   @Rule
   public DbTester db = DbTester.create(System2.INSTANCE);
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
 
   private LiveMeasureDao underTest = db.getDbClient().liveMeasureDao();
   private MetricDto metric;
@@ -290,6 +296,54 @@ public class LiveMeasureDaoTest {
     verifyTableSize(1);
   }
 
+  @Test
+  public void upsert_inserts_updates_and_touches_unchanged_measures() {
+    System2 system2 = mock(System2.class);
+    LiveMeasureDao dao = new LiveMeasureDao(system2);
+    when(system2.now()).thenReturn(1_000L);
+    LiveMeasureDto unchanged = newLiveMeasure();
+    LiveMeasureDto changed = newLiveMeasure();
+    dao.insertOrUpdate(db.getSession(), unchanged, "foo");
+    dao.insertOrUpdate(db.getSession(), changed, "foo");
+
+    when(system2.now()).thenReturn(2_000L);
+    changed.setValue(changed.getValue() + 1);
+    List<LiveMeasureDto> inserted = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      inserted.add(newLiveMeasure());
+    }
+    List<LiveMeasureDto> dtos = new ArrayList<>(inserted);
+    dtos.add(unchanged);
+    dtos.add(changed);
+    dao.upsert(db.getSession(), dtos, "bar", 2);
+
+    verifyTableSize(7);
+    dtos.forEach(this::verifyPersisted);
+    assertThat(selectMarkerAndUpdatedAt(unchanged)).containsEntry("marker", "bar").containsEntry("updatedAt", 2_000L);
+    assertThat(selectMarkerAndUpdatedAt(changed)).containsEntry("marker", "bar").containsEntry("updatedAt", 2_000L);
+    inserted.forEach(dto -> assertThat(selectMarkerAndUpdatedAt(dto)).containsEntry("marker", "bar").containsEntry("updatedAt", 2_000L));
+  }
+
+  @Test
+  public void upsert_detects_changes_of_data() {
+    LiveMeasureDto dto = newLiveMeasure();
+    underTest.insertOrUpdate(db.getSession(), dto, "foo");
+
+    dto.setData(dto.getDataAsString() + "_new");
+    underTest.upsert(db.getSession(), singletonList(dto), "foo", 10);
+
+    verifyTableSize(1);
+    verifyPersisted(dto);
+  }
+
+  @Test
+  public void upsert_fails_if_chunk_size_is_greater_than_max() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Chunk size must be between 1 and 150: 151");
+
+    underTest.upsert(db.getSession(), singletonList(newLiveMeasure()), "foo", 151);
+  }
+
   @Test
   public void deleteByProjectUuidExcludingMarker() {
     LiveMeasureDto measure1 = newLiveMeasure().setProjectUuid("P1");
@@ -311,6 +365,11 @@ public class LiveMeasureDaoTest {
     verifyPersisted(measure5OtherProject);
   }
 
+  private Map<String, Object> selectMarkerAndUpdatedAt(LiveMeasureDto dto) {
+    return db.selectFirst(db.getSession(), "select update_marker as \"marker\", updated_at as \"updatedAt\" from live_measures where component_uuid = '"
+      + dto.getComponentUuid() + "' and metric_id = " + dto.getMetricId());
+  }
+
   private void verifyTableSize(int expectedSize) {
     assertThat(db.countRowsOfTable(db.getSession(), "live_measures")).isEqualTo(expectedSize);
   }
@@ -19,6 +19,7 @@
  */
 package org.sonar.db.measure;
 
+import java.util.ArrayList;
 import java.util.List;
 import org.junit.Rule;
 import org.junit.Test;
@@ -79,6 +80,34 @@ public class MeasureDaoTest {
     assertThat(underTest.selectLastMeasure(dbSession, "_missing_", "_missing_")).isEmpty();
   }
 
+  @Test
+  public void insert_measures_by_chunks() {
+    MetricDto metric = db.measures().insertMetric();
+    ComponentDto project = db.components().insertPrivateProject();
+    SnapshotDto analysis = insertAnalysis(project.uuid(), true);
+    List<MeasureDto> measures = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      ComponentDto file = db.components().insertComponent(newFileDto(project));
+      measures.add(MeasureTesting.newMeasureDto(metric, file, analysis));
+    }
+
+    underTest.insert(db.getSession(), measures, 2);
+
+    assertThat(db.countRowsOfTable(db.getSession(), "project_measures")).isEqualTo(5);
+    for (MeasureDto measure : measures) {
+      assertThat(underTest.selectMeasure(db.getSession(), analysis.getUuid(), measure.getComponentUuid(), metric.getKey()).get())
+        .isEqualToComparingFieldByField(measure);
+    }
+  }
+
+  @Test
+  public void insert_measures_by_chunks_fails_if_chunk_size_is_greater_than_max() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Chunk size must be between 1 and 200: 201");
+
+    underTest.insert(db.getSession(), emptyList(), 201);
+  }
+
   @Test
   public void test_selectMeasure() {
     MetricDto metric = db.measures().insertMetric();
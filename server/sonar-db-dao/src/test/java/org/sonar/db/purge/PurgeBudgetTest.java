@@ -0,0 +1,126 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.purge;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.utils.System2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PurgeBudgetTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private System2 system2 = mock(System2.class);
+  private List<Long> pauses = new ArrayList<>();
+
+  @After
+  public void tearDown() {
+    // clear interrupted flag
+    Thread.interrupted();
+  }
+
+  @Test
+  public void is_exhausted_once_max_duration_is_over() {
+    when(system2.now()).thenReturn(1_000L);
+    PurgeBudget underTest = newBudget(500, 50);
+
+    when(system2.now()).thenReturn(1_499L);
+    assertThat(underTest.isExhausted()).isFalse();
+
+    when(system2.now()).thenReturn(1_500L);
+    assertThat(underTest.isExhausted()).isTrue();
+  }
+
+  @Test
+  public void is_exhausted_when_thread_is_interrupted() {
+    when(system2.now()).thenReturn(1_000L);
+    PurgeBudget underTest = newBudget(500, 50);
+
+    Thread.currentThread().interrupt();
+
+    assertThat(underTest.isExhausted()).isTrue();
+  }
+
+  @Test
+  public void pauses_to_respect_db_load_percent() {
+    when(system2.now()).thenReturn(1_000L);
+    PurgeBudget underTest = newBudget(60_000, 25);
+
+    underTest.pauseAfterChunk(100);
+
+    // 100ms of work and 300ms of pause is a DB load of 25%
+    assertThat(pauses).containsExactly(300L);
+  }
+
+  @Test
+  public void does_not_pause_when_db_load_percent_is_100() {
+    when(system2.now()).thenReturn(1_000L);
+    PurgeBudget underTest = newBudget(60_000, 100);
+
+    underTest.pauseAfterChunk(100);
+
+    assertThat(pauses).isEmpty();
+  }
+
+  @Test
+  public void does_not_pause_after_the_end_of_max_duration() {
+    when(system2.now()).thenReturn(1_000L);
+    PurgeBudget underTest = newBudget(1_000, 10);
+
+    when(system2.now()).thenReturn(1_900L);
+    underTest.pauseAfterChunk(100);
+
+    assertThat(pauses).containsExactly(100L);
+  }
+
+  @Test
+  public void fail_if_chunk_size_is_greater_than_1000() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Chunk size must be between 1 and 1000 (got 1001)");
+
+    new PurgeBudget(system2, 1_000, 1_001, 50);
+  }
+
+  @Test
+  public void fail_if_db_load_percent_is_0() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("DB load percent must be between 1 and 100 (got 0)");
+
+    new PurgeBudget(system2, 1_000, 100, 0);
+  }
+
+  private PurgeBudget newBudget(long maxDurationInMs, int dbLoadPercent) {
+    return new PurgeBudget(system2, maxDurationInMs, 100, dbLoadPercent) {
+      @Override
+      void sleep(long durationInMs) {
+        pauses.add(durationInMs);
+      }
+    };
+  }
+}
@@ -53,6 +53,8 @@ import org.sonar.db.component.BranchType;
 import org.sonar.db.component.ComponentDbTester;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.component.SnapshotDto;
+import org.sonar.db.issue.IssueDto;
 import org.sonar.db.measure.MeasureDto;
 import org.sonar.db.measure.custom.CustomMeasureDto;
 import org.sonar.db.metric.MetricDto;
@@ -64,6 +66,7 @@ import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.apache.commons.lang.RandomStringUtils.randomAlphabetic;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -537,6 +540,89 @@ public class PurgeDaoTest {
     assertThat(issueKeys.getValue()).containsOnly("ISSUE-1", "ISSUE-2");
   }
 
+  @Test
+  public void purgeInChunks_deletes_specified_analyses_and_purges_processed_ones() {
+    ComponentDto project = dbTester.components().insertPrivateProject();
+    SnapshotDto lastAnalysis = dbTester.components().insertSnapshot(project);
+    SnapshotDto analysisToDelete1 = dbTester.components().insertSnapshot(project, s -> s.setLast(false));
+    SnapshotDto analysisToDelete2 = dbTester.components().insertSnapshot(project, s -> s.setLast(false));
+    SnapshotDto analysisToPurge = dbTester.components().insertSnapshot(project, s -> s.setLast(false));
+    SnapshotDto unprocessedAnalysis = dbTester.components().insertSnapshot(project, s -> s.setLast(false).setStatus(SnapshotDto.STATUS_UNPROCESSED));
+    PurgeProfiler profiler = new PurgeProfiler();
+
+    boolean purged = underTest.purgeInChunks(dbSession, newConfigurationWith30Days(System2.INSTANCE, project.uuid()),
+      asList(toIdUuidPair(analysisToDelete1), toIdUuidPair(analysisToDelete2)), PurgeListener.EMPTY, profiler, newBudgetOfChunks(1, Integer.MAX_VALUE));
+
+    assertThat(purged).isTrue();
+    assertThat(dbTester.select("select uuid as \"UUID\", purge_status as \"PURGE_STATUS\" from snapshots"))
+      .extracting(row -> row.get("UUID"), row -> row.get("PURGE_STATUS"))
+      .containsOnly(
+        tuple(lastAnalysis.getUuid(), null),
+        tuple(analysisToPurge.getUuid(), 1L),
+        tuple(unprocessedAnalysis.getUuid(), null));
+    assertThat(profiler.getPurgedCount(PurgeDao.STEP_DELETE_ANALYSES)).isEqualTo(2);
+    assertThat(profiler.getPurgedCount(PurgeDao.STEP_PURGE_ANALYSES)).isEqualTo(1);
+  }
+
+  @Test
+  public void purgeInChunks_stops_when_budget_is_exhausted() {
+    ComponentDto project = dbTester.components().insertPrivateProject();
+    SnapshotDto lastAnalysis = dbTester.components().insertSnapshot(project);
+    List<IdUuidPair> analysesToDelete = IntStream.range(0, 3)
+      .mapToObj(i -> toIdUuidPair(dbTester.components().insertSnapshot(project, s -> s.setLast(false))))
+      .collect(Collectors.toList());
+    PurgeConfiguration conf = newConfigurationWith30Days(System2.INSTANCE, project.uuid());
+
+    boolean purged = underTest.purgeInChunks(dbSession, conf, analysesToDelete, PurgeListener.EMPTY, new PurgeProfiler(), newBudgetOfChunks(1, 2));
+
+    assertThat(purged).isFalse();
+    assertThat(getUuidsInTableSnapshots()).containsOnly(lastAnalysis.getUuid(), analysesToDelete.get(2).getUuid());
+
+    purged = underTest.purgeInChunks(dbSession, conf, analysesToDelete.subList(2, 3), PurgeListener.EMPTY, new PurgeProfiler(),
+      newBudgetOfChunks(1, Integer.MAX_VALUE));
+
+    assertThat(purged).isTrue();
+    assertThat(getUuidsInTableSnapshots()).containsOnly(lastAnalysis.getUuid());
+  }
+
+  @Test
+  public void purgeInChunks_deletes_old_closed_issues_by_chunks() {
+    PurgeListener purgeListener = mock(PurgeListener.class);
+    RuleDefinitionDto rule = dbTester.rules().insert();
+    ComponentDto project = dbTester.components().insertPrivateProject();
+    ComponentDto file = dbTester.components().insertComponent(newFileDto(project));
+    Date oldDate = DateUtils.addDays(new Date(), -31);
+    IssueDto oldClosed1 = dbTester.issues().insert(rule, project, file, i -> i.setStatus("CLOSED").setIssueCloseDate(oldDate));
+    IssueDto oldClosed2 = dbTester.issues().insert(rule, project, file, i -> i.setStatus("CLOSED").setIssueCloseDate(oldDate));
+    IssueDto recentClosed = dbTester.issues().insert(rule, project, file, i -> i.setStatus("CLOSED").setIssueCloseDate(new Date()));
+    IssueDto open = dbTester.issues().insert(rule, project, file, i -> i.setStatus("OPEN").setIssueCloseDate(null));
+    PurgeProfiler profiler = new PurgeProfiler();
+
+    boolean purged = underTest.purgeInChunks(dbSession, newConfigurationWith30Days(System2.INSTANCE, project.uuid()), emptyList(), purgeListener,
+      profiler, newBudgetOfChunks(1, Integer.MAX_VALUE));
+
+    assertThat(purged).isTrue();
+    assertThat(dbTester.select("select kee as \"KEE\" from issues")).extracting(row -> row.get("KEE"))
+      .containsOnly(recentClosed.getKey(), open.getKey());
+    verify(purgeListener).onIssuesRemoval(project.uuid(), singletonList(oldClosed1.getKey()));
+    verify(purgeListener).onIssuesRemoval(project.uuid(), singletonList(oldClosed2.getKey()));
+    assertThat(profiler.getPurgedCount(PurgeDao.STEP_DELETE_CLOSED_ISSUES)).isEqualTo(2);
+  }
+
+  @Test
+  public void purgeAnalysisBoundData_deletes_aborted_analyses_but_not_historical_data() {
+    ComponentDto project = dbTester.components().insertPrivateProject();
+    SnapshotDto lastAnalysis = dbTester.components().insertSnapshot(project);
+    SnapshotDto analysisToPurge = dbTester.components().insertSnapshot(project, s -> s.setLast(false));
+    dbTester.components().insertSnapshot(project, s -> s.setLast(false).setStatus(SnapshotDto.STATUS_UNPROCESSED));
+
+    underTest.purgeAnalysisBoundData(dbSession, newConfigurationWith30Days(System2.INSTANCE, project.uuid()), PurgeListener.EMPTY, new PurgeProfiler());
+    dbSession.commit();
+
+    assertThat(getUuidsInTableSnapshots()).containsOnly(lastAnalysis.getUuid(), analysisToPurge.getUuid());
+    assertThat(dbTester.countSql("select count(1) from snapshots where purge_status=1")).isZero();
+  }
+
   @Test
   public void should_delete_all_closed_issues() {
     dbTester.prepareDbUnit(getClass(), "should_delete_all_closed_issues.xml");
@@ -876,6 +962,30 @@ public class PurgeDaoTest {
       .orElse(null);
   }
 
+  private List<String> getUuidsInTableSnapshots() {
+    return dbTester.select("select uuid as \"UUID\" from snapshots").stream()
+      .map(row -> (String) row.get("UUID"))
+      .collect(Collectors.toList());
+  }
+
+  private static IdUuidPair toIdUuidPair(SnapshotDto analysis) {
+    return new IdUuidPair(analysis.getId(), analysis.getUuid());
+  }
+
+  /**
+   * A budget which does not pause between chunks and is exhausted once {@code maxChunks} chunks have been purged.
+   */
+  private static PurgeBudget newBudgetOfChunks(int chunkSize, int maxChunks) {
+    return new PurgeBudget(System2.INSTANCE, Long.MAX_VALUE / 2, chunkSize, 100) {
+      private int chunks = 0;
+
+      @Override
+      public boolean isExhausted() {
+        return chunks++ >= maxChunks;
+      }
+    };
+  }
+
   private static PurgeConfiguration newConfigurationWith30Days() {
     return new PurgeConfiguration(new IdUuidPair(THE_PROJECT_ID, THE_PROJECT_UUID), emptyList(), 30, Optional.of(30), System2.INSTANCE, Collections.emptyList());
   }
@@ -23,6 +23,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.sonar.api.utils.log.Logger;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -80,6 +81,25 @@ public class PurgeProfilerTest {
     verify(logger).info(contains("bar: 5ms"));
   }
 
+  @Test
+  public void shouldProfilePurgedItems() {
+    profiler.startChunk();
+    clock.sleep(100);
+    assertThat(profiler.stopChunk("foo", 10)).isEqualTo(100);
+
+    profiler.startChunk();
+    clock.sleep(400);
+    assertThat(profiler.stopChunk("foo", 40)).isEqualTo(400);
+
+    assertThat(profiler.getPurgedCount("foo")).isEqualTo(50);
+    assertThat(profiler.getPurgedCount("bar")).isZero();
+    profiler.dump(500, logger);
+    verify(logger).info(contains("foo: 50 in 500ms (100/s)"));
+
+    profiler.reset();
+    assertThat(profiler.getPurgedCount("foo")).isZero();
+  }
+
   private class MockedClock extends PurgeProfiler.Clock {
     private long now = 0;
 
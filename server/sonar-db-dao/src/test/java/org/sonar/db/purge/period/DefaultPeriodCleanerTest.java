@@ -33,10 +33,14 @@ import org.sonar.db.purge.PurgeDao;
 import org.sonar.db.purge.PurgeProfiler;
 import org.sonar.db.purge.PurgeableAnalysisDto;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class DefaultPeriodCleanerTest {
@@ -64,6 +68,23 @@ public class DefaultPeriodCleanerTest {
     inOrder.verifyNoMoreInteractions();
   }
 
+  @Test
+  public void selectAnalysesToDelete_does_not_delete_analyses() {
+    PurgeDao dao = mock(PurgeDao.class);
+    DbSession session = mock(DbSession.class);
+    when(dao.selectPurgeableAnalyses("uuid_123", session)).thenReturn(Arrays.asList(
+      new PurgeableAnalysisDto().setAnalysisId(999).setAnalysisUuid("u999").setDate(System2.INSTANCE.now()),
+      new PurgeableAnalysisDto().setAnalysisId(456).setAnalysisUuid("u456").setDate(System2.INSTANCE.now())));
+    Filter filter1 = newFirstSnapshotInListFilter();
+    Filter filter2 = newFirstSnapshotInListFilter();
+
+    DefaultPeriodCleaner cleaner = new DefaultPeriodCleaner(dao, new PurgeProfiler());
+    List<IdUuidPair> analyses = cleaner.selectAnalysesToDelete("uuid_123", Arrays.asList(filter1, filter2), session);
+
+    assertThat(analyses).containsExactly(new IdUuidPair(999, "u999"), new IdUuidPair(456, "u456"));
+    verify(dao, never()).deleteAnalyses(any(), any(), anyList());
+  }
+
   private Filter newFirstSnapshotInListFilter() {
     Filter filter1 = mock(Filter.class);
     when(filter1.filter(anyList())).thenAnswer(invocation -> Collections.singletonList(((List) invocation.getArguments()[0]).iterator().next()));
@@ -41,6 +41,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.organization.OrganizationDto;
+import org.sonar.db.protobuf.DbFileSources;
 import org.sonar.db.source.FileSourceDto.Type;
 
 import static com.google.common.collect.ImmutableList.of;
@@ -427,6 +428,46 @@ public class FileSourceDaoTest {
     assertThat(res.getLineCount()).isEqualTo(1);
   }
 
+  @Test
+  public void updateSegments_writes_only_segments_with_data() {
+    DbFileSources.Data data = DbFileSources.Data.newBuilder()
+      .addLines(DbFileSources.Line.newBuilder().setLine(1).setSource("line1").setLineHits(1).setScmAuthor("john"))
+      .build();
+    FileSourceDto fileSourceDto = new FileSourceDto()
+      .setProjectUuid("Foo")
+      .setFileUuid("Bar")
+      .setSegmentedSourceData(data)
+      .setLineHashes(of("a"))
+      .setCreatedAt(1500000000000L)
+      .setUpdatedAt(1500000000001L);
+    underTest.insert(dbSession, fileSourceDto);
+    dbSession.commit();
+    FileSourceDto inserted = underTest.selectSourceByFileUuid(dbSession, "Bar");
+
+    FileSourceDto updated = new FileSourceDto()
+      .setSegmentedSourceData(data.toBuilder().setLines(0, data.getLines(0).toBuilder().setLineHits(5)).build())
+      .setId(inserted.getId())
+      .setLineHashes(of("b", "c"))
+      .setUpdatedAt(1500000000002L);
+    updated
+      .setSegmentData(FileSourceDto.Segment.LINES, null)
+      .setSegmentData(FileSourceDto.Segment.HIGHLIGHTING, null)
+      .setSegmentData(FileSourceDto.Segment.SCM, null);
+    underTest.updateSegments(dbSession, updated, false);
+    dbSession.commit();
+
+    FileSourceDto res = underTest.selectSourceByFileUuid(dbSession, "Bar");
+    assertThat(res.getUpdatedAt()).isEqualTo(1500000000002L);
+    assertThat(res.getSegmentHashes()).isEqualTo(updated.getSegmentHashes());
+    assertThat(res.getBinaryData()).isEqualTo(inserted.getBinaryData());
+    assertThat(res.getScmData()).isEqualTo(inserted.getScmData());
+    assertThat(res.getLineHashes()).containsExactly("a");
+    DbFileSources.Line line = res.getSourceData().getLines(0);
+    assertThat(line.getSource()).isEqualTo("line1");
+    assertThat(line.getScmAuthor()).isEqualTo("john");
+    assertThat(line.getLineHits()).isEqualTo(5);
+  }
+
   private static class ReaderToStringConsumer implements Consumer<Reader> {
 
     String result = null;
@@ -43,6 +43,64 @@ public class FileSourceDtoTest {
   @Rule
   public ExpectedException expectedException = ExpectedException.none();
 
+  @Test
+  public void encode_and_decode_segmented_source_data() {
+    DbFileSources.Data data = DbFileSources.Data.newBuilder()
+      .addLines(DbFileSources.Line.newBuilder()
+        .setLine(1)
+        .setSource("line1")
+        .addDuplication(2)
+        .setHighlighting("0,4,k")
+        .setSymbols("1,2,1")
+        .setLineHits(3)
+        .setConditions(2)
+        .setCoveredConditions(1)
+        .setScmAuthor("john")
+        .setScmRevision("rev-1")
+        .setScmDate(123456789L))
+      .addLines(DbFileSources.Line.newBuilder()
+        .setLine(2)
+        .setSource("line2"))
+      .build();
+
+    FileSourceDto underTest = new FileSourceDto().setSegmentedSourceData(data);
+
+    assertThat(underTest.getSourceData()).isEqualTo(data);
+    assertThat(underTest.getSegmentHashes()).isNotNull();
+    assertThat(underTest.getDataHash()).isNotNull();
+    for (FileSourceDto.Segment segment : FileSourceDto.Segment.values()) {
+      assertThat(underTest.getSegmentHash(segment)).hasSize(32);
+      assertThat(underTest.getSegmentData(segment)).isNotEmpty();
+    }
+  }
+
+  @Test
+  public void segment_hash_of_unchanged_segments_does_not_change() {
+    DbFileSources.Line.Builder line = DbFileSources.Line.newBuilder().setLine(1).setSource("line1").setScmAuthor("john").setLineHits(1);
+    FileSourceDto before = new FileSourceDto().setSegmentedSourceData(DbFileSources.Data.newBuilder().addLines(line).build());
+    FileSourceDto after = new FileSourceDto().setSegmentedSourceData(DbFileSources.Data.newBuilder().addLines(line.setLineHits(2)).build());
+
+    assertThat(after.getSegmentHash(FileSourceDto.Segment.COVERAGE)).isNotEqualTo(before.getSegmentHash(FileSourceDto.Segment.COVERAGE));
+    assertThat(after.getSegmentHash(FileSourceDto.Segment.LINES)).isEqualTo(before.getSegmentHash(FileSourceDto.Segment.LINES));
+    assertThat(after.getSegmentHash(FileSourceDto.Segment.HIGHLIGHTING)).isEqualTo(before.getSegmentHash(FileSourceDto.Segment.HIGHLIGHTING));
+    assertThat(after.getSegmentHash(FileSourceDto.Segment.SCM)).isEqualTo(before.getSegmentHash(FileSourceDto.Segment.SCM));
+    assertThat(after.getDataHash()).isNotEqualTo(before.getDataHash());
+  }
+
+  @Test
+  public void setSourceData_resets_segments() {
+    DbFileSources.Data data = DbFileSources.Data.newBuilder()
+      .addLines(DbFileSources.Line.newBuilder().setLine(1).setSource("line1").setLineHits(1))
+      .build();
+
+    FileSourceDto underTest = new FileSourceDto().setSegmentedSourceData(data).setSourceData(data);
+
+    assertThat(underTest.getSegmentHashes()).isNull();
+    assertThat(underTest.getSegmentHash(FileSourceDto.Segment.LINES)).isNull();
+    assertThat(underTest.getCoverageData()).isNull();
+    assertThat(underTest.getSourceData()).isEqualTo(data);
+  }
+
   @Test
   public void encode_and_decode_test_data() {
     List<DbFileSources.Test> tests = Arrays.asList(
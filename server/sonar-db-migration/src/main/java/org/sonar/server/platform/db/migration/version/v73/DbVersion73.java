@@ -28,6 +28,7 @@ public class DbVersion73 implements DbVersion {
   public void addSteps(MigrationStepRegistry registry) {
     registry
       .add(2200, "Populate PROJECT_BRANCHES with existing main application branches", PopulateMainApplicationBranches.class)
+      .add(2201, "Add segment columns to FILE_SOURCES", AddSegmentsToFileSources.class)
     ;
   }
 }
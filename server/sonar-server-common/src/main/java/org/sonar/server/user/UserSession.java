@@ -140,6 +140,13 @@ public interface UserSession {
    */
   List<ComponentDto> keepAuthorizedComponents(String permission, Collection<ComponentDto> components);
 
+  /**
+   * Loads at once the permissions on the projects of the specified components, so that following
+   * verifications of permissions on these components do not request the database one project at a time.
+   * It is an optimization only: permissions are loaded on demand if they are not preloaded.
+   */
+  UserSession preloadComponentPermissions(Collection<ComponentDto> components);
+
   /**
    * Ensures that {@link #hasComponentPermission(String, ComponentDto)} is {@code true},
    * otherwise throws a {@link org.sonar.server.exceptions.ForbiddenException}.
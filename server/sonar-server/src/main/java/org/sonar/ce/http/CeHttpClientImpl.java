@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import okhttp3.OkHttpClient;
 import okhttp3.RequestBody;
 import org.apache.commons.io.IOUtils;
@@ -161,6 +162,55 @@ public class CeHttpClientImpl implements CeHttpClient {
     }
   }
 
+  @Override
+  public void wakeUpWorkers() {
+    call(WakeUpWorkersActionClient.INSTANCE);
+  }
+
+  private enum WakeUpWorkersActionClient implements ActionClient<Void> {
+    INSTANCE;
+
+    /**
+     * Waking up workers is called by the thread which submits tasks. It must not wait long for a Compute Engine
+     * which does not respond, as workers will find the tasks on their next poll of the queue anyway.
+     */
+    private static final long TIMEOUT_MILLIS = 500L;
+    private static final OkHttpClient CLIENT = new OkHttpClient.Builder()
+      .connectTimeout(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+      .readTimeout(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+      .writeTimeout(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+      .build();
+
+    @Override
+    public String getPath() {
+      return "wakeUpWorkers";
+    }
+
+    @Override
+    public Void getDefault() {
+      return null;
+    }
+
+    @Override
+    public Void call(String url) throws Exception {
+      okhttp3.Request request = new okhttp3.Request.Builder()
+        .post(RequestBody.create(null, new byte[0]))
+        .url(url)
+        .build();
+      try (okhttp3.Response response = CLIENT.newCall(request).execute()) {
+        if (response.code() != 200) {
+          throw new IOException(
+            String.format(
+              "Failed to wake up CE Workers. Code was '%s' and response was '%s' for url '%s'",
+              response.code(),
+              response.body().string(),
+              url));
+        }
+        return null;
+      }
+    }
+  }
+
   private <T> T call(ActionClient<T> actionClient) {
     try (DefaultProcessCommands commands = DefaultProcessCommands.secondary(ipcSharedDir, COMPUTE_ENGINE.getIpcIndex())) {
       if (commands.isUp()) {
@@ -0,0 +1,59 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ce.queue;
+
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.queue.CeQueueNotifier;
+import org.sonar.ce.queue.CeWorkersWakeUpHook;
+import org.sonar.process.ProcessId;
+import org.sonar.process.cluster.hz.DistributedCall;
+import org.sonar.process.cluster.hz.HazelcastMember;
+import org.sonar.process.cluster.hz.HazelcastMemberSelectors;
+
+/**
+ * Wakes up the workers of the Compute Engine processes of all the nodes of the cluster through Hazelcast.
+ */
+public class CeQueueClusterNotifier implements CeQueueNotifier {
+  private static final long CLUSTER_TIMEOUT_MILLIS = 1000;
+  private static final Logger LOGGER = Loggers.get(CeQueueClusterNotifier.class);
+
+  private final HazelcastMember member;
+
+  public CeQueueClusterNotifier(HazelcastMember member) {
+    this.member = member;
+  }
+
+  @Override
+  public void notifyTasksSubmitted() {
+    try {
+      member.call(wakeUpWorkersOfNode(), HazelcastMemberSelectors.selectorForProcessIds(ProcessId.COMPUTE_ENGINE), CLUSTER_TIMEOUT_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      // workers will find the tasks on their next poll of the queue
+      LOGGER.debug("Failed to wake up Compute Engine workers of the cluster", e);
+    }
+  }
+
+  private static DistributedCall<Boolean> wakeUpWorkersOfNode() {
+    return CeWorkersWakeUpHook::wakeUpFromHazelcastDistributedCall;
+  }
+}
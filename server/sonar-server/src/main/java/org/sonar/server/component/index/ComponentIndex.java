@@ -88,7 +88,7 @@ public class ComponentIndex {
       .setSize(searchOptions.getLimit());
 
     BoolQueryBuilder esQuery = boolQuery();
-    esQuery.filter(authorizationTypeSupport.createQueryFilter());
+    esQuery.filter(authorizationTypeSupport.createQueryFilter(INDEX_TYPE_COMPONENT));
     setNullable(query.getQuery(), q -> {
       ComponentTextSearchQuery componentTextSearchQuery = ComponentTextSearchQuery.builder()
         .setQueryText(q)
@@ -166,7 +166,7 @@ public class ComponentIndex {
 
   private QueryBuilder createQuery(SuggestionQuery query, ComponentTextSearchFeature... features) {
     BoolQueryBuilder esQuery = boolQuery();
-    esQuery.filter(authorizationTypeSupport.createQueryFilter());
+    esQuery.filter(authorizationTypeSupport.createQueryFilter(INDEX_TYPE_COMPONENT));
     ComponentTextSearchQuery componentTextSearchQuery = ComponentTextSearchQuery.builder()
       .setQueryText(query.getQuery())
       .setFieldKey(FIELD_KEY)
@@ -26,6 +26,7 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.search.SearchRequestBuilder;
@@ -37,8 +38,10 @@ import org.sonar.db.component.ComponentDto;
 import org.sonar.db.es.EsQueueDto;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.BulkIndexer.Size;
+import org.sonar.server.es.BulkIndexerStatistics;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.IndexType;
+import org.sonar.server.es.IndexingListener;
 import org.sonar.server.es.IndexingResult;
 import org.sonar.server.es.OneToManyResilientIndexingListener;
 import org.sonar.server.es.ProjectIndexer;
@@ -55,10 +58,18 @@ public class ComponentIndexer implements ProjectIndexer, NeedAuthorizationIndexe
 
   private final DbClient dbClient;
   private final EsClient esClient;
+  @CheckForNull
+  private final BulkIndexerStatistics bulkIndexerStatistics;
 
   public ComponentIndexer(DbClient dbClient, EsClient esClient) {
+    this(dbClient, esClient, null);
+  }
+
+  // this constructor is used by picocontainer
+  public ComponentIndexer(DbClient dbClient, EsClient esClient, @Nullable BulkIndexerStatistics bulkIndexerStatistics) {
     this.dbClient = dbClient;
     this.esClient = esClient;
+    this.bulkIndexerStatistics = bulkIndexerStatistics;
   }
 
   @Override
@@ -111,7 +122,7 @@ public class ComponentIndexer implements ProjectIndexer, NeedAuthorizationIndexe
     }
 
     OneToManyResilientIndexingListener listener = new OneToManyResilientIndexingListener(dbClient, dbSession, items);
-    BulkIndexer bulkIndexer = new BulkIndexer(esClient, INDEX_TYPE_COMPONENT, Size.REGULAR, listener);
+    BulkIndexer bulkIndexer = new BulkIndexer(esClient, INDEX_TYPE_COMPONENT, Size.REGULAR, listener, bulkIndexerStatistics);
     bulkIndexer.start();
     Set<String> branchUuids = items.stream().map(EsQueueDto::getDocId).collect(MoreCollectors.toHashSet(items.size()));
     Set<String> remaining = new HashSet<>(branchUuids);
@@ -137,7 +148,7 @@ public class ComponentIndexer implements ProjectIndexer, NeedAuthorizationIndexe
    * <b>Warning:</b> only use {@code null} during startup.
    */
   private void doIndexByProjectUuid(@Nullable String projectUuid, Size bulkSize) {
-    BulkIndexer bulk = new BulkIndexer(esClient, INDEX_TYPE_COMPONENT, bulkSize);
+    BulkIndexer bulk = new BulkIndexer(esClient, INDEX_TYPE_COMPONENT, bulkSize, IndexingListener.FAIL_ON_ERROR, bulkIndexerStatistics);
 
     bulk.start();
     try (DbSession dbSession = dbClient.openSession(false)) {
@@ -158,7 +169,7 @@ public class ComponentIndexer implements ProjectIndexer, NeedAuthorizationIndexe
   }
 
   public void delete(String projectUuid, Collection<String> disabledComponentUuids) {
-    BulkIndexer bulk = new BulkIndexer(esClient, INDEX_TYPE_COMPONENT, Size.REGULAR);
+    BulkIndexer bulk = new BulkIndexer(esClient, INDEX_TYPE_COMPONENT, Size.REGULAR, IndexingListener.FAIL_ON_ERROR, bulkIndexerStatistics);
     bulk.start();
     disabledComponentUuids.forEach(uuid -> bulk.addDeletion(INDEX_TYPE_COMPONENT, uuid, projectUuid));
     bulk.stop();
@@ -166,7 +177,7 @@ public class ComponentIndexer implements ProjectIndexer, NeedAuthorizationIndexe
 
   @VisibleForTesting
   void index(ComponentDto... docs) {
-    BulkIndexer bulk = new BulkIndexer(esClient, INDEX_TYPE_COMPONENT, Size.REGULAR);
+    BulkIndexer bulk = new BulkIndexer(esClient, INDEX_TYPE_COMPONENT, Size.REGULAR, IndexingListener.FAIL_ON_ERROR, bulkIndexerStatistics);
     bulk.start();
     Arrays.stream(docs)
       .map(ComponentIndexer::toDocument)
@@ -0,0 +1,82 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Tunes the size of bulk requests and the number of bulk requests executed concurrently by a {@link BulkIndexer},
+ * according to the response of Elasticsearch, the same way AIMD congestion control does:
+ * <ul>
+ *   <li>as long as bulk requests are executed fast enough, the size of bulks is increased by {@link #BULK_SIZE_STEP_IN_BYTES}
+ *   up to {@link #MAX_BULK_SIZE_IN_BYTES}, then the number of concurrent bulk requests is increased by one up to the
+ *   maximum allowed</li>
+ *   <li>when a bulk request is rejected by Elasticsearch (queue of the bulk thread pool is full) or is slower than
+ *   {@link #TARGET_LATENCY_IN_MS}, both the size and the concurrency are halved</li>
+ * </ul>
+ * This class is thread-safe, as bulk requests may be executed concurrently.
+ */
+class AdaptiveBulkSizing {
+
+  @VisibleForTesting
+  static final long MIN_BULK_SIZE_IN_BYTES = 256 * 1024L;
+  @VisibleForTesting
+  static final long INITIAL_BULK_SIZE_IN_BYTES = 1024 * 1024L;
+  @VisibleForTesting
+  static final long MAX_BULK_SIZE_IN_BYTES = 8 * 1024 * 1024L;
+  @VisibleForTesting
+  static final long BULK_SIZE_STEP_IN_BYTES = 256 * 1024L;
+  @VisibleForTesting
+  static final long TARGET_LATENCY_IN_MS = 2_000L;
+
+  private final int maxConcurrentRequests;
+  private long bulkSizeInBytes = INITIAL_BULK_SIZE_IN_BYTES;
+  private int concurrentRequests;
+
+  /**
+   * @param maxConcurrentRequests maximum number of bulk requests executed at the same time, at least 1
+   */
+  AdaptiveBulkSizing(int maxConcurrentRequests) {
+    checkArgument(maxConcurrentRequests >= 1, "Max concurrent requests must be at least 1");
+    this.maxConcurrentRequests = maxConcurrentRequests;
+    this.concurrentRequests = maxConcurrentRequests;
+  }
+
+  synchronized long getBulkSizeInBytes() {
+    return bulkSizeInBytes;
+  }
+
+  synchronized int getConcurrentRequests() {
+    return concurrentRequests;
+  }
+
+  synchronized void onBulkExecuted(long latencyInMs, boolean rejected) {
+    if (rejected || latencyInMs > TARGET_LATENCY_IN_MS) {
+      bulkSizeInBytes = Math.max(MIN_BULK_SIZE_IN_BYTES, bulkSizeInBytes / 2);
+      concurrentRequests = Math.max(1, concurrentRequests / 2);
+    } else if (bulkSizeInBytes < MAX_BULK_SIZE_IN_BYTES) {
+      bulkSizeInBytes = Math.min(MAX_BULK_SIZE_IN_BYTES, bulkSizeInBytes + BULK_SIZE_STEP_IN_BYTES);
+    } else {
+      concurrentRequests = Math.min(maxConcurrentRequests, concurrentRequests + 1);
+    }
+  }
+}
@@ -27,8 +27,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.DocWriteRequest;
 import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
 import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequestBuilder;
@@ -48,6 +50,7 @@ import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHitField;
 import org.elasticsearch.search.sort.SortOrder;
@@ -61,15 +64,20 @@ import static java.lang.String.format;
 /**
  * Helper to bulk requests in an efficient way :
  * <ul>
- * <li>bulk request is sent on the wire when its size is higher than 5Mb</li>
+ * <li>bulk request is sent on the wire when its size is higher than a threshold, which is adapted to the
+ * latency and rejections of Elasticsearch (see {@link AdaptiveBulkSizing})</li>
+ * <li>the number of bulk requests executed concurrently is adapted the same way</li>
  * <li>on large table indexing, replicas and automatic refresh can be temporarily disabled</li>
  * </ul>
  */
 public class BulkIndexer {
 
   private static final Logger LOGGER = Loggers.get(BulkIndexer.class);
-  private static final ByteSizeValue FLUSH_BYTE_SIZE = new ByteSizeValue(1, ByteSizeUnit.MB);
+  // bulk requests are flushed by BulkIndexer itself, according to AdaptiveBulkSizing
+  private static final ByteSizeValue FLUSH_BYTE_SIZE = new ByteSizeValue(-1, ByteSizeUnit.BYTES);
   private static final int FLUSH_ACTIONS = -1;
+  // see BulkRequest#estimatedSizeInBytes()
+  private static final long REQUEST_OVERHEAD_IN_BYTES = 50L;
   private static final String REFRESH_INTERVAL_SETTING = "index.refresh_interval";
   private static final int DEFAULT_NUMBER_OF_SHARDS = 5;
 
@@ -79,16 +87,32 @@ public class BulkIndexer {
   private final IndexingResult result = new IndexingResult();
   private final IndexingListener indexingListener;
   private final SizeHandler sizeHandler;
+  private final AdaptiveBulkSizing sizing;
+  @Nullable
+  private final BulkIndexerStatistics statistics;
+  private final Object inFlightLock = new Object();
+  private int inFlightBulkRequests = 0;
+  private long pendingBytes = 0L;
+  private long startedAtNanos;
 
   public BulkIndexer(EsClient client, IndexType indexType, Size size) {
     this(client, indexType, size, IndexingListener.FAIL_ON_ERROR);
   }
 
   public BulkIndexer(EsClient client, IndexType indexType, Size size, IndexingListener indexingListener) {
+    this(client, indexType, size, indexingListener, null);
+  }
+
+  /**
+   * @param statistics the statistics of the process to be updated, or {@code null} if indexing is not to be recorded
+   */
+  public BulkIndexer(EsClient client, IndexType indexType, Size size, IndexingListener indexingListener, @Nullable BulkIndexerStatistics statistics) {
     this.client = client;
     this.indexType = indexType;
     this.sizeHandler = size.createHandler(Runtime2.INSTANCE);
     this.indexingListener = indexingListener;
+    this.statistics = statistics;
+    this.sizing = new AdaptiveBulkSizing(Math.max(1, sizeHandler.getConcurrentRequests()));
     BulkProcessorListener bulkProcessorListener = new BulkProcessorListener();
     this.bulkProcessor = BulkProcessor.builder(client.nativeClient(), bulkProcessorListener)
       .setBackoffPolicy(BackoffPolicy.exponentialBackoff())
@@ -104,6 +128,7 @@ public class BulkIndexer {
 
   public void start() {
     result.clear();
+    startedAtNanos = System.nanoTime();
     sizeHandler.beforeStart(this);
   }
 
@@ -117,25 +142,60 @@ public class BulkIndexer {
       Thread.currentThread().interrupt();
       throw new IllegalStateException("Elasticsearch bulk requests still being executed after 1 minute", e);
     }
+    result.setDurationInMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAtNanos));
     client.prepareRefresh(indexType.getIndex()).get();
     sizeHandler.afterStop(this);
+    if (statistics != null) {
+      statistics.onIndexingFinished(result);
+    }
+    LOGGER.debug("{} documents indexed in {}ms into {} ({} docs/s, {} bytes/s)", result.getSuccess(), result.getDurationInMs(),
+      indexType.getIndex(), result.getDocsPerSecond(), result.getBytesPerSecond());
     indexingListener.onFinish(result);
     return result;
   }
 
   public void add(IndexRequest request) {
-    result.incrementRequests();
-    bulkProcessor.add(request);
+    doAdd(request, request.source() == null ? 0L : request.source().length());
   }
 
   public void add(DeleteRequest request) {
-    result.incrementRequests();
-    bulkProcessor.add(request);
+    doAdd(request, 0L);
   }
 
   public void add(DocWriteRequest request) {
+    if (request instanceof IndexRequest) {
+      add((IndexRequest) request);
+    } else {
+      doAdd(request, 0L);
+    }
+  }
+
+  private void doAdd(DocWriteRequest request, long sourceSizeInBytes) {
     result.incrementRequests();
     bulkProcessor.add(request);
+    pendingBytes += sourceSizeInBytes + REQUEST_OVERHEAD_IN_BYTES;
+    if (pendingBytes >= sizing.getBulkSizeInBytes()) {
+      flush();
+    }
+  }
+
+  private void flush() {
+    pendingBytes = 0L;
+    awaitInFlightBulkRequestsBelow(sizing.getConcurrentRequests());
+    bulkProcessor.flush();
+  }
+
+  private void awaitInFlightBulkRequestsBelow(int limit) {
+    synchronized (inFlightLock) {
+      while (inFlightBulkRequests >= limit) {
+        try {
+          inFlightLock.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Interrupted while waiting for Elasticsearch bulk requests", e);
+        }
+      }
+    }
   }
 
   public void addDeletion(SearchRequestBuilder searchRequest) {
@@ -199,24 +259,33 @@ public class BulkIndexer {
 
   private final class BulkProcessorListener implements Listener {
     private final Profiler profiler = Profiler.createIfTrace(EsClient.LOGGER);
+    private final Map<Long, Long> startNanosByExecutionId = new ConcurrentHashMap<>();
 
     @Override
     public void beforeBulk(long executionId, BulkRequest request) {
       profiler.start();
+      startNanosByExecutionId.put(executionId, System.nanoTime());
+      synchronized (inFlightLock) {
+        inFlightBulkRequests++;
+      }
     }
 
     @Override
     public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
       stopProfiler(request);
       List<DocId> successDocIds = new ArrayList<>();
+      boolean rejected = false;
       for (BulkItemResponse item : response.getItems()) {
         if (item.isFailed()) {
           LOGGER.error("index [{}], type [{}], id [{}], message [{}]", item.getIndex(), item.getType(), item.getId(), item.getFailureMessage());
+          rejected |= item.getFailure().getStatus() == RestStatus.TOO_MANY_REQUESTS;
         } else {
           result.incrementSuccess();
           successDocIds.add(new DocId(item.getIndex(), item.getType(), item.getId()));
         }
       }
+      result.addBytes(request.estimatedSizeInBytes());
+      onBulkExecuted(executionId, rejected);
       indexingListener.onSuccess(successDocIds);
     }
 
@@ -224,6 +293,20 @@ public class BulkIndexer {
     public void afterBulk(long executionId, BulkRequest request, Throwable e) {
       LOGGER.error("Fail to execute bulk index request: " + request, e);
       stopProfiler(request);
+      onBulkExecuted(executionId, ExceptionsHelper.status(e) == RestStatus.TOO_MANY_REQUESTS);
+    }
+
+    private void onBulkExecuted(long executionId, boolean rejected) {
+      Long startNanos = startNanosByExecutionId.remove(executionId);
+      long latencyInMs = startNanos == null ? 0L : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+      sizing.onBulkExecuted(latencyInMs, rejected);
+      if (statistics != null) {
+        statistics.onBulkExecuted(rejected, sizing);
+      }
+      synchronized (inFlightLock) {
+        inFlightBulkRequests--;
+        inFlightLock.notifyAll();
+      }
     }
 
     private void stopProfiler(BulkRequest request) {
@@ -366,9 +449,9 @@ public class BulkIndexer {
 
   static class LargeSizeHandler extends SizeHandler {
 
-    private final Map<String, Object> initialSettings = new HashMap<>();
     private final Runtime2 runtime2;
     private ProgressLogger progress;
+    private LargeIndexingSettings settings;
 
     LargeSizeHandler(Runtime2 runtime2) {
       this.runtime2 = runtime2;
@@ -387,37 +470,71 @@ public class BulkIndexer {
       this.progress = new ProgressLogger(format("Progress[BulkIndexer[%s]]", bulkIndexer.indexType.getIndex()), bulkIndexer.result.total, LOGGER)
         .setPluralLabel("requests");
       this.progress.start();
+      this.settings = LargeIndexingSettings.apply(bulkIndexer.client, bulkIndexer.indexType);
+    }
+
+    @Override
+    void afterStop(BulkIndexer bulkIndexer) {
+      settings.close();
+      this.progress.stop();
+    }
+  }
+
+  /**
+   * Settings of an index temporarily tuned for a large indexing: replicas and automatic refresh are disabled
+   * until {@link #close()}, which optimizes lucene segments and reverts the initial settings.
+   * <p>
+   * {@link Size#LARGE} applies them for the lifetime of a single {@link BulkIndexer}. They can also be applied
+   * explicitly when a large indexing is spread over several {@link Size#REGULAR} bulk indexers, for example
+   * to index chunks of data concurrently.
+   */
+  public static class LargeIndexingSettings implements AutoCloseable {
+    private final EsClient client;
+    private final IndexType indexType;
+    private final Map<String, Object> initialSettings = new HashMap<>();
+
+    private LargeIndexingSettings(EsClient client, IndexType indexType) {
+      this.client = client;
+      this.indexType = indexType;
+    }
+
+    public static LargeIndexingSettings apply(EsClient client, IndexType indexType) {
+      LargeIndexingSettings settings = new LargeIndexingSettings(client, indexType);
+      settings.apply();
+      return settings;
+    }
+
+    private void apply() {
       Map<String, Object> temporarySettings = new HashMap<>();
-      GetSettingsResponse settingsResp = bulkIndexer.client.nativeClient().admin().indices().prepareGetSettings(bulkIndexer.indexType.getIndex()).get();
+      GetSettingsResponse settingsResp = client.nativeClient().admin().indices().prepareGetSettings(indexType.getIndex()).get();
 
       // deactivate replicas
-      int initialReplicas = Integer.parseInt(settingsResp.getSetting(bulkIndexer.indexType.getIndex(), IndexMetaData.SETTING_NUMBER_OF_REPLICAS));
+      int initialReplicas = Integer.parseInt(settingsResp.getSetting(indexType.getIndex(), IndexMetaData.SETTING_NUMBER_OF_REPLICAS));
       if (initialReplicas > 0) {
         initialSettings.put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, initialReplicas);
         temporarySettings.put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0);
       }
 
       // deactivate periodical refresh
-      String refreshInterval = settingsResp.getSetting(bulkIndexer.indexType.getIndex(), REFRESH_INTERVAL_SETTING);
+      String refreshInterval = settingsResp.getSetting(indexType.getIndex(), REFRESH_INTERVAL_SETTING);
       initialSettings.put(REFRESH_INTERVAL_SETTING, refreshInterval);
       temporarySettings.put(REFRESH_INTERVAL_SETTING, "-1");
 
-      updateSettings(bulkIndexer, temporarySettings);
+      updateSettings(temporarySettings);
     }
 
     @Override
-    void afterStop(BulkIndexer bulkIndexer) {
+    public void close() {
       // optimize lucene segments and revert index settings
       // Optimization must be done before re-applying replicas:
       // http://www.elasticsearch.org/blog/performance-considerations-elasticsearch-indexing/
-      bulkIndexer.client.prepareForceMerge(bulkIndexer.indexType.getIndex()).get();
+      client.prepareForceMerge(indexType.getIndex()).get();
 
-      updateSettings(bulkIndexer, initialSettings);
-      this.progress.stop();
+      updateSettings(initialSettings);
     }
 
-    private static void updateSettings(BulkIndexer bulkIndexer, Map<String, Object> settings) {
-      UpdateSettingsRequestBuilder req = bulkIndexer.client.nativeClient().admin().indices().prepareUpdateSettings(bulkIndexer.indexType.getIndex());
+    private void updateSettings(Map<String, Object> settings) {
+      UpdateSettingsRequestBuilder req = client.nativeClient().admin().indices().prepareUpdateSettings(indexType.getIndex());
       req.setSettings(settings);
       req.get();
     }
@@ -0,0 +1,102 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of the {@link BulkIndexer}s executed since startup of the process. The component is
+ * given by the indexers to the bulk indexers they create.
+ */
+public class BulkIndexerStatistics {
+
+  private final AtomicLong indexedDocs = new AtomicLong(0L);
+  private final AtomicLong sentBytes = new AtomicLong(0L);
+  private final AtomicLong durationInMs = new AtomicLong(0L);
+  private final AtomicLong bulkRequests = new AtomicLong(0L);
+  private final AtomicLong rejectedBulkRequests = new AtomicLong(0L);
+  private final AtomicLong bulkSizeInBytes = new AtomicLong(AdaptiveBulkSizing.INITIAL_BULK_SIZE_IN_BYTES);
+  private final AtomicInteger concurrentRequests = new AtomicInteger(1);
+
+  void onBulkExecuted(boolean rejected, AdaptiveBulkSizing sizing) {
+    bulkRequests.incrementAndGet();
+    if (rejected) {
+      rejectedBulkRequests.incrementAndGet();
+    }
+    bulkSizeInBytes.set(sizing.getBulkSizeInBytes());
+    concurrentRequests.set(sizing.getConcurrentRequests());
+  }
+
+  void onIndexingFinished(IndexingResult result) {
+    indexedDocs.addAndGet(result.getSuccess());
+    sentBytes.addAndGet(result.getBytes());
+    durationInMs.addAndGet(result.getDurationInMs());
+  }
+
+  public long getIndexedDocs() {
+    return indexedDocs.get();
+  }
+
+  public long getSentBytes() {
+    return sentBytes.get();
+  }
+
+  /**
+   * Number of documents indexed per second, while bulk indexers are running
+   */
+  public long getDocsPerSecond() {
+    long ms = durationInMs.get();
+    return ms == 0L ? 0L : (indexedDocs.get() * 1_000L / ms);
+  }
+
+  /**
+   * Number of bytes sent per second, while bulk indexers are running
+   */
+  public long getBytesPerSecond() {
+    long ms = durationInMs.get();
+    return ms == 0L ? 0L : (sentBytes.get() * 1_000L / ms);
+  }
+
+  public long getBulkRequests() {
+    return bulkRequests.get();
+  }
+
+  /**
+   * Number of bulk requests which had at least one document rejected by Elasticsearch because of overload
+   */
+  public long getRejectedBulkRequests() {
+    return rejectedBulkRequests.get();
+  }
+
+  /**
+   * Size of bulk requests, as lastly tuned by a {@link BulkIndexer}
+   */
+  public long getBulkSizeInBytes() {
+    return bulkSizeInBytes.get();
+  }
+
+  /**
+   * Number of concurrent bulk requests, as lastly tuned by a {@link BulkIndexer}
+   */
+  public int getConcurrentRequests() {
+    return concurrentRequests.get();
+  }
+}
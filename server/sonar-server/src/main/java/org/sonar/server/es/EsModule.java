@@ -21,12 +21,15 @@ package org.sonar.server.es;
 
 import org.sonar.core.platform.Module;
 import org.sonar.server.permission.index.AuthorizationTypeSupport;
+import org.sonar.server.permission.index.AuthorizedProjectsCache;
 
 public class EsModule extends Module {
   @Override
   protected void configureModule() {
     add(AuthorizationTypeSupport.class);
+    add(AuthorizedProjectsCache.class);
     add(new EsClientProvider());
     add(EsClientStopper.class);
+    add(BulkIndexerStatistics.class);
   }
 }
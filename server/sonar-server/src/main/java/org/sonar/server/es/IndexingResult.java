@@ -26,10 +26,14 @@ public class IndexingResult {
   // FIXME should be private
   final AtomicLong total = new AtomicLong(0L);
   private final AtomicLong successes = new AtomicLong(0L);
+  private final AtomicLong bytes = new AtomicLong(0L);
+  private final AtomicLong durationInMs = new AtomicLong(0L);
 
   IndexingResult clear() {
     total.set(0L);
     successes.set(0L);
+    bytes.set(0L);
+    durationInMs.set(0L);
     return this;
   }
 
@@ -42,9 +46,21 @@ public class IndexingResult {
     return this;
   }
 
+  IndexingResult addBytes(long sentBytes) {
+    bytes.addAndGet(sentBytes);
+    return this;
+  }
+
+  IndexingResult setDurationInMs(long ms) {
+    durationInMs.set(ms);
+    return this;
+  }
+
   public void add(IndexingResult other) {
     total.addAndGet(other.total.get());
     successes.addAndGet(other.successes.get());
+    bytes.addAndGet(other.bytes.get());
+    durationInMs.addAndGet(other.durationInMs.get());
   }
 
   public long getFailures() {
@@ -66,4 +82,34 @@ public class IndexingResult {
   public boolean isSuccess() {
     return total.get() == successes.get();
   }
+
+  /**
+   * Size of the bulk requests sent to Elasticsearch
+   */
+  public long getBytes() {
+    return bytes.get();
+  }
+
+  public long getDurationInMs() {
+    return durationInMs.get();
+  }
+
+  /**
+   * Number of documents successfully indexed per second
+   */
+  public long getDocsPerSecond() {
+    return perSecond(successes.get());
+  }
+
+  /**
+   * Number of bytes sent to Elasticsearch per second
+   */
+  public long getBytesPerSecond() {
+    return perSecond(bytes.get());
+  }
+
+  private long perSecond(long count) {
+    long ms = durationInMs.get();
+    return ms == 0L ? 0L : (count * 1_000L / ms);
+  }
 }
@@ -22,13 +22,23 @@ package org.sonar.server.es;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ListMultimap;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
 import org.apache.commons.lang.math.RandomUtils;
 import org.sonar.api.Startable;
 import org.sonar.api.config.Configuration;
@@ -51,9 +61,15 @@ public class RecoveryIndexer implements Startable {
   private static final String PROPERTY_DELAY = "sonar.search.recovery.delayInMs";
   private static final String PROPERTY_MIN_AGE = "sonar.search.recovery.minAgeInMs";
   private static final String PROPERTY_LOOP_LIMIT = "sonar.search.recovery.loopLimit";
+  /**
+   * Number of indexers replaying their documents at the same time. Indexers are called sequentially
+   * when this property is 1 (the default).
+   */
+  public static final String PROPERTY_CONCURRENCY = "sonar.search.recovery.concurrency";
   private static final long DEFAULT_DELAY_IN_MS = 5L * 60 * 1000;
   private static final long DEFAULT_MIN_AGE_IN_MS = 5L * 60 * 1000;
   private static final int DEFAULT_LOOP_LIMIT = 10_000;
+  private static final int DEFAULT_CONCURRENCY = 1;
   private static final double CIRCUIT_BREAKER_IN_PERCENT = 0.7;
 
   private final ScheduledExecutorService executorService = Executors.newScheduledThreadPool(1,
@@ -67,6 +83,10 @@ public class RecoveryIndexer implements Startable {
   private final Map<IndexType, ResilientIndexer> indexersByType;
   private final long minAgeInMs;
   private final long loopLimit;
+  @CheckForNull
+  private final ExecutorService indexingExecutorService;
+  private volatile long backlogSize = 0L;
+  private volatile long drainRatePerSecond = 0L;
 
   public RecoveryIndexer(System2 system2, Configuration config, DbClient dbClient, ResilientIndexer... indexers) {
     this.system2 = system2;
@@ -76,6 +96,13 @@ public class RecoveryIndexer implements Startable {
     Arrays.stream(indexers).forEach(i -> i.getIndexTypes().forEach(indexType -> indexersByType.put(indexType, i)));
     this.minAgeInMs = getSetting(PROPERTY_MIN_AGE, DEFAULT_MIN_AGE_IN_MS);
     this.loopLimit = getSetting(PROPERTY_LOOP_LIMIT, DEFAULT_LOOP_LIMIT);
+    int concurrency = (int) getSetting(PROPERTY_CONCURRENCY, DEFAULT_CONCURRENCY);
+    this.indexingExecutorService = concurrency <= 1 ? null : Executors.newFixedThreadPool(concurrency,
+      new ThreadFactoryBuilder()
+        .setPriority(Thread.MIN_PRIORITY)
+        .setNameFormat("RecoveryIndexer-worker-%d")
+        .setDaemon(true)
+        .build());
   }
 
   @Override
@@ -96,6 +123,9 @@ public class RecoveryIndexer implements Startable {
   @Override
   public void stop() {
     try {
+      if (indexingExecutorService != null) {
+        indexingExecutorService.shutdownNow();
+      }
       executorService.shutdown();
       executorService.awaitTermination(5, TimeUnit.SECONDS);
     } catch (InterruptedException e) {
@@ -105,18 +135,41 @@ public class RecoveryIndexer implements Startable {
     }
   }
 
+  /**
+   * Number of items in queue, as counted at the beginning and at the end of the last run
+   */
+  public long getBacklogSize() {
+    return backlogSize;
+  }
+
+  /**
+   * Number of items removed from queue per second during the last run, either because the related
+   * documents are recovered or because the items are duplicates
+   */
+  public long getDrainRatePerSecond() {
+    return drainRatePerSecond;
+  }
+
   @VisibleForTesting
   void recover() {
     try (DbSession dbSession = dbClient.openSession(false)) {
       Profiler profiler = Profiler.create(LOGGER).start();
-      long beforeDate = system2.now() - minAgeInMs;
+      long startedAt = system2.now();
+      long beforeDate = startedAt - minAgeInMs;
       IndexingResult result = new IndexingResult();
+      Coalescer coalescer = new Coalescer();
+      backlogSize = dbClient.esQueueDao().countAll(dbSession);
 
       Collection<EsQueueDto> items = dbClient.esQueueDao().selectForRecovery(dbSession, beforeDate, loopLimit);
       while (!items.isEmpty()) {
-        IndexingResult loopResult = new IndexingResult();
+        List<EsQueueDto> duplicates = new ArrayList<>();
+        Collection<EsQueueDto> uniqueItems = coalescer.coalesce(items, duplicates);
+        if (!duplicates.isEmpty()) {
+          dbClient.esQueueDao().delete(dbSession, duplicates);
+          dbSession.commit();
+        }
 
-        groupItemsByType(items).asMap().forEach((type, typeItems) -> loopResult.add(doIndex(dbSession, type, typeItems)));
+        IndexingResult loopResult = doIndex(dbSession, uniqueItems);
         result.add(loopResult);
 
         if (loopResult.getSuccessRatio() <= CIRCUIT_BREAKER_IN_PERCENT) {
@@ -124,20 +177,68 @@ public class RecoveryIndexer implements Startable {
           break;
         }
 
-        if (loopResult.getTotal() == 0L) {
+        if (loopResult.getTotal() == 0L && duplicates.isEmpty()) {
           break;
         }
 
         items = dbClient.esQueueDao().selectForRecovery(dbSession, beforeDate, loopLimit);
       }
       if (result.getTotal() > 0L) {
-        profiler.stopInfo(LOG_PREFIX + format("%d documents processed [%d failures]", result.getTotal(), result.getFailures()));
+        backlogSize = dbClient.esQueueDao().countAll(dbSession);
+        long durationInMs = system2.now() - startedAt;
+        long drained = result.getSuccess() + coalescer.duplicates;
+        drainRatePerSecond = durationInMs <= 0L ? 0L : (drained * 1_000L / durationInMs);
+        profiler.stopInfo(LOG_PREFIX + format("%d documents processed [%d failures] [%d duplicates discarded]",
+          result.getTotal(), result.getFailures(), coalescer.duplicates));
       }
     } catch (Throwable t) {
       LOGGER.error(LOG_PREFIX + "fail to recover documents", t);
     }
   }
 
+  private IndexingResult doIndex(DbSession dbSession, Collection<EsQueueDto> items) {
+    ListMultimap<IndexType, EsQueueDto> itemsByType = groupItemsByType(items);
+    if (indexingExecutorService == null) {
+      IndexingResult result = new IndexingResult();
+      itemsByType.asMap().forEach((type, typeItems) -> result.add(doIndex(dbSession, type, typeItems)));
+      return result;
+    }
+    return doIndexConcurrently(indexingExecutorService, itemsByType);
+  }
+
+  /**
+   * Each indexer is called in its own thread and DB session. The types supported by the same indexer
+   * are processed sequentially, as indexers are not designed to be called concurrently.
+   */
+  private IndexingResult doIndexConcurrently(ExecutorService executor, ListMultimap<IndexType, EsQueueDto> itemsByType) {
+    Map<ResilientIndexer, Map<IndexType, Collection<EsQueueDto>>> itemsByIndexer = new LinkedHashMap<>();
+    itemsByType.asMap().forEach((type, typeItems) -> itemsByIndexer
+      .computeIfAbsent(indexersByType.get(type), indexer -> new LinkedHashMap<>())
+      .put(type, typeItems));
+
+    List<Callable<IndexingResult>> tasks = new ArrayList<>();
+    itemsByIndexer.values().forEach(indexerItems -> tasks.add(() -> {
+      try (DbSession dbSession = dbClient.openSession(false)) {
+        IndexingResult result = new IndexingResult();
+        indexerItems.forEach((type, typeItems) -> result.add(doIndex(dbSession, type, typeItems)));
+        return result;
+      }
+    }));
+
+    IndexingResult result = new IndexingResult();
+    try {
+      for (Future<IndexingResult> future : executor.invokeAll(tasks)) {
+        result.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while recovering documents", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Fail to recover documents", e.getCause());
+    }
+    return result;
+  }
+
   private IndexingResult doIndex(DbSession dbSession, IndexType type, Collection<EsQueueDto> typeItems) {
     LOGGER.trace(LOG_PREFIX + "processing {} {}", typeItems.size(), type);
 
@@ -153,6 +254,39 @@ public class RecoveryIndexer implements Startable {
     return items.stream().collect(MoreCollectors.index(i -> IndexType.parse(i.getDocType())));
   }
 
+  /**
+   * Keeps a single item per document during a run. The other items referencing the same document are
+   * duplicates which can be removed from queue without being processed:
+   * <ul>
+   *   <li>within a loop, the document is indexed once for all the items</li>
+   *   <li>in the next loops of the run, the document has already been indexed after the item was
+   *   created, as only items older than {@link #minAgeInMs} are recovered</li>
+   * </ul>
+   * The kept item is removed from queue by the indexer only when indexing is successful, so a failure is still
+   * recovered later. It's processed again if it's selected again by a next loop.
+   */
+  private static class Coalescer {
+    private final Set<List<String>> keys = new HashSet<>();
+    private final Set<String> keptUuids = new HashSet<>();
+    private long duplicates = 0L;
+
+    private Collection<EsQueueDto> coalesce(Collection<EsQueueDto> items, List<EsQueueDto> duplicateItems) {
+      List<EsQueueDto> uniqueItems = new ArrayList<>(items.size());
+      for (EsQueueDto item : items) {
+        if (keptUuids.contains(item.getUuid())) {
+          uniqueItems.add(item);
+        } else if (keys.add(Arrays.asList(item.getDocType(), item.getDocIdType(), item.getDocId(), item.getDocRouting()))) {
+          keptUuids.add(item.getUuid());
+          uniqueItems.add(item);
+        } else {
+          duplicateItems.add(item);
+        }
+      }
+      duplicates += duplicateItems.size();
+      return uniqueItems;
+    }
+  }
+
   private long getSetting(String key, long defaultValue) {
     long val = config.getLong(key).orElse(defaultValue);
     LOGGER.debug(LOG_PREFIX + "{}={}", key, val);
@@ -62,6 +62,26 @@ public class MetadataIndex {
     return indexType.getIndex() + "." + indexType.getType() + ".initialized";
   }
 
+  /**
+   * Checkpoint of an indexing from scratch that is not over yet, as recorded by the indexer
+   * of the type. Empty if no such indexing is in progress.
+   */
+  public Optional<String> getIndexingProgress(IndexType indexType) {
+    return getMetadata(indexingProgressId(indexType)).filter(progress -> !progress.isEmpty());
+  }
+
+  public void setIndexingProgress(IndexType indexType, String progress) {
+    setMetadata(indexingProgressId(indexType), progress);
+  }
+
+  public void clearIndexingProgress(IndexType indexType) {
+    setMetadata(indexingProgressId(indexType), "");
+  }
+
+  private static String indexingProgressId(IndexType indexType) {
+    return indexType.getIndex() + "." + indexType.getType() + ".indexingProgress";
+  }
+
   public Optional<String> getDbVendor() {
     return getMetadata(DB_VENDOR_KEY);
   }
@@ -448,7 +448,7 @@ public class IssueIndex {
 
   private QueryBuilder createAuthorizationFilter(boolean checkAuthorization) {
     if (checkAuthorization) {
-      return authorizationTypeSupport.createQueryFilter();
+      return authorizationTypeSupport.createQueryFilter(INDEX_TYPE_ISSUE);
     }
     return matchAllQuery();
   }
@@ -23,15 +23,28 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.sonar.api.config.Configuration;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.api.utils.log.Profiler;
 import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -39,6 +52,7 @@ import org.sonar.db.es.EsQueueDto;
 import org.sonar.db.issue.IssueDto;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.BulkIndexer.Size;
+import org.sonar.server.es.BulkIndexerStatistics;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.IndexType;
 import org.sonar.server.es.IndexingListener;
@@ -46,9 +60,11 @@ import org.sonar.server.es.IndexingResult;
 import org.sonar.server.es.OneToManyResilientIndexingListener;
 import org.sonar.server.es.OneToOneResilientIndexingListener;
 import org.sonar.server.es.ProjectIndexer;
+import org.sonar.server.es.metadata.MetadataIndex;
 import org.sonar.server.permission.index.AuthorizationScope;
 import org.sonar.server.permission.index.NeedAuthorizationIndexer;
 
+import static java.lang.String.format;
 import static java.util.Collections.emptyList;
 import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
 import static org.elasticsearch.index.query.QueryBuilders.termQuery;
@@ -69,14 +85,55 @@ public class IssueIndexer implements ProjectIndexer, NeedAuthorizationIndexer {
   private static final AuthorizationScope AUTHORIZATION_SCOPE = new AuthorizationScope(INDEX_TYPE_ISSUE, project -> Qualifiers.PROJECT.equals(project.getQualifier()));
   private static final ImmutableSet<IndexType> INDEX_TYPES = ImmutableSet.of(INDEX_TYPE_ISSUE);
 
+  /**
+   * Number of threads indexing issues when the index is populated at startup. Issues are then read by ranges
+   * of projects, each range on its own DB connection, and an interrupted indexing resumes after the last range
+   * of a sequence of indexed ranges. All issues are read by a single SQL request when this property is 1 (the default).
+   * <p>
+   * Each thread holds a DB connection while indexing, so this value must be lower than the size of the pool of DB connections.
+   */
+  public static final String PROPERTY_STARTUP_INDEXING_CONCURRENCY = "sonar.search.issues.startupIndexing.concurrency";
+  /**
+   * Number of projects which issues are read by a single SQL request when {@link #PROPERTY_STARTUP_INDEXING_CONCURRENCY} is greater than 1.
+   */
+  public static final String PROPERTY_STARTUP_INDEXING_PROJECTS_PER_RANGE = "sonar.search.issues.startupIndexing.projectsPerRange";
+  private static final int DEFAULT_STARTUP_INDEXING_CONCURRENCY = 1;
+  private static final int DEFAULT_STARTUP_INDEXING_PROJECTS_PER_RANGE = 50;
+
   private final EsClient esClient;
   private final DbClient dbClient;
   private final IssueIteratorFactory issueIteratorFactory;
+  @CheckForNull
+  private final MetadataIndex metadataIndex;
+  private final int startupIndexingConcurrency;
+  private final int startupIndexingProjectsPerRange;
+  @CheckForNull
+  private final BulkIndexerStatistics bulkIndexerStatistics;
 
+  /**
+   * Used when no {@link MetadataIndex} is available in pico container, for example in Compute Engine.
+   */
   public IssueIndexer(EsClient esClient, DbClient dbClient, IssueIteratorFactory issueIteratorFactory) {
+    this(esClient, dbClient, issueIteratorFactory, null, null);
+  }
+
+  public IssueIndexer(EsClient esClient, DbClient dbClient, IssueIteratorFactory issueIteratorFactory,
+    @Nullable Configuration configuration, @Nullable MetadataIndex metadataIndex) {
+    this(esClient, dbClient, issueIteratorFactory, configuration, metadataIndex, null);
+  }
+
+  // this constructor is used by picocontainer
+  public IssueIndexer(EsClient esClient, DbClient dbClient, IssueIteratorFactory issueIteratorFactory,
+    @Nullable Configuration configuration, @Nullable MetadataIndex metadataIndex, @Nullable BulkIndexerStatistics bulkIndexerStatistics) {
     this.esClient = esClient;
     this.dbClient = dbClient;
     this.issueIteratorFactory = issueIteratorFactory;
+    this.metadataIndex = metadataIndex;
+    this.startupIndexingConcurrency = configuration == null ? DEFAULT_STARTUP_INDEXING_CONCURRENCY
+      : Math.max(1, configuration.getInt(PROPERTY_STARTUP_INDEXING_CONCURRENCY).orElse(DEFAULT_STARTUP_INDEXING_CONCURRENCY));
+    this.startupIndexingProjectsPerRange = configuration == null ? DEFAULT_STARTUP_INDEXING_PROJECTS_PER_RANGE
+      : Math.max(1, configuration.getInt(PROPERTY_STARTUP_INDEXING_PROJECTS_PER_RANGE).orElse(DEFAULT_STARTUP_INDEXING_PROJECTS_PER_RANGE));
+    this.bulkIndexerStatistics = bulkIndexerStatistics;
   }
 
   @Override
@@ -91,11 +148,125 @@ public class IssueIndexer implements ProjectIndexer, NeedAuthorizationIndexer {
 
   @Override
   public void indexOnStartup(Set<IndexType> uninitializedIndexTypes) {
+    if (startupIndexingConcurrency > 1 && metadataIndex != null) {
+      indexByProjectUuidRanges(metadataIndex);
+      return;
+    }
     try (IssueIterator issues = issueIteratorFactory.createForAll()) {
       doIndex(issues, Size.LARGE, IndexingListener.FAIL_ON_ERROR);
     }
   }
 
+  /**
+   * Indexes the issues of consecutive ranges of projects with {@link #startupIndexingConcurrency} threads. Each
+   * thread reads and indexes a whole range before taking the next one, so that reading issues from DB can't get
+   * ahead of Elasticsearch. The last project of the sequence of indexed ranges is saved in {@link MetadataIndex}
+   * as ranges are indexed, so that the next startup skips them if indexing is interrupted.
+   */
+  private void indexByProjectUuidRanges(MetadataIndex metadataIndex) {
+    Optional<String> lastIndexedProjectUuid = metadataIndex.getIndexingProgress(INDEX_TYPE_ISSUE);
+    lastIndexedProjectUuid.ifPresent(uuid -> LOGGER.info("Resume indexing of issues after project {}", uuid));
+    List<ProjectUuidRange> ranges = loadProjectUuidRanges(lastIndexedProjectUuid.orElse(null));
+
+    try (BulkIndexer.LargeIndexingSettings settings = BulkIndexer.LargeIndexingSettings.apply(esClient, INDEX_TYPE_ISSUE)) {
+      indexConcurrently(ranges, metadataIndex);
+    }
+    metadataIndex.clearIndexingProgress(INDEX_TYPE_ISSUE);
+  }
+
+  private List<ProjectUuidRange> loadProjectUuidRanges(@Nullable String afterProjectUuid) {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      List<String> projectUuids = dbClient.issueDao().selectProjectUuids(dbSession, afterProjectUuid);
+      return Lists.partition(projectUuids, startupIndexingProjectsPerRange).stream()
+        .map(uuids -> new ProjectUuidRange(uuids.get(0), uuids.get(uuids.size() - 1)))
+        .collect(MoreCollectors.toList());
+    }
+  }
+
+  /**
+   * No range is started anymore once a range failed, and the first failure is propagated once running ranges are over.
+   */
+  private void indexConcurrently(List<ProjectUuidRange> ranges, MetadataIndex metadataIndex) {
+    ExecutorService executorService = Executors.newFixedThreadPool(startupIndexingConcurrency,
+      new ThreadFactoryBuilder().setNameFormat("IssueIndexer-%d").setDaemon(true).build());
+    try {
+      CompletionService<Integer> completionService = new ExecutorCompletionService<>(executorService);
+      boolean[] indexed = new boolean[ranges.size()];
+      int lastOfIndexedSequence = -1;
+      int next = 0;
+      int running = 0;
+      Throwable failure = null;
+      while (true) {
+        while (failure == null && running < startupIndexingConcurrency && next < ranges.size()) {
+          int index = next;
+          completionService.submit(() -> {
+            indexRange(ranges.get(index), index, ranges.size());
+            return index;
+          });
+          next++;
+          running++;
+        }
+        if (running == 0) {
+          break;
+        }
+        Future<Integer> future = completionService.take();
+        running--;
+        try {
+          indexed[future.get()] = true;
+          lastOfIndexedSequence = saveIndexingProgress(ranges, indexed, lastOfIndexedSequence, metadataIndex);
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = e.getCause();
+          }
+        }
+      }
+      propagate(failure);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while indexing issues", e);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private void indexRange(ProjectUuidRange range, int index, int total) {
+    // Profiler is not thread safe, hence one instance per range
+    Profiler profiler = Profiler.create(LOGGER).start();
+    BulkIndexer bulk = createBulkIndexer(Size.REGULAR, IndexingListener.FAIL_ON_ERROR);
+    bulk.start();
+    try (IssueIterator issues = issueIteratorFactory.createForProjectUuidRange(range)) {
+      while (issues.hasNext()) {
+        bulk.add(newIndexRequest(issues.next()));
+      }
+    }
+    IndexingResult result = bulk.stop();
+    profiler.stopInfo(format("Issues of projects %s indexed [range %d/%d, %d issues]", range, index + 1, total, result.getSuccess()));
+  }
+
+  private static int saveIndexingProgress(List<ProjectUuidRange> ranges, boolean[] indexed, int lastOfIndexedSequence, MetadataIndex metadataIndex) {
+    int last = lastOfIndexedSequence;
+    while (last + 1 < indexed.length && indexed[last + 1]) {
+      last++;
+    }
+    if (last > lastOfIndexedSequence) {
+      metadataIndex.setIndexingProgress(INDEX_TYPE_ISSUE, ranges.get(last).getLastProjectUuid());
+    }
+    return last;
+  }
+
+  private static void propagate(@Nullable Throwable failure) {
+    if (failure == null) {
+      return;
+    }
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    throw new IllegalStateException(failure);
+  }
+
   @Override
   public void indexOnAnalysis(String branchUuid) {
     try (IssueIterator issues = issueIteratorFactory.createForProject(branchUuid)) {
@@ -270,6 +441,6 @@ public class IssueIndexer implements ProjectIndexer, NeedAuthorizationIndexer {
   }
 
   private BulkIndexer createBulkIndexer(Size size, IndexingListener listener) {
-    return new BulkIndexer(esClient, INDEX_TYPE_ISSUE, size, listener);
+    return new BulkIndexer(esClient, INDEX_TYPE_ISSUE, size, listener, bulkIndexerStatistics);
   }
 }
@@ -39,6 +39,13 @@ public class IssueIteratorFactory {
     return new IssueIteratorForSingleChunk(dbClient, projectUuid, null);
   }
 
+  /**
+   * Issues of the projects which uuids are in the given range, bounds included
+   */
+  public IssueIterator createForProjectUuidRange(ProjectUuidRange range) {
+    return new IssueIteratorForSingleChunk(dbClient, range);
+  }
+
   public IssueIterator createForIssueKeys(Collection<String> issueKeys) {
     return new IssueIteratorForMultipleChunks(dbClient, issueKeys);
   }
@@ -85,6 +85,7 @@ class IssueIteratorForSingleChunk implements IssueIterator {
     "inner join projects c on c.uuid = i.component_uuid ";
 
   private static final String PROJECT_FILTER = " and c.project_uuid = ? and i.project_uuid = ? ";
+  private static final String PROJECT_RANGE_FILTER = " and i.project_uuid >= ? and i.project_uuid <= ? ";
   private static final String ISSUE_KEY_FILTER_PREFIX = " and i.kee in (";
   private static final String ISSUE_KEY_FILTER_SUFFIX = ")";
 
@@ -96,6 +97,9 @@ class IssueIteratorForSingleChunk implements IssueIterator {
   @CheckForNull
   private final String projectUuid;
 
+  @CheckForNull
+  private final ProjectUuidRange projectUuidRange;
+
   @CheckForNull
   private final Collection<String> issueKeys;
 
@@ -103,9 +107,19 @@ class IssueIteratorForSingleChunk implements IssueIterator {
   private final ResultSetIterator<IssueDoc> iterator;
 
   IssueIteratorForSingleChunk(DbClient dbClient, @Nullable String projectUuid, @Nullable Collection<String> issueKeys) {
+    this(dbClient, projectUuid, null, issueKeys);
+  }
+
+  IssueIteratorForSingleChunk(DbClient dbClient, @Nullable ProjectUuidRange projectUuidRange) {
+    this(dbClient, null, projectUuidRange, null);
+  }
+
+  private IssueIteratorForSingleChunk(DbClient dbClient, @Nullable String projectUuid, @Nullable ProjectUuidRange projectUuidRange,
+    @Nullable Collection<String> issueKeys) {
     checkArgument(issueKeys == null || issueKeys.size() <= DatabaseUtils.PARTITION_SIZE_FOR_ORACLE,
       "Cannot search for more than " + DatabaseUtils.PARTITION_SIZE_FOR_ORACLE + " issue keys at once. Please provide the keys in smaller chunks.");
     this.projectUuid = projectUuid;
+    this.projectUuidRange = projectUuidRange;
     this.issueKeys = issueKeys;
     this.session = dbClient.openSession(false);
 
@@ -142,6 +156,7 @@ class IssueIteratorForSingleChunk implements IssueIterator {
   private String createSql() {
     String sql = SQL_ALL;
     sql += projectUuid == null ? "" : PROJECT_FILTER;
+    sql += projectUuidRange == null ? "" : PROJECT_RANGE_FILTER;
     if (issueKeys != null && !issueKeys.isEmpty()) {
       sql += ISSUE_KEY_FILTER_PREFIX;
       sql += IntStream.range(0, issueKeys.size()).mapToObj(i -> "?").collect(Collectors.joining(","));
@@ -158,6 +173,12 @@ class IssueIteratorForSingleChunk implements IssueIterator {
       stmt.setString(index, projectUuid);
       index++;
     }
+    if (projectUuidRange != null) {
+      stmt.setString(index, projectUuidRange.getFirstProjectUuid());
+      index++;
+      stmt.setString(index, projectUuidRange.getLastProjectUuid());
+      index++;
+    }
     if (issueKeys != null) {
       for (String key : issueKeys) {
         stmt.setString(index, key);
@@ -0,0 +1,51 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.index;
+
+import javax.annotation.concurrent.Immutable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Consecutive project uuids, as sorted by the database. Both bounds are included.
+ */
+@Immutable
+public class ProjectUuidRange {
+  private final String firstProjectUuid;
+  private final String lastProjectUuid;
+
+  public ProjectUuidRange(String firstProjectUuid, String lastProjectUuid) {
+    this.firstProjectUuid = requireNonNull(firstProjectUuid, "first project uuid can't be null");
+    this.lastProjectUuid = requireNonNull(lastProjectUuid, "last project uuid can't be null");
+  }
+
+  public String getFirstProjectUuid() {
+    return firstProjectUuid;
+  }
+
+  public String getLastProjectUuid() {
+    return lastProjectUuid;
+  }
+
+  @Override
+  public String toString() {
+    return "[" + firstProjectUuid + ".." + lastProjectUuid + "]";
+  }
+}
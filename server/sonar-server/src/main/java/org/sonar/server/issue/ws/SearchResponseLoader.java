@@ -252,6 +252,7 @@ public class SearchResponseLoader {
         .stream()
         .filter(ComponentDto::isRootProject)
         .collect(MoreCollectors.uniqueIndex(ComponentDto::projectUuid));
+      userSession.preloadComponentPermissions(componentsByProjectUuid.values());
       for (IssueDto issueDto : result.getIssues()) {
         // so that IssueDto can be used.
         if (collector.contains(ACTIONS)) {
@@ -27,6 +27,7 @@ import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.elasticsearch.action.index.IndexRequest;
 import org.sonar.api.resources.Qualifiers;
@@ -38,6 +39,7 @@ import org.sonar.db.measure.ProjectMeasuresIndexerIterator;
 import org.sonar.db.measure.ProjectMeasuresIndexerIterator.ProjectMeasures;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.BulkIndexer.Size;
+import org.sonar.server.es.BulkIndexerStatistics;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.IndexType;
 import org.sonar.server.es.IndexingListener;
@@ -56,10 +58,18 @@ public class ProjectMeasuresIndexer implements ProjectIndexer, NeedAuthorization
 
   private final DbClient dbClient;
   private final EsClient esClient;
+  @CheckForNull
+  private final BulkIndexerStatistics bulkIndexerStatistics;
 
   public ProjectMeasuresIndexer(DbClient dbClient, EsClient esClient) {
+    this(dbClient, esClient, null);
+  }
+
+  // this constructor is used by picocontainer
+  public ProjectMeasuresIndexer(DbClient dbClient, EsClient esClient, @Nullable BulkIndexerStatistics bulkIndexerStatistics) {
     this.dbClient = dbClient;
     this.esClient = esClient;
+    this.bulkIndexerStatistics = bulkIndexerStatistics;
   }
 
   @Override
@@ -160,7 +170,7 @@ public class ProjectMeasuresIndexer implements ProjectIndexer, NeedAuthorization
   }
 
   private BulkIndexer createBulkIndexer(Size bulkSize, IndexingListener listener) {
-    return new BulkIndexer(esClient, INDEX_TYPE_PROJECT_MEASURES, bulkSize, listener);
+    return new BulkIndexer(esClient, INDEX_TYPE_PROJECT_MEASURES, bulkSize, listener, bulkIndexerStatistics);
   }
 
   private static IndexRequest newIndexRequest(ProjectMeasuresDoc doc) {
@@ -21,6 +21,7 @@ package org.sonar.server.measure.live;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -30,12 +31,15 @@ import java.util.Set;
 import javax.annotation.CheckForNull;
 import org.sonar.api.config.Configuration;
 import org.sonar.api.measures.Metric;
+import org.sonar.api.resources.Scopes;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.component.BranchDto;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.SnapshotDto;
+import org.sonar.db.issue.ComponentIssueGroupDto;
+import org.sonar.db.issue.IssueGroupDto;
 import org.sonar.db.measure.LiveMeasureDto;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.db.organization.OrganizationDto;
@@ -50,6 +54,7 @@ import org.sonar.server.settings.ProjectConfigurationLoader;
 
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
 import static java.util.Collections.singleton;
 import static java.util.stream.Collectors.groupingBy;
 import static org.sonar.api.measures.CoreMetrics.ALERT_STATUS_KEY;
@@ -117,8 +122,13 @@ public class LiveMeasureComputerImpl implements LiveMeasureComputer {
 
     MeasureMatrix matrix = new MeasureMatrix(components, metricsPerId.values(), dbMeasures);
     FormulaContextImpl context = new FormulaContextImpl(matrix, debtRatingGrid);
+    long leakPeriodBeginningDate = beginningOfLeakPeriod.orElse(Long.MAX_VALUE);
+    Map<String, List<IssueGroupDto>> issueGroupsOfFiles = loadIssueGroupsOfFiles(dbSession, components, leakPeriodBeginningDate);
     components.forEach(c -> {
-      IssueCounter issueCounter = new IssueCounter(dbClient.issueDao().selectIssueGroupsByBaseComponent(dbSession, c, beginningOfLeakPeriod.orElse(Long.MAX_VALUE)));
+      Collection<IssueGroupDto> issueGroups = isFile(c)
+        ? issueGroupsOfFiles.getOrDefault(c.uuid(), emptyList())
+        : dbClient.issueDao().selectIssueGroupsByBaseComponent(dbSession, c, leakPeriodBeginningDate);
+      IssueCounter issueCounter = new IssueCounter(issueGroups);
       for (IssueMetricFormula formula : formulaFactory.getFormulas()) {
         // exclude leak formulas when leak period is not defined
         if (beginningOfLeakPeriod.isPresent() || !formula.isOnLeak()) {
@@ -180,6 +190,30 @@ public class LiveMeasureComputerImpl implements LiveMeasureComputer {
     return dbClient.componentDao().selectByUuids(dbSession, componentUuids);
   }
 
+  /**
+   * Loads in a single query the issue groups of the refreshed files, instead of one query per file.
+   * Files have no descendants, so their own issues are the only ones to be counted. Other components
+   * aggregate the issues of their whole subtree and are still loaded one by one.
+   */
+  private Map<String, List<IssueGroupDto>> loadIssueGroupsOfFiles(DbSession dbSession, List<ComponentDto> components, long leakPeriodBeginningDate) {
+    List<String> fileUuids = components.stream()
+      .filter(LiveMeasureComputerImpl::isFile)
+      .map(ComponentDto::uuid)
+      .collect(toArrayList());
+    if (fileUuids.isEmpty()) {
+      return emptyMap();
+    }
+    Map<String, List<IssueGroupDto>> groupsByFileUuid = new HashMap<>();
+    for (ComponentIssueGroupDto group : dbClient.issueDao().selectIssueGroupsByComponentUuids(dbSession, fileUuids, leakPeriodBeginningDate)) {
+      groupsByFileUuid.computeIfAbsent(group.getComponentUuid(), uuid -> new ArrayList<>()).add(group);
+    }
+    return groupsByFileUuid;
+  }
+
+  private static boolean isFile(ComponentDto component) {
+    return Scopes.FILE.equals(component.scope());
+  }
+
   private Set<String> getKeysOfAllInvolvedMetrics(QualityGate gate) {
     Set<String> metricKeys = new HashSet<>();
     for (Metric metric : formulaFactory.getFormulaMetrics()) {
@@ -20,13 +20,18 @@
 package org.sonar.server.permission.index;
 
 import com.google.common.collect.ImmutableMap;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.join.query.JoinQueryBuilders;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.server.ServerSide;
+import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.user.GroupDto;
 import org.sonar.server.es.IndexType;
 import org.sonar.server.es.NewIndex;
@@ -36,6 +41,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
 import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termsQuery;
 
 @ServerSide
 @ComputeEngineSide
@@ -52,10 +58,24 @@ public class AuthorizationTypeSupport {
    */
   public static final String FIELD_ALLOW_ANYONE = "allowAnyone";
 
+  /**
+   * Documents requiring authorization are routed by the uuid of their project, which is also
+   * the id of their parent document of type "authorization".
+   */
+  private static final String FIELD_ROUTING = "_routing";
+
   private final UserSession userSession;
+  @CheckForNull
+  private final AuthorizedProjectsCache authorizedProjectsCache;
 
   public AuthorizationTypeSupport(UserSession userSession) {
+    this(userSession, null);
+  }
+
+  // this constructor is used by picocontainer
+  public AuthorizationTypeSupport(UserSession userSession, @Nullable AuthorizedProjectsCache authorizedProjectsCache) {
     this.userSession = userSession;
+    this.authorizedProjectsCache = authorizedProjectsCache;
   }
 
   /**
@@ -100,8 +120,34 @@ public class AuthorizationTypeSupport {
     if (userSession.isRoot()) {
       return QueryBuilders.matchAllQuery();
     }
+    return createHasParentFilter(createAuthorizationFilter(userSession.getUserId()));
+  }
+
+  /**
+   * Same as {@link #createQueryFilter()}, but the uuids of the projects that the user can browse in
+   * {@code indexType} are taken from {@link AuthorizedProjectsCache} when it is enabled, so that documents
+   * are filtered on their routing instead of being joined on their parent documents.
+   */
+  public QueryBuilder createQueryFilter(IndexType indexType) {
+    if (userSession.isRoot()) {
+      return QueryBuilders.matchAllQuery();
+    }
 
     Integer userId = userSession.getUserId();
+    QueryBuilder authorizationFilter = createAuthorizationFilter(userId);
+    if (authorizedProjectsCache == null || !authorizedProjectsCache.isEnabled()) {
+      return createHasParentFilter(authorizationFilter);
+    }
+    List<Integer> groupIds = userSession.getGroups().stream()
+      .map(GroupDto::getId)
+      .collect(MoreCollectors.toList());
+    Optional<Set<String>> projectUuids = authorizedProjectsCache.getProjectUuids(indexType, userId, groupIds, authorizationFilter);
+    return projectUuids
+      .<QueryBuilder>map(uuids -> termsQuery(FIELD_ROUTING, uuids))
+      .orElseGet(() -> createHasParentFilter(authorizationFilter));
+  }
+
+  private QueryBuilder createAuthorizationFilter(@Nullable Integer userId) {
     BoolQueryBuilder filter = boolQuery();
 
     // anyone
@@ -118,9 +164,13 @@ public class AuthorizationTypeSupport {
       .map(GroupDto::getId)
       .forEach(groupId -> filter.should(termQuery(FIELD_GROUP_IDS, groupId)));
 
+    return QueryBuilders.boolQuery().filter(filter);
+  }
+
+  private static QueryBuilder createHasParentFilter(QueryBuilder authorizationFilter) {
     return JoinQueryBuilders.hasParentQuery(
       TYPE_AUTHORIZATION,
-      QueryBuilders.boolQuery().filter(filter),
+      authorizationFilter,
       false);
   }
 }
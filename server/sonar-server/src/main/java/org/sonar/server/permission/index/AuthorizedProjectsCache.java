@@ -0,0 +1,212 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.permission.index;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.System2;
+import org.sonar.server.es.EsClient;
+import org.sonar.server.es.IndexType;
+
+import static java.util.Comparator.naturalOrder;
+import static org.sonar.core.util.stream.MoreCollectors.toList;
+import static org.sonar.server.es.EsUtils.SCROLL_TIME_IN_MINUTES;
+import static org.sonar.server.es.EsUtils.optimizeScrollRequest;
+import static org.sonar.server.es.EsUtils.scrollIds;
+
+/**
+ * Cache of the uuids of the projects that a user (identified by its id and the ids of its groups) can browse,
+ * as indexed in the types "authorization". Searches can then filter documents on these uuids rather than
+ * joining on the parent documents of type "authorization", which is expensive on large instances.
+ * <p>
+ * The cache is disabled by default. When enabled with {@link #PROPERTY_TTL_IN_SECONDS}, entries are dropped
+ * by {@link PermissionIndexer} each time it indexes permissions in the same process, and are reloaded at the
+ * latest after the time-to-live, so that changes indexed by another process are eventually taken into account.
+ * The cache is emptied when the total number of cached uuids reaches {@link #MAX_CACHED_PROJECT_UUIDS}, so that memory
+ * does not grow with the number of users.
+ */
+@ServerSide
+@ComputeEngineSide
+public class AuthorizedProjectsCache {
+
+  public static final String PROPERTY_TTL_IN_SECONDS = "sonar.search.authorizationCache.ttlInSeconds";
+  private static final long DEFAULT_TTL_IN_SECONDS = 0L;
+
+  /**
+   * Above this number of authorized projects, filtering on the uuids is not cheaper than joining on the
+   * authorization documents. The join is kept in this case.
+   */
+  static final int MAX_PROJECTS = 65_536;
+  /**
+   * The cache is emptied when it reaches this number of uuids, all entries included, so that memory is bounded.
+   */
+  static final long MAX_CACHED_PROJECT_UUIDS = 1_000_000L;
+  private static final int SCROLL_SIZE = 1_000;
+
+  private final EsClient esClient;
+  private final System2 system2;
+  private final long ttlInMs;
+  private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+  // guarded by this
+  private long cachedProjectUuids = 0L;
+
+  public AuthorizedProjectsCache(EsClient esClient, System2 system2) {
+    this(esClient, system2, null);
+  }
+
+  // this constructor is used by picocontainer
+  public AuthorizedProjectsCache(EsClient esClient, System2 system2, @Nullable Configuration configuration) {
+    this.esClient = esClient;
+    this.system2 = system2;
+    long ttlInSeconds = configuration == null ? DEFAULT_TTL_IN_SECONDS
+      : Math.max(0L, configuration.getLong(PROPERTY_TTL_IN_SECONDS).orElse(DEFAULT_TTL_IN_SECONDS));
+    this.ttlInMs = ttlInSeconds * 1_000L;
+  }
+
+  public boolean isEnabled() {
+    return ttlInMs > 0L;
+  }
+
+  /**
+   * Uuids of the projects matching {@code authorizationFilter} in the type "authorization" of {@code indexType}.
+   * Empty if the cache is disabled or if there are too many of them to be cached.
+   *
+   * @param authorizationFilter the filter on the documents of type "authorization" granting access to the user
+   *                            identified by {@code userId} and {@code groupIds}
+   */
+  public Optional<Set<String>> getProjectUuids(IndexType indexType, @Nullable Integer userId, Collection<Integer> groupIds, QueryBuilder authorizationFilter) {
+    if (!isEnabled()) {
+      return Optional.empty();
+    }
+    Key key = new Key(AuthorizationTypeSupport.getAuthorizationIndexType(indexType), userId, groupIds);
+    long now = system2.now();
+    Entry entry = entries.get(key);
+    if (entry == null || entry.loadedAt + ttlInMs <= now) {
+      entry = new Entry(load(key.authorizationIndexType, authorizationFilter), now);
+      put(key, entry);
+    }
+    return Optional.ofNullable(entry.projectUuids);
+  }
+
+  /**
+   * Drops all the entries, for example because permissions have been indexed.
+   */
+  public synchronized void invalidate() {
+    entries.clear();
+    cachedProjectUuids = 0L;
+  }
+
+  synchronized long getCachedProjectUuids() {
+    return cachedProjectUuids;
+  }
+
+  private synchronized void put(Key key, Entry entry) {
+    if (cachedProjectUuids + entry.weight() > MAX_CACHED_PROJECT_UUIDS) {
+      invalidate();
+    }
+    Entry previous = entries.put(key, entry);
+    cachedProjectUuids += entry.weight() - (previous == null ? 0 : previous.weight());
+  }
+
+  @CheckForNull
+  private Set<String> load(IndexType authorizationIndexType, QueryBuilder authorizationFilter) {
+    long total = esClient.prepareSearch(authorizationIndexType)
+      .setQuery(authorizationFilter)
+      .setSize(0)
+      .get()
+      .getHits()
+      .getTotalHits();
+    if (total > MAX_PROJECTS) {
+      return null;
+    }
+
+    SearchRequestBuilder esSearch = esClient.prepareSearch(authorizationIndexType)
+      .setQuery(authorizationFilter)
+      .setFetchSource(false)
+      .setSize(SCROLL_SIZE)
+      .setScroll(TimeValue.timeValueMinutes(SCROLL_TIME_IN_MINUTES));
+    optimizeScrollRequest(esSearch);
+    return ImmutableSet.copyOf(scrollIds(esClient, esSearch.get(), id -> id));
+  }
+
+  private static final class Entry {
+    @CheckForNull
+    private final Set<String> projectUuids;
+    private final long loadedAt;
+
+    private Entry(@Nullable Set<String> projectUuids, long loadedAt) {
+      this.projectUuids = projectUuids;
+      this.loadedAt = loadedAt;
+    }
+
+    /**
+     * Entries without uuids are counted as one uuid, so that their number is bounded too.
+     */
+    private int weight() {
+      return projectUuids == null || projectUuids.isEmpty() ? 1 : projectUuids.size();
+    }
+  }
+
+  private static final class Key {
+    private final IndexType authorizationIndexType;
+    @CheckForNull
+    private final Integer userId;
+    private final List<Integer> groupIds;
+
+    private Key(IndexType authorizationIndexType, @Nullable Integer userId, Collection<Integer> groupIds) {
+      this.authorizationIndexType = authorizationIndexType;
+      this.userId = userId;
+      this.groupIds = groupIds.stream().sorted(naturalOrder()).collect(toList());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key key = (Key) o;
+      return authorizationIndexType.equals(key.authorizationIndexType)
+        && Objects.equals(userId, key.userId)
+        && groupIds.equals(key.groupIds);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(authorizationIndexType, userId, groupIds);
+    }
+  }
+}
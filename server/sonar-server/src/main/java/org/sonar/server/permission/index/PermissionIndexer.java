@@ -28,6 +28,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.elasticsearch.action.index.IndexRequest;
 import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.DbClient;
@@ -35,12 +37,15 @@ import org.sonar.db.DbSession;
 import org.sonar.db.es.EsQueueDto;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.BulkIndexer.Size;
+import org.sonar.server.es.BulkIndexerStatistics;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.IndexType;
+import org.sonar.server.es.IndexingListener;
 import org.sonar.server.es.IndexingResult;
 import org.sonar.server.es.OneToOneResilientIndexingListener;
 import org.sonar.server.es.ProjectIndexer;
 import org.sonar.server.permission.index.PermissionIndexerDao.Dto;
+import org.sonar.server.user.ProjectPermissionsCache;
 
 import static java.util.Collections.emptyList;
 import static org.sonar.core.util.stream.MoreCollectors.toArrayList;
@@ -56,17 +61,46 @@ public class PermissionIndexer implements ProjectIndexer {
   private final EsClient esClient;
   private final Collection<AuthorizationScope> authorizationScopes;
   private final Set<IndexType> indexTypes;
+  @CheckForNull
+  private final AuthorizedProjectsCache authorizedProjectsCache;
+  @CheckForNull
+  private final ProjectPermissionsCache projectPermissionsCache;
+  @CheckForNull
+  private final BulkIndexerStatistics bulkIndexerStatistics;
 
   public PermissionIndexer(DbClient dbClient, EsClient esClient, NeedAuthorizationIndexer... needAuthorizationIndexers) {
-    this(dbClient, esClient, Arrays.stream(needAuthorizationIndexers)
+    this(dbClient, esClient, null, null, needAuthorizationIndexers);
+  }
+
+  // this constructor is used by picocontainer in Compute Engine
+  public PermissionIndexer(DbClient dbClient, EsClient esClient, @Nullable AuthorizedProjectsCache authorizedProjectsCache,
+    @Nullable BulkIndexerStatistics bulkIndexerStatistics, NeedAuthorizationIndexer... needAuthorizationIndexers) {
+    this(dbClient, esClient, authorizedProjectsCache, null, bulkIndexerStatistics, needAuthorizationIndexers);
+  }
+
+  // this constructor is used by picocontainer in web server
+  public PermissionIndexer(DbClient dbClient, EsClient esClient, @Nullable AuthorizedProjectsCache authorizedProjectsCache,
+    @Nullable ProjectPermissionsCache projectPermissionsCache, @Nullable BulkIndexerStatistics bulkIndexerStatistics,
+    NeedAuthorizationIndexer... needAuthorizationIndexers) {
+    this(dbClient, esClient, authorizedProjectsCache, projectPermissionsCache, bulkIndexerStatistics, Arrays.stream(needAuthorizationIndexers)
       .map(NeedAuthorizationIndexer::getAuthorizationScope)
       .collect(MoreCollectors.toList(needAuthorizationIndexers.length)));
   }
 
   @VisibleForTesting
   public PermissionIndexer(DbClient dbClient, EsClient esClient, Collection<AuthorizationScope> authorizationScopes) {
+    this(dbClient, esClient, null, null, null, authorizationScopes);
+  }
+
+  @VisibleForTesting
+  PermissionIndexer(DbClient dbClient, EsClient esClient, @Nullable AuthorizedProjectsCache authorizedProjectsCache,
+    @Nullable ProjectPermissionsCache projectPermissionsCache, @Nullable BulkIndexerStatistics bulkIndexerStatistics,
+    Collection<AuthorizationScope> authorizationScopes) {
     this.dbClient = dbClient;
     this.esClient = esClient;
+    this.authorizedProjectsCache = authorizedProjectsCache;
+    this.projectPermissionsCache = projectPermissionsCache;
+    this.bulkIndexerStatistics = bulkIndexerStatistics;
     this.authorizationScopes = authorizationScopes;
     this.indexTypes = authorizationScopes.stream()
       .map(AuthorizationScope::getIndexType)
@@ -134,7 +168,7 @@ public class PermissionIndexer implements ProjectIndexer {
     scopes.forEach(scope -> {
       IndexType indexType = scope.getIndexType();
 
-      BulkIndexer bulkIndexer = new BulkIndexer(esClient, indexType, bulkSize);
+      BulkIndexer bulkIndexer = new BulkIndexer(esClient, indexType, bulkSize, IndexingListener.FAIL_ON_ERROR, bulkIndexerStatistics);
       bulkIndexer.start();
 
       authorizations.stream()
@@ -144,6 +178,7 @@ public class PermissionIndexer implements ProjectIndexer {
 
       bulkIndexer.stop();
     });
+    invalidateCaches();
   }
 
   @Override
@@ -155,7 +190,8 @@ public class PermissionIndexer implements ProjectIndexer {
       .distinct()
       .map(IndexType::parse)
       .filter(indexTypes::contains)
-      .map(indexType -> new BulkIndexer(esClient, indexType, Size.REGULAR, new OneToOneResilientIndexingListener(dbClient, dbSession, items)))
+      .map(indexType -> new BulkIndexer(esClient, indexType, Size.REGULAR, new OneToOneResilientIndexingListener(dbClient, dbSession, items),
+        bulkIndexerStatistics))
       .collect(Collectors.toList());
 
     if (bulkIndexers.isEmpty()) {
@@ -176,10 +212,20 @@ public class PermissionIndexer implements ProjectIndexer {
     remainingProjectUuids.forEach(projectUuid -> bulkIndexers.forEach(bi -> bi.addDeletion(bi.getIndexType(), projectUuid, projectUuid)));
 
     bulkIndexers.forEach(b -> result.add(b.stop()));
+    invalidateCaches();
 
     return result;
   }
 
+  private void invalidateCaches() {
+    if (authorizedProjectsCache != null) {
+      authorizedProjectsCache.invalidate();
+    }
+    if (projectPermissionsCache != null) {
+      projectPermissionsCache.invalidate();
+    }
+  }
+
   private static IndexRequest newIndexRequest(PermissionIndexerDao.Dto dto, IndexType indexType) {
     Map<String, Object> doc = new HashMap<>();
     if (dto.isAllowAnyone()) {
@@ -0,0 +1,107 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo.Section;
+import org.sonar.server.es.BulkIndexerStatistics;
+import org.sonar.server.es.RecoveryIndexer;
+
+import static org.sonar.process.systeminfo.SystemInfoUtils.setAttribute;
+
+/**
+ * Throughput and tuning of the bulk requests sent to Elasticsearch by the web server, and
+ * progress of the recovery of the documents which failed to be indexed
+ */
+public class EsIndexingSection extends BaseSectionMBean implements EsIndexingSectionMBean {
+
+  private final RecoveryIndexer recoveryIndexer;
+  private final BulkIndexerStatistics statistics;
+
+  public EsIndexingSection(RecoveryIndexer recoveryIndexer, BulkIndexerStatistics statistics) {
+    this.recoveryIndexer = recoveryIndexer;
+    this.statistics = statistics;
+  }
+
+  @Override
+  public String name() {
+    return "Search Indexing";
+  }
+
+  @Override
+  public long getIndexedDocs() {
+    return statistics.getIndexedDocs();
+  }
+
+  @Override
+  public long getIndexedDocsPerSecond() {
+    return statistics.getDocsPerSecond();
+  }
+
+  @Override
+  public long getSentBytesPerSecond() {
+    return statistics.getBytesPerSecond();
+  }
+
+  @Override
+  public long getBulkRequests() {
+    return statistics.getBulkRequests();
+  }
+
+  @Override
+  public long getRejectedBulkRequests() {
+    return statistics.getRejectedBulkRequests();
+  }
+
+  @Override
+  public long getBulkSizeInBytes() {
+    return statistics.getBulkSizeInBytes();
+  }
+
+  @Override
+  public int getConcurrentBulkRequests() {
+    return statistics.getConcurrentRequests();
+  }
+
+  @Override
+  public long getRecoveryBacklogSize() {
+    return recoveryIndexer.getBacklogSize();
+  }
+
+  @Override
+  public long getRecoveryDrainRatePerSecond() {
+    return recoveryIndexer.getDrainRatePerSecond();
+  }
+
+  @Override
+  public Section toProtobuf() {
+    Section.Builder protobuf = Section.newBuilder();
+    protobuf.setName(name());
+    setAttribute(protobuf, "Indexed Documents", getIndexedDocs());
+    setAttribute(protobuf, "Indexed Documents per Second", getIndexedDocsPerSecond());
+    setAttribute(protobuf, "Sent Bytes per Second", getSentBytesPerSecond());
+    setAttribute(protobuf, "Bulk Requests", getBulkRequests());
+    setAttribute(protobuf, "Rejected Bulk Requests", getRejectedBulkRequests());
+    setAttribute(protobuf, "Bulk Size (bytes)", getBulkSizeInBytes());
+    setAttribute(protobuf, "Concurrent Bulk Requests", getConcurrentBulkRequests());
+    setAttribute(protobuf, "Recovery Backlog", getRecoveryBacklogSize());
+    setAttribute(protobuf, "Recovery Drain Rate per Second", getRecoveryDrainRatePerSecond());
+    return protobuf.build();
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+public interface EsIndexingSectionMBean {
+
+  /**
+   * Number of documents successfully indexed by bulk requests since startup
+   */
+  long getIndexedDocs();
+
+  /**
+   * Number of documents indexed per second, while bulk indexing is running
+   */
+  long getIndexedDocsPerSecond();
+
+  /**
+   * Number of bytes sent to Elasticsearch per second, while bulk indexing is running
+   */
+  long getSentBytesPerSecond();
+
+  long getBulkRequests();
+
+  /**
+   * Number of bulk requests rejected, at least partially, by Elasticsearch because of overload
+   */
+  long getRejectedBulkRequests();
+
+  /**
+   * Size of bulk requests, as lastly adapted to the latency of Elasticsearch
+   */
+  long getBulkSizeInBytes();
+
+  /**
+   * Number of concurrent bulk requests, as lastly adapted to the latency of Elasticsearch
+   */
+  int getConcurrentBulkRequests();
+
+  /**
+   * Number of documents waiting in DB to be recovered, as counted by the last run of recovery
+   */
+  long getRecoveryBacklogSize();
+
+  /**
+   * Number of documents removed per second from the recovery queue during the last run of recovery
+   */
+  long getRecoveryDrainRatePerSecond();
+}
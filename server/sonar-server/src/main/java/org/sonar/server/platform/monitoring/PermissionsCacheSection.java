@@ -0,0 +1,79 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo.Section;
+import org.sonar.server.user.ProjectPermissionsCache;
+
+import static org.sonar.process.systeminfo.SystemInfoUtils.setAttribute;
+
+/**
+ * Efficiency of the cache of the permissions of users on projects
+ */
+public class PermissionsCacheSection extends BaseSectionMBean implements PermissionsCacheSectionMBean {
+
+  private final ProjectPermissionsCache cache;
+
+  public PermissionsCacheSection(ProjectPermissionsCache cache) {
+    this.cache = cache;
+  }
+
+  @Override
+  public String name() {
+    return "Permissions Cache";
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return cache.isEnabled();
+  }
+
+  @Override
+  public int getEntries() {
+    return cache.getSize();
+  }
+
+  @Override
+  public long getHits() {
+    return cache.getHits();
+  }
+
+  @Override
+  public long getMisses() {
+    return cache.getMisses();
+  }
+
+  @Override
+  public long getHitRatio() {
+    return cache.getHitRatio();
+  }
+
+  @Override
+  public Section toProtobuf() {
+    Section.Builder protobuf = Section.newBuilder();
+    protobuf.setName(name());
+    setAttribute(protobuf, "Enabled", isEnabled());
+    setAttribute(protobuf, "Entries", getEntries());
+    setAttribute(protobuf, "Hits", getHits());
+    setAttribute(protobuf, "Misses", getMisses());
+    setAttribute(protobuf, "Hit Ratio (%)", getHitRatio());
+    return protobuf.build();
+  }
+}
@@ -48,6 +48,8 @@ public class WebSystemInfoModule {
       DbConnectionSection.class,
       EsStateSection.class,
       EsIndexesSection.class,
+      EsIndexingSection.class,
+      PermissionsCacheSection.class,
       LoggingSection.class,
       PluginsSection.class,
       SettingsSection.class,
@@ -67,6 +69,8 @@ public class WebSystemInfoModule {
       DbSection.class,
       DbConnectionSection.class,
       EsIndexesSection.class,
+      EsIndexingSection.class,
+      PermissionsCacheSection.class,
       EsClusterStateSection.class,
       GlobalSystemSection.class,
       LoggingSection.class,
@@ -42,6 +42,8 @@ import org.sonar.server.branch.BranchFeatureProxyImpl;
 import org.sonar.server.branch.pr.ws.PullRequestWsModule;
 import org.sonar.server.branch.ws.BranchWsModule;
 import org.sonar.server.ce.CeModule;
+import org.sonar.server.ce.queue.CeQueueClusterNotifier;
+import org.sonar.server.ce.queue.CeQueueStandaloneNotifier;
 import org.sonar.server.ce.ws.CeWsModule;
 import org.sonar.server.component.ComponentCleanerService;
 import org.sonar.server.component.ComponentFinder;
@@ -212,6 +214,7 @@ import org.sonar.server.ui.PageRepository;
 import org.sonar.server.ui.ws.NavigationWsModule;
 import org.sonar.server.updatecenter.UpdateCenterModule;
 import org.sonar.server.user.NewUserNotifier;
+import org.sonar.server.user.ProjectPermissionsCache;
 import org.sonar.server.user.SecurityRealmFactory;
 import org.sonar.server.user.UserSessionFactoryImpl;
 import org.sonar.server.user.UserUpdater;
@@ -257,9 +260,11 @@ public class PlatformLevel4 extends PlatformLevel {
 
     addIfCluster(
       NodeHealthModule.class,
-      ChangeLogLevelClusterService.class);
+      ChangeLogLevelClusterService.class,
+      CeQueueClusterNotifier.class);
     addIfStandalone(
-      ChangeLogLevelStandaloneService.class);
+      ChangeLogLevelStandaloneService.class,
+      CeQueueStandaloneNotifier.class);
 
     add(
       ClusterVerification.class,
@@ -368,6 +373,7 @@ public class PlatformLevel4 extends PlatformLevel {
 
       // users
       UserSessionFactoryImpl.class,
+      ProjectPermissionsCache.class,
       SecurityRealmFactory.class,
       NewUserNotifier.class,
       UserIndexDefinition.class,
@@ -25,6 +25,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.search.SearchRequestBuilder;
@@ -40,6 +41,7 @@ import org.sonar.db.qualityprofile.RulesProfileDto;
 import org.sonar.db.rule.SeverityUtil;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.BulkIndexer.Size;
+import org.sonar.server.es.BulkIndexerStatistics;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.IndexType;
 import org.sonar.server.es.IndexingListener;
@@ -63,10 +65,18 @@ public class ActiveRuleIndexer implements ResilientIndexer {
 
   private final DbClient dbClient;
   private final EsClient esClient;
+  @CheckForNull
+  private final BulkIndexerStatistics bulkIndexerStatistics;
 
   public ActiveRuleIndexer(DbClient dbClient, EsClient esClient) {
+    this(dbClient, esClient, null);
+  }
+
+  // this constructor is used by picocontainer
+  public ActiveRuleIndexer(DbClient dbClient, EsClient esClient, @Nullable BulkIndexerStatistics bulkIndexerStatistics) {
     this.dbClient = dbClient;
     this.esClient = esClient;
+    this.bulkIndexerStatistics = bulkIndexerStatistics;
   }
 
   @Override
@@ -202,7 +212,7 @@ public class ActiveRuleIndexer implements ResilientIndexer {
   }
 
   private BulkIndexer createBulkIndexer(Size size, IndexingListener listener) {
-    return new BulkIndexer(esClient, INDEX_TYPE_ACTIVE_RULE, size, listener);
+    return new BulkIndexer(esClient, INDEX_TYPE_ACTIVE_RULE, size, listener, bulkIndexerStatistics);
   }
 
   private static IndexRequest newIndexRequest(IndexedActiveRuleDto dto) {
@@ -25,6 +25,8 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.elasticsearch.action.index.IndexRequest;
 import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.DbClient;
@@ -36,6 +38,7 @@ import org.sonar.db.rule.RuleExtensionForIndexingDto;
 import org.sonar.db.rule.RuleForIndexingDto;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.BulkIndexer.Size;
+import org.sonar.server.es.BulkIndexerStatistics;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.IndexType;
 import org.sonar.server.es.IndexingListener;
@@ -54,10 +57,18 @@ public class RuleIndexer implements ResilientIndexer {
 
   private final EsClient esClient;
   private final DbClient dbClient;
+  @CheckForNull
+  private final BulkIndexerStatistics bulkIndexerStatistics;
 
   public RuleIndexer(EsClient esClient, DbClient dbClient) {
+    this(esClient, dbClient, null);
+  }
+
+  // this constructor is used by picocontainer
+  public RuleIndexer(EsClient esClient, DbClient dbClient, @Nullable BulkIndexerStatistics bulkIndexerStatistics) {
     this.esClient = esClient;
     this.dbClient = dbClient;
+    this.bulkIndexerStatistics = bulkIndexerStatistics;
   }
 
   @Override
@@ -210,7 +221,7 @@ public class RuleIndexer implements ResilientIndexer {
   }
 
   private BulkIndexer createBulkIndexer(Size bulkSize, IndexingListener listener) {
-    return new BulkIndexer(esClient, INDEX_TYPE_RULE, bulkSize, listener);
+    return new BulkIndexer(esClient, INDEX_TYPE_RULE, bulkSize, listener, bulkIndexerStatistics);
   }
 
   private static ListMultimap<IndexType, EsQueueDto> groupItemsByType(Collection<EsQueueDto> items) {
@@ -23,6 +23,8 @@ import com.google.common.collect.ImmutableSet;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.sonar.core.util.stream.MoreCollectors;
@@ -31,6 +33,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.es.EsQueueDto;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.BulkIndexer.Size;
+import org.sonar.server.es.BulkIndexerStatistics;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.IndexType;
 import org.sonar.server.es.IndexingListener;
@@ -53,10 +56,18 @@ public class TestIndexer implements ProjectIndexer {
 
   private final DbClient dbClient;
   private final EsClient esClient;
+  @CheckForNull
+  private final BulkIndexerStatistics bulkIndexerStatistics;
 
   public TestIndexer(DbClient dbClient, EsClient esClient) {
+    this(dbClient, esClient, null);
+  }
+
+  // this constructor is used by picocontainer
+  public TestIndexer(DbClient dbClient, EsClient esClient, @Nullable BulkIndexerStatistics bulkIndexerStatistics) {
     this.dbClient = dbClient;
     this.esClient = esClient;
+    this.bulkIndexerStatistics = bulkIndexerStatistics;
   }
 
   @Override
@@ -69,7 +80,7 @@ public class TestIndexer implements ProjectIndexer {
     try (DbSession dbSession = dbClient.openSession(false);
       TestResultSetIterator rowIt = TestResultSetIterator.create(dbClient, dbSession, null)) {
 
-      BulkIndexer bulkIndexer = new BulkIndexer(esClient, INDEX_TYPE_TEST, Size.LARGE);
+      BulkIndexer bulkIndexer = new BulkIndexer(esClient, INDEX_TYPE_TEST, Size.LARGE, IndexingListener.FAIL_ON_ERROR, bulkIndexerStatistics);
       bulkIndexer.start();
       addTestsToBulkIndexer(rowIt, bulkIndexer);
       bulkIndexer.stop();
@@ -78,7 +89,7 @@ public class TestIndexer implements ProjectIndexer {
 
   @Override
   public void indexOnAnalysis(String branchUuid) {
-    BulkIndexer bulkIndexer = new BulkIndexer(esClient, INDEX_TYPE_TEST, Size.REGULAR);
+    BulkIndexer bulkIndexer = new BulkIndexer(esClient, INDEX_TYPE_TEST, Size.REGULAR, IndexingListener.FAIL_ON_ERROR, bulkIndexerStatistics);
     bulkIndexer.start();
     addProjectDeletionToBulkIndexer(bulkIndexer, branchUuid);
     try (DbSession dbSession = dbClient.openSession(false);
@@ -126,7 +137,7 @@ public class TestIndexer implements ProjectIndexer {
     }
 
     IndexingListener listener = new OneToManyResilientIndexingListener(dbClient, dbSession, items);
-    BulkIndexer bulkIndexer = new BulkIndexer(esClient, INDEX_TYPE_TEST, Size.REGULAR, listener);
+    BulkIndexer bulkIndexer = new BulkIndexer(esClient, INDEX_TYPE_TEST, Size.REGULAR, listener, bulkIndexerStatistics);
     bulkIndexer.start();
     items.forEach(i -> {
       String projectUuid = i.getDocId();
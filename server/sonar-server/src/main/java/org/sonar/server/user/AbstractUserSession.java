@@ -141,6 +141,21 @@ public abstract class AbstractUserSession implements UserSession {
       .collect(MoreCollectors.toList());
   }
 
+  @Override
+  public final UserSession preloadComponentPermissions(Collection<ComponentDto> components) {
+    if (!isRoot() && !components.isEmpty()) {
+      doPreloadComponentPermissions(components);
+    }
+    return this;
+  }
+
+  /**
+   * Does nothing by default, permissions being loaded on demand. To be overridden if needed.
+   */
+  protected void doPreloadComponentPermissions(Collection<ComponentDto> components) {
+    // nothing to do
+  }
+
   @Override
   public final UserSession checkIsSystemAdministrator() {
     if (!isSystemAdministrator()) {
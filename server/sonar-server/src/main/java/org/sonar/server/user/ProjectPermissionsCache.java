@@ -0,0 +1,175 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.user;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.System2;
+
+import static java.util.Comparator.naturalOrder;
+import static org.sonar.core.util.stream.MoreCollectors.toList;
+
+/**
+ * Cache of the permissions of users on projects, shared by the {@link ServerUserSession}s of all the requests.
+ * <p>
+ * Entries are keyed by user and by the groups of the user, so that changes of group membership are taken
+ * into account immediately. They are dropped on permission changes (see
+ * {@link org.sonar.server.permission.index.PermissionIndexer}) and expire after the time-to-live defined
+ * by {@link #PROPERTY_TTL_IN_SECONDS}. The cache is disabled by default.
+ */
+@ServerSide
+public class ProjectPermissionsCache {
+
+  public static final String PROPERTY_TTL_IN_SECONDS = "sonar.web.permissionsCache.ttlInSeconds";
+  private static final long DEFAULT_TTL_IN_SECONDS = 0L;
+
+  /**
+   * The cache is emptied when it reaches this number of entries, so that memory is bounded.
+   */
+  static final int MAX_ENTRIES = 100_000;
+
+  private final System2 system2;
+  private final long ttlInMs;
+  private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  public ProjectPermissionsCache(System2 system2) {
+    this(system2, null);
+  }
+
+  // this constructor is used by picocontainer
+  public ProjectPermissionsCache(System2 system2, @Nullable Configuration configuration) {
+    this.system2 = system2;
+    long ttlInSeconds = configuration == null ? DEFAULT_TTL_IN_SECONDS
+      : Math.max(0L, configuration.getLong(PROPERTY_TTL_IN_SECONDS).orElse(DEFAULT_TTL_IN_SECONDS));
+    this.ttlInMs = ttlInSeconds * 1_000L;
+  }
+
+  public boolean isEnabled() {
+    return ttlInMs > 0L;
+  }
+
+  /**
+   * @return the permissions of the user on the project, or {@code null} if they are not cached
+   */
+  @CheckForNull
+  public Set<String> get(@Nullable Integer userId, Collection<Integer> groupIds, String projectUuid) {
+    if (!isEnabled()) {
+      return null;
+    }
+    Entry entry = entries.get(new Key(userId, groupIds, projectUuid));
+    if (entry == null || entry.loadedAt + ttlInMs <= system2.now()) {
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    return entry.permissions;
+  }
+
+  public void put(@Nullable Integer userId, Collection<Integer> groupIds, String projectUuid, Set<String> permissions) {
+    if (!isEnabled()) {
+      return;
+    }
+    if (entries.size() >= MAX_ENTRIES) {
+      entries.clear();
+    }
+    entries.put(new Key(userId, groupIds, projectUuid), new Entry(permissions, system2.now()));
+  }
+
+  /**
+   * Drops all the entries, for example because permissions have been changed.
+   */
+  public void invalidate() {
+    entries.clear();
+  }
+
+  public int getSize() {
+    return entries.size();
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Percentage of the lookups served by the cache since startup
+   */
+  public long getHitRatio() {
+    long h = hits.get();
+    long total = h + misses.get();
+    return total == 0L ? 0L : (h * 100L / total);
+  }
+
+  private static final class Entry {
+    private final Set<String> permissions;
+    private final long loadedAt;
+
+    private Entry(Set<String> permissions, long loadedAt) {
+      this.permissions = permissions;
+      this.loadedAt = loadedAt;
+    }
+  }
+
+  private static final class Key {
+    @CheckForNull
+    private final Integer userId;
+    private final List<Integer> groupIds;
+    private final String projectUuid;
+
+    private Key(@Nullable Integer userId, Collection<Integer> groupIds, String projectUuid) {
+      this.userId = userId;
+      this.groupIds = groupIds.stream().sorted(naturalOrder()).collect(toList());
+      this.projectUuid = projectUuid;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key key = (Key) o;
+      return Objects.equals(userId, key.userId)
+        && groupIds.equals(key.groupIds)
+        && projectUuid.equals(key.projectUuid);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(userId, groupIds, projectUuid);
+    }
+  }
+}
@@ -25,6 +25,7 @@ import com.google.common.collect.ImmutableSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -54,6 +55,8 @@ public class ServerUserSession extends AbstractUserSession {
   private final DbClient dbClient;
   private final OrganizationFlags organizationFlags;
   private final DefaultOrganizationProvider defaultOrganizationProvider;
+  @CheckForNull
+  private final ProjectPermissionsCache projectPermissionsCache;
   private final Supplier<Collection<GroupDto>> groups = Suppliers.memoize(this::loadGroups);
   private final Supplier<Boolean> isSystemAdministratorSupplier = Suppliers.memoize(this::loadIsSystemAdministrator);
   private final Map<String, String> projectUuidByComponentUuid = newHashMap();
@@ -62,9 +65,15 @@ public class ServerUserSession extends AbstractUserSession {
 
   ServerUserSession(DbClient dbClient, OrganizationFlags organizationFlags,
     DefaultOrganizationProvider defaultOrganizationProvider, @Nullable UserDto userDto) {
+    this(dbClient, organizationFlags, defaultOrganizationProvider, null, userDto);
+  }
+
+  ServerUserSession(DbClient dbClient, OrganizationFlags organizationFlags, DefaultOrganizationProvider defaultOrganizationProvider,
+    @Nullable ProjectPermissionsCache projectPermissionsCache, @Nullable UserDto userDto) {
     this.dbClient = dbClient;
     this.organizationFlags = organizationFlags;
     this.defaultOrganizationProvider = defaultOrganizationProvider;
+    this.projectPermissionsCache = projectPermissionsCache;
     this.userDto = userDto;
   }
 
@@ -168,18 +177,91 @@ public class ServerUserSession extends AbstractUserSession {
   }
 
   private Set<String> loadProjectPermissions(String projectUuid) {
+    Set<String> cachedPermissions = getCachedPermissions(projectUuid);
+    if (cachedPermissions != null) {
+      return cachedPermissions;
+    }
+    Set<String> permissions;
     try (DbSession dbSession = dbClient.openSession(false)) {
       com.google.common.base.Optional<ComponentDto> component = dbClient.componentDao().selectByUuid(dbSession, projectUuid);
       if (!component.isPresent()) {
-        return Collections.emptySet();
+        permissions = Collections.emptySet();
+      } else {
+        permissions = toProjectPermissions(component.get(), loadDbPermissions(dbSession, projectUuid));
       }
-      if (component.get().isPrivate()) {
-        return loadDbPermissions(dbSession, projectUuid);
+    }
+    cachePermissions(projectUuid, permissions);
+    return permissions;
+  }
+
+  private static Set<String> toProjectPermissions(ComponentDto project, Set<String> dbPermissions) {
+    if (project.isPrivate()) {
+      return dbPermissions;
+    }
+    ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+    builder.addAll(ProjectPermissions.PUBLIC_PERMISSIONS);
+    builder.addAll(dbPermissions);
+    return builder.build();
+  }
+
+  @CheckForNull
+  private Set<String> getCachedPermissions(String projectUuid) {
+    if (projectPermissionsCache == null || !projectPermissionsCache.isEnabled()) {
+      return null;
+    }
+    return projectPermissionsCache.get(getUserId(), getGroupIds(), projectUuid);
+  }
+
+  private void cachePermissions(String projectUuid, Set<String> permissions) {
+    if (projectPermissionsCache != null && projectPermissionsCache.isEnabled()) {
+      projectPermissionsCache.put(getUserId(), getGroupIds(), projectUuid, permissions);
+    }
+  }
+
+  private List<Integer> getGroupIds() {
+    return getGroups().stream().map(GroupDto::getId).collect(MoreCollectors.toList());
+  }
+
+  /**
+   * Loads the permissions on all the projects which are not loaded yet with two queries, rather than
+   * two queries per project.
+   */
+  @Override
+  protected void doPreloadComponentPermissions(Collection<ComponentDto> components) {
+    if (permissionsByProjectUuid == null) {
+      permissionsByProjectUuid = new HashMap<>();
+    }
+    Set<String> projectUuids = new HashSet<>();
+    for (ComponentDto component : components) {
+      String projectUuid = defaultIfEmpty(component.getMainBranchProjectUuid(), component.projectUuid());
+      projectUuidByComponentUuid.put(component.uuid(), projectUuid);
+      if (!permissionsByProjectUuid.containsKey(projectUuid)) {
+        Set<String> cachedPermissions = getCachedPermissions(projectUuid);
+        if (cachedPermissions == null) {
+          projectUuids.add(projectUuid);
+        } else {
+          permissionsByProjectUuid.put(projectUuid, cachedPermissions);
+        }
+      }
+    }
+    if (projectUuids.isEmpty()) {
+      return;
+    }
+
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      Map<String, Set<String>> dbPermissionsByProjectUuid = new HashMap<>();
+      dbClient.authorizationDao().selectProjectPermissions(dbSession, projectUuids, getUserId())
+        .forEach(p -> dbPermissionsByProjectUuid.computeIfAbsent(p.getProjectUuid(), k -> new HashSet<>()).add(p.getPermission()));
+      Map<String, ComponentDto> projectsByUuid = dbClient.componentDao().selectByUuids(dbSession, projectUuids)
+        .stream()
+        .collect(MoreCollectors.uniqueIndex(ComponentDto::uuid));
+      for (String projectUuid : projectUuids) {
+        ComponentDto project = projectsByUuid.get(projectUuid);
+        Set<String> permissions = project == null ? Collections.emptySet()
+          : toProjectPermissions(project, dbPermissionsByProjectUuid.getOrDefault(projectUuid, Collections.emptySet()));
+        permissionsByProjectUuid.put(projectUuid, permissions);
+        cachePermissions(projectUuid, permissions);
       }
-      ImmutableSet.Builder<String> builder = ImmutableSet.builder();
-      builder.addAll(ProjectPermissions.PUBLIC_PERMISSIONS);
-      builder.addAll(loadDbPermissions(dbSession, projectUuid));
-      return builder.build();
     }
   }
 
@@ -164,4 +164,9 @@ public class ThreadLocalUserSession implements UserSession {
   public List<ComponentDto> keepAuthorizedComponents(String permission, Collection<ComponentDto> components) {
     return get().keepAuthorizedComponents(permission, components);
   }
+
+  @Override
+  public UserSession preloadComponentPermissions(Collection<ComponentDto> components) {
+    return get().preloadComponentPermissions(components);
+  }
 }
@@ -26,6 +26,8 @@ import com.google.common.collect.Maps;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.elasticsearch.action.index.IndexRequest;
 import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.DbClient;
@@ -34,6 +36,7 @@ import org.sonar.db.es.EsQueueDto;
 import org.sonar.db.user.UserDto;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.BulkIndexer.Size;
+import org.sonar.server.es.BulkIndexerStatistics;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.IndexType;
 import org.sonar.server.es.IndexingListener;
@@ -50,10 +53,18 @@ public class UserIndexer implements ResilientIndexer {
 
   private final DbClient dbClient;
   private final EsClient esClient;
+  @CheckForNull
+  private final BulkIndexerStatistics bulkIndexerStatistics;
 
   public UserIndexer(DbClient dbClient, EsClient esClient) {
+    this(dbClient, esClient, null);
+  }
+
+  // this constructor is used by picocontainer
+  public UserIndexer(DbClient dbClient, EsClient esClient, @Nullable BulkIndexerStatistics bulkIndexerStatistics) {
     this.dbClient = dbClient;
     this.esClient = esClient;
+    this.bulkIndexerStatistics = bulkIndexerStatistics;
   }
 
   @Override
@@ -133,7 +144,7 @@ public class UserIndexer implements ResilientIndexer {
   }
 
   private BulkIndexer newBulkIndexer(Size bulkSize, IndexingListener listener) {
-    return new BulkIndexer(esClient, INDEX_TYPE_USER, bulkSize, listener);
+    return new BulkIndexer(esClient, INDEX_TYPE_USER, bulkSize, listener, bulkIndexerStatistics);
   }
 
   private static IndexRequest newIndexRequest(UserDto user, ListMultimap<String, String> organizationUuidsByUserUuid) {
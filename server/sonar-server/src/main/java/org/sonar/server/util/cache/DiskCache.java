@@ -25,6 +25,8 @@ import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.nio.file.Files;
+import javax.annotation.CheckForNull;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.sonar.api.utils.System2;
@@ -33,15 +35,24 @@ import org.sonar.server.util.ObjectInputStreamIterator;
 
 /**
  * Serialize and deserialize objects on disk. No search capabilities, only traversal (full scan).
+ * <p>
+ * Objects are serialized with Java serialization, unless a {@link DiskCacheCodec} is provided. In that case they are
+ * written in blocks of binary encoded objects, optionally compressed with LZ4, which is much cheaper in CPU and disk
+ * space for large amount of objects.
  */
 public class DiskCache<O extends Serializable> {
 
   private final File file;
   private final System2 system2;
+  @CheckForNull
+  private final DiskCacheCodec<O> codec;
+  private final boolean compressed;
 
   public DiskCache(File file, System2 system2) {
     this.system2 = system2;
     this.file = file;
+    this.codec = null;
+    this.compressed = false;
     OutputStream output = null;
     boolean threw = true;
     try {
@@ -63,11 +74,27 @@ public class DiskCache<O extends Serializable> {
     }
   }
 
+  public DiskCache(File file, System2 system2, DiskCacheCodec<O> codec, boolean compressed) {
+    this.system2 = system2;
+    this.file = file;
+    this.codec = codec;
+    this.compressed = compressed;
+    try {
+      // creates or truncates the file, so that "traverse()" can be called before any call to "newAppender()"
+      Files.write(file.toPath(), new byte[0]);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to write into file: " + file, e);
+    }
+  }
+
   public DiskAppender newAppender() {
     return new DiskAppender();
   }
 
   public CloseableIterator<O> traverse() {
+    if (codec != null) {
+      return new DiskCacheBlockIterator<>(file, codec, compressed);
+    }
     try {
       return new ObjectInputStreamIterator<>(FileUtils.openInputStream(file));
     } catch (IOException e) {
@@ -76,9 +103,18 @@ public class DiskCache<O extends Serializable> {
   }
 
   public class DiskAppender implements AutoCloseable {
+    @CheckForNull
     private final ObjectOutputStream output;
+    @CheckForNull
+    private final DiskCacheBlockWriter<O> blockWriter;
 
     private DiskAppender() {
+      if (codec != null) {
+        this.output = null;
+        this.blockWriter = new DiskCacheBlockWriter<>(file, codec, compressed);
+        return;
+      }
+      this.blockWriter = null;
       try {
         this.output = new ObjectOutputStream(new FileOutputStream(file, true)) {
           @Override
@@ -92,6 +128,10 @@ public class DiskCache<O extends Serializable> {
     }
 
     public DiskAppender append(O object) {
+      if (blockWriter != null) {
+        blockWriter.write(object);
+        return this;
+      }
       try {
         output.writeObject(object);
         output.reset();
@@ -103,7 +143,11 @@ public class DiskCache<O extends Serializable> {
 
     @Override
     public void close() {
-      system2.close(output);
+      if (blockWriter != null) {
+        system2.close(blockWriter);
+      } else {
+        system2.close(output);
+      }
     }
   }
 }
@@ -0,0 +1,102 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import com.google.protobuf.CodedInputStream;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import javax.annotation.CheckForNull;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import net.jpountz.lz4.LZ4Factory;
+import org.apache.commons.io.IOUtils;
+import org.sonar.core.util.CloseableIterator;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Reads the objects written by {@link DiskCacheBlockWriter}, one block at a time.
+ */
+class DiskCacheBlockIterator<O> extends CloseableIterator<O> {
+  private final File file;
+  private final DiskCacheCodec<O> codec;
+  private final DataInputStream input;
+  @CheckForNull
+  private final LZ4FastDecompressor decompressor;
+  @CheckForNull
+  private CodedInputStream block;
+
+  DiskCacheBlockIterator(File file, DiskCacheCodec<O> codec, boolean compressed) {
+    this.file = file;
+    this.codec = codec;
+    this.decompressor = compressed ? LZ4Factory.fastestInstance().fastDecompressor() : null;
+    try {
+      FileChannel channel = FileChannel.open(file.toPath(), READ);
+      this.input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), DiskCacheBlockWriter.BLOCK_SIZE));
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to traverse file: " + file, e);
+    }
+  }
+
+  @Override
+  @CheckForNull
+  protected O doNext() {
+    try {
+      while (block == null || block.isAtEnd()) {
+        if (!readBlock()) {
+          return null;
+        }
+      }
+      return codec.decode(block);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read file " + file, e);
+    }
+  }
+
+  private boolean readBlock() throws IOException {
+    int rawLength;
+    try {
+      rawLength = input.readInt();
+    } catch (EOFException e) {
+      // no more blocks
+      return false;
+    }
+    int storedLength = input.readInt();
+    byte[] stored = new byte[storedLength];
+    input.readFully(stored);
+    if (decompressor == null) {
+      block = CodedInputStream.newInstance(stored);
+    } else {
+      byte[] raw = new byte[rawLength];
+      decompressor.decompress(stored, 0, raw, 0, rawLength);
+      block = CodedInputStream.newInstance(raw);
+    }
+    return true;
+  }
+
+  @Override
+  protected void doClose() {
+    IOUtils.closeQuietly(input);
+  }
+}
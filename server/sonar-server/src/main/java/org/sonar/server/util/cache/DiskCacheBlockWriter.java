@@ -0,0 +1,125 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import com.google.protobuf.CodedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import javax.annotation.CheckForNull;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Appends objects encoded by a {@link DiskCacheCodec} to a file, grouped in blocks of about {@link #BLOCK_SIZE} bytes.
+ * <p>
+ * Each block is made of a header (length of the encoded objects, length of the stored bytes) followed by the stored
+ * bytes, which are the encoded objects optionally compressed with LZ4. An object is never split over two blocks.
+ *
+ * @see DiskCacheBlockIterator
+ */
+class DiskCacheBlockWriter<O> implements AutoCloseable {
+  static final int BLOCK_SIZE = 64 * 1024;
+  static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+  private final File file;
+  private final DiskCacheCodec<O> codec;
+  private final FileChannel channel;
+  private final BlockBuffer buffer = new BlockBuffer();
+  private final CodedOutputStream output = CodedOutputStream.newInstance(buffer);
+  private final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+  @CheckForNull
+  private final LZ4Compressor compressor;
+  private byte[] compressionBuffer = new byte[0];
+
+  DiskCacheBlockWriter(File file, DiskCacheCodec<O> codec, boolean compressed) {
+    this.file = file;
+    this.codec = codec;
+    this.compressor = compressed ? LZ4Factory.fastestInstance().fastCompressor() : null;
+    try {
+      this.channel = FileChannel.open(file.toPath(), WRITE, APPEND);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to open file " + file, e);
+    }
+  }
+
+  void write(O object) {
+    try {
+      codec.encode(object, output);
+      output.flush();
+      if (buffer.size() >= BLOCK_SIZE) {
+        writeBlock();
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to write into file " + file, e);
+    }
+  }
+
+  private void writeBlock() throws IOException {
+    int rawLength = buffer.size();
+    if (rawLength == 0) {
+      return;
+    }
+    byte[] stored = buffer.bytes();
+    int storedLength = rawLength;
+    if (compressor != null) {
+      int maxLength = compressor.maxCompressedLength(rawLength);
+      if (compressionBuffer.length < maxLength) {
+        compressionBuffer = new byte[maxLength];
+      }
+      storedLength = compressor.compress(stored, 0, rawLength, compressionBuffer, 0, maxLength);
+      stored = compressionBuffer;
+    }
+    header.clear();
+    header.putInt(rawLength).putInt(storedLength).flip();
+    ByteBuffer[] buffers = {header, ByteBuffer.wrap(stored, 0, storedLength)};
+    while (buffers[1].hasRemaining()) {
+      channel.write(buffers);
+    }
+    buffer.reset();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      writeBlock();
+    } finally {
+      channel.close();
+    }
+  }
+
+  /**
+   * Gives access to the underlying array to avoid a copy of each block
+   */
+  private static class BlockBuffer extends ByteArrayOutputStream {
+    BlockBuffer() {
+      super(BLOCK_SIZE + BLOCK_SIZE / 4);
+    }
+
+    byte[] bytes() {
+      return buf;
+    }
+  }
+}
@@ -21,9 +21,11 @@ package org.sonar.ce.http;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.SocketTimeoutException;
 import java.util.Optional;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
 import okio.Buffer;
 import org.junit.Before;
 import org.junit.Rule;
@@ -39,6 +41,7 @@ import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
 
 import static java.lang.String.format;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
 import static org.sonar.test.ExceptionCauseMatcher.hasType;
 
 public class CeHttpClientTest {
@@ -158,6 +161,51 @@ public class CeHttpClientTest {
     underTest.refreshCeWorkerCount();
   }
 
+  @Test
+  public void wakeUpWorkers_throws_ISE_if_http_error() {
+    String message = "blah";
+    server.enqueue(new MockResponse().setResponseCode(500).setBody(message));
+    // initialize registration of process
+    setUpWithHttpUrl(ProcessId.COMPUTE_ENGINE);
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Failed to call HTTP server of process " + ProcessId.COMPUTE_ENGINE);
+    expectedException.expectCause(hasType(IOException.class)
+        .andMessage(format("Failed to wake up CE Workers. Code was '500' and response was 'blah' for url " +
+            "'http://%s:%s/wakeUpWorkers'", server.getHostName(), server.getPort())));
+
+    underTest.wakeUpWorkers();
+  }
+
+  @Test
+  public void wakeUpWorkers_does_not_fail_when_http_code_is_200() {
+    server.enqueue(new MockResponse().setResponseCode(200));
+
+    setUpWithHttpUrl(ProcessId.COMPUTE_ENGINE);
+
+    underTest.wakeUpWorkers();
+  }
+
+  @Test
+  public void wakeUpWorkers_times_out_quickly_if_process_does_not_respond() {
+    server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+    setUpWithHttpUrl(ProcessId.COMPUTE_ENGINE);
+
+    long start = System.currentTimeMillis();
+    try {
+      underTest.wakeUpWorkers();
+      fail("An IllegalStateException should have been raised");
+    } catch (IllegalStateException e) {
+      assertThat(e.getCause()).isInstanceOf(SocketTimeoutException.class);
+    }
+    assertThat(System.currentTimeMillis() - start).isLessThan(5_000L);
+  }
+
+  @Test
+  public void wakeUpWorkers_does_not_fail_if_process_is_down() {
+    underTest.wakeUpWorkers();
+  }
+
   private void setUpWithHttpUrl(ProcessId processId) {
     try (DefaultProcessCommands processCommands = DefaultProcessCommands.secondary(ipcSharedDir, processId.getIpcIndex())) {
       processCommands.setUp();
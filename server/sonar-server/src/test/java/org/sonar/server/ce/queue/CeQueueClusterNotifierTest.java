@@ -0,0 +1,52 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ce.queue;
+
+import com.hazelcast.core.MemberSelector;
+import org.junit.Test;
+import org.sonar.process.cluster.hz.DistributedCall;
+import org.sonar.process.cluster.hz.HazelcastMember;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CeQueueClusterNotifierTest {
+  private HazelcastMember member = mock(HazelcastMember.class);
+  private CeQueueClusterNotifier underTest = new CeQueueClusterNotifier(member);
+
+  @Test
+  public void notifyTasksSubmitted_calls_Compute_Engine_of_cluster_nodes() throws InterruptedException {
+    underTest.notifyTasksSubmitted();
+
+    verify(member).call(any(DistributedCall.class), any(MemberSelector.class), anyLong());
+  }
+
+  @Test
+  public void notifyTasksSubmitted_does_not_fail_when_distributed_call_fails() throws InterruptedException {
+    when(member.call(any(DistributedCall.class), any(MemberSelector.class), anyLong())).thenThrow(new IllegalStateException("Hazelcast is down"));
+
+    underTest.notifyTasksSubmitted();
+
+    verify(member).call(any(DistributedCall.class), any(MemberSelector.class), anyLong());
+  }
+}
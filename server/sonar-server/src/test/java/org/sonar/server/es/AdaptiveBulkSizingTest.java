@@ -0,0 +1,116 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.server.es.AdaptiveBulkSizing.BULK_SIZE_STEP_IN_BYTES;
+import static org.sonar.server.es.AdaptiveBulkSizing.INITIAL_BULK_SIZE_IN_BYTES;
+import static org.sonar.server.es.AdaptiveBulkSizing.MAX_BULK_SIZE_IN_BYTES;
+import static org.sonar.server.es.AdaptiveBulkSizing.MIN_BULK_SIZE_IN_BYTES;
+import static org.sonar.server.es.AdaptiveBulkSizing.TARGET_LATENCY_IN_MS;
+
+public class AdaptiveBulkSizingTest {
+
+  private static final long FAST = TARGET_LATENCY_IN_MS / 10;
+  private static final long SLOW = TARGET_LATENCY_IN_MS + 1;
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private AdaptiveBulkSizing underTest = new AdaptiveBulkSizing(4);
+
+  @Test
+  public void fail_if_max_concurrent_requests_is_lower_than_1() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Max concurrent requests must be at least 1");
+
+    new AdaptiveBulkSizing(0);
+  }
+
+  @Test
+  public void start_with_initial_size_and_max_concurrency() {
+    assertThat(underTest.getBulkSizeInBytes()).isEqualTo(INITIAL_BULK_SIZE_IN_BYTES);
+    assertThat(underTest.getConcurrentRequests()).isEqualTo(4);
+  }
+
+  @Test
+  public void increase_size_additively_when_bulk_is_fast() {
+    underTest.onBulkExecuted(FAST, false);
+    underTest.onBulkExecuted(FAST, false);
+
+    assertThat(underTest.getBulkSizeInBytes()).isEqualTo(INITIAL_BULK_SIZE_IN_BYTES + 2 * BULK_SIZE_STEP_IN_BYTES);
+    assertThat(underTest.getConcurrentRequests()).isEqualTo(4);
+  }
+
+  @Test
+  public void size_does_not_exceed_max() {
+    executeFastBulks(1_000);
+
+    assertThat(underTest.getBulkSizeInBytes()).isEqualTo(MAX_BULK_SIZE_IN_BYTES);
+  }
+
+  @Test
+  public void halve_size_and_concurrency_when_bulk_is_rejected() {
+    underTest.onBulkExecuted(FAST, true);
+
+    assertThat(underTest.getBulkSizeInBytes()).isEqualTo(INITIAL_BULK_SIZE_IN_BYTES / 2);
+    assertThat(underTest.getConcurrentRequests()).isEqualTo(2);
+  }
+
+  @Test
+  public void halve_size_and_concurrency_when_bulk_is_slow() {
+    underTest.onBulkExecuted(SLOW, false);
+
+    assertThat(underTest.getBulkSizeInBytes()).isEqualTo(INITIAL_BULK_SIZE_IN_BYTES / 2);
+    assertThat(underTest.getConcurrentRequests()).isEqualTo(2);
+  }
+
+  @Test
+  public void size_and_concurrency_do_not_go_below_min() {
+    for (int i = 0; i < 100; i++) {
+      underTest.onBulkExecuted(SLOW, true);
+    }
+
+    assertThat(underTest.getBulkSizeInBytes()).isEqualTo(MIN_BULK_SIZE_IN_BYTES);
+    assertThat(underTest.getConcurrentRequests()).isEqualTo(1);
+  }
+
+  @Test
+  public void increase_concurrency_once_size_is_max() {
+    underTest.onBulkExecuted(SLOW, true);
+    underTest.onBulkExecuted(SLOW, true);
+    assertThat(underTest.getConcurrentRequests()).isEqualTo(1);
+
+    executeFastBulks(1_000);
+
+    assertThat(underTest.getBulkSizeInBytes()).isEqualTo(MAX_BULK_SIZE_IN_BYTES);
+    assertThat(underTest.getConcurrentRequests()).isEqualTo(4);
+  }
+
+  private void executeFastBulks(int count) {
+    for (int i = 0; i < count; i++) {
+      underTest.onBulkExecuted(FAST, false);
+    }
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BulkIndexerStatisticsTest {
+
+  private BulkIndexerStatistics underTest = new BulkIndexerStatistics();
+
+  @Test
+  public void empty_statistics() {
+    assertThat(underTest.getIndexedDocs()).isEqualTo(0L);
+    assertThat(underTest.getSentBytes()).isEqualTo(0L);
+    assertThat(underTest.getDocsPerSecond()).isEqualTo(0L);
+    assertThat(underTest.getBytesPerSecond()).isEqualTo(0L);
+    assertThat(underTest.getBulkRequests()).isEqualTo(0L);
+    assertThat(underTest.getRejectedBulkRequests()).isEqualTo(0L);
+  }
+
+  @Test
+  public void sum_indexing_results() {
+    underTest.onIndexingFinished(newResult(10, 4_000L, 1_000L));
+    underTest.onIndexingFinished(newResult(30, 12_000L, 1_000L));
+
+    assertThat(underTest.getIndexedDocs()).isEqualTo(40L);
+    assertThat(underTest.getSentBytes()).isEqualTo(16_000L);
+    assertThat(underTest.getDocsPerSecond()).isEqualTo(20L);
+    assertThat(underTest.getBytesPerSecond()).isEqualTo(8_000L);
+  }
+
+  @Test
+  public void count_bulk_requests_and_keep_last_sizing() {
+    AdaptiveBulkSizing sizing = new AdaptiveBulkSizing(4);
+    sizing.onBulkExecuted(0L, true);
+
+    underTest.onBulkExecuted(false, sizing);
+    underTest.onBulkExecuted(true, sizing);
+
+    assertThat(underTest.getBulkRequests()).isEqualTo(2L);
+    assertThat(underTest.getRejectedBulkRequests()).isEqualTo(1L);
+    assertThat(underTest.getBulkSizeInBytes()).isEqualTo(sizing.getBulkSizeInBytes());
+    assertThat(underTest.getConcurrentRequests()).isEqualTo(2);
+  }
+
+  private static IndexingResult newResult(int docs, long bytes, long durationInMs) {
+    IndexingResult result = new IndexingResult();
+    for (int i = 0; i < docs; i++) {
+      result.incrementRequests();
+      result.incrementSuccess();
+    }
+    return result.addBytes(bytes).setDurationInMs(durationInMs);
+  }
+}
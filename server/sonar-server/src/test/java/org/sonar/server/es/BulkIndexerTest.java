@@ -75,6 +75,23 @@ public class BulkIndexerTest {
     assertThat(count()).isEqualTo(2);
   }
 
+  @Test
+  public void report_throughput_of_indexing() {
+    BulkIndexerStatistics statistics = new BulkIndexerStatistics();
+    BulkIndexer indexer = new BulkIndexer(es.client(), INDEX_TYPE_FAKE, Size.REGULAR, IndexingListener.FAIL_ON_ERROR, statistics);
+    indexer.start();
+    for (int i = 0; i < 10; i++) {
+      indexer.add(newIndexRequest(i));
+    }
+    IndexingResult result = indexer.stop();
+
+    assertThat(result.getSuccess()).isEqualTo(10);
+    assertThat(result.getBytes()).isGreaterThan(0L);
+    assertThat(result.getDurationInMs()).isGreaterThanOrEqualTo(0L);
+    assertThat(statistics.getBulkRequests()).isGreaterThan(0L);
+    assertThat(statistics.getIndexedDocs()).isEqualTo(10L);
+  }
+
   @Test
   public void large_indexing() {
     // index has one replica
@@ -100,6 +117,28 @@ public class BulkIndexerTest {
     assertThat(replicas()).isEqualTo(1);
   }
 
+  @Test
+  public void large_indexing_settings_span_several_regular_bulk_indexers() {
+    assertThat(replicas()).isEqualTo(1);
+
+    try (BulkIndexer.LargeIndexingSettings settings = BulkIndexer.LargeIndexingSettings.apply(es.client(), INDEX_TYPE_FAKE)) {
+      for (int chunk = 0; chunk < 2; chunk++) {
+        BulkIndexer indexer = new BulkIndexer(es.client(), INDEX_TYPE_FAKE, Size.REGULAR);
+        indexer.start();
+        for (int i = 0; i < 5; i++) {
+          indexer.add(newIndexRequest(chunk * 5 + i));
+        }
+        indexer.stop();
+
+        // replicas stay disabled between bulk indexers
+        assertThat(replicas()).isEqualTo(0);
+      }
+    }
+
+    assertThat(count()).isEqualTo(10);
+    assertThat(replicas()).isEqualTo(1);
+  }
+
   @Test
   public void bulk_delete() {
     int max = 500;
@@ -88,4 +88,40 @@ public class IndexingResultTest {
     assertThat(underTest.getSuccessRatio()).isEqualTo(1.0);
     assertThat(underTest.isSuccess()).isTrue();
   }
+
+  @Test
+  public void throughput_is_zero_if_duration_is_unknown() {
+    underTest.incrementRequests();
+    underTest.incrementSuccess();
+    underTest.addBytes(1_000L);
+
+    assertThat(underTest.getDocsPerSecond()).isEqualTo(0L);
+    assertThat(underTest.getBytesPerSecond()).isEqualTo(0L);
+  }
+
+  @Test
+  public void test_throughput() {
+    for (int i = 0; i < 10; i++) {
+      underTest.incrementRequests();
+      underTest.incrementSuccess();
+    }
+    underTest.addBytes(3_000L);
+    underTest.setDurationInMs(2_000L);
+
+    assertThat(underTest.getBytes()).isEqualTo(3_000L);
+    assertThat(underTest.getDurationInMs()).isEqualTo(2_000L);
+    assertThat(underTest.getDocsPerSecond()).isEqualTo(5L);
+    assertThat(underTest.getBytesPerSecond()).isEqualTo(1_500L);
+  }
+
+  @Test
+  public void add_sums_bytes_and_durations() {
+    underTest.addBytes(100L).setDurationInMs(10L);
+    IndexingResult other = new IndexingResult().addBytes(200L).setDurationInMs(20L);
+
+    underTest.add(other);
+
+    assertThat(underTest.getBytes()).isEqualTo(300L);
+    assertThat(underTest.getDurationInMs()).isEqualTo(30L);
+  }
 }
@@ -287,8 +287,8 @@ public class RecoveryIndexerTest {
   @Test
   public void recover_multiple_times_the_same_document() {
     EsQueueDto item1 = insertItem(FOO_TYPE, "f1");
-    EsQueueDto item2 = insertItem(FOO_TYPE, item1.getDocId());
-    EsQueueDto item3 = insertItem(FOO_TYPE, item1.getDocId());
+    insertItem(FOO_TYPE, item1.getDocId());
+    insertItem(FOO_TYPE, item1.getDocId());
     advanceInTime();
 
     SuccessfulFakeIndexer indexer = new SuccessfulFakeIndexer(FOO_TYPE);
@@ -297,11 +297,112 @@ public class RecoveryIndexerTest {
 
     assertThatQueueHasSize(0);
     assertThat(indexer.called).hasSize(1);
-    assertThat(indexer.called.get(0)).extracting(EsQueueDto::getUuid)
-      .containsExactlyInAnyOrder(item1.getUuid(), item2.getUuid(), item3.getUuid());
+    assertThat(indexer.called.get(0)).extracting(EsQueueDto::getDocId).containsExactly(item1.getDocId());
 
-    assertThatLogsContain(TRACE, "Elasticsearch recovery - processing 3 [foos/foo]");
-    assertThatLogsContain(INFO, "Elasticsearch recovery - 3 documents processed [0 failures]");
+    assertThatLogsContain(TRACE, "Elasticsearch recovery - processing 1 [foos/foo]");
+    assertThatLogsContain(INFO, "Elasticsearch recovery - 1 documents processed [0 failures] [2 duplicates discarded]");
+  }
+
+  @Test
+  public void duplicates_of_documents_recovered_by_previous_loops_are_discarded() {
+    system2.setNow(PAST);
+    insertItem(FOO_TYPE, "f1");
+    system2.setNow(PAST + 1);
+    insertItem(FOO_TYPE, "f2");
+    system2.setNow(PAST + 2);
+    insertItem(FOO_TYPE, "f1");
+    system2.setNow(PAST + 3);
+    insertItem(FOO_TYPE, "f1");
+    advanceInTime();
+
+    // loops of 2 items, most recent items first: [f1, f1] then [f2, f1]
+    SuccessfulFakeIndexer indexer = new SuccessfulFakeIndexer(FOO_TYPE);
+    MapSettings settings = new MapSettings()
+      .setProperty("sonar.search.recovery.loopLimit", "2");
+    underTest = newRecoveryIndexer(settings.asConfig(), indexer);
+    underTest.recover();
+
+    assertThatQueueHasSize(0);
+    assertThat(indexer.called).hasSize(2);
+    assertThat(indexer.called.get(0)).extracting(EsQueueDto::getDocId).containsExactly("f1");
+    assertThat(indexer.called.get(1)).extracting(EsQueueDto::getDocId).containsExactly("f2");
+    assertThatLogsContain(INFO, "Elasticsearch recovery - 2 documents processed [0 failures] [2 duplicates discarded]");
+  }
+
+  @Test
+  public void loops_go_on_when_items_are_only_duplicates() {
+    system2.setNow(PAST);
+    insertItem(FOO_TYPE, "f2");
+    system2.setNow(PAST + 1);
+    insertItem(FOO_TYPE, "f1");
+    system2.setNow(PAST + 2);
+    insertItem(FOO_TYPE, "f1");
+    system2.setNow(PAST + 3);
+    insertItem(FOO_TYPE, "f1");
+    advanceInTime();
+
+    // loops of 1 item: [f1] then [f1] and [f1] which are discarded, then [f2]
+    SuccessfulFakeIndexer indexer = new SuccessfulFakeIndexer(FOO_TYPE);
+    MapSettings settings = new MapSettings()
+      .setProperty("sonar.search.recovery.loopLimit", "1");
+    underTest = newRecoveryIndexer(settings.asConfig(), indexer);
+    underTest.recover();
+
+    assertThatQueueHasSize(0);
+    assertThat(indexer.called).hasSize(2);
+  }
+
+  @Test
+  public void recover_indexers_concurrently() {
+    IndexType type1 = new IndexType("foos", "foo");
+    insertItem(type1, "f1");
+    IndexType type2 = new IndexType("bars", "bar");
+    insertItem(type2, "b1");
+    IndexType type3 = new IndexType("bazs", "baz");
+    insertItem(type3, "z1");
+    advanceInTime();
+
+    SuccessfulFakeIndexer indexer1 = new SuccessfulFakeIndexer(type1);
+    SuccessfulFakeIndexer indexer2 = new SuccessfulFakeIndexer(type2);
+    MapSettings settings = new MapSettings()
+      .setProperty(RecoveryIndexer.PROPERTY_CONCURRENCY, "2");
+    underTest = newRecoveryIndexer(settings.asConfig(), indexer1, indexer2);
+    underTest.recover();
+
+    // items of unsupported type are kept
+    assertThatQueueHasSize(1);
+    assertThat(indexer1.called).hasSize(1);
+    assertThat(indexer2.called).hasSize(1);
+    assertThatLogsContain(INFO, "Elasticsearch recovery - 2 documents processed [0 failures]");
+    assertThatLogsContain(ERROR, "Elasticsearch recovery - ignore 1 items with unsupported type [bazs/baz]");
+  }
+
+  @Test
+  public void measure_backlog_and_drain_rate() {
+    insertItem(FOO_TYPE, "f1");
+    insertItem(FOO_TYPE, "f1");
+    insertItem(FOO_TYPE, "f2");
+    advanceInTime();
+    // too recent to be recovered
+    insertItem(FOO_TYPE, "f3");
+
+    SuccessfulFakeIndexer indexer = new SuccessfulFakeIndexer(FOO_TYPE) {
+      @Override
+      public IndexingResult index(DbSession dbSession, Collection<EsQueueDto> items) {
+        system2.setNow(system2.now() + 1_000L);
+        return super.index(dbSession, items);
+      }
+    };
+    MapSettings settings = new MapSettings()
+      .setProperty("sonar.search.recovery.minAgeInMs", "1");
+    underTest = newRecoveryIndexer(settings.asConfig(), indexer);
+    assertThat(underTest.getBacklogSize()).isEqualTo(0L);
+
+    underTest.recover();
+
+    assertThat(underTest.getBacklogSize()).isEqualTo(1L);
+    // 2 documents recovered and 1 duplicate discarded in 1 second
+    assertThat(underTest.getDrainRatePerSecond()).isEqualTo(3L);
   }
 
   private class FailingAlwaysOnSameElementIndexer implements ResilientIndexer {
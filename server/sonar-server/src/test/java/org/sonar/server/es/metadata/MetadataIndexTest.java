@@ -48,6 +48,22 @@ public class MetadataIndexTest {
     assertThat(underTest.getInitialized(indexType)).isTrue();
   }
 
+  @Test
+  public void indexing_progress_should_be_empty_by_default() {
+    IndexType indexType = new IndexType("examples", "example");
+    assertThat(underTest.getIndexingProgress(indexType)).isEmpty();
+  }
+
+  @Test
+  public void indexing_progress_should_be_empty_after_being_cleared() {
+    IndexType indexType = new IndexType("examples", "example");
+    underTest.setIndexingProgress(indexType, "AU-Tpxb");
+    assertThat(underTest.getIndexingProgress(indexType)).hasValue("AU-Tpxb");
+
+    underTest.clearIndexingProgress(indexType);
+    assertThat(underTest.getIndexingProgress(indexType)).isEmpty();
+  }
+
   @Test
   public void hash_should_be_empty_by_default() {
     assertThat(underTest.getHash(index)).isEmpty();
@@ -23,6 +23,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import org.elasticsearch.search.SearchHit;
@@ -30,6 +31,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
@@ -45,6 +47,7 @@ import org.sonar.db.rule.RuleDefinitionDto;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.IndexingResult;
 import org.sonar.server.es.ProjectIndexer;
+import org.sonar.server.es.metadata.MetadataIndex;
 import org.sonar.server.permission.index.AuthorizationScope;
 import org.sonar.server.permission.index.PermissionIndexerDao;
 
@@ -53,6 +56,10 @@ import static java.util.Collections.emptyList;
 import static java.util.Collections.emptySet;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.rules.ExpectedException.none;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
 import static org.sonar.db.component.ComponentTesting.newFileDto;
 import static org.sonar.server.issue.IssueDocTesting.newDoc;
 import static org.sonar.server.issue.index.IssueIndexDefinition.INDEX_TYPE_ISSUE;
@@ -105,6 +112,58 @@ public class IssueIndexerTest {
     assertThatIndexHasOnly(issue1, issue2);
   }
 
+  @Test
+  public void indexOnStartup_does_not_use_metadata_index_when_concurrency_is_not_set() {
+    MetadataIndex metadataIndex = mock(MetadataIndex.class);
+    IssueDto issue = db.issues().insertIssue(organization);
+    underTest = new IssueIndexer(es.client(), db.getDbClient(), new IssueIteratorFactory(db.getDbClient()), new MapSettings().asConfig(), metadataIndex);
+
+    underTest.indexOnStartup(emptySet());
+
+    assertThatIndexHasOnly(issue);
+    verifyZeroInteractions(metadataIndex);
+  }
+
+  @Test
+  public void indexOnStartup_indexes_ranges_of_projects_concurrently() {
+    MetadataIndex metadataIndex = mock(MetadataIndex.class);
+    when(metadataIndex.getIndexingProgress(INDEX_TYPE_ISSUE)).thenReturn(Optional.empty());
+    RuleDefinitionDto rule = db.rules().insert();
+    ComponentDto project1 = db.components().insertPrivateProject(organization, "P1");
+    ComponentDto project2 = db.components().insertPrivateProject(organization, "P2");
+    ComponentDto project3 = db.components().insertPrivateProject(organization, "P3");
+    IssueDto issue1 = db.issues().insert(rule, project1, project1);
+    IssueDto issue2 = db.issues().insert(rule, project2, project2);
+    IssueDto issue3 = db.issues().insert(rule, project2, project2);
+    IssueDto issue4 = db.issues().insert(rule, project3, project3);
+    underTest = newConcurrentIndexer(metadataIndex, 2);
+
+    underTest.indexOnStartup(emptySet());
+
+    assertThatIndexHasOnly(issue1, issue2, issue3, issue4);
+    assertThat(logTester.logs(LoggerLevel.INFO)).filteredOn(log -> log.startsWith("Issues of projects [")).hasSize(3);
+    verify(metadataIndex).setIndexingProgress(INDEX_TYPE_ISSUE, "P3");
+    verify(metadataIndex).clearIndexingProgress(INDEX_TYPE_ISSUE);
+  }
+
+  @Test
+  public void indexOnStartup_resumes_after_the_last_indexed_project() {
+    MetadataIndex metadataIndex = mock(MetadataIndex.class);
+    when(metadataIndex.getIndexingProgress(INDEX_TYPE_ISSUE)).thenReturn(Optional.of("P1"));
+    RuleDefinitionDto rule = db.rules().insert();
+    ComponentDto project1 = db.components().insertPrivateProject(organization, "P1");
+    ComponentDto project2 = db.components().insertPrivateProject(organization, "P2");
+    db.issues().insert(rule, project1, project1);
+    IssueDto issue2 = db.issues().insert(rule, project2, project2);
+    underTest = newConcurrentIndexer(metadataIndex, 1);
+
+    underTest.indexOnStartup(emptySet());
+
+    assertThatIndexHasOnly(issue2);
+    assertThat(logTester.logs(LoggerLevel.INFO)).contains("Resume indexing of issues after project P1");
+    verify(metadataIndex).clearIndexingProgress(INDEX_TYPE_ISSUE);
+  }
+
   @Test
   public void verify_indexed_fields() {
     RuleDefinitionDto rule = db.rules().insert();
@@ -491,6 +550,13 @@ public class IssueIndexerTest {
     assertThat(es.countDocuments(INDEX_TYPE_ISSUE)).isEqualTo(expectedSize);
   }
 
+  private IssueIndexer newConcurrentIndexer(MetadataIndex metadataIndex, int projectsPerRange) {
+    MapSettings settings = new MapSettings()
+      .setProperty(IssueIndexer.PROPERTY_STARTUP_INDEXING_CONCURRENCY, "2")
+      .setProperty(IssueIndexer.PROPERTY_STARTUP_INDEXING_PROJECTS_PER_RANGE, String.valueOf(projectsPerRange));
+    return new IssueIndexer(es.client(), db.getDbClient(), new IssueIteratorFactory(db.getDbClient()), settings.asConfig(), metadataIndex);
+  }
+
   private void assertThatIndexHasOnly(IssueDto... expectedIssues) {
     assertThat(es.getDocuments(INDEX_TYPE_ISSUE))
       .extracting(SearchHit::getId)
@@ -129,6 +129,18 @@ public class IssueIteratorFactoryTest {
     assertThat(issuesByKey).hasSize(2);
   }
 
+  @Test
+  public void iterator_over_issues_from_range_of_projects() {
+    dbTester.prepareDbUnit(getClass(), "many_projects.xml");
+
+    assertThat(issuesByKey(factory -> factory.createForProjectUuidRange(new ProjectUuidRange("THE_PROJECT_1", "THE_PROJECT_2"))))
+      .containsOnlyKeys("ABCDE", "BCDEF", "EDCBA");
+    assertThat(issuesByKey(factory -> factory.createForProjectUuidRange(new ProjectUuidRange("THE_PROJECT_2", "THE_PROJECT_2"))))
+      .containsOnlyKeys("EDCBA");
+    assertThat(issuesByKey(factory -> factory.createForProjectUuidRange(new ProjectUuidRange("THE_PROJECT_3", "THE_PROJECT_4"))))
+      .isEmpty();
+  }
+
   @Test
   public void extract_directory_path() {
     dbTester.prepareDbUnit(getClass(), "extract_directory_path.xml");
@@ -38,6 +38,7 @@ import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.Metric;
 import org.sonar.api.resources.Qualifiers;
+import org.sonar.api.rules.RuleType;
 import org.sonar.core.config.CorePropertyDefinitions;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
@@ -47,6 +48,7 @@ import org.sonar.db.component.ComponentTesting;
 import org.sonar.db.measure.LiveMeasureDto;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.db.organization.OrganizationDto;
+import org.sonar.db.rule.RuleDefinitionDto;
 import org.sonar.server.measure.Rating;
 import org.sonar.server.es.ProjectIndexer;
 import org.sonar.server.es.TestProjectIndexers;
@@ -216,6 +218,30 @@ public class LiveMeasureComputerImplTest {
     assertThatProjectChanged(result, project);
   }
 
+  @Test
+  public void issues_are_counted_on_components_and_their_ancestors_when_refreshing_multiple_components() {
+    markProjectAsAnalyzed(project);
+    RuleDefinitionDto rule = db.rules().insert();
+    db.issues().insert(rule, project, file1, i -> i.setStatus("OPEN").setResolution(null).setType(RuleType.BUG));
+    db.issues().insert(rule, project, file1, i -> i.setStatus("OPEN").setResolution(null).setType(RuleType.BUG));
+    db.issues().insert(rule, project, file2, i -> i.setStatus("OPEN").setResolution(null).setType(RuleType.BUG));
+    db.issues().insert(rule, project, file2, i -> i.setStatus("CLOSED").setResolution("FIXED").setType(RuleType.BUG));
+
+    run(asList(file1, file2), newUnresolvedBugsFormula());
+
+    assertThatIntMeasureHasValue(file1, 2);
+    assertThatIntMeasureHasValue(file2, 1);
+    assertThatIntMeasureHasValue(dir, 3);
+    assertThatIntMeasureHasValue(project, 3);
+
+    // same values when a single component is refreshed
+    run(file1, newUnresolvedBugsFormula());
+
+    assertThatIntMeasureHasValue(file1, 2);
+    assertThatIntMeasureHasValue(dir, 3);
+    assertThatIntMeasureHasValue(project, 3);
+  }
+
   @Test
   public void do_nothing_if_project_has_not_been_analyzed() {
     // project has no snapshots
@@ -449,6 +475,13 @@ public class LiveMeasureComputerImplTest {
     });
   }
 
+  private IssueMetricFormula newUnresolvedBugsFormula() {
+    Metric metric = new Metric.Builder(intMetric.getKey(), intMetric.getShortName(), Metric.ValueType.valueOf(intMetric.getValueType())).create();
+    return new IssueMetricFormula(metric, false, (ctx, issues) -> {
+      ctx.setValue(issues.countUnresolvedByType(RuleType.BUG, false));
+    });
+  }
+
   private IssueMetricFormula newQualifierBasedIntFormula() {
     Metric metric = new Metric.Builder(intMetric.getKey(), intMetric.getShortName(), Metric.ValueType.valueOf(intMetric.getValueType())).create();
     return new IssueMetricFormula(metric, false, (ctx, issues) -> {
@@ -19,8 +19,11 @@
  */
 package org.sonar.server.permission.index;
 
+import com.google.common.collect.ImmutableSet;
+import java.util.Optional;
 import org.elasticsearch.index.query.MatchAllQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.TermsQueryBuilder;
 import org.elasticsearch.join.query.HasParentQueryBuilder;
 import org.junit.Rule;
 import org.junit.Test;
@@ -28,7 +31,15 @@ import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.GroupTesting;
 import org.sonar.server.tester.UserSessionRule;
 
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.sonar.server.permission.index.FooIndexDefinition.INDEX_TYPE_FOO;
 import static org.sonar.test.JsonAssert.assertJson;
 
 public class AuthorizationTypeSupportTest {
@@ -36,6 +47,7 @@ public class AuthorizationTypeSupportTest {
   @Rule
   public UserSessionRule userSession = UserSessionRule.standalone();
 
+  private AuthorizedProjectsCache authorizedProjectsCache = mock(AuthorizedProjectsCache.class);
   private AuthorizationTypeSupport underTest = new AuthorizationTypeSupport(userSession);
 
   @Test
@@ -150,4 +162,58 @@ public class AuthorizationTypeSupportTest {
       "  }" +
       "}");
   }
+
+  @Test
+  public void createQueryFilter_on_index_type_does_not_include_permission_filters_if_user_is_flagged_as_root() {
+    userSession.logIn().setRoot();
+    when(authorizedProjectsCache.isEnabled()).thenReturn(true);
+    AuthorizationTypeSupport underTest = new AuthorizationTypeSupport(userSession, authorizedProjectsCache);
+
+    QueryBuilder filter = underTest.createQueryFilter(INDEX_TYPE_FOO);
+
+    assertThat(filter).isInstanceOf(MatchAllQueryBuilder.class);
+    verifyZeroInteractions(authorizedProjectsCache);
+  }
+
+  @Test
+  public void createQueryFilter_on_index_type_joins_on_authorization_if_cache_is_disabled() {
+    userSession.logIn().setUserId(1234);
+    when(authorizedProjectsCache.isEnabled()).thenReturn(false);
+    AuthorizationTypeSupport underTest = new AuthorizationTypeSupport(userSession, authorizedProjectsCache);
+
+    QueryBuilder filter = underTest.createQueryFilter(INDEX_TYPE_FOO);
+
+    assertThat(filter).isInstanceOf(HasParentQueryBuilder.class);
+    assertJson(filter.toString()).isSimilarTo(this.underTest.createQueryFilter().toString());
+  }
+
+  @Test
+  public void createQueryFilter_on_index_type_filters_on_routing_with_cached_project_uuids() {
+    GroupDto group1 = GroupTesting.newGroupDto().setId(10);
+    GroupDto group2 = GroupTesting.newGroupDto().setId(11);
+    userSession.logIn().setUserId(1234).setGroups(group1, group2);
+    when(authorizedProjectsCache.isEnabled()).thenReturn(true);
+    when(authorizedProjectsCache.getProjectUuids(eq(INDEX_TYPE_FOO), eq(1234), eq(asList(10, 11)), any(QueryBuilder.class)))
+      .thenReturn(Optional.of(ImmutableSet.of("P1", "P2")));
+    AuthorizationTypeSupport underTest = new AuthorizationTypeSupport(userSession, authorizedProjectsCache);
+
+    TermsQueryBuilder filter = (TermsQueryBuilder) underTest.createQueryFilter(INDEX_TYPE_FOO);
+
+    assertThat(filter.fieldName()).isEqualTo("_routing");
+    assertThat(filter.values()).containsExactlyInAnyOrder("P1", "P2");
+  }
+
+  @Test
+  public void createQueryFilter_on_index_type_joins_on_authorization_if_project_uuids_are_not_cached() {
+    userSession.anonymous();
+    when(authorizedProjectsCache.isEnabled()).thenReturn(true);
+    when(authorizedProjectsCache.getProjectUuids(eq(INDEX_TYPE_FOO), eq(null), anyList(), any(QueryBuilder.class)))
+      .thenReturn(Optional.empty());
+    AuthorizationTypeSupport underTest = new AuthorizationTypeSupport(userSession, authorizedProjectsCache);
+
+    QueryBuilder filter = underTest.createQueryFilter(INDEX_TYPE_FOO);
+
+    assertThat(filter).isInstanceOf(HasParentQueryBuilder.class);
+    assertJson(filter.toString()).isSimilarTo(this.underTest.createQueryFilter().toString());
+  }
 }
@@ -0,0 +1,156 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.permission.index;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.server.es.EsTester;
+import org.sonar.server.es.IndexType;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.elasticsearch.action.support.WriteRequest.RefreshPolicy.IMMEDIATE;
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.sonar.server.permission.index.AuthorizationTypeSupport.FIELD_ALLOW_ANYONE;
+import static org.sonar.server.permission.index.AuthorizationTypeSupport.FIELD_GROUP_IDS;
+import static org.sonar.server.permission.index.AuthorizationTypeSupport.FIELD_USER_IDS;
+import static org.sonar.server.permission.index.FooIndexDefinition.INDEX_TYPE_FOO;
+
+public class AuthorizedProjectsCacheTest {
+
+  private static final IndexType INDEX_TYPE_FOO_AUTH = AuthorizationTypeSupport.getAuthorizationIndexType(INDEX_TYPE_FOO);
+  private static final Map<String, Object> ANYONE = ImmutableMap.of(FIELD_ALLOW_ANYONE, true);
+
+  @Rule
+  public EsTester es = EsTester.createCustom(new FooIndexDefinition());
+
+  private TestSystem2 system2 = new TestSystem2().setNow(1_000_000L);
+  private MapSettings settings = new MapSettings().setProperty(AuthorizedProjectsCache.PROPERTY_TTL_IN_SECONDS, 60);
+  private AuthorizedProjectsCache underTest = new AuthorizedProjectsCache(es.client(), system2, settings.asConfig());
+
+  @Test
+  public void cache_is_disabled_by_default() {
+    indexAuthorization("P1", ANYONE);
+    AuthorizedProjectsCache cache = new AuthorizedProjectsCache(es.client(), system2);
+
+    assertThat(cache.isEnabled()).isFalse();
+    assertThat(cache.getProjectUuids(INDEX_TYPE_FOO, null, emptyList(), filterOnAnyone())).isEmpty();
+  }
+
+  @Test
+  public void load_uuids_of_projects_granted_to_user_and_groups() {
+    indexAuthorization("P1", ANYONE);
+    indexAuthorization("P2", ImmutableMap.of(FIELD_ALLOW_ANYONE, false, FIELD_USER_IDS, asList(10L)));
+    indexAuthorization("P3", ImmutableMap.of(FIELD_ALLOW_ANYONE, false, FIELD_GROUP_IDS, asList(20L)));
+    indexAuthorization("P4", ImmutableMap.of(FIELD_ALLOW_ANYONE, false, FIELD_USER_IDS, asList(11L), FIELD_GROUP_IDS, asList(21L)));
+
+    assertThat(underTest.isEnabled()).isTrue();
+    assertThat(underTest.getProjectUuids(INDEX_TYPE_FOO, null, emptyList(), filterOnAnyone()).get())
+      .containsExactlyInAnyOrder("P1");
+    assertThat(underTest.getProjectUuids(INDEX_TYPE_FOO, 10, asList(20), filter(10, 20)).get())
+      .containsExactlyInAnyOrder("P1", "P2", "P3");
+  }
+
+  @Test
+  public void entries_are_reloaded_after_time_to_live() {
+    indexAuthorization("P1", ANYONE);
+    assertThat(underTest.getProjectUuids(INDEX_TYPE_FOO, null, emptyList(), filterOnAnyone()).get()).containsExactly("P1");
+
+    indexAuthorization("P2", ANYONE);
+    system2.setNow(system2.now() + 59_999L);
+    assertThat(underTest.getProjectUuids(INDEX_TYPE_FOO, null, emptyList(), filterOnAnyone()).get()).containsExactly("P1");
+
+    system2.setNow(system2.now() + 1L);
+    assertThat(underTest.getProjectUuids(INDEX_TYPE_FOO, null, emptyList(), filterOnAnyone()).get()).containsExactlyInAnyOrder("P1", "P2");
+  }
+
+  @Test
+  public void invalidate_drops_all_entries() {
+    indexAuthorization("P1", ANYONE);
+    assertThat(underTest.getProjectUuids(INDEX_TYPE_FOO, null, emptyList(), filterOnAnyone()).get()).containsExactly("P1");
+
+    indexAuthorization("P2", ANYONE);
+    underTest.invalidate();
+
+    assertThat(underTest.getProjectUuids(INDEX_TYPE_FOO, null, emptyList(), filterOnAnyone()).get()).containsExactlyInAnyOrder("P1", "P2");
+  }
+
+  @Test
+  public void count_cached_uuids_to_bound_memory() {
+    indexAuthorization("P1", ANYONE);
+    indexAuthorization("P2", ImmutableMap.of(FIELD_ALLOW_ANYONE, false, FIELD_USER_IDS, asList(10L)));
+
+    underTest.getProjectUuids(INDEX_TYPE_FOO, null, emptyList(), filterOnAnyone());
+    underTest.getProjectUuids(INDEX_TYPE_FOO, 10, emptyList(), filter(10));
+    assertThat(underTest.getCachedProjectUuids()).isEqualTo(3);
+
+    // reloading an entry replaces its uuids
+    system2.setNow(system2.now() + 61_000L);
+    underTest.getProjectUuids(INDEX_TYPE_FOO, 10, emptyList(), filter(10));
+    assertThat(underTest.getCachedProjectUuids()).isEqualTo(3);
+
+    underTest.invalidate();
+    assertThat(underTest.getCachedProjectUuids()).isZero();
+  }
+
+  @Test
+  public void entries_do_not_depend_on_order_of_groups() {
+    indexAuthorization("P1", ImmutableMap.of(FIELD_ALLOW_ANYONE, false, FIELD_GROUP_IDS, asList(20L)));
+    assertThat(underTest.getProjectUuids(INDEX_TYPE_FOO, 10, asList(20, 21), filter(10, 20, 21)).get()).containsExactly("P1");
+
+    indexAuthorization("P2", ImmutableMap.of(FIELD_ALLOW_ANYONE, false, FIELD_GROUP_IDS, asList(21L)));
+
+    // served from cache
+    assertThat(underTest.getProjectUuids(INDEX_TYPE_FOO, 10, asList(21, 20), filter(10, 21, 20)).get()).containsExactly("P1");
+    // another user
+    assertThat(underTest.getProjectUuids(INDEX_TYPE_FOO, 11, asList(21, 20), filter(11, 21, 20)).get()).containsExactlyInAnyOrder("P1", "P2");
+  }
+
+  private static QueryBuilder filterOnAnyone() {
+    return boolQuery().filter(boolQuery().should(termQuery(FIELD_ALLOW_ANYONE, true)));
+  }
+
+  private static QueryBuilder filter(int userId, int... groupIds) {
+    BoolQueryBuilder filter = boolQuery()
+      .should(termQuery(FIELD_ALLOW_ANYONE, true))
+      .should(termQuery(FIELD_USER_IDS, userId));
+    for (int groupId : groupIds) {
+      filter.should(termQuery(FIELD_GROUP_IDS, groupId));
+    }
+    return boolQuery().filter(filter);
+  }
+
+  private void indexAuthorization(String projectUuid, Map<String, Object> doc) {
+    es.client().prepareIndex(INDEX_TYPE_FOO_AUTH)
+      .setId(projectUuid)
+      .setRouting(projectUuid)
+      .setSource(doc)
+      .setRefreshPolicy(IMMEDIATE)
+      .get();
+  }
+}
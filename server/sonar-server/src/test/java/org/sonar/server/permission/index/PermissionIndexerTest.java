@@ -23,6 +23,7 @@ import java.util.Collection;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
@@ -31,6 +32,7 @@ import org.sonar.db.es.EsQueueDto;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.UserDto;
+import org.sonar.server.es.BulkIndexerStatistics;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.IndexType;
 import org.sonar.server.es.IndexingResult;
@@ -57,9 +59,12 @@ public class PermissionIndexerTest {
   @Rule
   public UserSessionRule userSession = UserSessionRule.standalone();
 
-  private FooIndex fooIndex = new FooIndex(es.client(), new AuthorizationTypeSupport(userSession));
+  // authorizations are cached by searches, so that each test also verifies that the cache is invalidated on indexing
+  private AuthorizedProjectsCache authorizedProjectsCache = new AuthorizedProjectsCache(es.client(), System2.INSTANCE,
+    new MapSettings().setProperty(AuthorizedProjectsCache.PROPERTY_TTL_IN_SECONDS, 3_600).asConfig());
+  private FooIndex fooIndex = new FooIndex(es.client(), new AuthorizationTypeSupport(userSession, authorizedProjectsCache));
   private FooIndexer fooIndexer = new FooIndexer(es.client());
-  private PermissionIndexer underTest = new PermissionIndexer(db.getDbClient(), es.client(), fooIndexer);
+  private PermissionIndexer underTest = new PermissionIndexer(db.getDbClient(), es.client(), authorizedProjectsCache, new BulkIndexerStatistics(), fooIndexer);
 
   @Test
   public void indexOnStartup_grants_access_to_any_user_and_to_group_Anyone_on_public_projects() {
@@ -0,0 +1,66 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import org.junit.Test;
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+import org.sonar.server.es.BulkIndexerStatistics;
+import org.sonar.server.es.RecoveryIndexer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonar.process.systeminfo.SystemInfoUtils.attribute;
+
+public class EsIndexingSectionTest {
+
+  private RecoveryIndexer recoveryIndexer = mock(RecoveryIndexer.class);
+  private EsIndexingSection underTest = new EsIndexingSection(recoveryIndexer, new BulkIndexerStatistics());
+
+  @Test
+  public void name() {
+    assertThat(underTest.name()).isEqualTo("Search Indexing");
+    assertThat(underTest.toProtobuf().getName()).isEqualTo("Search Indexing");
+  }
+
+  @Test
+  public void indexing_attributes() {
+    ProtobufSystemInfo.Section section = underTest.toProtobuf();
+
+    assertThat(attribute(section, "Indexed Documents").getLongValue()).isGreaterThanOrEqualTo(0L);
+    assertThat(attribute(section, "Indexed Documents per Second").getLongValue()).isGreaterThanOrEqualTo(0L);
+    assertThat(attribute(section, "Sent Bytes per Second").getLongValue()).isGreaterThanOrEqualTo(0L);
+    assertThat(attribute(section, "Bulk Requests").getLongValue()).isGreaterThanOrEqualTo(0L);
+    assertThat(attribute(section, "Rejected Bulk Requests").getLongValue()).isGreaterThanOrEqualTo(0L);
+    assertThat(attribute(section, "Bulk Size (bytes)").getLongValue()).isGreaterThan(0L);
+    assertThat(attribute(section, "Concurrent Bulk Requests").getLongValue()).isGreaterThan(0L);
+  }
+
+  @Test
+  public void recovery_attributes() {
+    when(recoveryIndexer.getBacklogSize()).thenReturn(1_200L);
+    when(recoveryIndexer.getDrainRatePerSecond()).thenReturn(40L);
+
+    ProtobufSystemInfo.Section section = underTest.toProtobuf();
+
+    assertThat(attribute(section, "Recovery Backlog").getLongValue()).isEqualTo(1_200L);
+    assertThat(attribute(section, "Recovery Drain Rate per Second").getLongValue()).isEqualTo(40L);
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import org.junit.Test;
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+import org.sonar.server.user.ProjectPermissionsCache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonar.process.systeminfo.SystemInfoUtils.attribute;
+
+public class PermissionsCacheSectionTest {
+
+  private ProjectPermissionsCache cache = mock(ProjectPermissionsCache.class);
+  private PermissionsCacheSection underTest = new PermissionsCacheSection(cache);
+
+  @Test
+  public void name() {
+    assertThat(underTest.name()).isEqualTo("Permissions Cache");
+    assertThat(underTest.toProtobuf().getName()).isEqualTo("Permissions Cache");
+  }
+
+  @Test
+  public void cache_attributes() {
+    when(cache.isEnabled()).thenReturn(true);
+    when(cache.getSize()).thenReturn(12);
+    when(cache.getHits()).thenReturn(30L);
+    when(cache.getMisses()).thenReturn(10L);
+    when(cache.getHitRatio()).thenReturn(75L);
+
+    ProtobufSystemInfo.Section section = underTest.toProtobuf();
+
+    assertThat(attribute(section, "Enabled").getBooleanValue()).isTrue();
+    assertThat(attribute(section, "Entries").getLongValue()).isEqualTo(12L);
+    assertThat(attribute(section, "Hits").getLongValue()).isEqualTo(30L);
+    assertThat(attribute(section, "Misses").getLongValue()).isEqualTo(10L);
+    assertThat(attribute(section, "Hit Ratio (%)").getLongValue()).isEqualTo(75L);
+  }
+}
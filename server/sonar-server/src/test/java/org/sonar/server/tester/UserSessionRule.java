@@ -239,6 +239,12 @@ public class UserSessionRule implements TestRule, UserSession {
     return currentUserSession.keepAuthorizedComponents(permission, components);
   }
 
+  @Override
+  public UserSession preloadComponentPermissions(Collection<ComponentDto> components) {
+    currentUserSession.preloadComponentPermissions(components);
+    return this;
+  }
+
   @Override
   @CheckForNull
   public String getLogin() {
@@ -0,0 +1,98 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.user;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.utils.internal.TestSystem2;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProjectPermissionsCacheTest {
+
+  private TestSystem2 system2 = new TestSystem2().setNow(1_000_000L);
+  private ProjectPermissionsCache underTest = new ProjectPermissionsCache(system2,
+    new MapSettings().setProperty(ProjectPermissionsCache.PROPERTY_TTL_IN_SECONDS, 10).asConfig());
+
+  @Test
+  public void cache_is_disabled_by_default() {
+    ProjectPermissionsCache cache = new ProjectPermissionsCache(system2);
+
+    cache.put(1, emptyList(), "P1", ImmutableSet.of("user"));
+
+    assertThat(cache.isEnabled()).isFalse();
+    assertThat(cache.get(1, emptyList(), "P1")).isNull();
+    assertThat(cache.getSize()).isZero();
+  }
+
+  @Test
+  public void get_permissions_of_user_and_groups_on_project() {
+    underTest.put(1, asList(10, 11), "P1", ImmutableSet.of("user", "admin"));
+    underTest.put(null, emptyList(), "P1", ImmutableSet.of("user"));
+
+    assertThat(underTest.isEnabled()).isTrue();
+    assertThat(underTest.get(1, asList(11, 10), "P1")).containsOnly("user", "admin");
+    assertThat(underTest.get(null, emptyList(), "P1")).containsOnly("user");
+    // groups of user changed
+    assertThat(underTest.get(1, asList(10), "P1")).isNull();
+    assertThat(underTest.get(1, asList(10, 11), "P2")).isNull();
+    assertThat(underTest.get(2, asList(10, 11), "P1")).isNull();
+  }
+
+  @Test
+  public void entries_expire_after_time_to_live() {
+    underTest.put(1, emptyList(), "P1", ImmutableSet.of("user"));
+
+    system2.setNow(system2.now() + 9_999L);
+    assertThat(underTest.get(1, emptyList(), "P1")).containsOnly("user");
+
+    system2.setNow(system2.now() + 1L);
+    assertThat(underTest.get(1, emptyList(), "P1")).isNull();
+  }
+
+  @Test
+  public void invalidate_drops_all_entries() {
+    underTest.put(1, emptyList(), "P1", ImmutableSet.of("user"));
+    underTest.put(2, emptyList(), "P2", ImmutableSet.of("user"));
+
+    underTest.invalidate();
+
+    assertThat(underTest.getSize()).isZero();
+    assertThat(underTest.get(1, emptyList(), "P1")).isNull();
+  }
+
+  @Test
+  public void count_hits_and_misses() {
+    assertThat(underTest.getHitRatio()).isZero();
+    underTest.put(1, emptyList(), "P1", ImmutableSet.of("user"));
+
+    underTest.get(1, emptyList(), "P1");
+    underTest.get(1, emptyList(), "P1");
+    underTest.get(1, emptyList(), "P1");
+    underTest.get(1, emptyList(), "P2");
+
+    assertThat(underTest.getHits()).isEqualTo(3L);
+    assertThat(underTest.getMisses()).isEqualTo(1L);
+    assertThat(underTest.getHitRatio()).isEqualTo(75L);
+  }
+}
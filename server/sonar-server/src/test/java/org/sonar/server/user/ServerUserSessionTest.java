@@ -24,6 +24,7 @@ import javax.annotation.Nullable;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.utils.System2;
 import org.sonar.api.web.UserRole;
 import org.sonar.db.DbClient;
@@ -455,6 +456,87 @@ public class ServerUserSessionTest {
     assertThat(hasComponentPermissionByDtoOrUuid(underTest, UserRole.ISSUE_ADMIN, publicProject)).isFalse();
   }
 
+  @Test
+  public void preloadComponentPermissions_loads_permissions_on_projects_of_components() {
+    UserDto user = db.users().insertUser();
+    OrganizationDto organization = db.organizations().insert();
+    GroupDto group = db.users().insertGroup(organization);
+    db.users().insertMember(group, user);
+    ComponentDto privateProject = db.components().insertPrivateProject(organization);
+    ComponentDto branch = db.components().insertProjectBranch(privateProject);
+    ComponentDto fileInBranch = db.components().insertComponent(newChildComponent("fileUuid", branch, branch));
+    ComponentDto publicProject = db.components().insertPublicProject(organization);
+    db.users().insertProjectPermissionOnUser(user, UserRole.ADMIN, privateProject);
+    db.users().insertProjectPermissionOnGroup(group, UserRole.USER, privateProject);
+    db.users().insertProjectPermissionOnAnyone(UserRole.ISSUE_ADMIN, publicProject);
+
+    UserSession underTest = newUserSession(user);
+    assertThat(underTest.preloadComponentPermissions(asList(fileInBranch, publicProject))).isSameAs(underTest);
+
+    // permissions are not loaded anymore
+    db.users().deletePermissionFromUser(privateProject, user, UserRole.ADMIN);
+    db.users().deleteProjectPermissionFromAnyone(publicProject, UserRole.ISSUE_ADMIN);
+    assertThat(hasComponentPermissionByDtoOrUuid(underTest, UserRole.ADMIN, privateProject)).isTrue();
+    assertThat(hasComponentPermissionByDtoOrUuid(underTest, UserRole.USER, fileInBranch)).isTrue();
+    assertThat(hasComponentPermissionByDtoOrUuid(underTest, UserRole.CODEVIEWER, privateProject)).isFalse();
+    assertThat(hasComponentPermissionByDtoOrUuid(underTest, UserRole.ISSUE_ADMIN, publicProject)).isTrue();
+    assertThat(hasComponentPermissionByDtoOrUuid(underTest, UserRole.CODEVIEWER, publicProject)).isTrue();
+  }
+
+  @Test
+  public void preloadComponentPermissions_does_not_override_permissions_already_loaded() {
+    UserDto user = db.users().insertUser();
+    ComponentDto privateProject = db.components().insertPrivateProject();
+    db.users().insertProjectPermissionOnUser(user, UserRole.ADMIN, privateProject);
+
+    UserSession underTest = newUserSession(user);
+    assertThat(hasComponentPermissionByDtoOrUuid(underTest, UserRole.ADMIN, privateProject)).isTrue();
+
+    db.users().deletePermissionFromUser(privateProject, user, UserRole.ADMIN);
+    underTest.preloadComponentPermissions(asList(privateProject));
+
+    assertThat(hasComponentPermissionByDtoOrUuid(underTest, UserRole.ADMIN, privateProject)).isTrue();
+  }
+
+  @Test
+  public void preloadComponentPermissions_for_anonymous() {
+    ComponentDto privateProject = db.components().insertPrivateProject();
+    ComponentDto publicProject = db.components().insertPublicProject();
+    db.users().insertProjectPermissionOnAnyone(UserRole.ISSUE_ADMIN, publicProject);
+
+    UserSession underTest = newAnonymousSession();
+    underTest.preloadComponentPermissions(asList(privateProject, publicProject));
+
+    assertThat(hasComponentPermissionByDtoOrUuid(underTest, UserRole.USER, privateProject)).isFalse();
+    assertThat(hasComponentPermissionByDtoOrUuid(underTest, UserRole.USER, publicProject)).isTrue();
+    assertThat(hasComponentPermissionByDtoOrUuid(underTest, UserRole.ISSUE_ADMIN, publicProject)).isTrue();
+  }
+
+  @Test
+  public void permissions_on_projects_are_shared_by_sessions_when_cache_is_enabled() {
+    UserDto user = db.users().insertUser();
+    ComponentDto project1 = db.components().insertPrivateProject();
+    ComponentDto project2 = db.components().insertPrivateProject();
+    db.users().insertProjectPermissionOnUser(user, UserRole.ADMIN, project1);
+    db.users().insertProjectPermissionOnUser(user, UserRole.ADMIN, project2);
+    ProjectPermissionsCache cache = new ProjectPermissionsCache(System2.INSTANCE,
+      new MapSettings().setProperty(ProjectPermissionsCache.PROPERTY_TTL_IN_SECONDS, 3_600).asConfig());
+
+    assertThat(newUserSession(user, cache).hasComponentPermission(UserRole.ADMIN, project1)).isTrue();
+    newUserSession(user, cache).preloadComponentPermissions(asList(project2));
+    db.users().deletePermissionFromUser(project1, user, UserRole.ADMIN);
+    db.users().deletePermissionFromUser(project2, user, UserRole.ADMIN);
+
+    // served by cache
+    assertThat(newUserSession(user, cache).hasComponentPermission(UserRole.ADMIN, project1)).isTrue();
+    assertThat(newUserSession(user, cache).hasComponentPermission(UserRole.ADMIN, project2)).isTrue();
+    assertThat(cache.getHits()).isEqualTo(2L);
+
+    // permissions changed
+    cache.invalidate();
+    assertThat(newUserSession(user, cache).hasComponentPermission(UserRole.ADMIN, project1)).isFalse();
+  }
+
   private boolean hasComponentPermissionByDtoOrUuid(UserSession underTest, String permission, ComponentDto component) {
     boolean b1 = underTest.hasComponentPermission(permission, component);
     boolean b2 = underTest.hasComponentUuidPermission(permission, component.uuid());
@@ -643,6 +725,10 @@ public class ServerUserSessionTest {
     return new ServerUserSession(dbClient, organizationFlags, defaultOrganizationProvider, userDto);
   }
 
+  private ServerUserSession newUserSession(@Nullable UserDto userDto, ProjectPermissionsCache cache) {
+    return new ServerUserSession(dbClient, organizationFlags, defaultOrganizationProvider, cache, userDto);
+  }
+
   private ServerUserSession newAnonymousSession() {
     return newUserSession(null);
   }
@@ -19,6 +19,12 @@
  */
 package org.sonar.server.util.cache;
 
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -77,4 +83,74 @@ public class DiskCacheTest {
       assertThat(e).hasMessage("expected error");
     }
   }
+
+  @Test
+  public void write_and_read_with_codec() throws Exception {
+    DiskCache<String> cache = new DiskCache<>(temp.newFile(), System2.INSTANCE, new StringCodec(), false);
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      assertThat(traverse).isEmpty();
+    }
+
+    cache.newAppender()
+      .append("foo")
+      .append("bar")
+      .close();
+    cache.newAppender()
+      .append("baz")
+      .close();
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      assertThat(traverse).containsExactly("foo", "bar", "baz");
+    }
+  }
+
+  @Test
+  public void write_and_read_many_blocks_with_codec_and_compression() throws Exception {
+    DiskCache<String> cache = new DiskCache<>(temp.newFile(), System2.INSTANCE, new StringCodec(), true);
+    List<String> expected = new ArrayList<>();
+    try (DiskCache<String>.DiskAppender appender = cache.newAppender()) {
+      for (int i = 0; i < 50_000; i++) {
+        String value = "value_" + i;
+        appender.append(value);
+        expected.add(value);
+      }
+    }
+
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      assertThat(traverse).containsExactlyElementsOf(expected);
+    }
+  }
+
+  @Test
+  public void codec_truncates_existing_file() throws Exception {
+    File file = temp.newFile();
+    DiskCache<String> cache = new DiskCache<>(file, System2.INSTANCE, new StringCodec(), false);
+    cache.newAppender().append("foo").close();
+
+    DiskCache<String> otherCache = new DiskCache<>(file, System2.INSTANCE, new StringCodec(), false);
+    try (CloseableIterator<String> traverse = otherCache.traverse()) {
+      assertThat(traverse).isEmpty();
+    }
+  }
+
+  @Test
+  public void fail_if_file_is_not_writable_with_codec() throws Exception {
+    try {
+      new DiskCache<>(temp.newFolder(), System2.INSTANCE, new StringCodec(), false);
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessageContaining("Fail to write into file");
+    }
+  }
+
+  private static class StringCodec implements DiskCacheCodec<String> {
+    @Override
+    public void encode(String object, CodedOutputStream output) throws IOException {
+      output.writeStringNoTag(object);
+    }
+
+    @Override
+    public String decode(CodedInputStream input) throws IOException {
+      return input.readString();
+    }
+  }
 }
@@ -29,4 +29,14 @@ public interface PurgeConstants {
   String WEEKS_BEFORE_DELETING_ALL_SNAPSHOTS = "sonar.dbcleaner.weeksBeforeDeletingAllSnapshots";
   String DAYS_BEFORE_DELETING_CLOSED_ISSUES = "sonar.dbcleaner.daysBeforeDeletingClosedIssues";
   String DAYS_BEFORE_DELETING_INACTIVE_SHORT_LIVING_BRANCHES = "sonar.dbcleaner.daysBeforeDeletingInactiveShortLivingBranches";
+
+  /**
+   * When enabled, historical data is purged by the Compute Engine in the background, in short time-boxed transactions,
+   * rather than by the analysis itself.
+   */
+  String BACKGROUND_PURGE = "sonar.dbcleaner.backgroundPurge";
+  String BACKGROUND_PURGE_DELAY_IN_MS = "sonar.dbcleaner.backgroundPurge.delayInMs";
+  String BACKGROUND_PURGE_MAX_DURATION_IN_MS = "sonar.dbcleaner.backgroundPurge.maxDurationInMs";
+  String BACKGROUND_PURGE_CHUNK_SIZE = "sonar.dbcleaner.backgroundPurge.chunkSize";
+  String BACKGROUND_PURGE_DB_LOAD_PERCENT = "sonar.dbcleaner.backgroundPurge.dbLoadPercent";
 }
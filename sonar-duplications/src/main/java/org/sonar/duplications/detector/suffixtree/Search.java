@@ -26,6 +26,7 @@ import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.concurrent.CancellationException;
 
 public final class Search {
 
@@ -66,6 +67,7 @@ public final class Search {
     Deque<Node> stack = new LinkedList<>();
     stack.add(tree.getRootNode());
     while (!stack.isEmpty()) {
+      checkInterrupted();
       Node node = stack.removeLast();
       node.startSize = list.size();
       if (node.getEdges().isEmpty()) {
@@ -101,12 +103,23 @@ public final class Search {
    */
   private void visitInnerNodes() {
     for (Node node : innerNodes) {
+      checkInterrupted();
       if (containsOrigin(node)) {
         report(node);
       }
     }
   }
 
+  /**
+   * Search can take long on big texts, so it stops when the thread is interrupted, for example
+   * because the caller gave up waiting for the result.
+   */
+  private static void checkInterrupted() {
+    if (Thread.currentThread().isInterrupted()) {
+      throw new CancellationException("Search of duplications is interrupted");
+    }
+  }
+
   /**
    * TODO Godin: in fact computations here are the same as in {@link #report(Node)},
    * so maybe would be better to remove this duplication,
@@ -0,0 +1,424 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.index;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import javax.annotation.Nullable;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.duplications.index.PackedMemoryCloneIndex.ResourceBlocks;
+import org.sonar.duplications.utils.FastStringComparator;
+
+/**
+ * Variant of {@link PackedMemoryCloneIndex} which stores blocks out of the Java heap, in direct buffers.
+ * <p>
+ * Blocks are packed in a flat buffer of ints, and each resource id is kept once on heap, whatever the number of
+ * its blocks. Once all blocks are inserted, the index is frozen: blocks are sorted a single time, on the first query
+ * or on the call to {@link #freeze()}, and no block can be inserted anymore. A frozen index is read-only, hence it can
+ * be queried by several threads at the same time.
+ * </p>
+ * <p>
+ * A direct buffer can't be bigger than 2GB, so the index can hold at most {@link #MAX_BUFFER_INTS} ints of blocks.
+ * </p>
+ */
+public class OffHeapCloneIndex extends AbstractCloneIndex {
+
+  private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+  /**
+   * Maximum number of ints in a direct buffer, which size in bytes is an int.
+   */
+  static final long MAX_BUFFER_INTS = Integer.MAX_VALUE / Integer.BYTES;
+
+  /**
+   * index in file, first line, last line, first unit, last unit and index of resource id
+   */
+  private static final int BLOCK_INTS = 6;
+
+  private final int hashInts;
+
+  private final int blockInts;
+
+  private volatile boolean frozen = false;
+
+  /**
+   * Current number of blocks in index.
+   */
+  private int size = 0;
+
+  private IntBuffer blockData;
+
+  /**
+   * Positions of blocks in {@link #blockData}, sorted by resource id. Available only once the index is frozen.
+   */
+  private IntBuffer resourceIdsIndex;
+
+  private final List<String> resourceIds = new ArrayList<>();
+
+  private final Map<String, Integer> resourceIndexById = new HashMap<>();
+
+  /**
+   * Rank of each resource id, by index of resource id, in the order of {@link FastStringComparator}.
+   * Available only once the index is frozen.
+   */
+  private int[] resourceRanks;
+
+  public OffHeapCloneIndex() {
+    this(8, DEFAULT_INITIAL_CAPACITY);
+  }
+
+  /**
+   * @param hashBytes size of hash in bytes
+   * @param initialCapacity the initial capacity
+   */
+  public OffHeapCloneIndex(int hashBytes, int initialCapacity) {
+    this.hashInts = hashBytes / 4;
+    this.blockInts = hashInts + BLOCK_INTS;
+    this.blockData = allocate((long) Math.max(1, initialCapacity) * blockInts);
+  }
+
+  private static IntBuffer allocate(long ints) {
+    if (ints > MAX_BUFFER_INTS) {
+      throw new IllegalStateException("Clone index can't hold more than " + MAX_BUFFER_INTS + " ints, but " + ints + " are required");
+    }
+    int bytes = Math.toIntExact(Math.multiplyExact(ints, Integer.BYTES));
+    return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder()).asIntBuffer();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws IllegalStateException if the index is frozen
+   */
+  @Override
+  public void insert(Block block) {
+    if (frozen) {
+      throw new IllegalStateException("Blocks can not be inserted once the index is frozen");
+    }
+    int[] hash = block.getBlockHash().toIntArray();
+    if (hash.length != hashInts) {
+      throw new IllegalArgumentException("Expected " + hashInts + " ints in hash, but got " + hash.length);
+    }
+    ensureCapacity();
+
+    int offset = size * blockInts;
+    for (int i = 0; i < hashInts; i++) {
+      blockData.put(offset++, hash[i]);
+    }
+    blockData.put(offset++, block.getIndexInFile());
+    blockData.put(offset++, block.getStartLine());
+    blockData.put(offset++, block.getEndLine());
+    blockData.put(offset++, block.getStartUnit());
+    blockData.put(offset++, block.getEndUnit());
+    blockData.put(offset, resourceIndexOf(block.getResourceId()));
+
+    size++;
+  }
+
+  private int resourceIndexOf(String resourceId) {
+    return resourceIndexById.computeIfAbsent(resourceId, id -> {
+      resourceIds.add(id);
+      return resourceIds.size() - 1;
+    });
+  }
+
+  /**
+   * Increases the capacity, if necessary.
+   */
+  private void ensureCapacity() {
+    int capacity = blockData.capacity() / blockInts;
+    if (size < capacity) {
+      return;
+    }
+    long maxCapacity = MAX_BUFFER_INTS / blockInts;
+    if (capacity >= maxCapacity) {
+      throw new IllegalStateException("Clone index is full, it can't hold more than " + maxCapacity + " blocks");
+    }
+    IntBuffer oldBlockData = blockData.duplicate();
+    oldBlockData.clear();
+    blockData = allocate(Math.min(maxCapacity, capacity * 3L / 2 + 1) * blockInts);
+    blockData.put(oldBlockData);
+    blockData.clear();
+  }
+
+  /**
+   * Sorts the blocks and forbids any further insertion. Does nothing if the index is already frozen.
+   */
+  public void freeze() {
+    if (frozen) {
+      return;
+    }
+    synchronized (this) {
+      if (!frozen) {
+        DataUtils.sort(byBlockHash);
+        sortByResourceId();
+        frozen = true;
+      }
+    }
+  }
+
+  private void sortByResourceId() {
+    List<Integer> resourceIndices = new ArrayList<>(resourceIds.size());
+    for (int i = 0; i < resourceIds.size(); i++) {
+      resourceIndices.add(i);
+    }
+    resourceIndices.sort((i, j) -> FastStringComparator.INSTANCE.compare(resourceIds.get(i), resourceIds.get(j)));
+    resourceRanks = new int[resourceIds.size()];
+    for (int rank = 0; rank < resourceIndices.size(); rank++) {
+      resourceRanks[resourceIndices.get(rank)] = rank;
+    }
+
+    resourceIdsIndex = allocate(Math.max(1, size));
+    for (int i = 0; i < size; i++) {
+      resourceIdsIndex.put(i, i);
+    }
+    DataUtils.sort(byResourceId);
+  }
+
+  public boolean isFrozen() {
+    return frozen;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * <strong>Note that this implementation does not guarantee that blocks would be sorted by index.</strong>
+   * </p>
+   */
+  @Override
+  public Collection<Block> getByResourceId(String resourceId) {
+    freeze();
+    Integer resourceIndex = resourceIndexById.get(resourceId);
+    if (resourceIndex == null) {
+      return Collections.emptyList();
+    }
+    int rank = resourceRanks[resourceIndex];
+
+    int lower = 0;
+    int upper = size;
+    while (lower < upper) {
+      int mid = (lower + upper) >>> 1;
+      if (rankAt(mid) < rank) {
+        lower = mid + 1;
+      } else {
+        upper = mid;
+      }
+    }
+
+    List<Block> result = new ArrayList<>();
+    Block.Builder blockBuilder = Block.builder();
+    for (int index = lower; index < size && rankAt(index) == rank; index++) {
+      result.add(createBlock(blockBuilder, resourceIdsIndex.get(index), null));
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Collection<Block> getBySequenceHash(ByteArray sequenceHash) {
+    freeze();
+    int[] hash = sequenceHash.toIntArray();
+    if (hash.length != hashInts) {
+      throw new IllegalArgumentException("Expected " + hashInts + " ints in hash, but got " + hash.length);
+    }
+
+    int lower = 0;
+    int upper = size;
+    while (lower < upper) {
+      int mid = (lower + upper) >>> 1;
+      if (compareHash(mid, hash) < 0) {
+        lower = mid + 1;
+      } else {
+        upper = mid;
+      }
+    }
+
+    List<Block> result = new ArrayList<>();
+    Block.Builder blockBuilder = Block.builder();
+    for (int index = lower; index < size && compareHash(index, hash) == 0; index++) {
+      // extract block (note that there is no need to extract hash)
+      result.add(createBlock(blockBuilder, index, sequenceHash));
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Iterator<ResourceBlocks> iterator() {
+    freeze();
+    return new ResourceIterator();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int noResources() {
+    return resourceIds.size();
+  }
+
+  private int rankAt(int index) {
+    return resourceRanks[resourceIndexAt(resourceIdsIndex.get(index))];
+  }
+
+  private int resourceIndexAt(int blockIndex) {
+    return blockData.get(blockIndex * blockInts + blockInts - 1);
+  }
+
+  private int compareHash(int blockIndex, int[] hash) {
+    int offset = blockIndex * blockInts;
+    for (int k = 0; k < hashInts; k++, offset++) {
+      int value = blockData.get(offset);
+      if (value != hash[k]) {
+        return value < hash[k] ? -1 : 1;
+      }
+    }
+    return 0;
+  }
+
+  private Block createBlock(Block.Builder blockBuilder, int index, @Nullable ByteArray byteHash) {
+    int offset = index * blockInts;
+    ByteArray blockHash;
+
+    if (byteHash == null) {
+      int[] hash = new int[hashInts];
+      for (int j = 0; j < hashInts; j++) {
+        hash[j] = blockData.get(offset++);
+      }
+      blockHash = new ByteArray(hash);
+    } else {
+      blockHash = byteHash;
+      offset += hashInts;
+    }
+
+    int indexInFile = blockData.get(offset++);
+    int firstLineNumber = blockData.get(offset++);
+    int lastLineNumber = blockData.get(offset++);
+    int startUnit = blockData.get(offset++);
+    int endUnit = blockData.get(offset++);
+    String resourceId = resourceIds.get(blockData.get(offset));
+
+    return blockBuilder
+      .setResourceId(resourceId)
+      .setBlockHash(blockHash)
+      .setIndexInFile(indexInFile)
+      .setLines(firstLineNumber, lastLineNumber)
+      .setUnit(startUnit, endUnit)
+      .build();
+  }
+
+  private class ResourceIterator implements Iterator<ResourceBlocks> {
+    private final Block.Builder blockBuilder = Block.builder();
+    private int index = 0;
+
+    @Override
+    public boolean hasNext() {
+      return index < size;
+    }
+
+    @Override
+    public ResourceBlocks next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      int rank = rankAt(index);
+      List<Block> blocks = new ArrayList<>();
+
+      // while we are at the same resource, keep going
+      do {
+        blocks.add(createBlock(blockBuilder, resourceIdsIndex.get(index), null));
+        index++;
+      } while (hasNext() && rankAt(index) == rank);
+
+      return new ResourceBlocks(blocks.get(0).getResourceId(), blocks);
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private final DataUtils.Sortable byBlockHash = new DataUtils.Sortable() {
+    @Override
+    public void swap(int i, int j) {
+      int i2 = i * blockInts;
+      int j2 = j * blockInts;
+      for (int k = 0; k < blockInts; k++, i2++, j2++) {
+        int x = blockData.get(i2);
+        blockData.put(i2, blockData.get(j2));
+        blockData.put(j2, x);
+      }
+    }
+
+    @Override
+    public boolean isLess(int i, int j) {
+      int i2 = i * blockInts;
+      int j2 = j * blockInts;
+      for (int k = 0; k < hashInts; k++, i2++, j2++) {
+        int a = blockData.get(i2);
+        int b = blockData.get(j2);
+        if (a != b) {
+          return a < b;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  };
+
+  private final DataUtils.Sortable byResourceId = new DataUtils.Sortable() {
+    @Override
+    public void swap(int i, int j) {
+      int tmp = resourceIdsIndex.get(i);
+      resourceIdsIndex.put(i, resourceIdsIndex.get(j));
+      resourceIdsIndex.put(j, tmp);
+    }
+
+    @Override
+    public boolean isLess(int i, int j) {
+      return rankAt(i) < rankAt(j);
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  };
+}
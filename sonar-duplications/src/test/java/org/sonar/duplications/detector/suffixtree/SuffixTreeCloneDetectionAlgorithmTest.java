@@ -29,6 +29,7 @@ import org.sonar.duplications.index.CloneIndex;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertEquals;
@@ -192,6 +193,20 @@ public class SuffixTreeCloneDetectionAlgorithmTest extends DetectorTestCase {
         newClonePart("c", 0, 1)));
   }
 
+  @Test(expected = CancellationException.class)
+  public void stop_when_thread_is_interrupted() {
+    CloneIndex index = createIndex(newBlocks("b", "1 2 3 4"));
+    Block[] fileBlocks = newBlocks("a", "1 2 3 4");
+
+    Thread.currentThread().interrupt();
+    try {
+      detect(index, fileBlocks);
+    } finally {
+      // clear the flag for next tests
+      Thread.interrupted();
+    }
+  }
+
   @Override
   protected List<CloneGroup> detect(CloneIndex index, Block[] fileBlocks) {
     return SuffixTreeCloneDetectionAlgorithm.detect(index, Arrays.asList(fileBlocks));
@@ -0,0 +1,190 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.duplications.index.PackedMemoryCloneIndex.ResourceBlocks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OffHeapCloneIndexTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private OffHeapCloneIndex index;
+
+  @Before
+  public void setUp() {
+    index = new OffHeapCloneIndex();
+  }
+
+  @Test
+  public void test() {
+    index.insert(newBlock("a", 1));
+    index.insert(newBlock("a", 2));
+    index.insert(newBlock("b", 1));
+    index.insert(newBlock("c", 1));
+    index.insert(newBlock("d", 1));
+    index.insert(newBlock("e", 1));
+    index.insert(newBlock("e", 2));
+    index.insert(newBlock("e", 3));
+
+    assertThat(index.noResources()).isEqualTo(5);
+    assertThat(index.getBySequenceHash(new ByteArray(1L))).hasSize(5);
+    assertThat(index.getBySequenceHash(new ByteArray(2L))).hasSize(2);
+    assertThat(index.getBySequenceHash(new ByteArray(3L))).hasSize(1);
+    assertThat(index.getBySequenceHash(new ByteArray(4L))).isEmpty();
+    assertThat(index.getByResourceId("a")).hasSize(2);
+    assertThat(index.getByResourceId("b")).hasSize(1);
+    assertThat(index.getByResourceId("e")).hasSize(3);
+    assertThat(index.getByResourceId("does not exist")).isEmpty();
+  }
+
+  @Test
+  public void should_construct_blocks_with_normalized_hash() {
+    index.insert(newBlock("a", 1));
+    index.insert(newBlock("b", 1));
+    index.insert(newBlock("c", 1));
+    ByteArray requestedHash = new ByteArray(1L);
+    Collection<Block> blocks = index.getBySequenceHash(requestedHash);
+    assertThat(blocks).hasSize(3);
+    for (Block block : blocks) {
+      assertThat(block.getBlockHash()).isSameAs(requestedHash);
+    }
+  }
+
+  @Test
+  public void iterate_by_resource_id() {
+    index.insert(newBlock("a", 1));
+    index.insert(newBlock("c", 1));
+    index.insert(newBlock("b", 1));
+    index.insert(newBlock("c", 2));
+    index.insert(newBlock("a", 2));
+
+    Iterator<ResourceBlocks> it = index.iterator();
+    List<ResourceBlocks> resourcesBlocks = new ArrayList<>();
+    while (it.hasNext()) {
+      resourcesBlocks.add(it.next());
+    }
+
+    assertThat(resourcesBlocks).extracting(ResourceBlocks::resourceId).containsExactly("a", "b", "c");
+    assertThat(resourcesBlocks.get(0).blocks()).extracting(Block::getBlockHash).containsOnly(new ByteArray(1L), new ByteArray(2L));
+    assertThat(resourcesBlocks.get(1).blocks()).hasSize(1);
+    assertThat(resourcesBlocks.get(2).blocks()).hasSize(2);
+  }
+
+  @Test
+  public void should_increase_capacity() {
+    CloneIndex index = new OffHeapCloneIndex(8, 1);
+    index.insert(newBlock("a", 1));
+    index.insert(newBlock("a", 2));
+    index.insert(newBlock("b", 3));
+    assertThat(index.getByResourceId("a")).hasSize(2);
+    assertThat(index.getBySequenceHash(new ByteArray(3L))).extracting(Block::getResourceId).containsExactly("b");
+  }
+
+  @Test
+  public void is_frozen_by_first_query() {
+    index.insert(newBlock("a", 1));
+    assertThat(index.isFrozen()).isFalse();
+
+    index.getBySequenceHash(new ByteArray(1L));
+
+    assertThat(index.isFrozen()).isTrue();
+  }
+
+  @Test
+  public void fail_to_insert_block_once_frozen() {
+    index.insert(newBlock("a", 1));
+    index.freeze();
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Blocks can not be inserted once the index is frozen");
+
+    index.insert(newBlock("b", 1));
+  }
+
+  @Test
+  public void frozen_index_can_be_queried_concurrently() throws Exception {
+    for (int resource = 0; resource < 100; resource++) {
+      for (int hash = 0; hash < 50; hash++) {
+        index.insert(newBlock("resource" + resource, hash));
+      }
+    }
+    index.freeze();
+
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int hash = 0; hash < 50; hash++) {
+        ByteArray sequenceHash = new ByteArray((long) hash);
+        futures.add(executorService.submit(() -> index.getBySequenceHash(sequenceHash).size()));
+      }
+      for (Future<Integer> future : futures) {
+        assertThat(future.get()).isEqualTo(100);
+      }
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void attempt_to_insert_hash_of_incorrect_size() {
+    CloneIndex index = new OffHeapCloneIndex(4, 1);
+    index.insert(newBlock("a", 1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void attempt_to_find_hash_of_incorrect_size() {
+    CloneIndex index = new OffHeapCloneIndex(4, 1);
+    index.getBySequenceHash(new ByteArray(1L));
+  }
+
+  private static Block newBlock(String resourceId, long hash) {
+    return Block.builder()
+      .setResourceId(resourceId)
+      .setBlockHash(new ByteArray(hash))
+      .setIndexInFile(1)
+      .setLines(1, 2)
+      .build();
+  }
+
+
+  @Test
+  public void fail_if_capacity_exceeds_maximum_size_of_direct_buffer() {
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Clone index can't hold more than " + OffHeapCloneIndex.MAX_BUFFER_INTS + " ints");
+
+    new OffHeapCloneIndex(8, Integer.MAX_VALUE);
+  }
+}
@@ -20,6 +20,7 @@
 package org.sonar.api.batch.fs.internal;
 
 import java.nio.file.Path;
+import javax.annotation.CheckForNull;
 import javax.annotation.concurrent.ThreadSafe;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang.StringUtils;
@@ -48,6 +49,11 @@ public abstract class PathPattern {
 
   public abstract boolean match(Path absolutePath, Path relativePath, boolean caseSensitiveFileExtension);
 
+  /**
+   * Whether the pattern applies to the path relative to module basedir, else to the absolute path
+   */
+  abstract boolean isRelative();
+
   public static PathPattern create(String s) {
     String trimmed = StringUtils.trim(s);
     if (StringUtils.startsWithIgnoreCase(trimmed, ABSOLUTE_PATH_PATTERN_PREFIX)) {
@@ -81,17 +87,15 @@ public abstract class PathPattern {
 
     @Override
     public boolean match(Path absolutePath, Path relativePath, boolean caseSensitiveFileExtension) {
-      String path = PathUtils.sanitize(absolutePath.toString());
-      if (!caseSensitiveFileExtension) {
-        String extension = sanitizeExtension(FilenameUtils.getExtension(path));
-        if (StringUtils.isNotBlank(extension)) {
-          path = StringUtils.removeEndIgnoreCase(path, extension);
-          path = path + extension;
-        }
-      }
+      String path = toMatchedPath(absolutePath, caseSensitiveFileExtension);
       return pattern.match(path);
     }
 
+    @Override
+    boolean isRelative() {
+      return false;
+    }
+
     @Override
     public String toString() {
       return ABSOLUTE_PATH_PATTERN_PREFIX + pattern.toString();
@@ -113,23 +117,37 @@ public abstract class PathPattern {
 
     @Override
     public boolean match(Path absolutePath, Path relativePath, boolean caseSensitiveFileExtension) {
-      String path = PathUtils.sanitize(relativePath.toString());
-      if (!caseSensitiveFileExtension) {
-        String extension = sanitizeExtension(FilenameUtils.getExtension(path));
-        if (StringUtils.isNotBlank(extension)) {
-          path = StringUtils.removeEndIgnoreCase(path, extension);
-          path = path + extension;
-        }
-      }
+      String path = toMatchedPath(relativePath, caseSensitiveFileExtension);
       return path != null && pattern.match(path);
     }
 
+    @Override
+    boolean isRelative() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return pattern.toString();
     }
   }
 
+  /**
+   * Path as expected by {@link WildcardPattern}, with the file extension in lower case if it is not case sensitive
+   */
+  @CheckForNull
+  static String toMatchedPath(Path path, boolean caseSensitiveFileExtension) {
+    String result = PathUtils.sanitize(path.toString());
+    if (!caseSensitiveFileExtension) {
+      String extension = sanitizeExtension(FilenameUtils.getExtension(result));
+      if (StringUtils.isNotBlank(extension)) {
+        result = StringUtils.removeEndIgnoreCase(result, extension);
+        result = result + extension;
+      }
+    }
+    return result;
+  }
+
   static String sanitizeExtension(String suffix) {
     return StringUtils.lowerCase(StringUtils.removeStart(suffix, "."));
   }
@@ -0,0 +1,80 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * {@link PathPattern}s compiled together in {@link WildcardPatternSet}s, one for the patterns of relative paths
+ * and one for the deprecated patterns of absolute paths, so that paths are normalized and matched only once
+ * whatever the number of patterns.
+ */
+@Immutable
+public final class PathPatternSet {
+
+  private final WildcardPatternSet relativePathPatterns;
+  private final WildcardPatternSet absolutePathPatterns;
+
+  private PathPatternSet(PathPattern[] patterns) {
+    List<String> relative = new ArrayList<>();
+    List<String> absolute = new ArrayList<>();
+    for (PathPattern pattern : patterns) {
+      if (pattern.isRelative()) {
+        relative.add(pattern.pattern.toString());
+      } else {
+        absolute.add(pattern.pattern.toString());
+      }
+    }
+    this.relativePathPatterns = WildcardPatternSet.create(relative);
+    this.absolutePathPatterns = WildcardPatternSet.create(absolute);
+  }
+
+  public static PathPatternSet create(PathPattern[] patterns) {
+    return new PathPatternSet(patterns);
+  }
+
+  public static PathPatternSet create(String[] patterns) {
+    return new PathPatternSet(PathPattern.create(patterns));
+  }
+
+  public boolean isEmpty() {
+    return relativePathPatterns.isEmpty() && absolutePathPatterns.isEmpty();
+  }
+
+  /**
+   * Same as {@link PathPattern#match(Path, Path)} on each of the patterns, returning true as soon as one matches
+   */
+  public boolean matchAny(Path absolutePath, Path relativePath) {
+    return matchAny(absolutePath, relativePath, true);
+  }
+
+  public boolean matchAny(Path absolutePath, Path relativePath, boolean caseSensitiveFileExtension) {
+    if (!relativePathPatterns.isEmpty()) {
+      String path = PathPattern.toMatchedPath(relativePath, caseSensitiveFileExtension);
+      if (path != null && relativePathPatterns.matchAny(path)) {
+        return true;
+      }
+    }
+    return !absolutePathPatterns.isEmpty() && absolutePathPatterns.matchAny(PathPattern.toMatchedPath(absolutePath, caseSensitiveFileExtension));
+  }
+}
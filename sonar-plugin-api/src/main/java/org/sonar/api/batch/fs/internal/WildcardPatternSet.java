@@ -0,0 +1,261 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.concurrent.Immutable;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.utils.WildcardPattern;
+
+import static java.util.Collections.newSetFromMap;
+
+/**
+ * Set of {@link WildcardPattern}s (with "/" as directory separator) compiled together, so that a value is matched
+ * against all the patterns in a single walk over its path segments instead of one regular expression per pattern.
+ * <p>
+ * Patterns are stored in a tree of path segments, where "**" is a state looping over any number of segments. The few
+ * patterns which can not be represented this way (for example "**" within a segment, like "foo**") are
+ * matched by their regular expression. Results are the same as {@link WildcardPattern#match(String)}.
+ */
+@Immutable
+public final class WildcardPatternSet {
+
+  private static final String GLOBSTAR = "**";
+
+  private final WildcardPattern[] patterns;
+  private final Node root = new Node();
+  private final List<Integer> regexpPatternIndexes = new ArrayList<>();
+
+  private WildcardPatternSet(WildcardPattern[] patterns) {
+    this.patterns = patterns;
+    for (int i = 0; i < patterns.length; i++) {
+      List<String> segments = segments(patterns[i].toString());
+      if (segments == null) {
+        regexpPatternIndexes.add(i);
+      } else {
+        add(segments, i);
+      }
+    }
+  }
+
+  public static WildcardPatternSet create(String... patterns) {
+    return new WildcardPatternSet(WildcardPattern.create(patterns));
+  }
+
+  public static WildcardPatternSet create(Collection<String> patterns) {
+    return create(patterns.toArray(new String[0]));
+  }
+
+  public int size() {
+    return patterns.length;
+  }
+
+  public boolean isEmpty() {
+    return patterns.length == 0;
+  }
+
+  /**
+   * Returns true if the value matches at least one of the patterns.
+   */
+  public boolean matchAny(String value) {
+    return !match(value).isEmpty();
+  }
+
+  /**
+   * Indexes of the patterns matching the value, in the order given when creating the set.
+   */
+  public BitSet match(String value) {
+    BitSet result = new BitSet(patterns.length);
+    if (patterns.length == 0) {
+      return result;
+    }
+    if (hasLineTerminator(value)) {
+      // "." of the regular expressions does not match line terminators, unlike the segment states
+      for (int i = 0; i < patterns.length; i++) {
+        if (patterns[i].match(value)) {
+          result.set(i);
+        }
+      }
+      return result;
+    }
+    matchSegments(StringUtils.removeEnd(StringUtils.removeStart(value, "/"), "/"), result);
+    for (int index : regexpPatternIndexes) {
+      if (patterns[index].match(value)) {
+        result.set(index);
+      }
+    }
+    return result;
+  }
+
+  private void matchSegments(String value, BitSet result) {
+    Set<Node> states = newIdentitySet();
+    root.addClosure(states);
+    int start = 0;
+    while (!states.isEmpty()) {
+      int end = value.indexOf('/', start);
+      String segment = end < 0 ? value.substring(start) : value.substring(start, end);
+      Set<Node> nextStates = newIdentitySet();
+      for (Node state : states) {
+        state.step(segment, nextStates);
+      }
+      states = nextStates;
+      if (end < 0) {
+        break;
+      }
+      start = end + 1;
+    }
+    for (Node state : states) {
+      for (int index : state.acceptedPatternIndexes) {
+        result.set(index);
+      }
+    }
+  }
+
+  private void add(List<String> segments, int patternIndex) {
+    Node node = root;
+    for (String segment : segments) {
+      if (GLOBSTAR.equals(segment)) {
+        if (node.globstar == null) {
+          node.globstar = new Node();
+          node.globstar.loop = true;
+        }
+        node = node.globstar;
+      } else if (isLiteral(segment)) {
+        node = node.literals.computeIfAbsent(segment, s -> new Node());
+      } else {
+        node = node.globs.computeIfAbsent(segment, s -> new Node());
+      }
+    }
+    node.acceptedPatternIndexes.add(patternIndex);
+  }
+
+  /**
+   * Splits a pattern into its segments, "**" being kept only as a whole segment matching zero or more segments.
+   * Returns null if the pattern can not be represented by segments.
+   */
+  @CheckForNull
+  private static List<String> segments(String pattern) {
+    int start = pattern.startsWith("/") || pattern.startsWith("\\") ? 1 : 0;
+    String[] split = pattern.substring(start).split("[/\\\\]", -1);
+    List<String> segments = new ArrayList<>(split.length + 1);
+    for (int i = 0; i < split.length; i++) {
+      String segment = split[i];
+      if (segment.contains(GLOBSTAR) && !GLOBSTAR.equals(segment)) {
+        return null;
+      }
+      if (GLOBSTAR.equals(segment) && i > 0 && i == split.length - 1) {
+        // trailing "/**" matches any characters after the last separator, that is one or more segments
+        segments.add("*");
+      }
+      segments.add(segment);
+    }
+    return segments;
+  }
+
+  private static boolean isLiteral(String segment) {
+    return segment.indexOf('*') < 0 && segment.indexOf('?') < 0;
+  }
+
+  /**
+   * Same semantics as the regular expression of {@link WildcardPattern}: "*" matches zero or more characters and
+   * "?" exactly one character. Segments never contain directory separators.
+   */
+  static boolean matchSegment(String glob, String segment) {
+    int g = 0;
+    int s = 0;
+    int starGlob = -1;
+    int starSegment = 0;
+    while (s < segment.length()) {
+      if (g < glob.length() && (glob.charAt(g) == '?' || (glob.charAt(g) != '*' && glob.charAt(g) == segment.charAt(s)))) {
+        g++;
+        s++;
+      } else if (g < glob.length() && glob.charAt(g) == '*') {
+        starGlob = g;
+        starSegment = s;
+        g++;
+      } else if (starGlob >= 0) {
+        g = starGlob + 1;
+        starSegment++;
+        s = starSegment;
+      } else {
+        return false;
+      }
+    }
+    while (g < glob.length() && glob.charAt(g) == '*') {
+      g++;
+    }
+    return g == glob.length();
+  }
+
+  private static boolean hasLineTerminator(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static Set<Node> newIdentitySet() {
+    return newSetFromMap(new IdentityHashMap<>());
+  }
+
+  private static class Node {
+    private final Map<String, Node> literals = new HashMap<>();
+    private final Map<String, Node> globs = new HashMap<>();
+    private final List<Integer> acceptedPatternIndexes = new ArrayList<>();
+    /**
+     * State reached by "**", which consumes any number of segments
+     */
+    @CheckForNull
+    private Node globstar;
+    private boolean loop;
+
+    private void addClosure(Set<Node> states) {
+      if (states.add(this) && globstar != null) {
+        globstar.addClosure(states);
+      }
+    }
+
+    private void step(String segment, Set<Node> nextStates) {
+      if (loop) {
+        addClosure(nextStates);
+      }
+      Node literal = literals.get(segment);
+      if (literal != null) {
+        literal.addClosure(nextStates);
+      }
+      for (Map.Entry<String, Node> glob : globs.entrySet()) {
+        if (matchSegment(glob.getKey(), segment)) {
+          glob.getValue().addClosure(nextStates);
+        }
+      }
+    }
+  }
+}
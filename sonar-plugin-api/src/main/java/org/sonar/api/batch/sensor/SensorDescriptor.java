@@ -96,4 +96,14 @@ public interface SensorDescriptor {
    * @since 6.5
    */
   SensorDescriptor onlyWhenConfiguration(Predicate<Configuration> predicate);
+
+  /**
+   * The {@link Sensor} can be executed at the same time as other thread-safe sensors, when the platform is configured
+   * to execute sensors concurrently. It must not share mutable state with other sensors, except through the
+   * {@link SensorContext}. Sensors ordered by {@link org.sonar.api.batch.DependsUpon},
+   * {@link org.sonar.api.batch.DependedUpon} or {@link org.sonar.api.batch.Phase} are still executed alone.
+   * Default is to execute the sensor alone.
+   * @since 7.3
+   */
+  SensorDescriptor threadSafe();
 }
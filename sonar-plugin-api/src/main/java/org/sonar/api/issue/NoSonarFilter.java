@@ -19,9 +19,10 @@
  */
 package org.sonar.api.issue;
 
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.fs.InputFile;
@@ -30,25 +31,30 @@ import org.sonar.api.scan.issue.filter.FilterableIssue;
 import org.sonar.api.scan.issue.filter.IssueFilter;
 import org.sonar.api.scan.issue.filter.IssueFilterChain;
 
+import static java.util.Collections.unmodifiableSet;
+
 /**
  * Issue filter used to ignore issues created on lines commented with the tag "NOSONAR".
  * <br>
  * Plugins, via {@link ScannerSide}s, must feed this filter by registering the
  * lines that contain "NOSONAR". Note that filters are disabled for the issues reported by
  * end-users from UI or web services.
+ * <br>
+ * Lines can be registered by a sensor while issues of other files are filtered for other sensors, hence
+ * the registered lines are copied.
  *
  * @since 3.6
  */
 public class NoSonarFilter implements IssueFilter {
 
-  private final Map<String, Set<Integer>> noSonarLinesByResource = new HashMap<>();
+  private final Map<String, Set<Integer>> noSonarLinesByResource = new ConcurrentHashMap<>();
 
   /**
    * @deprecated since 5.0 use {@link #noSonarInFile(InputFile, Set)}
    */
   @Deprecated
   public NoSonarFilter addComponent(String componentKey, Set<Integer> noSonarLines) {
-    noSonarLinesByResource.put(componentKey, noSonarLines);
+    noSonarLinesByResource.put(componentKey, unmodifiableSet(new HashSet<>(noSonarLines)));
     return this;
   }
 
@@ -59,7 +65,7 @@ public class NoSonarFilter implements IssueFilter {
    * @since 5.0
    */
   public NoSonarFilter noSonarInFile(InputFile inputFile, Set<Integer> noSonarLines) {
-    noSonarLinesByResource.put(((DefaultInputFile) inputFile).key(), noSonarLines);
+    noSonarLinesByResource.put(((DefaultInputFile) inputFile).key(), unmodifiableSet(new HashSet<>(noSonarLines)));
     return this;
   }
 
@@ -0,0 +1,93 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PathPatternSetTest {
+
+  private final Path moduleBasePath = Paths.get("/home/foo/project").toAbsolutePath();
+
+  @Test
+  public void match_relative_path_patterns() {
+    PathPatternSet set = PathPatternSet.create(new String[] {"**/*Foo.java", "src/generated/**"});
+
+    assertThat(set.isEmpty()).isFalse();
+    assertThat(matchAny(set, "src/main/java/org/MyFoo.java")).isTrue();
+    assertThat(matchAny(set, "src/generated/Other.java")).isTrue();
+    assertThat(matchAny(set, "src/main/java/org/Other.java")).isFalse();
+    // case sensitive by default
+    assertThat(matchAny(set, "src/main/java/org/MyFoo.JAVA")).isFalse();
+  }
+
+  @Test
+  public void match_relative_path_and_insensitive_file_extension() {
+    PathPatternSet set = PathPatternSet.create(new String[] {"**/*Foo.java"});
+
+    Path relativePath = Paths.get("src/main/java/org/MyFoo.JAVA");
+    assertThat(set.matchAny(moduleBasePath.resolve(relativePath), relativePath, false)).isTrue();
+    relativePath = Paths.get("src/main/java/org/Other.java");
+    assertThat(set.matchAny(moduleBasePath.resolve(relativePath), relativePath, false)).isFalse();
+  }
+
+  @Test
+  public void match_absolute_path_patterns() {
+    PathPatternSet set = PathPatternSet.create(new String[] {"file:**/src/main/**Foo.java", "src/test/**"});
+
+    assertThat(matchAny(set, "src/main/java/org/MyFoo.java")).isTrue();
+    assertThat(matchAny(set, "src/test/java/org/Other.java")).isTrue();
+    assertThat(matchAny(set, "src/main/java/org/Other.java")).isFalse();
+  }
+
+  @Test
+  public void empty_set_matches_nothing() {
+    PathPatternSet set = PathPatternSet.create(new PathPattern[0]);
+
+    assertThat(set.isEmpty()).isTrue();
+    assertThat(matchAny(set, "src/main/java/org/MyFoo.java")).isFalse();
+  }
+
+  @Test
+  public void match_same_paths_as_path_patterns() {
+    String[] patterns = {"**/*Foo.java", "src/**/*.JAVA", "file:**/org/*", "src/main/java/org/MyFoo.java", "**/test/**"};
+    String[] relativePaths = {"src/main/java/org/MyFoo.java", "src/main/java/org/MyFoo.JAVA", "src/test/Foo.js", "org/Foo", "other"};
+    PathPatternSet set = PathPatternSet.create(patterns);
+
+    for (String relativePath : relativePaths) {
+      Path path = Paths.get(relativePath);
+      for (boolean caseSensitiveFileExtension : new boolean[] {true, false}) {
+        boolean expected = false;
+        for (PathPattern pattern : PathPattern.create(patterns)) {
+          expected |= pattern.match(moduleBasePath.resolve(path), path, caseSensitiveFileExtension);
+        }
+        assertThat(set.matchAny(moduleBasePath.resolve(path), path, caseSensitiveFileExtension)).as(relativePath).isEqualTo(expected);
+      }
+    }
+  }
+
+  private boolean matchAny(PathPatternSet set, String relativePath) {
+    Path path = Paths.get(relativePath);
+    return set.matchAny(moduleBasePath.resolve(path), path);
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.sonar.api.utils.WildcardPattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WildcardPatternSetTest {
+
+  private static final List<String> PATTERNS = Arrays.asList(
+    "**/*.java", "src/main/**", "src/**/test/*Test.java", "/org/foo/Bar.java", "org\\foo\\?ar.java", "**/foo/**",
+    "src/ma**", "**", "*", "", "org/*/*.java", "org/**/**/Bar.java", "org/foo/**/", "org/(foo)/[Bar].java");
+  private static final List<String> VALUES = Arrays.asList(
+    "", "/", "Bar.java", "org/foo/Bar.java", "/org/foo/Bar.java/", "org/foo/Car.java", "org/foo/sub/Bar.java",
+    "src/main", "src/main/", "src/main/java/Foo.java", "src/mainly/Foo.java", "src/test/FooTest.java", "src/a/b/test/FooTest.java",
+    "foo", "foo/bar", "a/foo", "org/foo//", "org/(foo)/[Bar].java", "org\\foo\\Bar.java", "org/foo/Bar.java\nsrc/main/Foo");
+
+  @Test
+  public void match_same_values_as_wildcard_patterns() {
+    WildcardPatternSet set = WildcardPatternSet.create(PATTERNS);
+
+    assertThat(set.size()).isEqualTo(PATTERNS.size());
+    for (String value : VALUES) {
+      for (int i = 0; i < PATTERNS.size(); i++) {
+        assertThat(set.match(value).get(i))
+          .as("pattern '%s' on value '%s'", PATTERNS.get(i), value)
+          .isEqualTo(WildcardPattern.create(PATTERNS.get(i)).match(value));
+      }
+    }
+  }
+
+  @Test
+  public void match_any() {
+    WildcardPatternSet set = WildcardPatternSet.create("**/*Test.java", "src/generated/**");
+
+    assertThat(set.matchAny("src/test/java/FooTest.java")).isTrue();
+    assertThat(set.matchAny("src/generated/Foo.java")).isTrue();
+    assertThat(set.matchAny("src/main/java/Foo.java")).isFalse();
+    assertThat(set.match("src/generated/FooTest.java").cardinality()).isEqualTo(2);
+  }
+
+  @Test
+  public void empty_set_matches_nothing() {
+    WildcardPatternSet set = WildcardPatternSet.create(Collections.emptyList());
+
+    assertThat(set.isEmpty()).isTrue();
+    assertThat(set.matchAny("")).isFalse();
+    assertThat(set.matchAny("src/main/java/Foo.java")).isFalse();
+  }
+
+  @Test
+  public void match_segment() {
+    assertThat(WildcardPatternSet.matchSegment("*", "")).isTrue();
+    assertThat(WildcardPatternSet.matchSegment("*Test.java", "FooTest.java")).isTrue();
+    assertThat(WildcardPatternSet.matchSegment("*Test.java", "FooTest.jav")).isFalse();
+    assertThat(WildcardPatternSet.matchSegment("F?o*", "Foo")).isTrue();
+    assertThat(WildcardPatternSet.matchSegment("F?o*", "Fo")).isFalse();
+    assertThat(WildcardPatternSet.matchSegment("a*b*c", "abxbc")).isTrue();
+    assertThat(WildcardPatternSet.matchSegment("a*b*c", "abxbcd")).isFalse();
+  }
+}
@@ -46,6 +46,15 @@ public class DefaultSensorDescriptorTest {
     settings.setProperty("sonar.foo.reportPath2", "foo");
     assertThat(descriptor.configurationPredicate().test(settings.asConfig())).isTrue();
     assertThat(descriptor.ruleRepositories()).containsOnly("squid-java");
+    assertThat(descriptor.isThreadSafe()).isFalse();
+  }
+
+  @Test
+  public void describe_thread_safe_sensor() {
+    DefaultSensorDescriptor descriptor = new DefaultSensorDescriptor();
+    descriptor.name("Foo").threadSafe();
+
+    assertThat(descriptor.isThreadSafe()).isTrue();
   }
 
 }
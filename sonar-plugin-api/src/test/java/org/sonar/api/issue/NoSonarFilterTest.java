@@ -27,6 +27,8 @@ import org.junit.Test;
 import org.sonar.api.scan.issue.filter.IssueFilterChain;
 import org.sonar.api.rule.RuleKey;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Set;
 
 import static org.mockito.Mockito.times;
@@ -87,4 +89,18 @@ public class NoSonarFilterTest {
 
     verify(chain, times(2)).accept(issue);
   }
+
+  @Test
+  public void should_keep_lines_registered_at_the_time_of_registration() {
+    FilterableIssue issue = mock(FilterableIssue.class);
+    when(issue.componentKey()).thenReturn("struts:org.apache.Action");
+    when(issue.ruleKey()).thenReturn(RuleKey.of("squid", "AvoidCycles"));
+
+    Set<Integer> noSonarLines = new HashSet<>(Arrays.asList(31, 55));
+    filter.addComponent("struts:org.apache.Action", noSonarLines);
+    noSonarLines.add(222);
+
+    when(issue.line()).thenReturn(222);
+    assertThat(filter.accept(issue, chain)).isTrue();
+  }
 }
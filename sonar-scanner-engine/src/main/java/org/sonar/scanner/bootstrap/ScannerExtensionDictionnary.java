@@ -89,6 +89,14 @@ public class ScannerExtensionDictionnary {
       .collect(Collectors.toList());
   }
 
+  /**
+   * Whether the extension is ordered only by the default {@link Phase}, without {@link DependsUpon} nor
+   * {@link DependedUpon}. Such extensions do not depend on each other.
+   */
+  public boolean hasDefaultOrder(Object extension) {
+    return evaluatePhase(extension) == Phase.Name.DEFAULT && getDependencies(extension).isEmpty() && getDependents(extension).isEmpty();
+  }
+
   private static Phase.Name evaluatePhase(Object extension) {
     Phase phaseAnnotation = AnnotationUtils.getAnnotation(extension, Phase.class);
     if (phaseAnnotation != null) {
@@ -20,7 +20,9 @@
 package org.sonar.scanner.cpd;
 
 import com.google.common.annotations.VisibleForTesting;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
@@ -31,6 +33,7 @@ import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
 import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputComponent;
@@ -68,6 +71,7 @@ public class CpdExecutor {
   private final ProgressReport progressReport;
   private final CpdSettings settings;
   private final BranchConfiguration branchConfiguration;
+  private final int concurrency;
   private int count;
   private int total;
 
@@ -78,6 +82,7 @@ public class CpdExecutor {
     this.publisher = publisher;
     this.componentStore = inputComponentCache;
     this.branchConfiguration = branchConfiguration;
+    this.concurrency = settings.getConcurrency();
     this.progressReport = new ProgressReport("CPD computation", TimeUnit.SECONDS.toMillis(10));
   }
 
@@ -97,33 +102,93 @@ public class CpdExecutor {
       LOG.info("{} {} had no CPD blocks", filesWithoutBlocks, pluralize(filesWithoutBlocks));
     }
     progressReport.start(String.format("Calculating CPD for %d %s", total, pluralize(total)));
-    ExecutorService executorService = Executors.newSingleThreadExecutor();
     try {
       Iterator<ResourceBlocks> it = index.iterator();
+      if (concurrency > 1) {
+        executeConcurrently(it, timeout);
+      } else {
+        executeSequentially(it, timeout);
+      }
+      progressReport.stop("CPD calculation finished");
+    } catch (Exception e) {
+      progressReport.stop("");
+      throw e;
+    }
+  }
 
+  private void executeSequentially(Iterator<ResourceBlocks> it, long timeout) {
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try {
       while (it.hasNext()) {
         ResourceBlocks resourceBlocks = it.next();
         runCpdAnalysis(executorService, resourceBlocks.resourceId(), resourceBlocks.blocks(), timeout);
         count++;
       }
-      progressReport.stop("CPD calculation finished");
-    } catch (Exception e) {
-      progressReport.stop("");
-      throw e;
     } finally {
       executorService.shutdown();
     }
   }
 
+  /**
+   * Detects duplications of up to {@link #concurrency} files at the same time, on a dedicated pool. Threads of the
+   * pool are interrupted when a detection times out, so that they are freed for the next files.
+   * Results are saved by the calling thread, in the order of files. As the waiting for the result of a file
+   * starts once the previous file is saved, the timeout is the minimum time given to each file.
+   */
+  private void executeConcurrently(Iterator<ResourceBlocks> it, long timeout) {
+    ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+    Deque<PendingDetection> pendingDetections = new ArrayDeque<>();
+    try {
+      while (it.hasNext()) {
+        ResourceBlocks resourceBlocks = it.next();
+        DefaultInputComponent component = getComponent(resourceBlocks.resourceId());
+        if (component == null) {
+          count++;
+          continue;
+        }
+        LOG.debug("Detection of duplications for {}", ((InputFile) component).absolutePath());
+        Collection<Block> fileBlocks = resourceBlocks.blocks();
+        pendingDetections.add(new PendingDetection(component, pool.submit(() -> SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks))));
+        if (pendingDetections.size() >= 2 * concurrency) {
+          completeDetection(pendingDetections.poll(), timeout);
+        }
+      }
+      while (!pendingDetections.isEmpty()) {
+        completeDetection(pendingDetections.poll(), timeout);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private void completeDetection(PendingDetection pendingDetection, long timeout) {
+    InputFile inputFile = (InputFile) pendingDetection.component;
+    progressReport.message(String.format("%d/%d - current file: %s", count, total, inputFile.absolutePath()));
+    List<CloneGroup> duplications = getDuplications(pendingDetection.future, inputFile, timeout);
+    if (duplications != null) {
+      saveFilteredDuplications(pendingDetection.component, duplications);
+    }
+    count++;
+  }
+
+  private static class PendingDetection {
+    private final DefaultInputComponent component;
+    private final Future<List<CloneGroup>> future;
+
+    private PendingDetection(DefaultInputComponent component, Future<List<CloneGroup>> future) {
+      this.component = component;
+      this.future = future;
+    }
+  }
+
   private static String pluralize(int files) {
     return files == 1 ? "file" : "files";
   }
 
   @VisibleForTesting
   void runCpdAnalysis(ExecutorService executorService, String componentKey, final Collection<Block> fileBlocks, long timeout) {
-    DefaultInputComponent component = (DefaultInputComponent) componentStore.getByKey(componentKey);
+    DefaultInputComponent component = getComponent(componentKey);
     if (component == null) {
-      LOG.error("Resource not found in component store: {}. Skipping CPD computation for it", componentKey);
       return;
     }
 
@@ -131,18 +196,43 @@ public class CpdExecutor {
     LOG.debug("Detection of duplications for {}", inputFile.absolutePath());
     progressReport.message(String.format("%d/%d - current file: %s", count, total, inputFile.absolutePath()));
 
-    List<CloneGroup> duplications;
     Future<List<CloneGroup>> futureResult = executorService.submit(() -> SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks));
+    List<CloneGroup> duplications = getDuplications(futureResult, inputFile, timeout);
+    if (duplications != null) {
+      saveFilteredDuplications(component, duplications);
+    }
+  }
+
+  @CheckForNull
+  private DefaultInputComponent getComponent(String componentKey) {
+    DefaultInputComponent component = (DefaultInputComponent) componentStore.getByKey(componentKey);
+    if (component == null) {
+      LOG.error("Resource not found in component store: {}. Skipping CPD computation for it", componentKey);
+    }
+    return component;
+  }
+
+  /**
+   * @return {@code null} if the detection timed out
+   */
+  @CheckForNull
+  private static List<CloneGroup> getDuplications(Future<List<CloneGroup>> futureResult, InputFile inputFile, long timeout) {
     try {
-      duplications = futureResult.get(timeout, TimeUnit.MILLISECONDS);
+      return futureResult.get(timeout, TimeUnit.MILLISECONDS);
     } catch (TimeoutException e) {
       LOG.warn("Timeout during detection of duplications for " + inputFile.absolutePath());
       futureResult.cancel(true);
-      return;
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Fail during detection of duplication for " + inputFile.absolutePath(), e);
     } catch (Exception e) {
       throw new IllegalStateException("Fail during detection of duplication for " + inputFile.absolutePath(), e);
     }
+  }
 
+  private void saveFilteredDuplications(DefaultInputComponent component, List<CloneGroup> duplications) {
+    InputFile inputFile = (InputFile) component;
     List<CloneGroup> filtered;
     if (!"java".equalsIgnoreCase(inputFile.language())) {
       int minTokens = settings.getMinimumTokens(inputFile.language());
@@ -26,6 +26,18 @@ import org.sonar.api.config.Configuration;
 import org.sonar.duplications.block.BlockChunker;
 
 public class CpdSettings {
+  /**
+   * When enabled, the blocks of all the files are indexed out of the Java heap, and the index is frozen before
+   * duplications are detected.
+   */
+  public static final String PROPERTY_OFF_HEAP_INDEX = "sonar.cpd.offHeapIndex";
+  /**
+   * Number of files for which duplications are detected at the same time. Values greater than 1 imply the off-heap
+   * index, as it's the only one which can be queried by several threads.
+   */
+  public static final String PROPERTY_CONCURRENCY = "sonar.cpd.concurrency";
+  private static final int DEFAULT_CONCURRENCY = 1;
+
   private final Configuration settings;
   private final String branch;
 
@@ -40,6 +52,14 @@ public class CpdSettings {
       && StringUtils.isBlank(branch);
   }
 
+  public boolean isOffHeapIndexEnabled() {
+    return settings.getBoolean(PROPERTY_OFF_HEAP_INDEX).orElse(false) || getConcurrency() > 1;
+  }
+
+  public int getConcurrency() {
+    return Math.max(DEFAULT_CONCURRENCY, settings.getInt(PROPERTY_CONCURRENCY).orElse(DEFAULT_CONCURRENCY));
+  }
+
   /**
    * Not applicable to Java, as the {@link BlockChunker} that it uses does not record start and end units of each block. 
    * Also, it uses statements instead of tokens. 
@@ -20,7 +20,9 @@
 package org.sonar.scanner.issue;
 
 import com.google.common.base.Strings;
+import com.google.common.util.concurrent.Striped;
 import java.util.Collection;
+import java.util.concurrent.locks.Lock;
 import java.util.function.Consumer;
 import javax.annotation.concurrent.ThreadSafe;
 import org.sonar.api.batch.fs.TextRange;
@@ -45,11 +47,14 @@ import org.sonar.scanner.report.ReportPublisher;
  */
 @ThreadSafe
 public class ModuleIssues {
+  private static final int COMPONENT_LOCK_STRIPES = 64;
 
   private final ActiveRules activeRules;
   private final Rules rules;
   private final IssueFilters filters;
   private final ReportPublisher reportPublisher;
+  // issues of a component are appended to a single file of the report, whatever the sensor raising them
+  private final Striped<Lock> componentLocks = Striped.lock(COMPONENT_LOCK_STRIPES);
 
   public ModuleIssues(ActiveRules activeRules, Rules rules, IssueFilters filters, ReportPublisher reportPublisher) {
     this.activeRules = activeRules;
@@ -189,10 +194,22 @@ public class ModuleIssues {
   }
 
   public void write(int batchId, ScannerReport.Issue rawIssue) {
-    reportPublisher.getWriter().appendComponentIssue(batchId, rawIssue);
+    Lock lock = componentLocks.get(batchId);
+    lock.lock();
+    try {
+      reportPublisher.getWriter().appendComponentIssue(batchId, rawIssue);
+    } finally {
+      lock.unlock();
+    }
   }
 
   public void write(int batchId, ScannerReport.ExternalIssue rawIssue) {
-    reportPublisher.getWriter().appendComponentExternalIssue(batchId, rawIssue);
+    Lock lock = componentLocks.get(batchId);
+    lock.lock();
+    try {
+      reportPublisher.getWriter().appendComponentExternalIssue(batchId, rawIssue);
+    } finally {
+      lock.unlock();
+    }
   }
 }
@@ -19,6 +19,7 @@
  */
 package org.sonar.scanner.issue.ignore;
 
+import javax.annotation.concurrent.ThreadSafe;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.scan.issue.filter.FilterableIssue;
@@ -27,9 +28,10 @@ import org.sonar.api.scan.issue.filter.IssueFilterChain;
 import org.sonar.scanner.issue.ignore.pattern.IssuePattern;
 import org.sonar.scanner.issue.ignore.pattern.PatternMatcher;
 
+@ThreadSafe
 public class IgnoreIssuesFilter implements IssueFilter {
 
-  private PatternMatcher patternMatcher;
+  private final PatternMatcher patternMatcher;
 
   private static final Logger LOG = LoggerFactory.getLogger(IgnoreIssuesFilter.class);
 
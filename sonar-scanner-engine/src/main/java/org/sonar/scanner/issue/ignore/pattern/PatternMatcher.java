@@ -20,23 +20,34 @@
 package org.sonar.scanner.issue.ignore.pattern;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.LinkedHashMultimap;
-import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.SetMultimap;
 import java.util.Collection;
 import java.util.Set;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
 import org.sonar.api.rule.RuleKey;
 
+/**
+ * Patterns are added when the metadata of files are computed, which can happen while issues of other files
+ * are filtered by concurrent sensors.
+ */
+@ThreadSafe
 public class PatternMatcher {
 
-  private Multimap<String, IssuePattern> excludePatternByComponent = LinkedHashMultimap.create();
+  private final SetMultimap<String, IssuePattern> excludePatternByComponent = Multimaps.synchronizedSetMultimap(LinkedHashMultimap.create());
 
   @CheckForNull
   public IssuePattern getMatchingPattern(String componentKey, RuleKey ruleKey, @Nullable Integer line) {
-    for (IssuePattern pattern : getPatternsForComponent(componentKey)) {
-      if (pattern.match(componentKey, ruleKey, line)) {
-        return pattern;
+    // iterating a view of a synchronized multimap requires to lock it
+    synchronized (excludePatternByComponent) {
+      for (IssuePattern pattern : excludePatternByComponent.get(componentKey)) {
+        if (pattern.match(componentKey, ruleKey, line)) {
+          return pattern;
+        }
       }
     }
     return null;
@@ -44,7 +55,9 @@ public class PatternMatcher {
 
   @VisibleForTesting
   public Collection<IssuePattern> getPatternsForComponent(String componentKey) {
-    return excludePatternByComponent.get(componentKey);
+    synchronized (excludePatternByComponent) {
+      return ImmutableSet.copyOf(excludePatternByComponent.get(componentKey));
+    }
   }
 
   public void addPatternForComponent(String componentKey, IssuePattern pattern) {
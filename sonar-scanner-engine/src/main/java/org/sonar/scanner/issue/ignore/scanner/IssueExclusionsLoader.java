@@ -20,9 +20,12 @@
 package org.sonar.scanner.issue.ignore.scanner;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import org.apache.commons.lang.StringUtils;
+import org.sonar.api.batch.fs.internal.WildcardPatternSet;
 import org.sonar.api.batch.fs.internal.charhandler.CharHandler;
 import org.sonar.scanner.issue.ignore.pattern.BlockIssuePattern;
 import org.sonar.scanner.issue.ignore.pattern.IssueExclusionPatternInitializer;
@@ -34,6 +37,8 @@ public final class IssueExclusionsLoader {
   private final List<DoubleRegexpMatcher> blockMatchers;
   private final PatternMatcher patternMatcher;
   private final IssueExclusionPatternInitializer patternsInitializer;
+  private final List<IssuePattern> multicriteriaPatterns;
+  private final WildcardPatternSet multicriteriaResourcePatterns;
   private final boolean enableCharHandler;
 
   public IssueExclusionsLoader(IssueExclusionPatternInitializer patternsInitializer, PatternMatcher patternMatcher) {
@@ -41,6 +46,10 @@ public final class IssueExclusionsLoader {
     this.patternMatcher = patternMatcher;
     this.allFilePatterns = new ArrayList<>();
     this.blockMatchers = new ArrayList<>();
+    this.multicriteriaPatterns = new ArrayList<>(patternsInitializer.getMulticriteriaPatterns());
+    this.multicriteriaResourcePatterns = WildcardPatternSet.create(multicriteriaPatterns.stream()
+      .map(pattern -> pattern.getResourcePattern().toString())
+      .collect(Collectors.toList()));
 
     for (String pattern : patternsInitializer.getAllFilePatterns()) {
       allFilePatterns.add(java.util.regex.Pattern.compile(pattern));
@@ -58,10 +67,9 @@ public final class IssueExclusionsLoader {
   }
 
   public void addMulticriteriaPatterns(String relativePath, String componentKey) {
-    for (IssuePattern pattern : patternsInitializer.getMulticriteriaPatterns()) {
-      if (pattern.matchResource(relativePath)) {
-        patternMatcher.addPatternForComponent(componentKey, pattern);
-      }
+    BitSet matchingPatterns = multicriteriaResourcePatterns.match(relativePath);
+    for (int i = matchingPatterns.nextSetBit(0); i >= 0; i = matchingPatterns.nextSetBit(i + 1)) {
+      patternMatcher.addPatternForComponent(componentKey, multicriteriaPatterns.get(i));
     }
   }
 
@@ -21,12 +21,21 @@ package org.sonar.scanner.phases;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.fs.internal.InputModuleHierarchy;
 import org.sonar.api.batch.fs.internal.SensorStrategy;
+import org.sonar.api.config.Configuration;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.util.logs.Profiler;
@@ -38,17 +47,33 @@ import org.sonar.scanner.sensor.SensorWrapper;
 public class SensorsExecutor {
   private static final Logger LOG = Loggers.get(SensorsExecutor.class);
   private static final Profiler profiler = Profiler.create(LOG);
+  /**
+   * Maximum number of sensors executed at the same time. Only the sensors declaring {@link org.sonar.api.batch.sensor.SensorDescriptor#threadSafe()}
+   * and not ordered by annotations are executed concurrently. Sensors are executed one after the other when
+   * this property is 1 (the default).
+   */
+  public static final String SENSORS_CONCURRENCY_PROPERTY = "sonar.scanner.sensorsConcurrency";
+  private static final int DEFAULT_SENSORS_CONCURRENCY = 1;
+
   private final ScannerExtensionDictionnary selector;
   private final SensorStrategy strategy;
   private final ScannerPluginRepository pluginRepo;
   private final boolean isRoot;
+  private final int concurrency;
 
   public SensorsExecutor(ScannerExtensionDictionnary selector, DefaultInputModule module, InputModuleHierarchy hierarchy,
     SensorStrategy strategy, ScannerPluginRepository pluginRepo) {
+    this(selector, module, hierarchy, strategy, pluginRepo, null);
+  }
+
+  public SensorsExecutor(ScannerExtensionDictionnary selector, DefaultInputModule module, InputModuleHierarchy hierarchy,
+    SensorStrategy strategy, ScannerPluginRepository pluginRepo, @Nullable Configuration configuration) {
     this.selector = selector;
     this.strategy = strategy;
     this.pluginRepo = pluginRepo;
     this.isRoot = hierarchy.isRoot(module);
+    this.concurrency = configuration == null ? DEFAULT_SENSORS_CONCURRENCY
+      : Math.max(DEFAULT_SENSORS_CONCURRENCY, configuration.getInt(SENSORS_CONCURRENCY_PROPERTY).orElse(DEFAULT_SENSORS_CONCURRENCY));
   }
 
   public void execute() {
@@ -82,6 +107,10 @@ public class SensorsExecutor {
   }
 
   private void execute(Collection<SensorWrapper> sensors) {
+    if (concurrency > 1) {
+      executeConcurrently(sensors);
+      return;
+    }
     for (SensorWrapper sensor : sensors) {
       String sensorName = getSensorName(sensor);
       profiler.startInfo("Sensor " + sensorName);
@@ -90,6 +119,76 @@ public class SensorsExecutor {
     }
   }
 
+  /**
+   * Consecutive sensors which can be executed concurrently are executed at the same time, at most {@link #concurrency}
+   * of them. The other sensors are executed alone, once the previous ones are over, so that the order of execution
+   * is kept for them.
+   */
+  private void executeConcurrently(Collection<SensorWrapper> sensors) {
+    ExecutorService executorService = Executors.newFixedThreadPool(concurrency, new SensorThreadFactory());
+    try {
+      List<SensorWrapper> concurrentSensors = new ArrayList<>();
+      for (SensorWrapper sensor : sensors) {
+        if (sensor.isThreadSafe() && selector.hasDefaultOrder(sensor.wrappedSensor())) {
+          concurrentSensors.add(sensor);
+        } else {
+          executeConcurrently(executorService, concurrentSensors);
+          concurrentSensors.clear();
+          executeSensor(sensor);
+        }
+      }
+      executeConcurrently(executorService, concurrentSensors);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private void executeConcurrently(ExecutorService executorService, List<SensorWrapper> sensors) {
+    if (sensors.size() <= 1) {
+      sensors.forEach(this::executeSensor);
+      return;
+    }
+    Profiler concurrentProfiler = Profiler.create(LOG).startInfo("Concurrent execution of " + sensors.size() + " sensors");
+    List<Future<?>> futures = sensors.stream()
+      .map(sensor -> executorService.submit(() -> executeSensor(sensor)))
+      .collect(Collectors.toList());
+    Throwable failure = null;
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while executing sensors", e);
+      }
+    }
+    propagate(failure);
+    concurrentProfiler.stopInfo();
+  }
+
+  private void executeSensor(SensorWrapper sensor) {
+    // Profiler is not thread safe, hence one instance per sensor
+    Profiler sensorProfiler = Profiler.create(LOG).startInfo("Sensor " + getSensorName(sensor));
+    sensor.analyse();
+    sensorProfiler.stopInfo();
+  }
+
+  private static void propagate(@Nullable Throwable failure) {
+    if (failure == null) {
+      return;
+    }
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    throw new IllegalStateException(failure);
+  }
+
   private String getSensorName(SensorWrapper sensor) {
     ClassLoader cl = getSensorClassLoader(sensor);
     String pluginKey = pluginRepo.getPluginKey(cl);
@@ -102,4 +201,15 @@ public class SensorsExecutor {
   private static ClassLoader getSensorClassLoader(SensorWrapper sensor) {
     return sensor.wrappedSensor().getClass().getClassLoader();
   }
+
+  private static final class SensorThreadFactory implements ThreadFactory {
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread thread = new Thread(r, "Sensor_" + counter.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
 }
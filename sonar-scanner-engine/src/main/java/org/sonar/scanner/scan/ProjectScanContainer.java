@@ -89,6 +89,7 @@ import org.sonar.scanner.scan.branch.ProjectBranchesProvider;
 import org.sonar.scanner.scan.branch.ProjectPullRequestsProvider;
 import org.sonar.scanner.scan.filesystem.BatchIdGenerator;
 import org.sonar.scanner.scan.filesystem.InputComponentStoreProvider;
+import org.sonar.scanner.scan.filesystem.FileMetadataCache;
 import org.sonar.scanner.scan.filesystem.StatusDetection;
 import org.sonar.scanner.scan.measure.DefaultMetricFinder;
 import org.sonar.scanner.scan.measure.MeasureCache;
@@ -156,6 +157,7 @@ public class ProjectScanContainer extends ComponentContainer {
       BatchIdGenerator.class,
       new ScmChangedFilesProvider(),
       StatusDetection.class,
+      FileMetadataCache.class,
 
       // rules
       new ActiveRulesProvider(),
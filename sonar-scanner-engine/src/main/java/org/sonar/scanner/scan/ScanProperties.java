@@ -42,6 +42,10 @@ public class ScanProperties {
   public static final String SONAR_REPORT_EXPORT_PATH = "sonar.report.export.path";
   public static final String PRELOAD_FILE_METADATA_KEY = "sonar.preloadFileMetadata";
   public static final String FORCE_RELOAD_KEY = "sonar.scm.forceReloadAll";
+  public static final String ANALYSIS_CACHE_PATH_KEY = "sonar.scanner.analysisCachePath";
+  public static final String STORAGE_KEY = "sonar.scanner.storage";
+  public static final String PERSISTIT_STORAGE = "persistit";
+  public static final String MEMORY_STORAGE = "memory";
 
   private final Configuration configuration;
   private final InputModuleHierarchy moduleHierarchy;
@@ -59,6 +63,30 @@ public class ScanProperties {
     return configuration.getBoolean(PRELOAD_FILE_METADATA_KEY).orElse(false);
   }
 
+  /**
+   * Directory where data computed on files is kept from one analysis to the next one. Relative paths are resolved
+   * against the base directory of the project. Nothing is kept when not defined.
+   */
+  public Optional<Path> analysisCachePath() {
+    return configuration.get(ANALYSIS_CACHE_PATH_KEY)
+      .map(path -> moduleHierarchy.root().getBaseDir().resolve(path));
+  }
+
+  /**
+   * Whether issues and measures of the analysis are kept on heap, instead of being encoded in a Persistit volume.
+   * This is faster but requires the heap to be large enough for the project.
+   */
+  public boolean inMemoryStorage() {
+    String storage = configuration.get(STORAGE_KEY).orElse(PERSISTIT_STORAGE);
+    if (MEMORY_STORAGE.equals(storage)) {
+      return true;
+    }
+    if (PERSISTIT_STORAGE.equals(storage)) {
+      return false;
+    }
+    throw MessageException.of(String.format("Property '%s' must be either '%s' or '%s': %s", STORAGE_KEY, PERSISTIT_STORAGE, MEMORY_STORAGE, storage));
+  }
+
   public Optional<String> organizationKey() {
     return configuration.get(ORGANIZATION);
   }
@@ -85,5 +113,6 @@ public class ScanProperties {
    */
   public void validate() {
     metadataFilePath();
+    inMemoryStorage();
   }
 }
@@ -0,0 +1,237 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan.filesystem;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.picocontainer.Startable;
+import org.sonar.api.SonarRuntime;
+import org.sonar.api.batch.fs.internal.Metadata;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.scanner.scan.ScanProperties;
+
+/**
+ * Keeps the charset and the {@link Metadata} of files from one analysis to the next one, so that unchanged files
+ * don't have to be decoded again. Entries are identified by the key of the file and the MD5 hash of its raw content,
+ * hence any change of the content invalidates the entry. The whole cache is dropped when the version of the API
+ * changes, as it computes the metadata, and each entry is reused only with the default encoding it was computed with.
+ * <p>
+ * Enabled by the property {@link ScanProperties#ANALYSIS_CACHE_PATH_KEY}. Only the entries of the files
+ * analyzed by the current analysis are written back, when the project analysis stops.
+ * </p>
+ */
+public class FileMetadataCache implements Startable {
+  private static final Logger LOG = Loggers.get(FileMetadataCache.class);
+  static final String FILE_NAME = "file-metadata.dat";
+  private static final int FORMAT_VERSION = 1;
+
+  @CheckForNull
+  private final Path cacheFile;
+  private final String fingerprint;
+  private final Map<String, CachedMetadata> previousEntries = new ConcurrentHashMap<>();
+  private final Map<String, CachedMetadata> currentEntries = new ConcurrentHashMap<>();
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger misses = new AtomicInteger();
+
+  public FileMetadataCache(ScanProperties scanProperties, SonarRuntime sonarRuntime) {
+    this.cacheFile = scanProperties.analysisCachePath().map(path -> path.resolve(FILE_NAME)).orElse(null);
+    this.fingerprint = FORMAT_VERSION + "/" + sonarRuntime.getApiVersion();
+  }
+
+  public boolean isEnabled() {
+    return cacheFile != null;
+  }
+
+  @Override
+  public void start() {
+    if (cacheFile != null && Files.exists(cacheFile)) {
+      load(cacheFile);
+    }
+  }
+
+  @Override
+  public void stop() {
+    if (cacheFile == null) {
+      return;
+    }
+    LOG.info("File metadata cache: {} hits, {} misses", hits.get(), misses.get());
+    save(cacheFile);
+  }
+
+  /**
+   * MD5 hash of the raw content of the file, which identifies an entry together with the key of the file.
+   */
+  public String contentHash(Path file) {
+    try (InputStream is = Files.newInputStream(file)) {
+      return DigestUtils.md5Hex(is);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to compute hash of file " + file, e);
+    }
+  }
+
+  /**
+   * @return the entry of the file if its content and the default encoding are the same as when the entry was put
+   */
+  public Optional<CachedMetadata> get(String fileKey, String contentHash, Charset defaultEncoding) {
+    CachedMetadata entry = previousEntries.get(fileKey);
+    if (entry != null && entry.contentHash.equals(contentHash) && entry.defaultEncoding.equals(defaultEncoding.name())) {
+      hits.incrementAndGet();
+      currentEntries.put(fileKey, entry);
+      return Optional.of(entry);
+    }
+    misses.incrementAndGet();
+    return Optional.empty();
+  }
+
+  public void put(String fileKey, String contentHash, Charset defaultEncoding, Charset charset, Metadata metadata) {
+    currentEntries.put(fileKey, new CachedMetadata(contentHash, defaultEncoding.name(), charset.name(), metadata));
+  }
+
+  private void load(Path file) {
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (!fingerprint.equals(input.readUTF())) {
+        LOG.debug("File metadata cache was written by another version. It is ignored.");
+        return;
+      }
+      int size = input.readInt();
+      for (int i = 0; i < size; i++) {
+        String fileKey = input.readUTF();
+        previousEntries.put(fileKey, CachedMetadata.readFrom(input));
+      }
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Fail to read file metadata cache " + file + ". It is ignored.", e);
+      previousEntries.clear();
+    }
+  }
+
+  private void save(Path file) {
+    Path tempFile = null;
+    try {
+      Files.createDirectories(file.getParent());
+      tempFile = Files.createTempFile(file.getParent(), FILE_NAME, ".tmp");
+      try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+        output.writeUTF(fingerprint);
+        // copy, as entries may still be put by other threads
+        Map<String, CachedMetadata> entries = new ConcurrentHashMap<>(currentEntries);
+        output.writeInt(entries.size());
+        for (Map.Entry<String, CachedMetadata> entry : entries.entrySet()) {
+          output.writeUTF(entry.getKey());
+          entry.getValue().writeTo(output);
+        }
+      }
+      move(tempFile, file);
+    } catch (IOException e) {
+      LOG.warn("Fail to write file metadata cache " + file, e);
+    } finally {
+      deleteQuietly(tempFile);
+    }
+  }
+
+  private static void move(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Temporary file is not supposed to exist anymore once moved, but remains when write failed.
+   */
+  private static void deleteQuietly(@Nullable Path tempFile) {
+    if (tempFile == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(tempFile);
+    } catch (IOException e) {
+      LOG.debug("Fail to delete temporary file " + tempFile, e);
+    }
+  }
+
+  public static class CachedMetadata {
+    private final String contentHash;
+    private final String defaultEncoding;
+    private final String charset;
+    private final Metadata metadata;
+
+    private CachedMetadata(String contentHash, String defaultEncoding, String charset, Metadata metadata) {
+      this.contentHash = contentHash;
+      this.defaultEncoding = defaultEncoding;
+      this.charset = charset;
+      this.metadata = metadata;
+    }
+
+    public Charset charset() {
+      return Charset.forName(charset);
+    }
+
+    public Metadata metadata() {
+      return metadata;
+    }
+
+    private void writeTo(DataOutputStream output) throws IOException {
+      output.writeUTF(contentHash);
+      output.writeUTF(defaultEncoding);
+      output.writeUTF(charset);
+      output.writeInt(metadata.lines());
+      output.writeInt(metadata.nonBlankLines());
+      output.writeUTF(metadata.hash());
+      int[] originalLineOffsets = metadata.originalLineOffsets();
+      output.writeInt(originalLineOffsets.length);
+      for (int offset : originalLineOffsets) {
+        output.writeInt(offset);
+      }
+      output.writeInt(metadata.lastValidOffset());
+    }
+
+    private static CachedMetadata readFrom(DataInputStream input) throws IOException {
+      String contentHash = input.readUTF();
+      String defaultEncoding = input.readUTF();
+      String charset = input.readUTF();
+      int lines = input.readInt();
+      int nonBlankLines = input.readInt();
+      String hash = input.readUTF();
+      int[] originalLineOffsets = new int[input.readInt()];
+      for (int i = 0; i < originalLineOffsets.length; i++) {
+        originalLineOffsets[i] = input.readInt();
+      }
+      int lastValidOffset = input.readInt();
+      return new CachedMetadata(contentHash, defaultEncoding, charset, new Metadata(lines, nonBlankLines, hash, originalLineOffsets, lastValidOffset));
+    }
+  }
+}
@@ -22,6 +22,9 @@ package org.sonar.scanner.scan.filesystem;
 import com.google.common.annotations.VisibleForTesting;
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.util.Optional;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.fs.InputFile.Type;
@@ -29,6 +32,7 @@ import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.fs.internal.FileMetadata;
 import org.sonar.api.batch.fs.internal.Metadata;
+import org.sonar.api.batch.fs.internal.charhandler.CharHandler;
 import org.sonar.scanner.issue.ignore.scanner.IssueExclusionsLoader;
 
 public class MetadataGenerator {
@@ -43,19 +47,40 @@ public class MetadataGenerator {
   private final FileMetadata fileMetadata;
   private final DefaultInputModule inputModule;
   private final IssueExclusionsLoader exclusionsScanner;
+  @CheckForNull
+  private final FileMetadataCache metadataCache;
 
   public MetadataGenerator(DefaultInputModule inputModule, StatusDetection statusDetection, FileMetadata fileMetadata, IssueExclusionsLoader exclusionsScanner) {
+    this(inputModule, statusDetection, fileMetadata, exclusionsScanner, null);
+  }
+
+  public MetadataGenerator(DefaultInputModule inputModule, StatusDetection statusDetection, FileMetadata fileMetadata, IssueExclusionsLoader exclusionsScanner,
+    @Nullable FileMetadataCache metadataCache) {
     this.inputModule = inputModule;
     this.statusDetection = statusDetection;
     this.fileMetadata = fileMetadata;
     this.exclusionsScanner = exclusionsScanner;
+    this.metadataCache = metadataCache;
   }
 
   /**
    * Sets all metadata in the file, including charset and status.
-   * It is an expensive computation, reading the entire file.
+   * It is an expensive computation, reading the entire file, unless the metadata of the same content is
+   * found in the {@link FileMetadataCache}.
    */
   public void setMetadata(final DefaultInputFile inputFile, Charset defaultEncoding) {
+    CharHandler exclusionsHandler = exclusionsScanner.createCharHandlerFor(inputFile.key());
+    // the content must be read when issue exclusions look for patterns in it
+    String contentHash = null;
+    if (exclusionsHandler == null && metadataCache != null && metadataCache.isEnabled()) {
+      contentHash = metadataCache.contentHash(inputFile.path());
+      Optional<FileMetadataCache.CachedMetadata> cached = metadataCache.get(inputFile.key(), contentHash, defaultEncoding);
+      if (cached.isPresent()) {
+        setMetadata(inputFile, cached.get().charset(), cached.get().metadata());
+        return;
+      }
+    }
+
     CharsetDetector charsetDetector = new CharsetDetector(inputFile.path(), defaultEncoding);
     try {
       Charset charset;
@@ -66,14 +91,21 @@ public class MetadataGenerator {
         charset = defaultEncoding;
       }
       InputStream is = charsetDetector.inputStream();
-      inputFile.setCharset(charset);
-      Metadata metadata = fileMetadata.readMetadata(is, charset, inputFile.absolutePath(), exclusionsScanner.createCharHandlerFor(inputFile.key()));
-      inputFile.setMetadata(metadata);
-      inputFile.setStatus(statusDetection.status(inputModule.definition().getKeyWithBranch(), inputFile, metadata.hash()));
-      LOG.debug("'{}' generated metadata {} with charset '{}'", inputFile, inputFile.type() == Type.TEST ? "as test " : "", charset);
+      Metadata metadata = fileMetadata.readMetadata(is, charset, inputFile.absolutePath(), exclusionsHandler);
+      setMetadata(inputFile, charset, metadata);
+      if (contentHash != null) {
+        metadataCache.put(inputFile.key(), contentHash, defaultEncoding, charset, metadata);
+      }
     } catch (Exception e) {
       throw new IllegalStateException(e);
     }
   }
 
+  private void setMetadata(DefaultInputFile inputFile, Charset charset, Metadata metadata) {
+    inputFile.setCharset(charset);
+    inputFile.setMetadata(metadata);
+    inputFile.setStatus(statusDetection.status(inputModule.definition().getKeyWithBranch(), inputFile, metadata.hash()));
+    LOG.debug("'{}' generated metadata {} with charset '{}'", inputFile, inputFile.type() == Type.TEST ? "as test " : "", charset);
+  }
+
 }
@@ -30,6 +30,10 @@ import org.sonar.scanner.storage.Storages;
 
 /**
  * Cache of all measures. This cache is shared amongst all project modules.
+ * <p>
+ * Reads and writes are synchronized, as sensors may be executed concurrently. Iterations are not, they are expected
+ * to happen once sensors are executed.
+ * </p>
  */
 @ScannerSide
 public class MeasureCache {
@@ -54,18 +58,18 @@ public class MeasureCache {
   }
 
   @CheckForNull
-  public DefaultMeasure<?> byMetric(String componentKey, String metricKey) {
+  public synchronized DefaultMeasure<?> byMetric(String componentKey, String metricKey) {
     return cache.get(componentKey, metricKey);
   }
 
-  public MeasureCache put(String componentKey, String metricKey, DefaultMeasure<?> measure) {
+  public synchronized MeasureCache put(String componentKey, String metricKey, DefaultMeasure<?> measure) {
     Preconditions.checkNotNull(componentKey);
     Preconditions.checkNotNull(metricKey);
     cache.put(componentKey, metricKey, measure);
     return this;
   }
 
-  public boolean contains(String componentKey, String metricKey) {
+  public synchronized boolean contains(String componentKey, String metricKey) {
     Preconditions.checkNotNull(componentKey);
     Preconditions.checkNotNull(metricKey);
     return cache.containsKey(componentKey, metricKey);
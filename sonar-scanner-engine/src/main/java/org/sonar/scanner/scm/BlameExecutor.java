@@ -0,0 +1,121 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scm;
+
+import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.scm.BlameCommand;
+import org.sonar.api.batch.scm.BlameCommand.BlameOutput;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.util.logs.Profiler;
+
+/**
+ * Calls the {@link BlameCommand} of the SCM provider. When concurrency is greater than 1, files are split into
+ * chunks which are blamed at the same time, at most {@code concurrency} of them.
+ */
+class BlameExecutor {
+
+  private static final Logger LOG = Loggers.get(BlameExecutor.class);
+  static final int MAX_CHUNK_SIZE = 100;
+
+  private final int concurrency;
+
+  BlameExecutor(int concurrency) {
+    this.concurrency = concurrency;
+  }
+
+  void blame(BlameCommand blameCommand, FileSystem fs, List<InputFile> filesToBlame, BlameOutput output) {
+    Profiler profiler = Profiler.create(LOG).startInfo("SCM blame of {} files", filesToBlame.size());
+    if (concurrency > 1 && filesToBlame.size() > 1) {
+      blameConcurrently(blameCommand, fs, filesToBlame, output);
+    } else {
+      blameCommand.blame(new DefaultBlameInput(fs, filesToBlame), output);
+    }
+    long durationInMs = profiler.stopInfo();
+    LOG.info("SCM blame throughput: {} files/s", durationInMs == 0 ? filesToBlame.size() : (filesToBlame.size() * 1_000L / durationInMs));
+  }
+
+  /**
+   * Chunks are small enough for each thread to blame several of them, so that threads stay busy when some files
+   * are slower to blame than others. The first failure is propagated once running chunks are over.
+   */
+  private void blameConcurrently(BlameCommand blameCommand, FileSystem fs, List<InputFile> filesToBlame, BlameOutput output) {
+    int chunkSize = Math.min(MAX_CHUNK_SIZE, (filesToBlame.size() + concurrency - 1) / concurrency);
+    ExecutorService executorService = Executors.newFixedThreadPool(concurrency, new BlameThreadFactory());
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (List<InputFile> chunk : Lists.partition(filesToBlame, chunkSize)) {
+        DefaultBlameInput input = new DefaultBlameInput(fs, new ArrayList<>(chunk));
+        futures.add(executorService.submit(() -> blameCommand.blame(input, output)));
+      }
+      Throwable failure = null;
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = e.getCause();
+          }
+        }
+      }
+      propagate(failure);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while executing SCM blame", e);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private static void propagate(@Nullable Throwable failure) {
+    if (failure == null) {
+      return;
+    }
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    throw new IllegalStateException(failure);
+  }
+
+  private static final class BlameThreadFactory implements ThreadFactory {
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread thread = new Thread(r, "SCM_Blame_" + counter.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -50,7 +50,18 @@ import org.sonar.core.config.ScannerProperties;
     project = false,
     module = false,
     global = false,
-    type = PropertyType.BOOLEAN)
+    type = PropertyType.BOOLEAN),
+  @Property(
+    key = ScmConfiguration.BLAME_CONCURRENCY_KEY,
+    defaultValue = "1",
+    name = "Number of concurrent SCM blame commands",
+    description = "Files to blame are split into chunks which are blamed at the same time by this number of threads. "
+      + "Must stay 1 if the SCM provider does not support concurrent blame commands.",
+    category = CoreProperties.CATEGORY_SCM,
+    project = false,
+    module = false,
+    global = false,
+    type = PropertyType.INTEGER)
 })
 @InstantiationStrategy(InstantiationStrategy.PER_BATCH)
 @ScannerSide
@@ -58,6 +69,8 @@ public class ScmConfiguration implements Startable {
   private static final Logger LOG = Loggers.get(ScmConfiguration.class);
 
   public static final String FORCE_RELOAD_KEY = "sonar.scm.forceReloadAll";
+  public static final String BLAME_CONCURRENCY_KEY = "sonar.scm.blameConcurrency";
+  private static final int DEFAULT_BLAME_CONCURRENCY = 1;
 
   private final Configuration settings;
   private final Map<String, ScmProvider> providerPerKey = new LinkedHashMap<>();
@@ -149,6 +162,10 @@ public class ScmConfiguration implements Startable {
     return settings.getBoolean(FORCE_RELOAD_KEY).orElse(false);
   }
 
+  public int blameConcurrency() {
+    return Math.max(DEFAULT_BLAME_CONCURRENCY, settings.getInt(BLAME_CONCURRENCY_KEY).orElse(DEFAULT_BLAME_CONCURRENCY));
+  }
+
   @Override
   public void stop() {
     // Nothing to do
@@ -20,6 +20,7 @@
 package org.sonar.scanner.sensor;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.Striped;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
@@ -28,6 +29,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.sonar.api.batch.fs.InputComponent;
@@ -116,6 +119,7 @@ import static org.sonar.api.measures.CoreMetrics.UNCOVERED_LINES;
 public class DefaultSensorStorage implements SensorStorage {
 
   private static final Logger LOG = Loggers.get(DefaultSensorStorage.class);
+  private static final int COMPONENT_LOCK_STRIPES = 64;
 
   private static final List<String> DEPRECATED_METRICS_KEYS = Arrays.asList(
     DEPENDENCY_MATRIX_KEY,
@@ -152,7 +156,9 @@ public class DefaultSensorStorage implements SensorStorage {
   private final Map<Metric<?>, Metric<?>> deprecatedCoverageMetricMapping = new HashMap<>();
   private final Set<Metric<?>> coverageMetrics = new HashSet<>();
   private final Set<Metric<?>> byLineMetrics = new HashSet<>();
-  private final Set<String> alreadyLogged = new HashSet<>();
+  private final Set<String> alreadyLogged = ConcurrentHashMap.newKeySet();
+  // sensors may be executed concurrently, see SensorsExecutor
+  private final Striped<Lock> componentLocks = Striped.lock(COMPONENT_LOCK_STRIPES);
 
   public DefaultSensorStorage(MetricFinder metricFinder, ModuleIssues moduleIssues, Configuration settings,
     ReportPublisher reportPublisher, MeasureCache measureCache, SonarCpdBlockIndex index,
@@ -263,12 +269,29 @@ public class DefaultSensorStorage implements SensorStorage {
       if (((DefaultInputFile) component).isExcludedForCoverage()) {
         return;
       }
-      saveCoverageMetricInternal((InputFile) component, metric, measureToSave);
+      Metric<?> coverageMetric = metric;
+      withComponentLock(component, () -> saveCoverageMetricInternal((InputFile) component, coverageMetric, measureToSave));
     } else {
-      if (measureCache.contains(component.key(), metric.key())) {
-        throw new UnsupportedOperationException("Can not add the same measure twice on " + component + ": " + measure);
-      }
-      measureCache.put(component.key(), metric.key(), measureToSave);
+      String metricKey = metric.key();
+      withComponentLock(component, () -> {
+        if (measureCache.contains(component.key(), metricKey)) {
+          throw new UnsupportedOperationException("Can not add the same measure twice on " + component + ": " + measure);
+        }
+        measureCache.put(component.key(), metricKey, measureToSave);
+      });
+    }
+  }
+
+  /**
+   * Makes atomic the checks and updates of the data of a component, as sensors may be executed concurrently.
+   */
+  private void withComponentLock(InputComponent component, Runnable runnable) {
+    Lock lock = componentLocks.get(component.key());
+    lock.lock();
+    try {
+      runnable.run();
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -394,6 +417,10 @@ public class DefaultSensorStorage implements SensorStorage {
       return;
     }
     inputFile.setPublished(true);
+    withComponentLock(inputFile, () -> writeHighlighting(writer, inputFile, highlighting));
+  }
+
+  private static void writeHighlighting(ScannerReportWriter writer, DefaultInputFile inputFile, DefaultHighlighting highlighting) {
     int componentRef = inputFile.batchId();
     if (writer.hasComponentData(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef)) {
       throw new UnsupportedOperationException("Trying to save highlighting twice for the same file is not supported: " + inputFile);
@@ -422,6 +449,10 @@ public class DefaultSensorStorage implements SensorStorage {
       return;
     }
     inputFile.setPublished(true);
+    withComponentLock(inputFile, () -> writeSymbols(writer, inputFile, symbolTable));
+  }
+
+  private static void writeSymbols(ScannerReportWriter writer, DefaultInputFile inputFile, DefaultSymbolTable symbolTable) {
     int componentRef = inputFile.batchId();
     if (writer.hasComponentData(FileStructure.Domain.SYMBOLS, componentRef)) {
       throw new UnsupportedOperationException("Trying to save symbol table twice for the same file is not supported: " + symbolTable.inputFile());
@@ -457,6 +488,10 @@ public class DefaultSensorStorage implements SensorStorage {
       return;
     }
     inputFile.setPublished(true);
+    withComponentLock(inputFile, () -> saveCoverage(inputFile, defaultCoverage));
+  }
+
+  private void saveCoverage(DefaultInputFile inputFile, DefaultCoverage defaultCoverage) {
     if (defaultCoverage.linesToCover() > 0) {
       saveCoverageMetricInternal(inputFile, LINES_TO_COVER, new DefaultMeasure<Integer>().forMetric(LINES_TO_COVER).withValue(defaultCoverage.linesToCover()));
       saveCoverageMetricInternal(inputFile, UNCOVERED_LINES,
@@ -526,6 +561,10 @@ public class DefaultSensorStorage implements SensorStorage {
       return;
     }
     inputFile.setPublished(true);
+    withComponentLock(inputFile, () -> writeSignificantCode(writer, inputFile, significantCode));
+  }
+
+  private static void writeSignificantCode(ScannerReportWriter writer, DefaultInputFile inputFile, DefaultSignificantCode significantCode) {
     int componentRef = inputFile.batchId();
     if (writer.hasComponentData(FileStructure.Domain.SGNIFICANT_CODE, componentRef)) {
       throw new UnsupportedOperationException(
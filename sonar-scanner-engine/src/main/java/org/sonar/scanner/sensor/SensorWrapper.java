@@ -61,4 +61,8 @@ public class SensorWrapper {
   public boolean isGlobal() {
     return descriptor.isGlobal();
   }
+
+  public boolean isThreadSafe() {
+    return descriptor.isThreadSafe();
+  }
 }
@@ -0,0 +1,415 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Storage keeping values on heap, in a tree of sorted keys. Unlike {@link PersistitStorage}, values are
+ * neither encoded nor copied: they are stored by reference.
+ * <p>
+ * Keys of a same type are sorted by their natural order, keys of different types by name of their type.
+ * Iterators see the changes done after their creation, as Persistit ones do.
+ * </p>
+ * <p>
+ * This storage is not thread-safe.
+ * </p>
+ */
+class InMemoryStorage<V> extends Storage<V> {
+
+  private static final Comparator<Object> KEY_COMPARATOR = InMemoryStorage::compareKeys;
+
+  private final Node<V> root = new Node<>();
+
+  @Override
+  public Storage<V> put(Object key, V value) {
+    return put(new Object[] {key}, value);
+  }
+
+  @Override
+  public Storage<V> put(Object firstKey, Object secondKey, V value) {
+    return put(new Object[] {firstKey, secondKey}, value);
+  }
+
+  @Override
+  public Storage<V> put(Object firstKey, Object secondKey, Object thirdKey, V value) {
+    return put(new Object[] {firstKey, secondKey, thirdKey}, value);
+  }
+
+  @Override
+  public Storage<V> put(Object[] key, V value) {
+    Node<V> node = root;
+    for (Object k : key) {
+      node = node.children.computeIfAbsent(k, x -> new Node<>());
+    }
+    node.value = value;
+    node.defined = true;
+    return this;
+  }
+
+  @Override
+  @CheckForNull
+  public V get(Object key) {
+    return get(new Object[] {key});
+  }
+
+  @Override
+  @CheckForNull
+  public V get(Object firstKey, Object secondKey) {
+    return get(new Object[] {firstKey, secondKey});
+  }
+
+  @Override
+  @CheckForNull
+  public V get(Object firstKey, Object secondKey, Object thirdKey) {
+    return get(new Object[] {firstKey, secondKey, thirdKey});
+  }
+
+  @Override
+  @CheckForNull
+  public V get(Object[] key) {
+    Node<V> node = find(key);
+    return node == null ? null : node.value;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return containsKey(new Object[] {key});
+  }
+
+  @Override
+  public boolean containsKey(Object firstKey, Object secondKey) {
+    return containsKey(new Object[] {firstKey, secondKey});
+  }
+
+  @Override
+  public boolean containsKey(Object firstKey, Object secondKey, Object thirdKey) {
+    return containsKey(new Object[] {firstKey, secondKey, thirdKey});
+  }
+
+  @Override
+  public boolean containsKey(Object[] key) {
+    Node<V> node = find(key);
+    return node != null && node.defined;
+  }
+
+  @Override
+  public boolean remove(Object key) {
+    return remove(new Object[] {key});
+  }
+
+  @Override
+  public boolean remove(Object firstKey, Object secondKey) {
+    return remove(new Object[] {firstKey, secondKey});
+  }
+
+  @Override
+  public boolean remove(Object firstKey, Object secondKey, Object thirdKey) {
+    return remove(new Object[] {firstKey, secondKey, thirdKey});
+  }
+
+  @Override
+  public boolean remove(Object[] key) {
+    List<Node<V>> path = path(key);
+    if (path == null) {
+      return false;
+    }
+    Node<V> node = path.get(path.size() - 1);
+    if (!node.defined) {
+      return false;
+    }
+    node.value = null;
+    node.defined = false;
+    prune(key, path);
+    return true;
+  }
+
+  @Override
+  public Storage<V> clear(Object key) {
+    return clear(new Object[] {key});
+  }
+
+  @Override
+  public Storage<V> clear(Object firstKey, Object secondKey) {
+    return clear(new Object[] {firstKey, secondKey});
+  }
+
+  @Override
+  public Storage<V> clear(Object firstKey, Object secondKey, Object thirdKey) {
+    return clear(new Object[] {firstKey, secondKey, thirdKey});
+  }
+
+  @Override
+  public Storage<V> clear(Object[] key) {
+    if (key.length == 0) {
+      clear();
+      return this;
+    }
+    List<Node<V>> path = path(key);
+    if (path != null) {
+      path.get(path.size() - 2).children.remove(key[key.length - 1]);
+      path.remove(path.size() - 1);
+      prune(key, path);
+    }
+    return this;
+  }
+
+  @Override
+  public void clear() {
+    root.children.clear();
+    root.value = null;
+    root.defined = false;
+  }
+
+  @Override
+  @SuppressWarnings("rawtypes")
+  public Set keySet(Object key) {
+    return childKeys(key);
+  }
+
+  @Override
+  @SuppressWarnings("rawtypes")
+  public Set keySet(Object firstKey, Object secondKey) {
+    return childKeys(firstKey, secondKey);
+  }
+
+  @Override
+  public Set<Object> keySet() {
+    return childKeys();
+  }
+
+  private Set<Object> childKeys(Object... key) {
+    Node<V> node = find(key);
+    return node == null ? new LinkedHashSet<>() : new LinkedHashSet<>(node.children.keySet());
+  }
+
+  @Override
+  public Iterable<V> values(Object firstKey, Object secondKey) {
+    return () -> new ValueIterator<>(root, firstKey, secondKey);
+  }
+
+  @Override
+  public Iterable<V> values(Object firstKey) {
+    return () -> new ValueIterator<>(root, firstKey);
+  }
+
+  @Override
+  public Iterable<V> values() {
+    return () -> new ValueIterator<>(root);
+  }
+
+  @Override
+  public Iterable<Entry<V>> entries() {
+    return () -> new EntryIterator<>(root);
+  }
+
+  @Override
+  public Iterable<Entry<V>> entries(Object firstKey) {
+    return () -> new EntryIterator<>(root, firstKey);
+  }
+
+  @CheckForNull
+  private Node<V> find(Object[] key) {
+    Node<V> node = root;
+    for (int i = 0; i < key.length && node != null; i++) {
+      node = node.children.get(key[i]);
+    }
+    return node;
+  }
+
+  /**
+   * Nodes from root to the node of the key, or null if the key does not exist
+   */
+  @CheckForNull
+  private List<Node<V>> path(Object[] key) {
+    List<Node<V>> path = new ArrayList<>(key.length + 1);
+    Node<V> node = root;
+    path.add(node);
+    for (Object k : key) {
+      node = node.children.get(k);
+      if (node == null) {
+        return null;
+      }
+      path.add(node);
+    }
+    return path;
+  }
+
+  /**
+   * Removes the nodes of the path which have neither value nor children anymore, as such keys do not exist.
+   */
+  private static <V> void prune(Object[] key, List<Node<V>> path) {
+    for (int i = path.size() - 1; i > 0; i--) {
+      Node<V> node = path.get(i);
+      if (node.defined || !node.children.isEmpty()) {
+        return;
+      }
+      path.get(i - 1).children.remove(key[i - 1]);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int compareKeys(@Nullable Object o1, @Nullable Object o2) {
+    if (o1 == null) {
+      return o2 == null ? 0 : -1;
+    }
+    if (o2 == null) {
+      return 1;
+    }
+    if (o1.getClass() != o2.getClass()) {
+      return o1.getClass().getName().compareTo(o2.getClass().getName());
+    }
+    if (!(o1 instanceof Comparable)) {
+      throw new IllegalArgumentException("Keys must be comparable: " + o1.getClass().getName());
+    }
+    return ((Comparable<Object>) o1).compareTo(o2);
+  }
+
+  private static class Node<V> {
+    private final TreeMap<Object, Node<V>> children = new TreeMap<>(KEY_COMPARATOR);
+    private V value;
+    private boolean defined;
+  }
+
+  /**
+   * Iterates over the values stored under a key, in the order of keys. Children are looked up by the last visited key,
+   * so that the storage can be changed during iteration.
+   */
+  private abstract static class TreeIterator<V, T> implements Iterator<T> {
+    private final Object[] prefix;
+    private final Deque<Frame<V>> frames = new ArrayDeque<>();
+    private boolean nextFound;
+    private T next;
+
+    private TreeIterator(Node<V> root, Object... prefix) {
+      this.prefix = prefix;
+      Node<V> node = root;
+      for (int i = 0; i < prefix.length && node != null; i++) {
+        node = node.children.get(prefix[i]);
+      }
+      if (node != null) {
+        frames.push(new Frame<>(node, null));
+      }
+    }
+
+    abstract T element(V value);
+
+    @Override
+    public boolean hasNext() {
+      if (!nextFound) {
+        nextFound = findNext();
+      }
+      return nextFound;
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      nextFound = false;
+      T result = next;
+      next = null;
+      return result;
+    }
+
+    private boolean findNext() {
+      while (!frames.isEmpty()) {
+        Frame<V> frame = frames.peek();
+        Map.Entry<Object, Node<V>> child = frame.visitedChild ? frame.node.children.higherEntry(frame.lastChildKey) : frame.node.children.firstEntry();
+        if (child == null) {
+          frames.pop();
+          continue;
+        }
+        frame.visitedChild = true;
+        frame.lastChildKey = child.getKey();
+        Node<V> node = child.getValue();
+        frames.push(new Frame<>(node, child.getKey()));
+        if (node.defined) {
+          next = element(node.value);
+          return true;
+        }
+      }
+      return false;
+    }
+
+    Object[] key() {
+      // frames are stacked from the deepest one, the bottom one being the node of the prefix
+      Object[] key = new Object[prefix.length + frames.size() - 1];
+      System.arraycopy(prefix, 0, key, 0, prefix.length);
+      Iterator<Frame<V>> it = frames.iterator();
+      for (int i = key.length - 1; i >= prefix.length; i--) {
+        key[i] = it.next().key;
+      }
+      return key;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("Removing an item is not supported");
+    }
+  }
+
+  private static class Frame<V> {
+    private final Node<V> node;
+    private final Object key;
+    private boolean visitedChild;
+    private Object lastChildKey;
+
+    private Frame(Node<V> node, @Nullable Object key) {
+      this.node = node;
+      this.key = key;
+    }
+  }
+
+  private static class ValueIterator<V> extends TreeIterator<V, V> {
+    private ValueIterator(Node<V> root, Object... prefix) {
+      super(root, prefix);
+    }
+
+    @Override
+    V element(V value) {
+      return value;
+    }
+  }
+
+  private static class EntryIterator<V> extends TreeIterator<V, Entry<V>> {
+    private EntryIterator(Node<V> root, Object... prefix) {
+      super(root, prefix);
+    }
+
+    @Override
+    Entry<V> element(V value) {
+      return new Entry<>(key(), value);
+    }
+  }
+}
@@ -30,17 +30,31 @@ import com.persistit.exception.PersistitException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import javax.annotation.Nullable;
 import org.picocontainer.Startable;
 import org.sonar.api.batch.ScannerSide;
+import org.sonar.scanner.scan.ScanProperties;
 
+/**
+ * Creates the storages of the analysis, encoded by Persistit or kept in memory depending on
+ * {@link ScanProperties#inMemoryStorage()}.
+ */
 @ScannerSide
 public class Storages implements Startable {
   private final Map<String, Exchange> cacheMap = new HashMap<>();
+  private final Map<String, Storage<?>> inMemoryCaches = new HashMap<>();
+  private final boolean inMemory;
   private Persistit persistit;
   private Volume volume;
+  private boolean started;
 
   public Storages(StoragesManager storagesManager) {
+    this(storagesManager, null);
+  }
+
+  public Storages(StoragesManager storagesManager, @Nullable ScanProperties scanProperties) {
     persistit = storagesManager.persistit();
+    inMemory = scanProperties != null && scanProperties.inMemoryStorage();
     doStart();
   }
 
@@ -50,6 +64,10 @@ public class Storages implements Startable {
   }
 
   private void doStart() {
+    started = true;
+    if (inMemory) {
+      return;
+    }
     try {
       persistit.flush();
       volume = persistit.createTemporaryVolume();
@@ -64,12 +82,19 @@ public class Storages implements Startable {
   }
 
   public <V> Storage<V> createCache(String cacheName) {
+    if (inMemory) {
+      Preconditions.checkState(started, "Caches are not initialized");
+      Preconditions.checkState(!inMemoryCaches.containsKey(cacheName), "Cache is already created: %s", cacheName);
+      Storage<V> cache = new InMemoryStorage<>();
+      inMemoryCaches.put(cacheName, cache);
+      return cache;
+    }
     Preconditions.checkState(volume != null && volume.isOpened(), "Caches are not initialized");
     Preconditions.checkState(!cacheMap.containsKey(cacheName), "Cache is already created: %s", cacheName);
     try {
       Exchange exchange = persistit.getExchange(volume, cacheName, true);
       exchange.setMaximumValueSize(Value.MAXIMUM_SIZE);
-      Storage<V> cache = new Storage<>(cacheName, exchange);
+      Storage<V> cache = new PersistitStorage<>(cacheName, exchange);
       cacheMap.put(cacheName, exchange);
       return cache;
     } catch (Exception e) {
@@ -79,6 +104,8 @@ public class Storages implements Startable {
 
   @Override
   public void stop() {
+    started = false;
+    inMemoryCaches.clear();
     for (Entry<String, Exchange> e : cacheMap.entrySet()) {
       persistit.releaseExchange(e.getValue());
     }
@@ -246,6 +246,33 @@ public class CpdExecutorTest {
         "Timeout during detection of duplications for .*Foo2.php");
   }
 
+  @Test
+  public void detect_duplications_concurrently_on_off_heap_index() {
+    when(settings.getConcurrency()).thenReturn(4);
+    when(settings.isOffHeapIndexEnabled()).thenReturn(true);
+    index = new SonarCpdBlockIndex(publisher, settings);
+    executor = new CpdExecutor(settings, index, publisher, componentStore, branchConfig);
+    for (DefaultInputFile component : Arrays.asList(batchComponent1, batchComponent2)) {
+      List<Block> blocks = new ArrayList<>();
+      for (int j = 1; j <= 3; j++) {
+        blocks.add(Block.builder()
+          .setResourceId(component.key())
+          .setIndexInFile(j)
+          .setLines(j, j + 1)
+          .setUnit(j, j + 1)
+          .setBlockHash(new ByteArray((long) j))
+          .build());
+      }
+      index.insert((InputFile) component, blocks);
+    }
+
+    executor.execute(60_000);
+
+    Duplication[] dups = readDuplications(1);
+    assertDuplication(dups[0], 1, 4, batchComponent2.batchId(), 1, 4);
+    assertThat(reader.readComponentDuplications(batchComponent2.batchId())).hasSize(1);
+  }
+
   private Duplication[] readDuplications(int expected) {
     assertThat(reader.readComponentDuplications(batchComponent1.batchId())).hasSize(expected);
     Duplication[] duplications = new Duplication[expected];
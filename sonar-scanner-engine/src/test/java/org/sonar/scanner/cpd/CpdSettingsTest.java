@@ -59,4 +59,22 @@ public class CpdSettingsTest {
     assertThat(cpdSettings.getMinimumTokens("java")).isEqualTo(42);
     assertThat(cpdSettings.getMinimumTokens("php")).isEqualTo(33);
   }
+
+  @Test
+  public void off_heap_index_and_concurrency_are_disabled_by_default() {
+    when(configuration.getInt(anyString())).thenReturn(Optional.empty());
+    when(configuration.getBoolean(anyString())).thenReturn(Optional.empty());
+
+    assertThat(cpdSettings.getConcurrency()).isEqualTo(1);
+    assertThat(cpdSettings.isOffHeapIndexEnabled()).isFalse();
+  }
+
+  @Test
+  public void concurrency_implies_off_heap_index() {
+    when(configuration.getInt(CpdSettings.PROPERTY_CONCURRENCY)).thenReturn(Optional.of(4));
+    when(configuration.getBoolean(CpdSettings.PROPERTY_OFF_HEAP_INDEX)).thenReturn(Optional.empty());
+
+    assertThat(cpdSettings.getConcurrency()).isEqualTo(4);
+    assertThat(cpdSettings.isOffHeapIndexEnabled()).isTrue();
+  }
 }
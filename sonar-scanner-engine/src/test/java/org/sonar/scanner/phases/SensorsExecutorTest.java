@@ -20,21 +20,34 @@
 package org.sonar.scanner.phases;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.mockito.InOrder;
 import org.sonar.api.batch.bootstrap.ProjectDefinition;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.fs.internal.InputModuleHierarchy;
 import org.sonar.api.batch.fs.internal.SensorStrategy;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.batch.sensor.Sensor;
+import org.sonar.api.config.internal.MapSettings;
 import org.sonar.scanner.bootstrap.ScannerExtensionDictionnary;
 import org.sonar.scanner.bootstrap.ScannerPluginRepository;
 import org.sonar.scanner.sensor.SensorWrapper;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -53,6 +66,9 @@ public class SensorsExecutorTest {
   private SensorWrapper perModuleSensor = mock(SensorWrapper.class);
   private SensorWrapper globalSensor = mock(SensorWrapper.class);
   private ScannerPluginRepository pluginRepository = mock(ScannerPluginRepository.class);
+  private ScannerExtensionDictionnary selector = mock(ScannerExtensionDictionnary.class);
+  private InputModuleHierarchy hierarchy = mock(InputModuleHierarchy.class);
+  private DefaultInputModule subModule;
 
   @Before
   public void setUp() throws IOException {
@@ -64,7 +80,6 @@ public class SensorsExecutorTest {
     when(globalSensor.shouldExecute()).thenReturn(true);
     when(globalSensor.wrappedSensor()).thenReturn(mock(Sensor.class));
 
-    ScannerExtensionDictionnary selector = mock(ScannerExtensionDictionnary.class);
     when(selector.selectSensors(false)).thenReturn(Collections.singleton(perModuleSensor));
     when(selector.selectSensors(true)).thenReturn(Collections.singleton(globalSensor));
 
@@ -72,9 +87,8 @@ public class SensorsExecutorTest {
     ProjectDefinition rootDef = ProjectDefinition.create().setKey("root").setBaseDir(temp.newFolder()).setWorkDir(temp.newFolder());
 
     DefaultInputModule rootModule = TestInputFileBuilder.newDefaultInputModule(rootDef);
-    DefaultInputModule subModule = TestInputFileBuilder.newDefaultInputModule(childDef);
+    subModule = TestInputFileBuilder.newDefaultInputModule(childDef);
 
-    InputModuleHierarchy hierarchy = mock(InputModuleHierarchy.class);
     when(hierarchy.isRoot(rootModule)).thenReturn(true);
 
     rootModuleExecutor = new SensorsExecutor(selector, rootModule, hierarchy, strategy, pluginRepository);
@@ -104,4 +118,110 @@ public class SensorsExecutorTest {
 
     verifyNoMoreInteractions(perModuleSensor, globalSensor);
   }
+
+  @Test
+  public void execute_thread_safe_sensors_concurrently_when_enabled() throws Exception {
+    CountDownLatch started = new CountDownLatch(2);
+    SensorWrapper sensor1 = newThreadSafeSensor(started);
+    SensorWrapper sensor2 = newThreadSafeSensor(started);
+    when(selector.selectSensors(false)).thenReturn(Arrays.asList(sensor1, sensor2));
+
+    newConcurrentExecutor(2).execute();
+
+    // each sensor waits for the other one to be started
+    verify(sensor1).analyse();
+    verify(sensor2).analyse();
+  }
+
+  @Test
+  public void execute_sensors_alone_when_not_thread_safe_or_ordered() {
+    AtomicInteger running = new AtomicInteger();
+    List<Integer> runningWithAloneSensors = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch firstGroup = new CountDownLatch(2);
+    CountDownLatch secondGroup = new CountDownLatch(2);
+    SensorWrapper concurrentSensor1 = trackRunning(newThreadSafeSensor(firstGroup), running, () -> await(firstGroup));
+    SensorWrapper concurrentSensor2 = trackRunning(newThreadSafeSensor(firstGroup), running, () -> await(firstGroup));
+    SensorWrapper notThreadSafeSensor = trackRunning(perModuleSensor, running, () -> runningWithAloneSensors.add(running.get()));
+    SensorWrapper orderedSensor = trackRunning(newThreadSafeSensor(new CountDownLatch(0)), running, () -> runningWithAloneSensors.add(running.get()));
+    when(selector.hasDefaultOrder(orderedSensor.wrappedSensor())).thenReturn(false);
+    SensorWrapper concurrentSensor3 = trackRunning(newThreadSafeSensor(secondGroup), running, () -> await(secondGroup));
+    SensorWrapper concurrentSensor4 = trackRunning(newThreadSafeSensor(secondGroup), running, () -> await(secondGroup));
+    when(selector.selectSensors(false)).thenReturn(Arrays.asList(concurrentSensor1, concurrentSensor2, notThreadSafeSensor, orderedSensor,
+      concurrentSensor3, concurrentSensor4));
+
+    newConcurrentExecutor(4).execute();
+
+    // no other sensor is running at the same time
+    assertThat(runningWithAloneSensors).containsExactly(1, 1);
+    for (SensorWrapper previousSensor : Arrays.asList(concurrentSensor1, concurrentSensor2)) {
+      InOrder inOrder = inOrder(previousSensor, notThreadSafeSensor, orderedSensor);
+      inOrder.verify(previousSensor).analyse();
+      inOrder.verify(notThreadSafeSensor).analyse();
+      inOrder.verify(orderedSensor).analyse();
+    }
+    for (SensorWrapper nextSensor : Arrays.asList(concurrentSensor3, concurrentSensor4)) {
+      InOrder inOrder = inOrder(notThreadSafeSensor, orderedSensor, nextSensor);
+      inOrder.verify(notThreadSafeSensor).analyse();
+      inOrder.verify(orderedSensor).analyse();
+      inOrder.verify(nextSensor).analyse();
+    }
+  }
+
+  @Test
+  public void propagate_failure_of_sensor_executed_concurrently() {
+    SensorWrapper sensor1 = newThreadSafeSensor(new CountDownLatch(0));
+    SensorWrapper sensor2 = newThreadSafeSensor(new CountDownLatch(0));
+    IllegalArgumentException failure = new IllegalArgumentException("failure");
+    doThrow(failure).when(sensor2).analyse();
+    when(selector.selectSensors(false)).thenReturn(Arrays.asList(sensor1, sensor2));
+
+    try {
+      newConcurrentExecutor(2).execute();
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertThat(e).isSameAs(failure);
+    }
+  }
+
+  private SensorsExecutor newConcurrentExecutor(int concurrency) {
+    MapSettings settings = new MapSettings().setProperty(SensorsExecutor.SENSORS_CONCURRENCY_PROPERTY, concurrency);
+    return new SensorsExecutor(selector, subModule, hierarchy, strategy, pluginRepository, settings.asConfig());
+  }
+
+  private SensorWrapper newThreadSafeSensor(CountDownLatch started) {
+    SensorWrapper sensor = mock(SensorWrapper.class);
+    Sensor wrapped = mock(Sensor.class);
+    when(sensor.wrappedSensor()).thenReturn(wrapped);
+    when(sensor.isThreadSafe()).thenReturn(true);
+    when(selector.hasDefaultOrder(wrapped)).thenReturn(true);
+    doAnswer(invocation -> {
+      started.countDown();
+      assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+      return null;
+    }).when(sensor).analyse();
+    return sensor;
+  }
+
+  private static SensorWrapper trackRunning(SensorWrapper sensor, AtomicInteger running, Runnable analysis) {
+    doAnswer(invocation -> {
+      running.incrementAndGet();
+      try {
+        analysis.run();
+      } finally {
+        running.decrementAndGet();
+      }
+      return null;
+    }).when(sensor).analyse();
+    return sensor;
+  }
+
+  private static void await(CountDownLatch started) {
+    started.countDown();
+    try {
+      assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
 }
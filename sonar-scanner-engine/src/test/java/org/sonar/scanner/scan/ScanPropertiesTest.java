@@ -61,6 +61,8 @@ public class ScanPropertiesTest {
     assertThat(underTest.organizationKey()).isEmpty();
     assertThat(underTest.preloadFileMetadata()).isFalse();
     assertThat(underTest.shouldKeepReport()).isFalse();
+    assertThat(underTest.analysisCachePath()).isEmpty();
+    assertThat(underTest.inMemoryStorage()).isFalse();
     assertThat(underTest.metadataFilePath()).isEqualTo(inputModuleHierarchy.root().getWorkDir().resolve("report-task.txt"));
     underTest.validate();
   }
@@ -71,6 +73,27 @@ public class ScanPropertiesTest {
     assertThat(underTest.organizationKey()).isEqualTo(Optional.of("org"));
   }
   
+  @Test
+  public void should_resolve_analysis_cache_path_against_project_base_dir() {
+    settings.setProperty("sonar.scanner.analysisCachePath", "cache");
+    assertThat(underTest.analysisCachePath()).contains(inputModuleHierarchy.root().getBaseDir().resolve("cache"));
+  }
+
+  @Test
+  public void should_define_in_memory_storage() {
+    settings.setProperty("sonar.scanner.storage", "memory");
+    assertThat(underTest.inMemoryStorage()).isTrue();
+  }
+
+  @Test
+  public void validate_fails_if_storage_is_unknown() {
+    settings.setProperty("sonar.scanner.storage", "foo");
+
+    exception.expect(MessageException.class);
+    exception.expectMessage("Property 'sonar.scanner.storage' must be either 'persistit' or 'memory': foo");
+    underTest.validate();
+  }
+
   @Test
   public void should_define_branch_name() {
     settings.setProperty("sonar.branch.name", "name");
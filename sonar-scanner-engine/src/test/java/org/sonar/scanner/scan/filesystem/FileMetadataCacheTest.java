@@ -0,0 +1,179 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan.filesystem;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.SonarQubeSide;
+import org.sonar.api.SonarRuntime;
+import org.sonar.api.batch.fs.internal.Metadata;
+import org.sonar.api.internal.SonarRuntimeImpl;
+import org.sonar.api.utils.Version;
+import org.sonar.scanner.scan.ScanProperties;
+
+import static org.apache.commons.codec.digest.DigestUtils.md5Hex;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FileMetadataCacheTest {
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private ScanProperties scanProperties = mock(ScanProperties.class);
+  private SonarRuntime sonarRuntime = SonarRuntimeImpl.forSonarQube(Version.create(7, 4), SonarQubeSide.SCANNER);
+  private Path cacheDir;
+
+  @Before
+  public void setUp() throws IOException {
+    cacheDir = temp.newFolder().toPath();
+    when(scanProperties.analysisCachePath()).thenReturn(Optional.of(cacheDir));
+  }
+
+  @Test
+  public void is_disabled_when_no_cache_path_is_defined() {
+    when(scanProperties.analysisCachePath()).thenReturn(Optional.empty());
+    FileMetadataCache underTest = new FileMetadataCache(scanProperties, sonarRuntime);
+
+    underTest.start();
+    underTest.stop();
+
+    assertThat(underTest.isEnabled()).isFalse();
+    assertThat(cacheDir.resolve(FileMetadataCache.FILE_NAME)).doesNotExist();
+  }
+
+  @Test
+  public void reuse_metadata_of_previous_analysis_if_content_is_the_same() {
+    FileMetadataCache underTest = new FileMetadataCache(scanProperties, sonarRuntime);
+    underTest.start();
+    underTest.put("foo:src/Foo.java", "hash1", StandardCharsets.UTF_8, StandardCharsets.UTF_16LE, newMetadata());
+    underTest.stop();
+
+    underTest = new FileMetadataCache(scanProperties, sonarRuntime);
+    underTest.start();
+
+    assertThat(underTest.isEnabled()).isTrue();
+    Optional<FileMetadataCache.CachedMetadata> cached = underTest.get("foo:src/Foo.java", "hash1", StandardCharsets.UTF_8);
+    assertThat(cached).isPresent();
+    assertThat(cached.get().charset()).isEqualTo(StandardCharsets.UTF_16LE);
+    Metadata metadata = cached.get().metadata();
+    assertThat(metadata.lines()).isEqualTo(3);
+    assertThat(metadata.nonBlankLines()).isEqualTo(2);
+    assertThat(metadata.hash()).isEqualTo("linesHash");
+    assertThat(metadata.originalLineOffsets()).containsExactly(0, 4, 9);
+    assertThat(metadata.lastValidOffset()).isEqualTo(12);
+  }
+
+  @Test
+  public void ignore_metadata_if_content_or_default_encoding_changed() {
+    FileMetadataCache underTest = new FileMetadataCache(scanProperties, sonarRuntime);
+    underTest.start();
+    underTest.put("foo:src/Foo.java", "hash1", StandardCharsets.UTF_8, StandardCharsets.UTF_8, newMetadata());
+    underTest.stop();
+
+    underTest = new FileMetadataCache(scanProperties, sonarRuntime);
+    underTest.start();
+
+    assertThat(underTest.get("foo:src/Foo.java", "hash2", StandardCharsets.UTF_8)).isEmpty();
+    assertThat(underTest.get("foo:src/Foo.java", "hash1", StandardCharsets.ISO_8859_1)).isEmpty();
+    assertThat(underTest.get("foo:src/Bar.java", "hash1", StandardCharsets.UTF_8)).isEmpty();
+  }
+
+  @Test
+  public void ignore_cache_written_by_another_version() {
+    FileMetadataCache underTest = new FileMetadataCache(scanProperties, sonarRuntime);
+    underTest.start();
+    underTest.put("foo:src/Foo.java", "hash1", StandardCharsets.UTF_8, StandardCharsets.UTF_8, newMetadata());
+    underTest.stop();
+
+    underTest = new FileMetadataCache(scanProperties, SonarRuntimeImpl.forSonarQube(Version.create(7, 5), SonarQubeSide.SCANNER));
+    underTest.start();
+
+    assertThat(underTest.get("foo:src/Foo.java", "hash1", StandardCharsets.UTF_8)).isEmpty();
+  }
+
+  @Test
+  public void keep_only_entries_of_files_of_last_analysis() {
+    FileMetadataCache underTest = new FileMetadataCache(scanProperties, sonarRuntime);
+    underTest.start();
+    underTest.put("foo:src/Foo.java", "hash1", StandardCharsets.UTF_8, StandardCharsets.UTF_8, newMetadata());
+    underTest.put("foo:src/Bar.java", "hash2", StandardCharsets.UTF_8, StandardCharsets.UTF_8, newMetadata());
+    underTest.stop();
+
+    // second analysis only reads Foo.java
+    underTest = new FileMetadataCache(scanProperties, sonarRuntime);
+    underTest.start();
+    assertThat(underTest.get("foo:src/Foo.java", "hash1", StandardCharsets.UTF_8)).isPresent();
+    underTest.stop();
+
+    underTest = new FileMetadataCache(scanProperties, sonarRuntime);
+    underTest.start();
+    assertThat(underTest.get("foo:src/Foo.java", "hash1", StandardCharsets.UTF_8)).isPresent();
+    assertThat(underTest.get("foo:src/Bar.java", "hash2", StandardCharsets.UTF_8)).isEmpty();
+  }
+
+  @Test
+  public void ignore_corrupted_cache() throws IOException {
+    Files.write(cacheDir.resolve(FileMetadataCache.FILE_NAME), new byte[] {1, 2, 3});
+    FileMetadataCache underTest = new FileMetadataCache(scanProperties, sonarRuntime);
+
+    underTest.start();
+
+    assertThat(underTest.get("foo:src/Foo.java", "hash1", StandardCharsets.UTF_8)).isEmpty();
+  }
+
+  @Test
+  public void delete_temporary_file_when_cache_can_not_be_written() throws IOException {
+    // cache file can't be replaced by the temporary file
+    Path cacheFile = Files.createDirectory(cacheDir.resolve(FileMetadataCache.FILE_NAME));
+    Files.createFile(cacheFile.resolve("foo"));
+    FileMetadataCache underTest = new FileMetadataCache(scanProperties, sonarRuntime);
+    underTest.start();
+    underTest.put("foo:src/Foo.java", "hash1", StandardCharsets.UTF_8, StandardCharsets.UTF_8, newMetadata());
+
+    underTest.stop();
+
+    try (Stream<Path> files = Files.list(cacheDir)) {
+      assertThat(files).containsOnly(cacheFile);
+    }
+  }
+
+  @Test
+  public void compute_hash_of_raw_content() throws IOException {
+    Path file = temp.newFile().toPath();
+    Files.write(file, "foo\r\nbar".getBytes(StandardCharsets.UTF_8));
+    FileMetadataCache underTest = new FileMetadataCache(scanProperties, sonarRuntime);
+
+    // line ends are not normalized
+    assertThat(underTest.contentHash(file)).isEqualTo(md5Hex("foo\r\nbar"));
+  }
+
+  private static Metadata newMetadata() {
+    return new Metadata(3, 2, "linesHash", new int[] {0, 4, 9}, 12);
+  }
+}
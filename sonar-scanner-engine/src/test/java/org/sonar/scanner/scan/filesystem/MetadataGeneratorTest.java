@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Optional;
 import org.apache.commons.io.FileUtils;
 import org.junit.Assert;
 import org.junit.Before;
@@ -31,20 +32,26 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.sonar.api.SonarQubeSide;
+import org.sonar.api.SonarRuntime;
 import org.sonar.api.batch.bootstrap.ProjectDefinition;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.fs.internal.FileMetadata;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.internal.SonarRuntimeImpl;
 import org.sonar.api.utils.PathUtils;
+import org.sonar.api.utils.Version;
 import org.sonar.scanner.issue.ignore.pattern.IssueExclusionPatternInitializer;
 import org.sonar.scanner.issue.ignore.pattern.PatternMatcher;
 import org.sonar.scanner.issue.ignore.scanner.IssueExclusionsLoader;
+import org.sonar.scanner.scan.ScanProperties;
 
 import static org.apache.commons.codec.digest.DigestUtils.md5Hex;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class MetadataGeneratorTest {
@@ -151,4 +158,36 @@ public class MetadataGeneratorTest {
     assertThat(inputFile.relativePath()).isEqualTo("src/main/java/foo/Bar.java");
     assertThat(inputFile.lines()).isEqualTo(1);
   }
+
+  @Test
+  public void reuse_metadata_of_unchanged_file_from_cache() throws Exception {
+    Path baseDir = temp.newFolder().toPath();
+    Path srcFile = baseDir.resolve("src/main/java/foo/Bar.java");
+    FileUtils.write(srcFile.toFile(), "first line\nsecond line", StandardCharsets.UTF_8);
+    ScanProperties scanProperties = mock(ScanProperties.class);
+    when(scanProperties.analysisCachePath()).thenReturn(Optional.of(temp.newFolder().toPath()));
+    SonarRuntime sonarRuntime = SonarRuntimeImpl.forSonarQube(Version.create(7, 4), SonarQubeSide.SCANNER);
+    IssueExclusionsLoader issueExclusionsLoader = new IssueExclusionsLoader(mock(IssueExclusionPatternInitializer.class), mock(PatternMatcher.class));
+    DefaultInputModule module = new DefaultInputModule(ProjectDefinition.create().setKey("module").setBaseDir(temp.newFolder()).setWorkDir(temp.newFolder()));
+
+    // first analysis computes the metadata
+    FileMetadataCache cache = new FileMetadataCache(scanProperties, sonarRuntime);
+    cache.start();
+    generator = new MetadataGenerator(module, statusDetection, metadata, issueExclusionsLoader, cache);
+    DefaultInputFile firstInputFile = createInputFileWithMetadata(baseDir, "src/main/java/foo/Bar.java");
+    cache.stop();
+
+    // second analysis doesn't read the file again
+    FileMetadata fileMetadata = mock(FileMetadata.class);
+    cache = new FileMetadataCache(scanProperties, sonarRuntime);
+    cache.start();
+    generator = new MetadataGenerator(module, statusDetection, fileMetadata, issueExclusionsLoader, cache);
+    DefaultInputFile secondInputFile = createInputFileWithMetadata(baseDir, "src/main/java/foo/Bar.java");
+
+    verifyZeroInteractions(fileMetadata);
+    assertThat(secondInputFile.charset()).isEqualTo(firstInputFile.charset());
+    assertThat(secondInputFile.lines()).isEqualTo(2);
+    assertThat(secondInputFile.hash()).isEqualTo(firstInputFile.hash());
+    assertThat(secondInputFile.originalLineOffsets()).containsExactly(firstInputFile.originalLineOffsets());
+  }
 }
@@ -0,0 +1,129 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.scm.BlameCommand;
+import org.sonar.api.batch.scm.BlameCommand.BlameOutput;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class BlameExecutorTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private FileSystem fs = mock(FileSystem.class);
+  private BlameOutput output = mock(BlameOutput.class);
+
+  @Test
+  public void blame_all_files_at_once_by_default() {
+    List<InputFile> files = newFiles(250);
+    RecordingBlameCommand command = new RecordingBlameCommand();
+
+    new BlameExecutor(1).blame(command, fs, files, output);
+
+    assertThat(command.chunks).hasSize(1);
+    assertThat(command.chunks.get(0)).containsExactlyElementsOf(files);
+  }
+
+  @Test
+  public void blame_chunks_of_files_concurrently() {
+    List<InputFile> files = newFiles(250);
+    RecordingBlameCommand command = new RecordingBlameCommand();
+
+    new BlameExecutor(2).blame(command, fs, files, output);
+
+    // chunks are not larger than MAX_CHUNK_SIZE
+    assertThat(command.chunks).hasSize(3);
+    assertThat(command.blamedFiles()).containsOnlyElementsOf(files).hasSize(files.size());
+  }
+
+  @Test
+  public void split_files_between_threads_when_there_are_few_of_them() {
+    List<InputFile> files = newFiles(10);
+    RecordingBlameCommand command = new RecordingBlameCommand();
+
+    new BlameExecutor(4).blame(command, fs, files, output);
+
+    assertThat(command.chunks).hasSize(4);
+    assertThat(command.blamedFiles()).containsOnlyElementsOf(files).hasSize(files.size());
+  }
+
+  @Test
+  public void propagate_failure_of_concurrent_blame() {
+    BlameCommand command = new BlameCommand() {
+      @Override
+      public void blame(BlameInput input, BlameOutput output) {
+        throw new IllegalStateException("blame failed");
+      }
+    };
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("blame failed");
+
+    new BlameExecutor(2).blame(command, fs, newFiles(10), output);
+  }
+
+  @Test
+  public void blame_nothing_without_files() {
+    RecordingBlameCommand command = new RecordingBlameCommand();
+
+    new BlameExecutor(2).blame(command, fs, Collections.emptyList(), output);
+
+    assertThat(command.blamedFiles()).isEmpty();
+    verifyZeroInteractions(output);
+  }
+
+  private static List<InputFile> newFiles(int count) {
+    List<InputFile> files = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      files.add(new TestInputFileBuilder("foo", "src/Foo" + i + ".java").build());
+    }
+    return files;
+  }
+
+  private static class RecordingBlameCommand extends BlameCommand {
+    private final List<List<InputFile>> chunks = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public void blame(BlameInput input, BlameOutput output) {
+      List<InputFile> chunk = new ArrayList<>();
+      input.filesToBlame().forEach(chunk::add);
+      chunks.add(chunk);
+    }
+
+    private List<InputFile> blamedFiles() {
+      List<InputFile> files = new ArrayList<>();
+      chunks.forEach(files::addAll);
+      return files;
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.scanner.scan.ScanProperties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Same behavior as Persistit storages, plus the specificities of storages kept in memory
+ */
+public class InMemoryStorageTest extends StorageTest {
+
+  @Before
+  @Override
+  public void start() {
+    ScanProperties scanProperties = mock(ScanProperties.class);
+    when(scanProperties.inMemoryStorage()).thenReturn(true);
+    caches = new Storages(cachesManager, scanProperties);
+    caches.start();
+  }
+
+  @Test
+  public void create_storages_in_memory() {
+    assertThat(caches.createCache("foo")).isInstanceOf(InMemoryStorage.class);
+  }
+
+  @Test
+  public void values_are_stored_by_reference() {
+    Storage<List<String>> cache = caches.createCache("lists");
+    List<String> list = new ArrayList<>();
+    cache.put("foo", list);
+    list.add("bar");
+
+    assertThat(cache.get("foo")).isSameAs(list).containsExactly("bar");
+  }
+
+  @Test
+  public void keys_of_a_same_type_are_sorted_by_natural_order() {
+    Storage<String> cache = caches.createCache("numbers");
+    cache.put(10, "ten");
+    cache.put(2, "two");
+    cache.put(1, "one");
+
+    assertThat(cache.keySet()).containsExactly(1, 2, 10);
+    assertThat(cache.values()).containsExactly("one", "two", "ten");
+  }
+
+  @Test
+  public void values_can_be_put_and_removed_during_iteration() {
+    Storage<String> cache = caches.createCache("capitals");
+    cache.put("europe", "france", "paris");
+    cache.put("europe", "italy", "rome");
+    cache.put("europe", "spain", "madrid");
+
+    List<String> values = new ArrayList<>();
+    for (String value : cache.values("europe")) {
+      values.add(value);
+      cache.put("europe", "italy", "roma");
+      cache.remove("europe", "spain");
+    }
+
+    assertThat(values).containsExactly("paris", "roma");
+    assertThat(cache.values()).containsExactly("paris", "roma");
+  }
+
+  @Test
+  public void value_of_a_key_is_listed_before_values_of_its_sub_keys() {
+    Storage<String> cache = caches.createCache("capitals");
+    cache.put("europe", "france", "paris");
+    cache.put("europe", "continent");
+
+    assertThat(cache.values()).containsExactly("continent", "paris");
+    assertThat(cache.values("europe")).containsExactly("paris");
+  }
+}
@@ -20,7 +20,7 @@
 package org.sonar.scanner.protocol.output;
 
 import java.io.File;
-
+import javax.annotation.CheckForNull;
 import javax.annotation.concurrent.Immutable;
 
 /**
@@ -53,8 +53,36 @@ public class FileStructure {
       this.filePrefix = filePrefix;
       this.fileSuffix = fileSuffix;
     }
+
+    /**
+     * Reference of the component whose data of this domain is stored in the file
+     * {@code fileName}, or {@code null} if the file does not belong to this domain.
+     */
+    @CheckForNull
+    Integer componentRefOf(String fileName) {
+      if (!fileName.startsWith(filePrefix) || !fileName.endsWith(fileSuffix)) {
+        return null;
+      }
+      String ref = fileName.substring(filePrefix.length(), fileName.length() - fileSuffix.length());
+      if (ref.isEmpty()) {
+        return null;
+      }
+      for (int i = 0; i < ref.length(); i++) {
+        if (!Character.isDigit(ref.charAt(i))) {
+          return null;
+        }
+      }
+      return Integer.parseInt(ref);
+    }
   }
 
+  /**
+   * Version of the report format, as declared by {@link ScannerReport.Metadata#getReportFormatVersion()},
+   * in which the data of all components is stored in the single file {@link #packedDataFile()}
+   * and located with the index {@link #packedIndexFile()}.
+   */
+  public static final int PACKED_FORMAT_VERSION = 1;
+
   private final File dir;
 
   public FileStructure(File dir) {
@@ -80,6 +108,14 @@ public class FileStructure {
     return new File(dir, domain.filePrefix + componentRef + domain.fileSuffix);
   }
 
+  public File packedDataFile() {
+    return new File(dir, "components.data");
+  }
+
+  public File packedIndexFile() {
+    return new File(dir, "components.index");
+  }
+
   public File contextProperties() {
     return new File(dir, "context-props.pb");
   }
@@ -0,0 +1,314 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.output;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.core.util.ContextException;
+
+/**
+ * Reads the data of components of a report in the packed format, see {@link ScannerReportPacker}.
+ * <p>
+ * The data file is memory-mapped, so that messages are parsed directly from the page cache
+ * without intermediate copies. As a {@link MappedByteBuffer} is limited to 2GB, the file is mapped
+ * as consecutive segments. Each segment overlaps the next one by the size of the biggest entry,
+ * so that any entry can be read from the segment containing its first byte.
+ * </p>
+ * <p>
+ * The segments are explicitly unmapped by {@link #close()}, as some platforms, like Windows, do not allow to
+ * delete a file which is still mapped. Data read from the reader must not be used once it is closed.
+ * </p>
+ */
+class PackedComponentsReader implements Closeable {
+
+  static final long DEFAULT_SEGMENT_SIZE = 1L << 30;
+  static final int MAX_ENTRY_SIZE = Integer.MAX_VALUE - (int) DEFAULT_SEGMENT_SIZE;
+
+  private final Map<FileStructure.Domain, Map<Integer, Entry>> entries;
+  private final long segmentSize;
+  private final MappedByteBuffer[] segments;
+  private boolean closed = false;
+
+  private PackedComponentsReader(Map<FileStructure.Domain, Map<Integer, Entry>> entries, long segmentSize, MappedByteBuffer[] segments) {
+    this.entries = entries;
+    this.segmentSize = segmentSize;
+    this.segments = segments;
+  }
+
+  static PackedComponentsReader open(FileStructure fileStructure) {
+    return open(fileStructure, DEFAULT_SEGMENT_SIZE);
+  }
+
+  static PackedComponentsReader open(FileStructure fileStructure, long segmentSize) {
+    File indexFile = fileStructure.packedIndexFile();
+    File dataFile = fileStructure.packedDataFile();
+    try {
+      Map<FileStructure.Domain, Map<Integer, Entry>> entries = new EnumMap<>(FileStructure.Domain.class);
+      int maxLength = readIndex(indexFile, entries);
+      if (segmentSize + maxLength > Integer.MAX_VALUE) {
+        throw new IllegalStateException("Entry of " + maxLength + " bytes is too big for segments of " + segmentSize + " bytes");
+      }
+      try (FileChannel channel = FileChannel.open(dataFile.toPath(), StandardOpenOption.READ)) {
+        long size = channel.size();
+        int segmentCount = (int) ((size + segmentSize - 1) / segmentSize);
+        MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+          long start = i * segmentSize;
+          segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, segmentSize + maxLength));
+        }
+        // mapping remains valid after the channel is closed
+        return new PackedComponentsReader(entries, segmentSize, segments);
+      }
+    } catch (IOException e) {
+      throw ContextException.of("Unable to open packed analysis report", e).addContext("file", dataFile);
+    }
+  }
+
+  private static int readIndex(File indexFile, Map<FileStructure.Domain, Map<Integer, Entry>> entries) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile.toPath())))) {
+      int version = in.readInt();
+      if (version != FileStructure.PACKED_FORMAT_VERSION) {
+        throw new IllegalStateException("Unsupported version of index of analysis report: " + version);
+      }
+      int count = in.readInt();
+      int maxLength = 0;
+      for (int i = 0; i < count; i++) {
+        FileStructure.Domain domain = FileStructure.Domain.valueOf(in.readUTF());
+        int componentRef = in.readInt();
+        Entry entry = new Entry(in.readLong(), in.readInt());
+        entries.computeIfAbsent(domain, d -> new HashMap<>()).put(componentRef, entry);
+        maxLength = Math.max(maxLength, entry.length);
+      }
+      return maxLength;
+    }
+  }
+
+  boolean has(FileStructure.Domain domain, int componentRef) {
+    return entry(domain, componentRef) != null;
+  }
+
+  /**
+   * Read-only view of the data of the component, or {@code null} if the component has no data in this domain.
+   */
+  @CheckForNull
+  synchronized ByteBuffer read(FileStructure.Domain domain, int componentRef) {
+    if (closed) {
+      throw new IllegalStateException("Packed analysis report is closed");
+    }
+    Entry entry = entry(domain, componentRef);
+    if (entry == null) {
+      return null;
+    }
+    ByteBuffer buffer = segments[(int) (entry.offset / segmentSize)].duplicate();
+    int position = (int) (entry.offset % segmentSize);
+    buffer.position(position);
+    buffer.limit(position + entry.length);
+    return buffer.slice();
+  }
+
+  @CheckForNull
+  <MSG extends Message> MSG readMessage(FileStructure.Domain domain, int componentRef, Parser<MSG> parser) {
+    ByteBuffer data = read(domain, componentRef);
+    if (data == null) {
+      return null;
+    }
+    try {
+      return parser.parseFrom(newCodedInputStream(data));
+    } catch (IOException e) {
+      throw ContextException.of("Unable to read message", e).addContext("domain", domain).addContext("componentRef", componentRef);
+    }
+  }
+
+  <MSG extends Message> CloseableIterator<MSG> readStream(FileStructure.Domain domain, int componentRef, Parser<MSG> parser) {
+    ByteBuffer data = read(domain, componentRef);
+    if (data == null) {
+      return CloseableIterator.emptyCloseableIterator();
+    }
+    return new StreamIterator<>(parser, newCodedInputStream(data));
+  }
+
+  @CheckForNull
+  InputStream openInputStream(FileStructure.Domain domain, int componentRef) {
+    ByteBuffer data = read(domain, componentRef);
+    if (data == null) {
+      return null;
+    }
+    return new ByteBufferInputStream(data);
+  }
+
+  @CheckForNull
+  private Entry entry(FileStructure.Domain domain, int componentRef) {
+    Map<Integer, Entry> entriesOfDomain = entries.get(domain);
+    return entriesOfDomain == null ? null : entriesOfDomain.get(componentRef);
+  }
+
+  private static CodedInputStream newCodedInputStream(ByteBuffer data) {
+    CodedInputStream input = CodedInputStream.newInstance(data);
+    // the buffer is never modified, strings and bytes can share its memory
+    input.enableAliasing(true);
+    return input;
+  }
+
+  @Override
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    for (int i = 0; i < segments.length; i++) {
+      unmap(segments[i]);
+      segments[i] = null;
+    }
+  }
+
+  /**
+   * There is no public API to release a mapping before the buffer is garbage collected. If none of the
+   * JDK internal ways is available, the mapping is released by garbage collector.
+   */
+  private static void unmap(MappedByteBuffer buffer) {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Method invokeCleaner = findMethod(unsafeClass, "invokeCleaner", ByteBuffer.class);
+      if (invokeCleaner != null) {
+        // Java 9 and greater
+        Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+        theUnsafe.setAccessible(true);
+        invokeCleaner.invoke(theUnsafe.get(null), buffer);
+        return;
+      }
+      // Java 8
+      Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+      cleanerMethod.setAccessible(true);
+      Object cleaner = cleanerMethod.invoke(buffer);
+      if (cleaner != null) {
+        Method clean = cleaner.getClass().getMethod("clean");
+        clean.setAccessible(true);
+        clean.invoke(cleaner);
+      }
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // mapping is released by garbage collector
+    }
+  }
+
+  @CheckForNull
+  private static Method findMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+    try {
+      return type.getMethod(name, parameterTypes);
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  private static class Entry {
+    private final long offset;
+    private final int length;
+
+    private Entry(long offset, int length) {
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  /**
+   * Same as the iterator returned by {@link org.sonar.core.util.Protobuf#readStream(File, Parser)}, but
+   * messages are parsed from a {@link CodedInputStream}.
+   */
+  private static class StreamIterator<MSG extends Message> extends CloseableIterator<MSG> {
+    private final Parser<MSG> parser;
+    private final CodedInputStream input;
+
+    private StreamIterator(Parser<MSG> parser, CodedInputStream input) {
+      this.parser = parser;
+      this.input = input;
+    }
+
+    @Override
+    protected MSG doNext() {
+      try {
+        if (input.isAtEnd()) {
+          return null;
+        }
+        // the size limit applies to each message, not to the whole stream
+        input.resetSizeCounter();
+        int oldLimit = input.pushLimit(input.readRawVarint32());
+        MSG message = parser.parsePartialFrom(input);
+        input.popLimit(oldLimit);
+        return message;
+      } catch (IOException e) {
+        throw ContextException.of(e);
+      }
+    }
+
+    @Override
+    protected void doClose() {
+      // nothing to close, the segments are shared by all the iterators and are unmapped by PackedComponentsReader#close()
+    }
+  }
+
+  private static class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    private ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int count = Math.min(len, buffer.remaining());
+      buffer.get(bytes, off, count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.output;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import javax.annotation.CheckForNull;
+import org.sonar.core.util.ContextException;
+import org.sonar.core.util.Protobuf;
+
+/**
+ * Converts a report written by {@link ScannerReportWriter}, where data is stored in one file per component
+ * and per {@link FileStructure.Domain}, to the packed format declared by {@link FileStructure#PACKED_FORMAT_VERSION}.
+ * <p>
+ * Data of all components is appended to the single file {@link FileStructure#packedDataFile()}. The
+ * file {@link FileStructure#packedIndexFile()} locates the data of each component and domain. Other files
+ * (metadata, active rules, logs...) are copied as-is, except metadata which declares the new format version.
+ * </p>
+ */
+public class ScannerReportPacker {
+
+  private ScannerReportPacker() {
+    // only static stuff
+  }
+
+  public static void pack(File reportDir, File targetDir) {
+    FileStructure source = new FileStructure(reportDir);
+    FileStructure target = new FileStructure(targetDir);
+    File[] files = reportDir.listFiles();
+    if (files == null) {
+      throw new IllegalStateException("Unable to list files of analysis report: " + reportDir);
+    }
+
+    List<Entry> entries = new ArrayList<>();
+    try {
+      for (File file : files) {
+        Entry entry = entryOf(file);
+        if (entry != null) {
+          entries.add(entry);
+        } else if (file.isFile() && !file.equals(source.metadataFile())) {
+          Files.copy(file.toPath(), new File(targetDir, file.getName()).toPath());
+        }
+      }
+      // data of a domain is read component by component, keep it close on disk
+      entries.sort(Comparator.comparing((Entry e) -> e.domain).thenComparingInt(e -> e.componentRef));
+      writeData(entries, target.packedDataFile());
+      writeIndex(entries, target.packedIndexFile());
+    } catch (IOException e) {
+      throw ContextException.of("Unable to pack analysis report", e).addContext("dir", reportDir);
+    }
+
+    ScannerReport.Metadata metadata = Protobuf.read(source.metadataFile(), ScannerReport.Metadata.parser());
+    Protobuf.write(metadata.toBuilder().setReportFormatVersion(FileStructure.PACKED_FORMAT_VERSION).build(), target.metadataFile());
+  }
+
+  @CheckForNull
+  private static Entry entryOf(File file) {
+    if (!file.isFile()) {
+      return null;
+    }
+    for (FileStructure.Domain domain : FileStructure.Domain.values()) {
+      Integer componentRef = domain.componentRefOf(file.getName());
+      if (componentRef != null) {
+        return new Entry(domain, componentRef, file);
+      }
+    }
+    return null;
+  }
+
+  private static void writeData(List<Entry> entries, File dataFile) throws IOException {
+    try (FileChannel out = FileChannel.open(dataFile.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      long offset = 0L;
+      for (Entry entry : entries) {
+        try (FileChannel in = FileChannel.open(entry.file.toPath(), StandardOpenOption.READ)) {
+          long size = in.size();
+          if (size > PackedComponentsReader.MAX_ENTRY_SIZE) {
+            throw new IllegalStateException("File is too big to be packed: " + entry.file);
+          }
+          long transferred = 0L;
+          while (transferred < size) {
+            transferred += in.transferTo(transferred, size - transferred, out);
+          }
+          entry.offset = offset;
+          entry.length = (int) size;
+          offset += size;
+        }
+      }
+    }
+  }
+
+  private static void writeIndex(List<Entry> entries, File indexFile) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile.toPath(), StandardOpenOption.CREATE_NEW)))) {
+      out.writeInt(FileStructure.PACKED_FORMAT_VERSION);
+      out.writeInt(entries.size());
+      for (Entry entry : entries) {
+        out.writeUTF(entry.domain.name());
+        out.writeInt(entry.componentRef);
+        out.writeLong(entry.offset);
+        out.writeInt(entry.length);
+      }
+    }
+  }
+
+  private static class Entry {
+    private final FileStructure.Domain domain;
+    private final int componentRef;
+    private final File file;
+    private long offset;
+    private int length;
+
+    private Entry(FileStructure.Domain domain, int componentRef, File file) {
+      this.domain = domain;
+      this.componentRef = componentRef;
+      this.file = file;
+    }
+  }
+}
@@ -19,16 +19,29 @@
  */
 package org.sonar.scanner.protocol.output;
 
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
 import javax.annotation.CheckForNull;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.core.util.Protobuf;
 
 import static org.sonar.core.util.CloseableIterator.emptyCloseableIterator;
 
-public class ScannerReportReader {
+/**
+ * Reads the analysis report. Component data is stored either in one file per component and per domain, or in
+ * the packed format {@link FileStructure#PACKED_FORMAT_VERSION}, as declared by the metadata of the report.
+ */
+public class ScannerReportReader implements Closeable {
 
   private final FileStructure fileStructure;
+  private boolean formatLoaded = false;
+  @CheckForNull
+  private PackedComponentsReader packed;
 
   public ScannerReportReader(File dir) {
     this.fileStructure = new FileStructure(dir);
@@ -51,137 +64,123 @@ public class ScannerReportReader {
   }
 
   public CloseableIterator<ScannerReport.Measure> readComponentMeasures(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.MEASURES, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Measure.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.MEASURES, componentRef, ScannerReport.Measure.parser());
   }
 
   @CheckForNull
   public ScannerReport.Changesets readChangesets(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.CHANGESETS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.read(file, ScannerReport.Changesets.parser());
-    }
-    return null;
+    return readMessage(FileStructure.Domain.CHANGESETS, componentRef, ScannerReport.Changesets.parser());
   }
 
   public ScannerReport.Component readComponent(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COMPONENT, componentRef);
-    if (!fileExists(file)) {
-      throw new IllegalStateException("Unable to find report for component #" + componentRef + ". File does not exist: " + file);
+    ScannerReport.Component component = readMessage(FileStructure.Domain.COMPONENT, componentRef, ScannerReport.Component.parser());
+    if (component == null) {
+      throw new IllegalStateException("Unable to find report for component #" + componentRef + ". File does not exist: "
+        + fileStructure.fileFor(FileStructure.Domain.COMPONENT, componentRef));
     }
-    return Protobuf.read(file, ScannerReport.Component.parser());
+    return component;
   }
 
   public CloseableIterator<ScannerReport.Issue> readComponentIssues(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.ISSUES, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Issue.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.ISSUES, componentRef, ScannerReport.Issue.parser());
   }
 
   public CloseableIterator<ScannerReport.ExternalIssue> readComponentExternalIssues(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.EXTERNAL_ISSUES, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.ExternalIssue.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.EXTERNAL_ISSUES, componentRef, ScannerReport.ExternalIssue.parser());
   }
 
   public CloseableIterator<ScannerReport.Duplication> readComponentDuplications(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.DUPLICATIONS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Duplication.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.DUPLICATIONS, componentRef, ScannerReport.Duplication.parser());
   }
 
   public CloseableIterator<ScannerReport.CpdTextBlock> readCpdTextBlocks(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.CpdTextBlock.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef, ScannerReport.CpdTextBlock.parser());
   }
 
   public CloseableIterator<ScannerReport.Symbol> readComponentSymbols(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYMBOLS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Symbol.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.SYMBOLS, componentRef, ScannerReport.Symbol.parser());
   }
 
   public boolean hasSyntaxHighlighting(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef);
-    return file.exists();
+    return hasData(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef);
   }
 
   @CheckForNull
   public CloseableIterator<ScannerReport.LineSgnificantCode> readComponentSignificantCode(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SGNIFICANT_CODE, fileRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.LineSgnificantCode.parser());
+    if (hasData(FileStructure.Domain.SGNIFICANT_CODE, fileRef)) {
+      return readStream(FileStructure.Domain.SGNIFICANT_CODE, fileRef, ScannerReport.LineSgnificantCode.parser());
     }
     return null;
   }
 
   public boolean hasSignificantCode(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SGNIFICANT_CODE, fileRef);
-    return fileExists(file);
+    return hasData(FileStructure.Domain.SGNIFICANT_CODE, fileRef);
   }
 
   public CloseableIterator<ScannerReport.SyntaxHighlightingRule> readComponentSyntaxHighlighting(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, fileRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.SyntaxHighlightingRule.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, fileRef, ScannerReport.SyntaxHighlightingRule.parser());
   }
 
   public boolean hasCoverage(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGES, componentRef);
-    return file.exists();
+    return hasData(FileStructure.Domain.COVERAGES, componentRef);
   }
 
   public CloseableIterator<ScannerReport.LineCoverage> readComponentCoverage(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGES, fileRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.LineCoverage.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.COVERAGES, fileRef, ScannerReport.LineCoverage.parser());
   }
 
+  /**
+   * Supported only by reports in which component data is stored in one file per component.
+   * @see #openFileSource(int)
+   */
   @CheckForNull
   public File readFileSource(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SOURCE, fileRef);
-    if (fileExists(file)) {
-      return file;
-    }
-    return null;
+    return fileOf(FileStructure.Domain.SOURCE, fileRef);
+  }
+
+  /**
+   * Content of the source file, encoded in UTF-8, or {@code null} if the report does not contain it.
+   * The stream must be closed by caller.
+   */
+  @CheckForNull
+  public InputStream openFileSource(int fileRef) {
+    return openData(FileStructure.Domain.SOURCE, fileRef);
   }
 
+  /**
+   * Supported only by reports in which component data is stored in one file per component.
+   * @see #openTests(int)
+   */
   @CheckForNull
   public File readTests(int testFileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.TESTS, testFileRef);
-    if (fileExists(file)) {
-      return file;
-    }
+    return fileOf(FileStructure.Domain.TESTS, testFileRef);
+  }
 
-    return null;
+  /**
+   * Stream of delimited {@link ScannerReport.Test}, or {@code null} if the report does not contain tests
+   * for the file. The stream must be closed by caller.
+   */
+  @CheckForNull
+  public InputStream openTests(int testFileRef) {
+    return openData(FileStructure.Domain.TESTS, testFileRef);
   }
 
+  /**
+   * Supported only by reports in which component data is stored in one file per component.
+   * @see #openCoverageDetails(int)
+   */
   @CheckForNull
   public File readCoverageDetails(int testFileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGE_DETAILS, testFileRef);
-    if (fileExists(file)) {
-      return file;
-    }
+    return fileOf(FileStructure.Domain.COVERAGE_DETAILS, testFileRef);
+  }
 
-    return null;
+  /**
+   * Stream of delimited {@link ScannerReport.CoverageDetail}, or {@code null} if the report does not contain
+   * coverage details for the file. The stream must be closed by caller.
+   */
+  @CheckForNull
+  public InputStream openCoverageDetails(int testFileRef) {
+    return openData(FileStructure.Domain.COVERAGE_DETAILS, testFileRef);
   }
 
   public CloseableIterator<ScannerReport.ContextProperty> readContextProperties() {
@@ -192,6 +191,86 @@ public class ScannerReportReader {
     return Protobuf.readStream(file, ScannerReport.ContextProperty.parser());
   }
 
+  private boolean hasData(FileStructure.Domain domain, int componentRef) {
+    PackedComponentsReader packedReader = packed();
+    if (packedReader != null) {
+      return packedReader.has(domain, componentRef);
+    }
+    return fileExists(fileStructure.fileFor(domain, componentRef));
+  }
+
+  @CheckForNull
+  private <MSG extends Message> MSG readMessage(FileStructure.Domain domain, int componentRef, Parser<MSG> parser) {
+    PackedComponentsReader packedReader = packed();
+    if (packedReader != null) {
+      return packedReader.readMessage(domain, componentRef, parser);
+    }
+    File file = fileStructure.fileFor(domain, componentRef);
+    if (fileExists(file)) {
+      return Protobuf.read(file, parser);
+    }
+    return null;
+  }
+
+  private <MSG extends Message> CloseableIterator<MSG> readStream(FileStructure.Domain domain, int componentRef, Parser<MSG> parser) {
+    PackedComponentsReader packedReader = packed();
+    if (packedReader != null) {
+      return packedReader.readStream(domain, componentRef, parser);
+    }
+    File file = fileStructure.fileFor(domain, componentRef);
+    if (fileExists(file)) {
+      return Protobuf.readStream(file, parser);
+    }
+    return emptyCloseableIterator();
+  }
+
+  @CheckForNull
+  private InputStream openData(FileStructure.Domain domain, int componentRef) {
+    PackedComponentsReader packedReader = packed();
+    if (packedReader != null) {
+      return packedReader.openInputStream(domain, componentRef);
+    }
+    File file = fileOf(domain, componentRef);
+    if (file == null) {
+      return null;
+    }
+    try {
+      return new FileInputStream(file);
+    } catch (FileNotFoundException e) {
+      throw new IllegalStateException("Fail to open file " + file, e);
+    }
+  }
+
+  @CheckForNull
+  private File fileOf(FileStructure.Domain domain, int componentRef) {
+    if (packed() != null) {
+      throw new IllegalStateException("Data of domain " + domain + " is not stored in a dedicated file in packed analysis reports");
+    }
+    File file = fileStructure.fileFor(domain, componentRef);
+    if (fileExists(file)) {
+      return file;
+    }
+    return null;
+  }
+
+  /**
+   * Reader of the packed data of components, or {@code null} if the data of each component is stored in
+   * dedicated files. Reports without metadata are considered as not packed.
+   */
+  @CheckForNull
+  private synchronized PackedComponentsReader packed() {
+    if (!formatLoaded) {
+      int version = fileExists(fileStructure.metadataFile()) ? readMetadata().getReportFormatVersion() : 0;
+      if (version == FileStructure.PACKED_FORMAT_VERSION) {
+        packed = PackedComponentsReader.open(fileStructure);
+      } else if (version != 0) {
+        throw new IllegalStateException("Unsupported format version of analysis report: " + version);
+      }
+      formatLoaded = true;
+    }
+    return packed;
+  }
+
   private static boolean fileExists(File file) {
     return file.exists() && file.isFile();
   }
@@ -199,4 +278,16 @@ public class ScannerReportReader {
   public FileStructure getFileStructure() {
     return fileStructure;
   }
+
+  /**
+   * Releases the packed data of components, if any. The data of components can't be read anymore once
+   * the reader is closed. Closing is not needed for reports in which component data is stored in one file per
+   * component.
+   */
+  @Override
+  public synchronized void close() {
+    if (packed != null) {
+      packed.close();
+    }
+  }
 }
@@ -0,0 +1,160 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.output;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.core.util.Protobuf;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ScannerReportPackerTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private File reportDir;
+  private File packedDir;
+  private ScannerReportWriter writer;
+
+  @Before
+  public void setUp() throws Exception {
+    reportDir = temp.newFolder();
+    packedDir = temp.newFolder();
+    writer = new ScannerReportWriter(reportDir);
+    writer.writeMetadata(ScannerReport.Metadata.newBuilder().setProjectKey("PROJECT_A").setRootComponentRef(1).build());
+  }
+
+  @Test
+  public void packed_report_declares_its_format_in_metadata() {
+    ScannerReportPacker.pack(reportDir, packedDir);
+
+    ScannerReport.Metadata metadata = new ScannerReportReader(packedDir).readMetadata();
+    assertThat(metadata.getProjectKey()).isEqualTo("PROJECT_A");
+    assertThat(metadata.getReportFormatVersion()).isEqualTo(FileStructure.PACKED_FORMAT_VERSION);
+  }
+
+  @Test
+  public void component_data_is_stored_in_a_single_file() throws Exception {
+    writer.writeComponent(ScannerReport.Component.newBuilder().setRef(1).setKey("PROJECT_A").build());
+    writer.writeComponent(ScannerReport.Component.newBuilder().setRef(2).setPath("src/Foo.java").build());
+    writer.writeComponentIssues(2, asList(
+      ScannerReport.Issue.newBuilder().setMsg("first").build(),
+      ScannerReport.Issue.newBuilder().setMsg("second").build()));
+    writer.writeComponentChangesets(ScannerReport.Changesets.newBuilder().setComponentRef(2)
+      .addChangeset(ScannerReport.Changesets.Changeset.newBuilder().setDate(123_456_789L)).build());
+    FileUtils.write(writer.getSourceFile(2), "line1\nline2", StandardCharsets.UTF_8);
+    writer.writeContextProperties(asList(ScannerReport.ContextProperty.newBuilder().setKey("foo").setValue("bar").build()));
+
+    ScannerReportPacker.pack(reportDir, packedDir);
+
+    assertThat(packedDir.list()).containsOnly("metadata.pb", "context-props.pb", "components.data", "components.index");
+    ScannerReportReader underTest = new ScannerReportReader(packedDir);
+    assertThat(underTest.readComponent(1).getKey()).isEqualTo("PROJECT_A");
+    assertThat(underTest.readComponent(2).getPath()).isEqualTo("src/Foo.java");
+    try (CloseableIterator<ScannerReport.Issue> issues = underTest.readComponentIssues(2)) {
+      assertThat(issues).extracting(ScannerReport.Issue::getMsg).containsExactly("first", "second");
+    }
+    assertThat(underTest.readComponentIssues(1)).isEmpty();
+    assertThat(underTest.readChangesets(2).getChangeset(0).getDate()).isEqualTo(123_456_789L);
+    assertThat(underTest.readChangesets(1)).isNull();
+    try (InputStream source = underTest.openFileSource(2)) {
+      assertThat(IOUtils.toString(source, StandardCharsets.UTF_8)).isEqualTo("line1\nline2");
+    }
+    assertThat(underTest.openFileSource(1)).isNull();
+    assertThat(underTest.readContextProperties()).hasSize(1);
+  }
+
+  @Test
+  public void fail_to_read_component_without_data() {
+    ScannerReportPacker.pack(reportDir, packedDir);
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Unable to find report for component #2");
+
+    new ScannerReportReader(packedDir).readComponent(2);
+  }
+
+  @Test
+  public void files_are_not_available_in_packed_report() throws Exception {
+    FileUtils.touch(writer.getSourceFile(2));
+    ScannerReportPacker.pack(reportDir, packedDir);
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Data of domain SOURCE is not stored in a dedicated file in packed analysis reports");
+
+    new ScannerReportReader(packedDir).readFileSource(2);
+  }
+
+  @Test
+  public void entries_can_be_read_across_segments() {
+    for (int ref = 1; ref <= 20; ref++) {
+      writer.writeComponent(ScannerReport.Component.newBuilder().setRef(ref).setPath("src/File" + ref + ".java").build());
+    }
+    ScannerReportPacker.pack(reportDir, packedDir);
+
+    // segments much smaller than entries
+    PackedComponentsReader underTest = PackedComponentsReader.open(new FileStructure(packedDir), 7);
+
+    for (int ref = 1; ref <= 20; ref++) {
+      assertThat(underTest.readMessage(FileStructure.Domain.COMPONENT, ref, ScannerReport.Component.parser()).getPath())
+        .isEqualTo("src/File" + ref + ".java");
+    }
+  }
+
+  @Test
+  public void data_is_released_when_reader_is_closed() throws Exception {
+    writer.writeComponent(ScannerReport.Component.newBuilder().setRef(1).setPath("src/File1.java").build());
+    ScannerReportPacker.pack(reportDir, packedDir);
+    ScannerReportReader underTest = new ScannerReportReader(packedDir);
+    assertThat(underTest.readComponent(1).getPath()).isEqualTo("src/File1.java");
+
+    underTest.close();
+
+    // mapped file can be deleted, whatever the platform
+    FileUtils.deleteDirectory(packedDir);
+    assertThat(packedDir).doesNotExist();
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Packed analysis report is closed");
+    underTest.readComponent(1);
+  }
+
+  @Test
+  public void fail_if_format_version_is_not_supported() {
+    Protobuf.write(ScannerReport.Metadata.newBuilder().setReportFormatVersion(FileStructure.PACKED_FORMAT_VERSION + 1).build(), writer.getFileStructure().metadataFile());
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Unsupported format version of analysis report: " + (FileStructure.PACKED_FORMAT_VERSION + 1));
+
+    new ScannerReportReader(reportDir).readComponentIssues(1);
+  }
+}